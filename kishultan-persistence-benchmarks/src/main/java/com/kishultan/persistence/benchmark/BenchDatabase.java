@@ -0,0 +1,87 @@
+package com.kishultan.persistence.benchmark;
+
+import org.h2.jdbcx.JdbcDataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 基准测试用的 H2 内存数据库
+ */
+public final class BenchDatabase {
+
+    private BenchDatabase() {
+    }
+
+    /**
+     * 创建内存数据源（每个名字一个独立数据库，连接全部关闭后仍保留）
+     */
+    public static JdbcDataSource createDataSource(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+        return dataSource;
+    }
+
+    /**
+     * 重建 bench_users 表并写入 rows 行
+     */
+    public static void createUsers(Connection connection, int rows) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS bench_users");
+            stmt.execute("CREATE TABLE bench_users (id BIGINT PRIMARY KEY, name VARCHAR(50), "
+                    + "email VARCHAR(100), age INT, score BIGINT, balance DOUBLE, status VARCHAR(20))");
+        }
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO bench_users VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= rows; i++) {
+                ps.setLong(1, i);
+                ps.setString(2, "user" + i);
+                ps.setString(3, "user" + i + "@example.com");
+                if (i % 10 == 0) {
+                    ps.setNull(4, java.sql.Types.INTEGER);
+                } else {
+                    ps.setInt(4, 18 + i % 50);
+                }
+                ps.setLong(5, i * 10L);
+                ps.setDouble(6, i * 1.5D);
+                ps.setString(7, i % 2 == 0 ? "active" : "inactive");
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * 重建 bench_orders 表，为前 users 个用户各写入 ordersPerUser 个订单
+     */
+    public static void createOrders(Connection connection, int users, int ordersPerUser) throws SQLException {
+        recreateOrders(connection);
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO bench_orders VALUES (?, ?, ?)")) {
+            long id = 1;
+            for (int u = 1; u <= users; u++) {
+                for (int o = 0; o < ordersPerUser; o++) {
+                    ps.setLong(1, id++);
+                    ps.setLong(2, u);
+                    ps.setDouble(3, o * 9.9D);
+                    ps.addBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * 重建空的 bench_orders 表
+     */
+    public static void recreateOrders(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS bench_orders");
+            stmt.execute("CREATE TABLE bench_orders (id BIGINT PRIMARY KEY, user_id BIGINT, amount DOUBLE)");
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.kishultan.persistence.benchmark;
+
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * 基准测试实体：订单（JOIN 映射与批量插入）
+ */
+@Table(name = "bench_orders")
+public class BenchOrder {
+    @Id
+    private Long id;
+    private Long userId;
+    private double amount;
+
+    public BenchOrder() {
+    }
+
+    public BenchOrder(Long id, Long userId, double amount) {
+        this.id = id;
+        this.userId = userId;
+        this.amount = amount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(double amount) {
+        this.amount = amount;
+    }
+}
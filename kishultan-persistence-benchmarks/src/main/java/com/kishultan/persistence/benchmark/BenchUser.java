@@ -0,0 +1,86 @@
+package com.kishultan.persistence.benchmark;
+
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.util.List;
+
+/**
+ * 基准测试实体（常见字段类型；orders 仅在 JOIN 映射中填充）
+ */
+@Table(name = "bench_users")
+public class BenchUser {
+    @Id
+    private Long id;
+    private String name;
+    private String email;
+    private Integer age;
+    private long score;
+    private double balance;
+    private String status;
+    private List<BenchOrder> orders;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+    public void setAge(Integer age) {
+        this.age = age;
+    }
+
+    public long getScore() {
+        return score;
+    }
+
+    public void setScore(long score) {
+        this.score = score;
+    }
+
+    public double getBalance() {
+        return balance;
+    }
+
+    public void setBalance(double balance) {
+        this.balance = balance;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public List<BenchOrder> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<BenchOrder> orders) {
+        this.orders = orders;
+    }
+}
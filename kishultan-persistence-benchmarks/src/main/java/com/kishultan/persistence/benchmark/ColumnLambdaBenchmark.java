@@ -0,0 +1,44 @@
+package com.kishultan.persistence.benchmark;
+
+import com.kishultan.persistence.Columnable;
+import com.kishultan.persistence.ColumnabledLambda;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 方法引用解析：ColumnabledLambda.getFieldInfo（缓存命中路径，每次查询条件都会调用）
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColumnLambdaBenchmark {
+    private final Columnable<BenchUser, String> nameGetter = BenchUser::getName;
+
+    /**
+     * 同一个方法引用实例反复解析
+     */
+    @Benchmark
+    public ColumnabledLambda.FieldInfo getFieldInfoSameInstance() {
+        return ColumnabledLambda.getFieldInfo(nameGetter);
+    }
+
+    /**
+     * 调用点处的方法引用（与查询 DSL 中 w.eq(BenchUser::getName, ...) 相同）
+     */
+    @Benchmark
+    public ColumnabledLambda.FieldInfo getFieldInfoCallSite() {
+        return ColumnabledLambda.getFieldInfo(BenchUser::getEmail);
+    }
+}
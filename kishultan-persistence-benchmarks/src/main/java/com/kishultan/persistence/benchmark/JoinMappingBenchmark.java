@@ -0,0 +1,104 @@
+package com.kishultan.persistence.benchmark;
+
+import com.kishultan.persistence.query.DefaultRowMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JOIN 结果映射：DefaultRowMapper.mapRow 逐行构建嵌套实体，mergeList 按主键合并一对多集合
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JoinMappingBenchmark {
+    private static final String SQL = "SELECT u.id AS \"u__id\", u.name AS \"u__name\", u.email AS \"u__email\", "
+            + "o.id AS \"o__id\", o.user_id AS \"o__user_id\", o.amount AS \"o__amount\" "
+            + "FROM bench_users u JOIN bench_orders o ON o.user_id = u.id ORDER BY u.id, o.id";
+
+    @Param({"100"})
+    private int users;
+
+    @Param({"5"})
+    private int ordersPerUser;
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private DefaultRowMapper<BenchUser> mapper;
+
+    @Setup
+    public void setUp() throws Exception {
+        connection = BenchDatabase.createDataSource("join_mapping_bench").getConnection();
+        BenchDatabase.createUsers(connection, users);
+        BenchDatabase.createOrders(connection, users, ordersPerUser);
+        statement = connection.prepareStatement(SQL);
+        mapper = new DefaultRowMapper<>();
+        mapper.register(BenchUser.class, "u");
+        mapper.register(BenchOrder.class, "o");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        statement.close();
+        connection.close();
+    }
+
+    /**
+     * 逐行 mapRow（每行一个带单元素订单集合的用户）
+     */
+    @Benchmark
+    public List<BenchUser> mapRowJoined() throws Exception {
+        return mapRows();
+    }
+
+    /**
+     * 合并已映射的行：users * ordersPerUser 行合并为 users 个实体
+     */
+    @Benchmark
+    public List<BenchUser> mergeList(RawRows raw) throws Exception {
+        return mapper.mergeList(raw.rows, BenchUser.class);
+    }
+
+    /**
+     * mergeList 会把后续行的集合元素并入首行实体，每次调用前重新映射原始行
+     */
+    @State(Scope.Thread)
+    public static class RawRows {
+        List<BenchUser> rows;
+
+        @Setup(Level.Invocation)
+        public void map(JoinMappingBenchmark benchmark) throws Exception {
+            rows = benchmark.mapRows();
+        }
+    }
+
+    private List<BenchUser> mapRows() throws Exception {
+        List<BenchUser> result = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                result.add(mapper.mapRow(rs, BenchUser.class));
+            }
+        }
+        return result;
+    }
+}
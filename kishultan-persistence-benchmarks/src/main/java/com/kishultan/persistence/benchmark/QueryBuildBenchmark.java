@@ -0,0 +1,76 @@
+package com.kishultan.persistence.benchmark;
+
+import com.kishultan.persistence.query.builder.SQLQueryResultBuilder;
+import com.kishultan.persistence.query.cache.QueryKeyHasher;
+import com.kishultan.persistence.query.clause.StandardCriterion;
+import com.kishultan.persistence.query.context.QueryBuildContext;
+import com.kishultan.persistence.query.context.QueryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL 构建：StandardCriterion.buildQuery() 缓存命中、修改后重新构建全流程 与 SQLQueryResultBuilder.buildQueryWithParams 单独生成，
+ * 以及由构建结果生成查询缓存键
+ * <p>
+ * 只构建不执行，数据库仅用于解析方言
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBuildBenchmark {
+    private StandardCriterion<BenchUser> criterion;
+    private SQLQueryResultBuilder resultBuilder;
+    private QueryBuildContext<BenchUser> buildContext;
+
+    @Setup
+    public void setUp() {
+        DataSource dataSource = BenchDatabase.createDataSource("query_build_bench");
+        criterion = new StandardCriterion<>(BenchUser.class, dataSource);
+        criterion.where(w -> w.eq(BenchUser::getStatus, "active")
+                .ge(BenchUser::getAge, 20)
+                .like(BenchUser::getEmail, "%@example.com"));
+        criterion.createOrderClause().desc(BenchUser::getScore);
+        criterion.limit(0, 20);
+        // 预先构建一次，填充构建上下文
+        criterion.buildQuery();
+        resultBuilder = new SQLQueryResultBuilder();
+        buildContext = criterion.getBuildContext();
+    }
+
+    @Benchmark
+    public QueryBuilder buildQuery() {
+        return criterion.buildQuery();
+    }
+
+    @Benchmark
+    public QueryBuilder rebuildQuery() {
+        // 重新设置分页使已构建的查询失效，测量完整构建
+        criterion.limit(0, 20);
+        return criterion.buildQuery();
+    }
+
+    @Benchmark
+    public SQLQueryResultBuilder.QueryResultWithParams buildQueryWithParams() {
+        return resultBuilder.buildQueryWithParams(buildContext);
+    }
+
+    @Benchmark
+    public String cacheKey() {
+        QueryBuilder query = criterion.buildQuery();
+        return QueryKeyHasher.cacheKey("querybuilder:benchuser:findList", query.getSql(), query.getParameters());
+    }
+}
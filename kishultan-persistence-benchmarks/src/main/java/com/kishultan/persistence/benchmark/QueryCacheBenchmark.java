@@ -0,0 +1,96 @@
+package com.kishultan.persistence.benchmark;
+
+import com.kishultan.persistence.query.cache.CacheConfig;
+import com.kishultan.persistence.query.cache.LRUCacheStrategy;
+import com.kishultan.persistence.query.cache.QueryCacheImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QueryCacheImpl 并发读写：键空间大于容量，写入会持续触发淘汰
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryCacheBenchmark {
+    private static final List<String> VALUE = Collections.singletonList("row");
+
+    @Param({"1000", "100000"})
+    private int maxSize;
+
+    private QueryCacheImpl cache;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        CacheConfig config = new CacheConfig(true, maxSize, 300000);
+        config.setEnableAsync(false);
+        cache = new QueryCacheImpl(config, new LRUCacheStrategy());
+        keys = new String[maxSize * 2];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "SELECT * FROM bench_users WHERE id = ?|[" + i + "]";
+            if (i < maxSize) {
+                cache.put(keys[i], VALUE, 300000);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        cache.shutdown();
+    }
+
+    private String randomKey() {
+        return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object get() {
+        return cache.get(randomKey(), List.class);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void put() {
+        cache.put(randomKey(), VALUE, 300000);
+    }
+
+    /**
+     * 读多写少的混合负载：3 个读线程 + 1 个写线程
+     */
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public Object mixedGet() {
+        return cache.get(randomKey(), List.class);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedPut() {
+        cache.put(randomKey(), VALUE, 300000);
+    }
+}
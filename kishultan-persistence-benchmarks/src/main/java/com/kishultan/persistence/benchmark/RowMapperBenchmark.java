@@ -0,0 +1,101 @@
+package com.kishultan.persistence.benchmark;
+
+import com.kishultan.persistence.query.BytecodeRowMapper;
+import com.kishultan.persistence.query.DefaultRowMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 行映射对比：DefaultRowMapper（编译映射计划）vs BytecodeRowMapper（生成读取类）vs 手写 JDBC
+ * <p>
+ * 三者执行同一条 SQL，差异只在结果集到实体的映射
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMapperBenchmark {
+    private static final String SQL =
+            "SELECT id, name, email, age, score, balance, status FROM bench_users ORDER BY id";
+
+    @Param({"100", "1000"})
+    private int rows;
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private DefaultRowMapper<BenchUser> defaultMapper;
+    private BytecodeRowMapper<BenchUser> bytecodeMapper;
+
+    @Setup
+    public void setUp() throws Exception {
+        connection = BenchDatabase.createDataSource("row_mapper_bench").getConnection();
+        BenchDatabase.createUsers(connection, rows);
+        statement = connection.prepareStatement(SQL);
+        defaultMapper = new DefaultRowMapper<>();
+        defaultMapper.register(BenchUser.class, "bench_users");
+        bytecodeMapper = new BytecodeRowMapper<>();
+        bytecodeMapper.register(BenchUser.class, "bench_users");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        statement.close();
+        connection.close();
+    }
+
+    @Benchmark
+    public List<BenchUser> defaultRowMapper() throws Exception {
+        try (ResultSet rs = statement.executeQuery()) {
+            return defaultMapper.mapRows(rs, BenchUser.class, SQL);
+        }
+    }
+
+    @Benchmark
+    public List<BenchUser> bytecodeRowMapper() throws Exception {
+        try (ResultSet rs = statement.executeQuery()) {
+            return bytecodeMapper.mapRows(rs, BenchUser.class, SQL);
+        }
+    }
+
+    /**
+     * 手写映射，作为上限参考
+     */
+    @Benchmark
+    public List<BenchUser> handwrittenJdbc() throws Exception {
+        try (ResultSet rs = statement.executeQuery()) {
+            List<BenchUser> result = new ArrayList<>();
+            while (rs.next()) {
+                BenchUser user = new BenchUser();
+                user.setId(rs.getLong(1));
+                user.setName(rs.getString(2));
+                user.setEmail(rs.getString(3));
+                int age = rs.getInt(4);
+                user.setAge(rs.wasNull() ? null : age);
+                user.setScore(rs.getLong(5));
+                user.setBalance(rs.getDouble(6));
+                user.setStatus(rs.getString(7));
+                result.add(user);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.kishultan.persistence.benchmark;
+
+import com.kishultan.persistence.EntityManager;
+import com.kishultan.persistence.delegate.SansOrmEntityManagerFactory;
+import com.zaxxer.sansorm.OrmElf;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量插入：EntityManager.saveAll（JDBC batch）与逐条 OrmElf.insertObject 对比
+ * <p>
+ * 主键由计数器分配，每轮迭代前清空表
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaveAllBenchmark {
+    @Param({"100"})
+    private int batchSize;
+
+    private DataSource dataSource;
+    private Connection keepAlive;
+    private EntityManager entityManager;
+    private long nextId;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = BenchDatabase.createDataSource("save_all_bench");
+        keepAlive = dataSource.getConnection();
+        entityManager = new EntityManager(new SansOrmEntityManagerFactory(dataSource));
+    }
+
+    @Setup(Level.Iteration)
+    public void resetTable() throws Exception {
+        BenchDatabase.recreateOrders(keepAlive);
+        nextId = 1;
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        keepAlive.close();
+    }
+
+    private List<BenchOrder> newOrders() {
+        List<BenchOrder> orders = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            long id = nextId++;
+            orders.add(new BenchOrder(id, id % 100, id * 0.5D));
+        }
+        return orders;
+    }
+
+    @Benchmark
+    public List<BenchOrder> entityManagerSaveAll() {
+        return entityManager.saveAll(newOrders());
+    }
+
+    /**
+     * 逐条插入参照：单个连接、单个事务内循环 OrmElf.insertObject
+     */
+    @Benchmark
+    public List<BenchOrder> ormElfInsertLoop() throws Exception {
+        List<BenchOrder> orders = newOrders();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            for (BenchOrder order : orders) {
+                OrmElf.insertObject(connection, order);
+            }
+            connection.commit();
+        }
+        return orders;
+    }
+}
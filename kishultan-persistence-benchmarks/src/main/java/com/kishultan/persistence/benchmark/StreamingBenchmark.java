@@ -0,0 +1,90 @@
+package com.kishultan.persistence.benchmark;
+
+import com.kishultan.persistence.query.clause.StandardCriterion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 流式读取全表：批次（StreamingQuerySpliterator）、分页（PaginatedStreamingQuerySpliterator）、
+ * 预取、键集分页和游标几种读取方式
+ * <p>
+ * 流式查询会修改查询构建器的分页状态，每次调用使用新的 StandardCriterion
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamingBenchmark {
+    @Param({"10000"})
+    private int rows;
+
+    @Param({"500"})
+    private int batchSize;
+
+    private DataSource dataSource;
+    private Connection keepAlive;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = BenchDatabase.createDataSource("streaming_bench");
+        keepAlive = dataSource.getConnection();
+        BenchDatabase.createUsers(keepAlive, rows);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        keepAlive.close();
+    }
+
+    private StandardCriterion<BenchUser> criterion() {
+        return new StandardCriterion<>(BenchUser.class, dataSource);
+    }
+
+    private static long consume(Stream<BenchUser> stream) {
+        try (Stream<BenchUser> s = stream) {
+            return s.mapToLong(BenchUser::getScore).sum();
+        }
+    }
+
+    @Benchmark
+    public long batchStream() {
+        return consume(criterion().createStreamingCriterion().stream(batchSize));
+    }
+
+    @Benchmark
+    public long paginatedStream() {
+        return consume(criterion().createStreamingCriterion().streamWithPagination(batchSize));
+    }
+
+    @Benchmark
+    public long prefetchStream() {
+        return consume(criterion().createStreamingCriterion().streamWithPrefetch(batchSize));
+    }
+
+    @Benchmark
+    public long keysetStream() {
+        return consume(criterion().createStreamingCriterion().streamWithKeyset(batchSize));
+    }
+
+    @Benchmark
+    public long cursorStream() {
+        return consume(criterion().createStreamingCriterion().streamCursor(batchSize));
+    }
+}
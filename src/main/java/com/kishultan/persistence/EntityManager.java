@@ -1,9 +1,16 @@
 package com.kishultan.persistence;
 
-import com.kishultan.persistence.query.BeanMeta;
+import com.kishultan.persistence.batch.BulkInsertEngine;
+import com.kishultan.persistence.batch.BulkInsertException;
+import com.kishultan.persistence.batch.BulkInsertOptions;
+import com.kishultan.persistence.batch.BulkWriteEngine;
+import com.kishultan.persistence.batch.ChangeTracker;
+import com.kishultan.persistence.batch.BulkWriteException;
+import com.kishultan.persistence.dialect.DatabaseDialect;
+import com.kishultan.persistence.dialect.DialectFactory;
 import com.kishultan.persistence.query.Criterion;
-import com.kishultan.persistence.query.DefaultRowMapper;
-import com.kishultan.persistence.query.PropertyAccessor;
+import com.kishultan.persistence.query.cache.EntityCache;
+import com.kishultan.persistence.query.cache.TableVersions;
 import com.kishultan.persistence.query.clause.StandardCriterion;
 import com.kishultan.persistence.query.utils.EntityUtils;
 import com.zaxxer.sansorm.OrmElf;
@@ -11,8 +18,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
+import java.lang.reflect.Field;
 import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -22,6 +37,11 @@ import java.util.function.Supplier;
  * 提供实体CRUD操作和事务管理的统一接口
  * 线程安全实现，使用ThreadLocal管理事务状态
  * 不依赖具体的实现类，只依赖接口
+ * <p>
+ * 启用实体缓存的实体类（见 {@link EntityCache}），findById / findAll 优先读取缓存，
+ * 写操作在提交后写入或移除缓存条目，回滚时不影响缓存
+ * <p>
+ * 跟踪变更的实体类（见 {@link ChangeTracker}），findById / findAll 加载的实体保存快照，update 只更新变化的列
  */
 public class EntityManager {
     private static final Logger logger = LoggerFactory.getLogger(EntityManager.class);
@@ -30,6 +50,8 @@ public class EntityManager {
     private final EntityManagerFactory entityManagerFactory;
     private final DataSource dataSource;
     private final String dataSourceName;
+    // 批量写入使用的方言，首次批量写入时按连接的数据库产品名称解析
+    private volatile DatabaseDialect dialect;
 
     public EntityManager(EntityManagerFactory entityManagerFactory) {
         this.entityManagerFactory = entityManagerFactory;
@@ -71,23 +93,54 @@ public class EntityManager {
      */
     public <T> T save(T entity) {
         logger.debug("保存实体: {}", entity.getClass().getSimpleName());
-        return executeWithTransactionOrConnection(
+        T saved = executeWithTransactionOrConnection(
                 () -> "保存实体",
                 connection -> saveWithConnection(entity, connection),
                 () -> saveWithConnection(entity, null)
         );
+        recordWrite(entity.getClass());
+        cacheWrite(saved != null ? saved : entity);
+        return saved;
     }
 
     /**
      * 批量保存实体
      */
     public <T> List<T> saveAll(List<T> entities) {
-        logger.debug("批量保存实体，数量: {}", entities.size());
-        return executeWithTransactionOrConnection(
-                () -> "批量保存实体",
-                connection -> saveAllWithConnection(entities, connection),
-                () -> saveAllWithConnection(entities, null)
-        );
+        return saveAll(entities, BulkInsertOptions.createDefault());
+    }
+
+    /**
+     * 按指定选项批量保存实体（分块大小、按块提交、多行 VALUES）
+     * 失败时抛出 {@link BulkInsertException}，包含已写入的行数和失败的行
+     *
+     * @param entities 实体列表，必须属于同一个实体类
+     * @param options  批量插入选项
+     * @return 保存的实体列表，自增主键已回填
+     */
+    public <T> List<T> saveAll(List<T> entities, BulkInsertOptions options) {
+        logger.debug("批量保存实体，数量: {}, 选项: {}", entities.size(), options);
+        List<T> saved;
+        try {
+            saved = executeWithTransactionOrConnection(
+                    () -> "批量保存实体",
+                    connection -> saveAllWithConnection(entities, connection, options),
+                    () -> saveAllWithConnection(entities, null, options)
+            );
+        } catch (RuntimeException e) {
+            // 按块提交时失败前的块已写入，同样需要使缓存失效
+            if (!entities.isEmpty()) {
+                recordFailedWrite(entities.get(0).getClass());
+            }
+            throw e;
+        }
+        if (!entities.isEmpty()) {
+            recordWrite(entities.get(0).getClass());
+        }
+        for (T entity : entities) {
+            cacheWrite(entity);
+        }
+        return saved;
     }
 
     /**
@@ -95,11 +148,25 @@ public class EntityManager {
      */
     public <T> T update(T entity) {
         logger.debug("更新实体: {}", entity.getClass().getSimpleName());
-        return executeWithTransactionOrConnection(
+        // 跟踪变更的实体只更新变化的列，没有变化时不执行语句
+        BitSet changed = ChangeTracker.isTracked(entity.getClass()) ? ChangeTracker.changedColumns(entity) : null;
+        if (changed != null && changed.isEmpty()) {
+            logger.debug("实体没有变化，跳过更新: {}", entity.getClass().getSimpleName());
+            return entity;
+        }
+        T updated = executeWithTransactionOrConnection(
                 () -> "更新实体",
-                connection -> updateWithConnection(entity, connection),
-                () -> updateWithConnection(entity, null)
+                connection -> updateWithConnection(entity, changed, connection),
+                () -> updateWithConnection(entity, changed, null)
         );
+        if (changed != null) {
+            // 提交后以更新后的值作为新的快照，回滚时保留原快照
+            Object[] snapshot = ChangeTracker.snapshot(entity);
+            afterCommit(() -> ChangeTracker.replace(entity, snapshot));
+        }
+        recordWrite(entity.getClass());
+        cacheWrite(updated != null ? updated : entity);
+        return updated;
     }
 
     /**
@@ -118,6 +185,10 @@ public class EntityManager {
                     return null;
                 }
         );
+        recordWrite(entity.getClass());
+        if (EntityCache.isCacheable(entity.getClass())) {
+            cacheEvict(entity.getClass(), EntityCache.idOf(entity));
+        }
     }
 
     /**
@@ -136,6 +207,155 @@ public class EntityManager {
                     return null;
                 }
         );
+        recordWrite(entityClass);
+        cacheEvict(entityClass, id);
+    }
+
+    /**
+     * 批量更新实体
+     */
+    public <T> List<T> updateAll(List<T> entities) {
+        return updateAll(entities, BulkInsertOptions.createDefault());
+    }
+
+    /**
+     * 按指定选项批量更新实体：按实体类分组，每组按主键更新全部非主键列
+     * 多个实体类时按类依次执行，不在事务中时每组各自提交；失败时抛出 {@link BulkWriteException}
+     *
+     * @param entities 实体列表
+     * @param options  批量写入选项
+     * @return 实体列表
+     */
+    public <T> List<T> updateAll(List<T> entities, BulkInsertOptions options) {
+        logger.debug("批量更新实体，数量: {}", entities.size());
+        for (List<T> group : groupByClass(entities)) {
+            Class<?> entityClass = group.get(0).getClass();
+            try {
+                executeBulk("批量更新实体",
+                        (connection, ownsTransaction) -> bulkWriteEngine(connection, options)
+                                .update(connection, group, ownsTransaction));
+            } catch (RuntimeException e) {
+                recordFailedWrite(entityClass);
+                throw e;
+            }
+            recordWrite(entityClass);
+            refreshSnapshots(entityClass, group);
+            for (T entity : group) {
+                cacheWrite(entity);
+            }
+        }
+        return entities;
+    }
+
+    /**
+     * 批量插入或更新实体
+     */
+    public <T> List<T> upsertAll(List<T> entities) {
+        return upsertAll(entities, BulkInsertOptions.createDefault());
+    }
+
+    /**
+     * 按指定选项批量插入或更新实体：主键已存在时更新，否则插入
+     * 使用方言的 upsert 语句（MySQL 系 ON DUPLICATE KEY UPDATE，PostgreSQL 系 ON CONFLICT，
+     * Oracle / SQL Server / DB2 / 达梦 MERGE），自增主键为 null 的实体按 {@link #saveAll} 插入
+     *
+     * @param entities 实体列表
+     * @param options  批量写入选项
+     * @return 实体列表，插入的实体已回填自增主键
+     * @throws UnsupportedOperationException 方言不支持 upsert
+     */
+    public <T> List<T> upsertAll(List<T> entities, BulkInsertOptions options) {
+        logger.debug("批量插入或更新实体，数量: {}", entities.size());
+        for (List<T> group : groupByClass(entities)) {
+            Class<?> entityClass = group.get(0).getClass();
+            Field identityField = EntityUtils.getIdentityField(entityClass);
+            List<T> upserts = new ArrayList<>(group.size());
+            List<T> inserts = new ArrayList<>();
+            for (T entity : group) {
+                if (identityField != null && EntityCache.idOf(entity) == null) {
+                    inserts.add(entity);
+                } else {
+                    upserts.add(entity);
+                }
+            }
+            if (!upserts.isEmpty()) {
+                try {
+                    executeBulk("批量插入或更新实体",
+                            (connection, ownsTransaction) -> bulkWriteEngine(connection, options)
+                                    .upsert(connection, upserts, ownsTransaction));
+                } catch (RuntimeException e) {
+                    recordFailedWrite(entityClass);
+                    throw e;
+                }
+                recordWrite(entityClass);
+                refreshSnapshots(entityClass, upserts);
+                for (T entity : upserts) {
+                    cacheWrite(entity);
+                }
+            }
+            if (!inserts.isEmpty()) {
+                saveAll(inserts, options);
+            }
+        }
+        return entities;
+    }
+
+    /**
+     * 批量删除实体：按实体类分组，每组执行 DELETE ... WHERE pk IN (...)
+     *
+     * @param entities 实体列表
+     * @return 删除的行数（驱动未报告的语句不计入）
+     */
+    public <T> int deleteAll(List<T> entities) {
+        logger.debug("批量删除实体，数量: {}", entities.size());
+        int deleted = 0;
+        for (List<T> group : groupByClass(entities)) {
+            Class<?> entityClass = group.get(0).getClass();
+            try {
+                deleted += executeBulk("批量删除实体",
+                        (connection, ownsTransaction) -> bulkWriteEngine(connection, null)
+                                .delete(connection, group, ownsTransaction));
+            } catch (RuntimeException e) {
+                recordFailedWrite(entityClass);
+                throw e;
+            }
+            recordWrite(entityClass);
+            if (EntityCache.isCacheable(entityClass)) {
+                for (T entity : group) {
+                    cacheEvict(entityClass, EntityCache.idOf(entity));
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * 根据ID批量删除实体
+     *
+     * @param entityClass 实体类
+     * @param ids         主键集合
+     * @return 删除的行数（驱动未报告的语句不计入）
+     */
+    public <T> int deleteAllById(Class<T> entityClass, Collection<?> ids) {
+        logger.debug("根据ID批量删除实体: {}，数量: {}", entityClass.getSimpleName(), ids.size());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Object> idList = new ArrayList<>(ids);
+        int deleted;
+        try {
+            deleted = executeBulk("根据ID批量删除实体",
+                    (connection, ownsTransaction) -> bulkWriteEngine(connection, null)
+                            .delete(connection, entityClass, idList, ownsTransaction));
+        } catch (RuntimeException e) {
+            recordFailedWrite(entityClass);
+            throw e;
+        }
+        recordWrite(entityClass);
+        for (Object id : idList) {
+            cacheEvict(entityClass, id);
+        }
+        return deleted;
     }
 
     /**
@@ -143,7 +363,11 @@ public class EntityManager {
      */
     public <T> T findById(Class<T> entityClass, Object id) {
         logger.debug("根据ID查找实体: {} - {}", entityClass.getSimpleName(), id);
-        return findByIdWithConnection(entityClass, id, null);
+        T entity = isEntityCacheUsable(entityClass)
+                ? EntityCache.find(dataSourceName, entityClass, id, () -> findByIdWithConnection(entityClass, id, null))
+                : findByIdWithConnection(entityClass, id, null);
+        ChangeTracker.track(entity);
+        return entity;
     }
 
     /**
@@ -151,7 +375,11 @@ public class EntityManager {
      */
     public <T> List<T> findAll(Class<T> entityClass) {
         logger.debug("查找所有实体: {}", entityClass.getSimpleName());
-        return findAllWithConnection(entityClass, null);
+        List<T> entities = isEntityCacheUsable(entityClass)
+                ? EntityCache.findAll(dataSourceName, entityClass, () -> findAllWithConnection(entityClass, null))
+                : findAllWithConnection(entityClass, null);
+        ChangeTracker.trackAll(entities);
+        return entities;
     }
 
     /**
@@ -198,6 +426,79 @@ public class EntityManager {
     }
     // ==================== 私有辅助方法 ====================
 
+    /**
+     * 记录实体表的写操作，使读取过该表的查询缓存失效（事务中推迟到提交）
+     * 写入的实体随后由 cacheWrite / cacheEvict 更新实体缓存，按主键缓存的其他实体不受影响
+     */
+    private void recordWrite(Class<?> entityClass) {
+        TableVersions.recordManagedWrite(getCurrentTransaction(),
+                Collections.singleton(EntityUtils.getTableName(entityClass)));
+    }
+
+    /**
+     * 记录失败的批量写操作：失败前已写入的行不会更新实体缓存，按外部写入使该表按主键缓存的实体一并失效
+     */
+    private void recordFailedWrite(Class<?> entityClass) {
+        TableVersions.recordWrite(getCurrentTransaction(),
+                Collections.singleton(EntityUtils.getTableName(entityClass)));
+    }
+
+    /**
+     * 批量写入全部列后以写入的值作为跟踪实体的新快照，提交后生效，回滚时保留原快照
+     */
+    private void refreshSnapshots(Class<?> entityClass, List<?> entities) {
+        if (!ChangeTracker.isTracked(entityClass)) {
+            return;
+        }
+        for (Object entity : entities) {
+            if (ChangeTracker.isTracking(entity)) {
+                Object[] snapshot = ChangeTracker.snapshot(entity);
+                afterCommit(() -> ChangeTracker.replace(entity, snapshot));
+            }
+        }
+    }
+
+    /**
+     * 实体缓存是否可用：实体类启用了实体缓存，且当前事务中没有未提交的写操作
+     */
+    private boolean isEntityCacheUsable(Class<?> entityClass) {
+        if (!EntityCache.isCacheable(entityClass)) {
+            return false;
+        }
+        EntityTransaction transaction = getCurrentTransaction();
+        return transaction == null || !transaction.isActive() || !transaction.hasPendingWrites();
+    }
+
+    /**
+     * 保存或更新后写入实体缓存：立即复制实体，事务中推迟到提交后写入
+     */
+    private void cacheWrite(Object entity) {
+        if (entity == null || !EntityCache.isCacheable(entity.getClass())) {
+            return;
+        }
+        Object snapshot = EntityCache.copy(entity);
+        afterCommit(() -> EntityCache.put(dataSourceName, snapshot));
+    }
+
+    /**
+     * 删除后移除实体缓存，事务中推迟到提交后移除
+     */
+    private void cacheEvict(Class<?> entityClass, Object id) {
+        if (id == null || !EntityCache.isCacheable(entityClass)) {
+            return;
+        }
+        afterCommit(() -> EntityCache.evict(dataSourceName, entityClass, id));
+    }
+
+    private void afterCommit(Runnable action) {
+        EntityTransaction transaction = getCurrentTransaction();
+        if (transaction != null && transaction.isActive()) {
+            transaction.afterCommit(action);
+        } else {
+            action.run();
+        }
+    }
+
     /**
      * 统一的执行策略：优先使用事务连接，否则使用新连接
      *
@@ -237,26 +538,27 @@ public class EntityManager {
         }
     }
 
-    private <T> List<T> saveAllWithConnection(List<T> entities, Connection connection) {
+    private <T> List<T> saveAllWithConnection(List<T> entities, Connection connection, BulkInsertOptions options) {
         if (entities == null || entities.isEmpty()) {
             return entities;
         }
         
         try {
             // 对于小批量（少于10条），使用原有方式（OrmElf 处理主键生成等）
-            // 对于大批量，尝试使用 JDBC Batch 优化
+            // 对于大批量，使用批量插入引擎
             if (entities.size() < 10) {
                 return saveAllWithOrmElf(entities, connection);
             } else {
-                // 尝试使用批量插入优化
                 try {
-                    return saveAllWithBatch(entities, connection);
-                } catch (Exception e) {
-                    // 如果批量插入失败，回退到原有方式
-                    logger.debug("批量插入优化失败，回退到原有方式: {}", e.getMessage());
+                    return saveAllWithBatch(entities, connection, options);
+                } catch (IllegalStateException e) {
+                    // 无法构建插入计划时尚未执行任何语句，回退到原有方式
+                    logger.debug("无法使用批量插入引擎，回退到原有方式: {}", e.getMessage());
                     return saveAllWithOrmElf(entities, connection);
                 }
             }
+        } catch (BulkWriteException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("批量保存实体失败", e);
             throw new RuntimeException("Failed to save entities", e);
@@ -288,147 +590,107 @@ public class EntityManager {
     }
     
     /**
-     * 使用 JDBC Batch 批量保存（性能优化版本）
-     * 优化：支持自增主键（IDENTITY），并回填ID
+     * 使用批量插入引擎保存（分块、多行 VALUES、回填自增主键）
      */
-    private <T> List<T> saveAllWithBatch(List<T> entities, Connection connection) throws Exception {
-        Connection conn = connection;
-        boolean shouldClose = false;
-        boolean wasAutoCommit = true;
-        
-        try {
-            // 获取连接
-            if (conn == null) {
-                EntityTransaction tx = getCurrentTransaction();
-                if (tx != null && tx.isActive()) {
-                    conn = tx.getConnection();
-                    logger.debug("批量插入: 重用事务连接");
-                } else {
-                    conn = dataSource.getConnection();
-                    shouldClose = true;
-                    wasAutoCommit = conn.getAutoCommit();
-                    if (wasAutoCommit) {
-                        conn.setAutoCommit(false);
-                    }
-                    logger.debug("批量插入: 创建新连接");
-                }
-            }
-            
-            // 准备批量插入
-            Class<?> entityClass = entities.get(0).getClass();
-            String tableName = EntityUtils.getTableName(entityClass);
-            // 获取所有列，排除 IDENTITY 主键
-            String[] columns = EntityUtils.getColumnNames(entityClass, true);
-            
-            if (columns.length == 0) {
-                throw new IllegalStateException("实体类 " + entityClass.getName() + " 没有可插入的列");
-            }
-            
-            // 查找 Identity 字段（用于回填主键）
-            java.lang.reflect.Field identityField = EntityUtils.getIdentityField(entityClass);
-            
-            // 构建 INSERT SQL
-            StringBuilder sql = new StringBuilder();
-            sql.append("INSERT INTO ").append(tableName).append(" (");
-            sql.append(String.join(", ", columns));
-            sql.append(") VALUES (");
-            for (int i = 0; i < columns.length; i++) {
-                if (i > 0) sql.append(", ");
-                sql.append("?");
-            }
-            sql.append(")");
-            
-            // 使用 BeanMeta 获取字段访问器
-            BeanMeta beanMeta =
-                new BeanMeta(entityClass);
-            
-            // 获取字段映射（列名 -> Field）
-            java.util.Map<String, java.lang.reflect.Field> columnToFieldMap = new java.util.HashMap<>();
-            for (java.lang.reflect.Field field : entityClass.getDeclaredFields()) {
-                String columnName = EntityUtils.getColumnName(field);
-                columnToFieldMap.put(columnName, field);
-            }
-            
-            // 准备 Statement (如果有Identity字段，请求返回生成的主键)
-            int autoGeneratedKeys = identityField != null ? java.sql.Statement.RETURN_GENERATED_KEYS : java.sql.Statement.NO_GENERATED_KEYS;
-            
-            try (java.sql.PreparedStatement pstmt = conn.prepareStatement(sql.toString(), autoGeneratedKeys)) {
-                for (T entity : entities) {
-                    // 设置参数
-                    for (int i = 0; i < columns.length; i++) {
-                        String columnName = columns[i];
-                        java.lang.reflect.Field field = columnToFieldMap.get(columnName);
-                        if (field != null) {
-                            PropertyAccessor accessor =
-                                beanMeta.getPropertyAccessor(field);
-                            Object value = accessor.get(entity);
-                            pstmt.setObject(i + 1, value);
-                        } else {
-                            pstmt.setObject(i + 1, null);
-                        }
-                    }
-                    pstmt.addBatch();
-                }
-                
-                // 执行批量插入
-                int[] results = pstmt.executeBatch();
-                logger.debug("批量插入执行完成: 表={}, 数量={}, 结果={}", tableName, entities.size(), results.length);
-                
-                // 回填主键
-                if (identityField != null) {
-                    DefaultRowMapper<?> rowMapper = new DefaultRowMapper<>();
-                    try (java.sql.ResultSet rs = pstmt.getGeneratedKeys()) {
-                        int index = 0;
-                        while (rs.next() && index < entities.size()) {
-                            // 使用 RowMapper 转换主键类型
-                            Object idValue = rowMapper.mapRow(rs, (Class) identityField.getType());
-                            if (idValue != null) {
-                                T entity = entities.get(index);
-                                PropertyAccessor accessor =
-                                    beanMeta.getPropertyAccessor(identityField);
-                                accessor.set(entity, idValue);
-                            }
-                            index++;
-                        }
-                    } catch (Exception ex) {
-                        logger.warn("回填主键失败: {}", ex.getMessage());
-                    }
-                }
-                
-                // 提交（仅当不在事务中时）
-                if (shouldClose && wasAutoCommit) {
-                    conn.commit();
-                }
-            }
-            
+    private <T> List<T> saveAllWithBatch(List<T> entities, Connection connection, BulkInsertOptions options)
+            throws SQLException {
+        return withBulkConnection(connection, (conn, ownsTransaction) -> {
+            bulkInsertEngine(conn, options).insert(conn, entities, ownsTransaction);
             return entities;
-        } catch (Exception e) {
-            // 回滚（仅当不在事务中时）
-            if (shouldClose && conn != null) {
-                try {
-                    conn.rollback();
-                } catch (java.sql.SQLException rollbackEx) {
-                    logger.warn("批量插入回滚失败", rollbackEx);
-                }
+        });
+    }
+
+    /**
+     * 批量写入操作，ownsTransaction 为 true 时由操作自行提交和回滚
+     */
+    @FunctionalInterface
+    private interface BulkOperation<R> {
+        R execute(Connection connection, boolean ownsTransaction) throws SQLException;
+    }
+
+    /**
+     * 执行批量写入：优先使用事务连接，否则使用新连接
+     * 批量写入失败（{@link BulkWriteException}）、无主键等异常直接抛出，其余 SQL 异常包装后抛出
+     */
+    private <R> R executeBulk(String operationName, BulkOperation<R> operation) {
+        Function<Connection, R> execute = connection -> {
+            try {
+                return withBulkConnection(connection, operation);
+            } catch (SQLException e) {
+                logger.error("{}失败", operationName, e);
+                throw new RuntimeException("Failed to execute bulk operation: " + operationName, e);
             }
-            throw e;
-        } finally {
-            // 恢复自动提交并关闭连接（仅当不在事务中时）
-            if (shouldClose && conn != null) {
-                try {
-                    if (wasAutoCommit) {
+        };
+        return executeWithTransactionOrConnection(() -> operationName, execute, () -> execute.apply(null));
+    }
+
+    /**
+     * 在事务中时使用事务连接，由事务提交；否则使用关闭自动提交的新连接，由批量写入引擎提交
+     */
+    private <R> R withBulkConnection(Connection connection, BulkOperation<R> operation) throws SQLException {
+        if (connection != null) {
+            return operation.execute(connection, false);
+        }
+        try (Connection conn = dataSource.getConnection()) {
+            boolean wasAutoCommit = conn.getAutoCommit();
+            if (wasAutoCommit) {
+                conn.setAutoCommit(false);
+            }
+            try {
+                return operation.execute(conn, true);
+            } finally {
+                if (wasAutoCommit) {
+                    try {
                         conn.setAutoCommit(true);
+                    } catch (SQLException e) {
+                        logger.warn("恢复自动提交失败", e);
                     }
-                    conn.close();
-                } catch (java.sql.SQLException e) {
-                    logger.warn("关闭连接失败", e);
                 }
             }
         }
     }
 
-    private <T> T updateWithConnection(T entity, Connection connection) {
+    private BulkInsertEngine bulkInsertEngine(Connection connection, BulkInsertOptions options) throws SQLException {
+        return new BulkInsertEngine(resolveDialect(connection), options);
+    }
+
+    private BulkWriteEngine bulkWriteEngine(Connection connection, BulkInsertOptions options) throws SQLException {
+        return new BulkWriteEngine(resolveDialect(connection), options);
+    }
+
+    private DatabaseDialect resolveDialect(Connection connection) throws SQLException {
+        DatabaseDialect current = dialect;
+        if (current == null) {
+            // 按产品名称缓存，使用当前连接的元数据，不另取连接
+            current = DialectFactory.createDialect(connection.getMetaData().getDatabaseProductName());
+            dialect = current;
+        }
+        return current;
+    }
+
+    /**
+     * 按实体类分组，保持首次出现的顺序
+     */
+    private static <T> Collection<List<T>> groupByClass(List<T> entities) {
+        Map<Class<?>, List<T>> groups = new LinkedHashMap<>();
+        for (T entity : entities) {
+            groups.computeIfAbsent(entity.getClass(), type -> new ArrayList<>()).add(entity);
+        }
+        return groups.values();
+    }
+
+    private <T> T updateWithConnection(T entity, BitSet changed, Connection connection) {
         try {
+            if (changed != null) {
+                if (connection != null) {
+                    ChangeTracker.updateChanged(connection, entity, changed);
+                } else {
+                    try (Connection conn = dataSource.getConnection()) {
+                        ChangeTracker.updateChanged(conn, entity, changed);
+                    }
+                }
+                return entity;
+            }
             if (connection != null) {
                 return OrmElf.updateObject(connection, entity);
             } else {
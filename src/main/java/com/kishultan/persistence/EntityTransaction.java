@@ -1,6 +1,10 @@
 package com.kishultan.persistence;
 
+import com.kishultan.persistence.query.cache.TableVersions;
+import com.kishultan.persistence.query.executor.StatementCache;
+
 import java.sql.Connection;
+import java.util.Collection;
 
 /**
  * 实体事务接口
@@ -42,4 +46,58 @@ public interface EntityTransaction {
      * @return 事务连接，如果事务未开始则返回null
      */
     Connection getConnection();
-} 
\ No newline at end of file
+
+    /**
+     * 记录事务中写入的表，用于使查询缓存失效
+     * 默认立即递增表版本；支持延迟的实现应在提交后递增，回滚时丢弃
+     *
+     * @param tables 写入的表，null 表示无法确定写入了哪些表
+     */
+    default void recordModifiedTables(Collection<String> tables) {
+        if (tables == null) {
+            TableVersions.invalidateAll();
+        } else {
+            TableVersions.invalidate(tables);
+        }
+    }
+
+    /**
+     * 记录事务中 EntityManager 写入的表，提交后只递增表版本，见 {@link TableVersions#recordManagedWrite}
+     * 默认立即递增；支持延迟的实现应在提交后递增，回滚时丢弃
+     *
+     * @param tables 写入的表
+     */
+    default void recordManagedTables(Collection<String> tables) {
+        TableVersions.invalidateManaged(tables);
+    }
+
+    /**
+     * 事务中是否有尚未提交的写操作
+     * 有未提交写操作时查询不读写查询缓存，避免读到或缓存未提交的数据
+     *
+     * @return 是否有未提交的写操作
+     */
+    default boolean hasPendingWrites() {
+        return false;
+    }
+
+    /**
+     * 注册提交后执行的操作（如写入实体缓存），回滚时丢弃
+     * 默认立即执行；支持延迟的实现应在提交并递增表版本后按注册顺序执行
+     *
+     * @param action 提交后执行的操作
+     */
+    default void afterCommit(Runnable action) {
+        action.run();
+    }
+
+    /**
+     * 获取事务连接上的语句缓存，事务中重复执行的 SQL 复用同一个语句
+     * 默认不缓存；支持缓存的实现应在提交、回滚或关闭时关闭缓存的语句
+     *
+     * @return 语句缓存，未启用或事务未激活时返回 null
+     */
+    default StatementCache getStatementCache() {
+        return null;
+    }
+}
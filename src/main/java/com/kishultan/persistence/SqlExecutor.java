@@ -1,6 +1,9 @@
 package com.kishultan.persistence;
 
+import com.kishultan.persistence.config.PersistenceDefaults;
 import com.kishultan.persistence.datasource.DataSourceManager;
+import com.kishultan.persistence.query.cache.TableVersions;
+import com.kishultan.persistence.query.executor.GroupedBatchExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,8 +13,11 @@ import java.sql.*;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 import java.util.Vector;
 import java.util.function.Function;
 
@@ -30,12 +36,48 @@ public final class SqlExecutor {
 
     /**
      * 执行 SQL 函数闭包
+     * 闭包执行的语句未知，结束后使所有带表依赖的缓存结果失效；只读的闭包使用 {@link #sqlQuery(SqlFunction)}
      *
      * @param functional SQL 函数
      * @param <V>        返回类型
      * @return 函数执行结果
      */
     public static <V> V sqlExecute(SqlFunction<V> functional) {
+        return sqlExecute(functional, null);
+    }
+
+    /**
+     * 执行只读的 SQL 函数闭包，不使缓存失效
+     *
+     * @param functional SQL 函数
+     * @param <V>        返回类型
+     * @return 函数执行结果
+     */
+    public static <V> V sqlQuery(SqlFunction<V> functional) {
+        return sqlExecute(functional, Collections.<String>emptySet());
+    }
+
+    /**
+     * 执行只读的带可变参数的 SQL 函数闭包，不使缓存失效
+     *
+     * @param functional SQL 函数
+     * @param args       参数
+     * @param <V>        返回类型
+     * @return 函数执行结果
+     */
+    public static <V> V sqlQuery(SqlVarArgsFunction<V> functional, Object... args) {
+        return sqlExecute(connection -> functional.execute(connection, args), Collections.<String>emptySet());
+    }
+
+    /**
+     * 执行写入指定表的 SQL 函数闭包，结束后只使读取过这些表的缓存结果失效
+     *
+     * @param functional     SQL 函数
+     * @param modifiedTables 闭包写入的表，null 表示无法确定，空集合表示只读
+     * @param <V>            返回类型
+     * @return 函数执行结果
+     */
+    public static <V> V sqlExecute(SqlFunction<V> functional, Collection<String> modifiedTables) {
         logger.debug("执行 SQL 函数闭包");
         Connection connection = null;
         try {
@@ -46,11 +88,14 @@ public final class SqlExecutor {
             throw new RuntimeException("执行 SQL 函数时发生异常", e);
         } finally {
             closeConnection(connection);
+            // 自动提交下的写入即使随后出错也已生效
+            TableVersions.recordWrite(null, modifiedTables);
         }
     }
 
     /**
      * 执行带可变参数的 SQL 函数闭包
+     * 闭包执行的语句未知，结束后使所有带表依赖的缓存结果失效；只读的闭包使用 {@link #sqlQuery(SqlVarArgsFunction, Object...)}
      *
      * @param functional SQL 函数
      * @param args       参数
@@ -68,6 +113,8 @@ public final class SqlExecutor {
             throw new RuntimeException("执行带参数的 SQL 函数时发生异常", e);
         } finally {
             closeConnection(connection);
+            // 闭包执行的语句未知，自动提交下的写入即使随后出错也已生效
+            TableVersions.invalidateAll();
         }
     }
 
@@ -87,6 +134,7 @@ public final class SqlExecutor {
             statement = connection.prepareStatement(sql);
             setParameters(statement, parameters);
             int result = statement.executeUpdate();
+            TableVersions.recordWrite(null, TableVersions.extractModifiedTables(sql));
             logger.debug("SQL 更新执行完成，影响行数: {}", result);
             return result;
         } catch (Exception e) {
@@ -147,25 +195,45 @@ public final class SqlExecutor {
 
     /**
      * 执行批量更新
+     * 参数按最大批大小（见 {@link PersistenceDefaults#getMaxBatchSize()}）分批发送
      *
      * @param sql             SQL 语句
      * @param batchParameters 批量参数
      * @return 每批影响的行数数组
      */
     public static int[] executeBatch(String sql, List<Object[]> batchParameters) {
-        logger.debug("执行批量更新 SQL: {}，批次数量: {}", sql, batchParameters.size());
+        return executeBatch(Collections.nCopies(batchParameters.size(), sql), batchParameters, false);
+    }
+
+    /**
+     * 执行多条 SQL 的批量更新，相邻的相同 SQL 合并为 JDBC 批执行
+     *
+     * @param sqlList        每个条目的 SQL
+     * @param parametersList 每个条目的参数
+     * @return 每个条目影响的行数，与 sqlList 顺序一致
+     */
+    public static int[] executeBatch(List<String> sqlList, List<Object[]> parametersList) {
+        return executeBatch(sqlList, parametersList, false);
+    }
+
+    /**
+     * 执行多条 SQL 的批量更新，相同 SQL 的条目合并为 JDBC 批执行，全部条目在一个事务中提交
+     *
+     * @param sqlList        每个条目的 SQL
+     * @param parametersList 每个条目的参数
+     * @param reorder        是否合并不相邻的相同 SQL，只在条目之间互不依赖时启用
+     * @return 每个条目影响的行数，与 sqlList 顺序一致
+     */
+    public static int[] executeBatch(List<String> sqlList, List<Object[]> parametersList, boolean reorder) {
+        logger.debug("执行批量更新，条目数量: {}", sqlList.size());
         Connection connection = null;
-        PreparedStatement statement = null;
         try {
             connection = DataSourceManager.getConnection();
             connection.setAutoCommit(false);
-            statement = connection.prepareStatement(sql);
-            for (Object[] parameters : batchParameters) {
-                setParameters(statement, parameters);
-                statement.addBatch();
-            }
-            int[] results = statement.executeBatch();
+            int[] results = new GroupedBatchExecutor(PersistenceDefaults.getMaxBatchSize(), reorder)
+                    .execute(connection, sqlList, parametersList, null);
             connection.commit();
+            TableVersions.recordWrite(null, TableVersions.extractModifiedTables(sqlList));
             logger.debug("批量更新执行完成，批次结果: {}", results);
             return results;
         } catch (Exception e) {
@@ -176,8 +244,8 @@ public final class SqlExecutor {
             } catch (SQLException rollbackEx) {
                 logger.error("回滚事务时发生异常", rollbackEx);
             }
-            logger.error("执行批量更新 SQL 时发生异常: {}", sql, e);
-            throw new RuntimeException("执行批量更新 SQL 时发生异常: " + sql, e);
+            logger.error("执行批量更新时发生异常", e);
+            throw new RuntimeException("执行批量更新时发生异常", e);
         } finally {
             try {
                 if (connection != null) {
@@ -186,7 +254,6 @@ public final class SqlExecutor {
             } catch (SQLException e) {
                 logger.error("恢复自动提交时发生异常", e);
             }
-            closeStatement(statement);
             closeConnection(connection);
         }
     }
@@ -206,6 +273,8 @@ public final class SqlExecutor {
             connection.setAutoCommit(false);
             V result = functional.execute(connection);
             connection.commit();
+            // 事务中执行的语句未知
+            TableVersions.invalidateAll();
             logger.debug("事务执行成功");
             return result;
         } catch (Exception e) {
@@ -246,6 +315,8 @@ public final class SqlExecutor {
             connection.setAutoCommit(false);
             V result = functional.execute(connection, args);
             connection.commit();
+            // 事务中执行的语句未知
+            TableVersions.invalidateAll();
             logger.debug("事务执行成功");
             return result;
         } catch (Exception e) {
@@ -300,6 +371,18 @@ public final class SqlExecutor {
     }
 
 
+    /**
+     * 记录 execute 执行的写入：可识别的 DML 使写入的表失效；无法识别的语句返回结果集且没有更新计数时按只读处理，
+     * 否则使所有带表依赖的缓存结果失效
+     */
+    private static void recordExecuted(PreparedStatement st, String sql, boolean resultSet) throws SQLException {
+        Set<String> tables = TableVersions.extractModifiedTables(sql);
+        if (tables == null && resultSet && st.getUpdateCount() == -1) {
+            return;
+        }
+        TableVersions.recordWrite(null, tables);
+    }
+
     /**
      * @param dsName
      * @param sql
@@ -325,6 +408,7 @@ public final class SqlExecutor {
                 }
             }
             boolean result = st.execute();
+            recordExecuted(st, sql, result);
             return result;
         } catch (java.sql.SQLException ex) {
             ex.printStackTrace();
@@ -360,6 +444,7 @@ public final class SqlExecutor {
                 }
             }
             boolean result = st.execute();
+            recordExecuted(st, sql, result);
             return result;
         } catch (java.sql.SQLException ex) {
             ex.printStackTrace();
@@ -385,6 +470,7 @@ public final class SqlExecutor {
             conn = DataSourceManager.getConnection(dsName);
             st = conn.prepareStatement(sql);
             boolean result = st.execute();
+            recordExecuted(st, sql, result);
             return result;
         } catch (java.sql.SQLException ex) {
             ex.printStackTrace();
@@ -410,6 +496,7 @@ public final class SqlExecutor {
             conn = ds.getConnection();
             st = conn.prepareStatement(sql);
             boolean result = st.execute();
+            recordExecuted(st, sql, result);
             return result;
         } catch (java.sql.SQLException ex) {
             ex.printStackTrace();
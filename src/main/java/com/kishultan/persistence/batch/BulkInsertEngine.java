@@ -0,0 +1,198 @@
+package com.kishultan.persistence.batch;
+
+import com.kishultan.persistence.dialect.DatabaseDialect;
+import com.kishultan.persistence.query.DefaultRowMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * 分块批量插入引擎
+ * <p>
+ * 按 {@link BulkInsertOptions#getChunkSize()} 把实体列表分块，每块一次 JDBC 往返：
+ * <ul>
+ *   <li>方言支持多行 VALUES 时（见 {@link DatabaseDialect#getMaxInsertParameters()}），
+ *       把多行合并为一条 INSERT ... VALUES (...), (...)，再把这些语句放入同一个批处理</li>
+ *   <li>否则使用单行 INSERT 的 JDBC 批处理</li>
+ * </ul>
+ * 实体的表名、列和字段访问器按实体类缓存，PreparedStatement 在各块之间复用；
+ * 自增主键按 getGeneratedKeys 的顺序回填，方言不保证多行插入返回每行主键时，带自增主键的实体使用单行批处理
+ * <p>
+ * 自行管理事务时（ownsTransaction 为 true）失败会回滚未提交的块；失败时抛出 {@link BulkInsertException}，
+ * 其中包含已写入的行数和失败的行
+ */
+public class BulkInsertEngine {
+    private static final Logger logger = LoggerFactory.getLogger(BulkInsertEngine.class);
+
+    private final DatabaseDialect dialect;
+    private final BulkInsertOptions options;
+
+    /**
+     * @param dialect 数据库方言，为 null 时不使用多行 VALUES
+     * @param options 批量插入选项
+     */
+    public BulkInsertEngine(DatabaseDialect dialect, BulkInsertOptions options) {
+        this.dialect = dialect;
+        this.options = options != null ? options : BulkInsertOptions.createDefault();
+    }
+
+    /**
+     * 插入实体列表，列表中的实体必须属于同一个实体类
+     *
+     * @param connection      数据库连接
+     * @param entities        实体列表
+     * @param ownsTransaction 是否由批量插入提交和回滚（连接已关闭自动提交）；为 false 时由调用方的事务提交
+     * @return 插入的行数
+     * @throws IllegalStateException 实体类没有可插入的列，此时尚未执行任何语句
+     * @throws BulkInsertException   插入失败
+     */
+    public <T> int insert(Connection connection, List<T> entities, boolean ownsTransaction) {
+        if (entities == null || entities.isEmpty()) {
+            return 0;
+        }
+        EntityPlan plan = EntityPlan.forEntity(entities.get(0).getClass());
+        plan.requireInsertColumns();
+        new Run<>(connection, options, plan, entities, ownsTransaction, rowsPerStatement(plan)).execute();
+        return entities.size();
+    }
+
+    /**
+     * 单条 INSERT 语句合并的行数，1 表示使用单行 INSERT
+     */
+    int rowsPerStatement(EntityPlan plan) {
+        if (!options.isMultiRowInsert() || dialect == null) {
+            return 1;
+        }
+        int maxParameters = dialect.getMaxInsertParameters();
+        if (maxParameters <= 0) {
+            return 1;
+        }
+        if (plan.hasIdentity() && !dialect.supportsMultiRowGeneratedKeys()) {
+            return 1;
+        }
+        int rows = Math.min(maxParameters / plan.getInsertColumnCount(),
+                Math.min(options.getChunkSize(), options.getMaxRowsPerStatement()));
+        return rows >= 2 ? rows : 1;
+    }
+
+    /**
+     * 一次插入的执行状态
+     */
+    private static final class Run<T> extends ChunkedRun {
+        private final EntityPlan plan;
+        private final List<T> entities;
+        private final int rowsPerStatement;
+        private DefaultRowMapper<Object> keyMapper;
+
+        Run(Connection connection, BulkInsertOptions options, EntityPlan plan, List<T> entities,
+            boolean ownsTransaction, int rowsPerStatement) {
+            super(connection, options, ownsTransaction, "批量插入", plan.getTableName(), entities.size());
+            this.plan = plan;
+            this.entities = entities;
+            this.rowsPerStatement = rowsPerStatement;
+        }
+
+        @Override
+        protected void executeChunk(int start, int end) throws SQLException {
+            if (rowsPerStatement > 1) {
+                insertMultiRow(start, end);
+            } else {
+                insertSingleRow(start, end);
+            }
+        }
+
+        @Override
+        protected BulkWriteException newException(String message, SQLException cause,
+                                                  int completedCount, List<Integer> failedRows) {
+            return new BulkInsertException(message, cause, completedCount, failedRows);
+        }
+
+        /**
+         * 单行 INSERT 的 JDBC 批处理
+         */
+        private void insertSingleRow(int start, int end) throws SQLException {
+            PreparedStatement statement = statement(1);
+            for (int row = start; row < end; row++) {
+                bind(statement, row, 1);
+                statement.addBatch();
+            }
+            executeBatch(statement, start, 1, end - start);
+            backfillKeys(statement, start, end);
+        }
+
+        /**
+         * 多行 INSERT：无自增主键时整块的语句放入一个批处理，有自增主键时逐条执行并回填主键
+         */
+        private void insertMultiRow(int start, int end) throws SQLException {
+            int rows = end - start;
+            int fullStatements = rows / rowsPerStatement;
+            int remainder = rows % rowsPerStatement;
+            int row = start;
+            if (fullStatements > 0) {
+                PreparedStatement statement = statement(rowsPerStatement);
+                if (plan.hasIdentity()) {
+                    for (int i = 0; i < fullStatements; i++, row += rowsPerStatement) {
+                        bind(statement, row, rowsPerStatement);
+                        executeUpdate(statement, row, rowsPerStatement);
+                        backfillKeys(statement, row, row + rowsPerStatement);
+                    }
+                } else {
+                    for (int i = 0; i < fullStatements; i++, row += rowsPerStatement) {
+                        bind(statement, row, rowsPerStatement);
+                        statement.addBatch();
+                    }
+                    executeBatch(statement, start, rowsPerStatement, fullStatements);
+                }
+            }
+            if (remainder > 0) {
+                PreparedStatement statement = statement(remainder);
+                bind(statement, row, remainder);
+                executeUpdate(statement, row, remainder);
+                backfillKeys(statement, row, end);
+            }
+        }
+
+        private PreparedStatement statement(int rows) throws SQLException {
+            return statement(plan.insertSql(rows), plan.hasIdentity());
+        }
+
+        private void bind(PreparedStatement statement, int firstRow, int rows) throws SQLException {
+            int columns = plan.getInsertColumnCount();
+            int index = 1;
+            for (int row = firstRow; row < firstRow + rows; row++) {
+                T entity = entities.get(row);
+                for (int column = 0; column < columns; column++) {
+                    statement.setObject(index++, plan.getInsertValue(entity, column));
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void backfillKeys(PreparedStatement statement, int start, int end) {
+            if (!plan.hasIdentity()) {
+                return;
+            }
+            if (keyMapper == null) {
+                keyMapper = new DefaultRowMapper<>();
+            }
+            try (ResultSet rs = statement.getGeneratedKeys()) {
+                int row = start;
+                while (row < end && rs.next()) {
+                    // 使用 RowMapper 转换主键类型
+                    Object id = keyMapper.mapRow(rs, (Class<Object>) plan.getIdentityType());
+                    if (id != null) {
+                        plan.setIdentity(entities.get(row), id);
+                    }
+                    row++;
+                }
+            } catch (Exception e) {
+                logger.warn("回填主键失败: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.kishultan.persistence.batch;
+
+import java.util.List;
+
+/**
+ * 批量插入失败
+ * 记录失败前已写入的行数和失败的行在输入列表中的下标，见 {@link BulkWriteException}
+ */
+public class BulkInsertException extends BulkWriteException {
+    private static final long serialVersionUID = 1L;
+
+    public BulkInsertException(String message, Throwable cause, int insertedCount, List<Integer> failedRows) {
+        super(message, cause, insertedCount, failedRows);
+    }
+
+    /**
+     * 失败前已写入的行数，同 {@link #getCompletedCount()}
+     *
+     * @return 行数，均为输入列表的前若干行
+     */
+    public int getInsertedCount() {
+        return getCompletedCount();
+    }
+}
@@ -0,0 +1,84 @@
+package com.kishultan.persistence.batch;
+
+/**
+ * 批量插入选项
+ * 控制分块大小、是否按块提交以及多行 VALUES 合并；
+ * 批量更新、upsert 和删除（见 {@link BulkWriteEngine}）同样使用分块大小、按块提交和单条语句的最大行数
+ */
+public class BulkInsertOptions {
+    // 默认配置常量
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+    public static final int DEFAULT_MAX_ROWS_PER_STATEMENT = 1000; // SQL Server 单条 VALUES 最多 1000 行
+    // 配置属性
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private boolean commitPerChunk = false;
+    private boolean multiRowInsert = true;
+    private int maxRowsPerStatement = DEFAULT_MAX_ROWS_PER_STATEMENT;
+
+    /**
+     * 创建默认选项
+     *
+     * @return 默认选项实例
+     */
+    public static BulkInsertOptions createDefault() {
+        return new BulkInsertOptions();
+    }
+
+    /**
+     * 每块的行数，一块执行一次 JDBC 批处理
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize 必须大于 0: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 是否每块提交一次
+     * 只在批量插入自行管理事务时生效，在调用方的事务中执行时由调用方提交；
+     * 失败时已提交的块保留，见 {@link BulkInsertException#getInsertedCount()}
+     */
+    public boolean isCommitPerChunk() {
+        return commitPerChunk;
+    }
+
+    public void setCommitPerChunk(boolean commitPerChunk) {
+        this.commitPerChunk = commitPerChunk;
+    }
+
+    /**
+     * 是否按方言把多行合并为一条 INSERT ... VALUES (...), (...) 语句
+     */
+    public boolean isMultiRowInsert() {
+        return multiRowInsert;
+    }
+
+    public void setMultiRowInsert(boolean multiRowInsert) {
+        this.multiRowInsert = multiRowInsert;
+    }
+
+    /**
+     * 多行 INSERT 单条语句的最大行数，同时受方言的绑定参数上限限制；批量删除时为 IN 列表的最大主键个数
+     */
+    public int getMaxRowsPerStatement() {
+        return maxRowsPerStatement;
+    }
+
+    public void setMaxRowsPerStatement(int maxRowsPerStatement) {
+        if (maxRowsPerStatement <= 0) {
+            throw new IllegalArgumentException("maxRowsPerStatement 必须大于 0: " + maxRowsPerStatement);
+        }
+        this.maxRowsPerStatement = maxRowsPerStatement;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkInsertOptions{chunkSize=" + chunkSize + ", commitPerChunk=" + commitPerChunk
+                + ", multiRowInsert=" + multiRowInsert + ", maxRowsPerStatement=" + maxRowsPerStatement + "}";
+    }
+}
@@ -0,0 +1,231 @@
+package com.kishultan.persistence.batch;
+
+import com.kishultan.persistence.dialect.DatabaseDialect;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分块批量更新、upsert 和删除引擎
+ * <p>
+ * 与 {@link BulkInsertEngine} 相同地分块执行、复用 PreparedStatement、按块提交并报告失败的行：
+ * <ul>
+ *   <li>更新：UPDATE ... SET 全部非主键列 WHERE pk = ? 的 JDBC 批处理</li>
+ *   <li>upsert：方言提供的单行 upsert 语句（见 {@link DatabaseDialect#buildUpsertSql}）的 JDBC 批处理</li>
+ *   <li>删除：DELETE ... WHERE pk IN (...)，每条语句的主键个数受 maxRowsPerStatement 和方言绑定参数上限限制</li>
+ * </ul>
+ * 列表中的实体必须属于同一个实体类，实体类必须有 @Id 主键
+ */
+public class BulkWriteEngine {
+    private final DatabaseDialect dialect;
+    private final BulkInsertOptions options;
+
+    /**
+     * @param dialect 数据库方言，upsert 时必需
+     * @param options 批量写入选项（分块大小、按块提交、单条语句的最大行数）
+     */
+    public BulkWriteEngine(DatabaseDialect dialect, BulkInsertOptions options) {
+        this.dialect = dialect;
+        this.options = options != null ? options : BulkInsertOptions.createDefault();
+    }
+
+    /**
+     * 按主键更新实体的全部非主键列
+     *
+     * @param connection      数据库连接
+     * @param entities        实体列表
+     * @param ownsTransaction 是否由批量写入提交和回滚（连接已关闭自动提交）；为 false 时由调用方的事务提交
+     * @return 驱动报告的更新行数
+     * @throws IllegalStateException 实体类没有 @Id 主键，此时尚未执行任何语句
+     * @throws BulkWriteException    更新失败
+     */
+    public <T> int update(Connection connection, List<T> entities, boolean ownsTransaction) {
+        if (entities == null || entities.isEmpty()) {
+            return 0;
+        }
+        EntityPlan plan = EntityPlan.forEntity(entities.get(0).getClass());
+        plan.requireKey();
+        String sql = plan.updateSql();
+        if (sql == null) {
+            // 只有主键列，没有需要更新的列
+            return 0;
+        }
+        return new EntityRun<T>(connection, plan, entities, ownsTransaction, "批量更新", sql) {
+            @Override
+            void bind(PreparedStatement statement, T entity) throws SQLException {
+                int columns = plan.getUpdateColumnCount();
+                for (int column = 0; column < columns; column++) {
+                    statement.setObject(column + 1, plan.getUpdateValue(entity, column));
+                }
+                statement.setObject(columns + 1, plan.getKey(entity));
+            }
+        }.execute();
+    }
+
+    /**
+     * 按主键插入或更新实体：主键已存在时更新全部非主键列，否则插入
+     * 绑定全部列（包含主键），自增主键为 null 的实体应通过插入保存
+     *
+     * @param connection      数据库连接
+     * @param entities        实体列表
+     * @param ownsTransaction 是否由批量写入提交和回滚
+     * @return 驱动报告的影响行数（各数据库对更新行的计数方式不同）
+     * @throws IllegalStateException         实体类没有 @Id 主键
+     * @throws UnsupportedOperationException 方言不支持 upsert
+     * @throws BulkWriteException            写入失败
+     */
+    public <T> int upsert(Connection connection, List<T> entities, boolean ownsTransaction) {
+        if (entities == null || entities.isEmpty()) {
+            return 0;
+        }
+        EntityPlan plan = EntityPlan.forEntity(entities.get(0).getClass());
+        plan.requireKey();
+        String sql = plan.upsertSql(dialect);
+        return new EntityRun<T>(connection, plan, entities, ownsTransaction, "批量upsert", sql) {
+            @Override
+            void bind(PreparedStatement statement, T entity) throws SQLException {
+                int columns = plan.getAllColumnCount();
+                for (int column = 0; column < columns; column++) {
+                    statement.setObject(column + 1, plan.getValue(entity, column));
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * 按主键删除
+     *
+     * @param connection      数据库连接
+     * @param entityClass     实体类
+     * @param ids             主键列表
+     * @param ownsTransaction 是否由批量写入提交和回滚
+     * @return 驱动报告的删除行数
+     * @throws IllegalStateException 实体类没有 @Id 主键
+     * @throws BulkWriteException    删除失败，失败的行为主键列表中的下标
+     */
+    public int delete(Connection connection, Class<?> entityClass, List<?> ids, boolean ownsTransaction) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        EntityPlan plan = EntityPlan.forEntity(entityClass);
+        plan.requireKey();
+        return new DeleteRun(connection, plan, ids, ownsTransaction, idsPerStatement()).execute();
+    }
+
+    /**
+     * 按实体的主键删除实体
+     *
+     * @param connection      数据库连接
+     * @param entities        实体列表
+     * @param ownsTransaction 是否由批量写入提交和回滚
+     * @return 驱动报告的删除行数
+     * @throws IllegalStateException 实体类没有 @Id 主键
+     * @throws BulkWriteException    删除失败，失败的行为实体列表中的下标
+     */
+    public <T> int delete(Connection connection, List<T> entities, boolean ownsTransaction) {
+        if (entities == null || entities.isEmpty()) {
+            return 0;
+        }
+        Class<?> entityClass = entities.get(0).getClass();
+        EntityPlan plan = EntityPlan.forEntity(entityClass);
+        plan.requireKey();
+        List<Object> ids = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            ids.add(plan.getKey(entity));
+        }
+        return new DeleteRun(connection, plan, ids, ownsTransaction, idsPerStatement()).execute();
+    }
+
+    /**
+     * 单条 DELETE 语句 IN 列表的主键个数
+     */
+    int idsPerStatement() {
+        int ids = Math.min(options.getChunkSize(), options.getMaxRowsPerStatement());
+        int maxParameters = dialect != null ? dialect.getMaxInsertParameters() : 0;
+        return maxParameters > 0 ? Math.min(ids, maxParameters) : ids;
+    }
+
+    /**
+     * 逐个实体绑定的单行语句批处理
+     */
+    private abstract class EntityRun<T> extends ChunkedRun {
+        private final List<T> entities;
+        private final String sql;
+
+        EntityRun(Connection connection, EntityPlan plan, List<T> entities, boolean ownsTransaction,
+                  String operation, String sql) {
+            super(connection, BulkWriteEngine.this.options, ownsTransaction, operation, plan.getTableName(), entities.size());
+            this.entities = entities;
+            this.sql = sql;
+        }
+
+        abstract void bind(PreparedStatement statement, T entity) throws SQLException;
+
+        @Override
+        protected void executeChunk(int start, int end) throws SQLException {
+            PreparedStatement statement = statement(sql, false);
+            for (int row = start; row < end; row++) {
+                bind(statement, entities.get(row));
+                statement.addBatch();
+            }
+            executeBatch(statement, start, 1, end - start);
+        }
+
+        @Override
+        protected BulkWriteException newException(String message, SQLException cause,
+                                                  int completedCount, List<Integer> failedRows) {
+            return new BulkWriteException(message, cause, completedCount, failedRows);
+        }
+    }
+
+    /**
+     * DELETE ... WHERE pk IN (...)：整块的语句放入一个批处理，余下的主键单独执行
+     */
+    private final class DeleteRun extends ChunkedRun {
+        private final EntityPlan plan;
+        private final List<?> ids;
+        private final int idsPerStatement;
+
+        DeleteRun(Connection connection, EntityPlan plan, List<?> ids, boolean ownsTransaction, int idsPerStatement) {
+            super(connection, BulkWriteEngine.this.options, ownsTransaction, "批量删除", plan.getTableName(), ids.size());
+            this.plan = plan;
+            this.ids = ids;
+            this.idsPerStatement = idsPerStatement;
+        }
+
+        @Override
+        protected void executeChunk(int start, int end) throws SQLException {
+            int fullStatements = (end - start) / idsPerStatement;
+            int remainder = (end - start) % idsPerStatement;
+            int row = start;
+            if (fullStatements > 0) {
+                PreparedStatement statement = statement(plan.deleteSql(idsPerStatement), false);
+                for (int i = 0; i < fullStatements; i++, row += idsPerStatement) {
+                    bind(statement, row, idsPerStatement);
+                    statement.addBatch();
+                }
+                executeBatch(statement, start, idsPerStatement, fullStatements);
+            }
+            if (remainder > 0) {
+                PreparedStatement statement = statement(plan.deleteSql(remainder), false);
+                bind(statement, row, remainder);
+                executeUpdate(statement, row, remainder);
+            }
+        }
+
+        private void bind(PreparedStatement statement, int first, int count) throws SQLException {
+            for (int i = 0; i < count; i++) {
+                statement.setObject(i + 1, ids.get(first + i));
+            }
+        }
+
+        @Override
+        protected BulkWriteException newException(String message, SQLException cause,
+                                                  int completedCount, List<Integer> failedRows) {
+            return new BulkWriteException(message, cause, completedCount, failedRows);
+        }
+    }
+}
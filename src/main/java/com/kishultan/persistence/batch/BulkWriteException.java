@@ -0,0 +1,41 @@
+package com.kishultan.persistence.batch;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 批量写入失败
+ * 记录失败前已完成的行数和失败的行在输入列表中的下标；
+ * 驱动报告了批处理中每条语句的结果时精确到语句，否则为失败批处理包含的全部行
+ */
+public class BulkWriteException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int completedCount;
+    private final List<Integer> failedRows;
+
+    public BulkWriteException(String message, Throwable cause, int completedCount, List<Integer> failedRows) {
+        super(message, cause);
+        this.completedCount = completedCount;
+        this.failedRows = Collections.unmodifiableList(failedRows);
+    }
+
+    /**
+     * 失败前已完成的行数
+     * 批量写入自行管理事务时为已提交的行数（未按块提交时为 0）；在调用方的事务中执行时为已执行、尚未提交的行数
+     *
+     * @return 行数，均为输入列表的前若干行
+     */
+    public int getCompletedCount() {
+        return completedCount;
+    }
+
+    /**
+     * 失败的行在输入列表中的下标（升序）
+     *
+     * @return 行下标
+     */
+    public List<Integer> getFailedRows() {
+        return failedRows;
+    }
+}
@@ -0,0 +1,263 @@
+package com.kishultan.persistence.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 实体变更跟踪
+ * <p>
+ * 对启用跟踪的实体类（见 {@link #setTracked}），EntityManager.findById / findAll 和 Criterion.findList
+ * 加载的实体保存一份非主键列原值的快照；EntityManager.update 只更新与快照不同的列，
+ * 没有变化时不执行语句。UPDATE 语句按变化列的组合缓存
+ * <p>
+ * 快照按实体对象的标识保存（弱引用键的并发 Map，读写不加全局锁），实体不再被引用后随之回收；Date 和数组的原值另行复制，
+ * 其他可变对象按 equals 比较，原地修改这类对象不会被识别为变化
+ */
+public final class ChangeTracker {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeTracker.class);
+
+    private static final Map<Class<?>, Boolean> trackedClasses = new ConcurrentHashMap<>();
+    private static final Map<IdentityKey, Object[]> snapshots = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+    private ChangeTracker() {
+    }
+
+    /**
+     * 指定实体类是否跟踪变更
+     *
+     * @param entityClass 实体类，必须有 @Id 主键
+     * @param tracked     是否跟踪
+     */
+    public static void setTracked(Class<?> entityClass, boolean tracked) {
+        if (tracked && !EntityPlan.forEntity(entityClass).hasKey()) {
+            throw new IllegalArgumentException("实体类没有 @Id 主键，无法跟踪变更: " + entityClass.getName());
+        }
+        if (tracked) {
+            trackedClasses.put(entityClass, Boolean.TRUE);
+        } else {
+            trackedClasses.remove(entityClass);
+        }
+    }
+
+    /**
+     * 实体类是否跟踪变更
+     *
+     * @param entityClass 实体类
+     * @return 是否跟踪
+     */
+    public static boolean isTracked(Class<?> entityClass) {
+        return !trackedClasses.isEmpty() && trackedClasses.containsKey(entityClass);
+    }
+
+    /**
+     * 保存实体当前值的快照，实体类未启用跟踪或实体已有快照时忽略
+     * 查询缓存可能把同一实体对象返回给多次查询，保留已有快照避免把未保存的修改当作原值
+     *
+     * @param entity 实体
+     */
+    public static void track(Object entity) {
+        if (entity == null || !isTracked(entity.getClass())) {
+            return;
+        }
+        Object[] snapshot = snapshot(EntityPlan.forEntity(entity.getClass()), entity);
+        purge();
+        snapshots.putIfAbsent(new IdentityKey(entity, collected), snapshot);
+    }
+
+    /**
+     * 保存实体列表中各实体的快照
+     *
+     * @param entities 实体列表
+     */
+    public static void trackAll(List<?> entities) {
+        if (entities == null || entities.isEmpty() || trackedClasses.isEmpty()) {
+            return;
+        }
+        for (Object entity : entities) {
+            track(entity);
+        }
+    }
+
+    /**
+     * 丢弃实体的快照，之后的更新写入全部列，直到再次 {@link #track}
+     *
+     * @param entity 实体
+     */
+    public static void forget(Object entity) {
+        if (entity == null) {
+            return;
+        }
+        snapshots.remove(new IdentityKey(entity, null));
+    }
+
+    /**
+     * 实体是否有快照
+     *
+     * @param entity 实体
+     * @return 有快照返回 true
+     */
+    public static boolean isTracking(Object entity) {
+        return snapshotOf(entity) != null;
+    }
+
+    /**
+     * 获取与快照相比发生变化的非主键列
+     *
+     * @param entity 实体
+     * @return 变化列的位图，实体没有快照时返回 null
+     */
+    public static BitSet changedColumns(Object entity) {
+        Object[] snapshot = snapshotOf(entity);
+        if (snapshot == null) {
+            return null;
+        }
+        EntityPlan plan = EntityPlan.forEntity(entity.getClass());
+        BitSet changed = new BitSet(snapshot.length);
+        for (int i = 0; i < snapshot.length; i++) {
+            if (!Objects.deepEquals(snapshot[i], plan.getUpdateValue(entity, i))) {
+                changed.set(i);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 按快照只更新变化的列
+     * 返回的快照应在更新生效后（事务提交后）通过 {@link #replace} 替换原快照
+     *
+     * @param connection 数据库连接
+     * @param entity     实体，必须有快照
+     * @param changed    变化的列，见 {@link #changedColumns}，不能为空
+     * @return 更新行数
+     */
+    public static int updateChanged(Connection connection, Object entity, BitSet changed) throws SQLException {
+        EntityPlan plan = EntityPlan.forEntity(entity.getClass());
+        String sql = plan.updateSql(changed);
+        logger.debug("只更新变化的列: {}", sql);
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int index = 1;
+            for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+                statement.setObject(index++, plan.getUpdateValue(entity, i));
+            }
+            statement.setObject(index, plan.getKey(entity));
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * 以实体当前值生成快照，稍后通过 {@link #replace} 生效
+     *
+     * @param entity 实体
+     * @return 快照
+     */
+    public static Object[] snapshot(Object entity) {
+        return snapshot(EntityPlan.forEntity(entity.getClass()), entity);
+    }
+
+    /**
+     * 替换实体的快照（仍被跟踪时）
+     *
+     * @param entity   实体
+     * @param snapshot {@link #snapshot(Object)} 生成的快照
+     */
+    public static void replace(Object entity, Object[] snapshot) {
+        snapshots.replace(new IdentityKey(entity, null), snapshot);
+    }
+
+    /**
+     * 当前保存的快照数量
+     */
+    public static int size() {
+        purge();
+        return snapshots.size();
+    }
+
+    /**
+     * 丢弃全部快照并停止跟踪所有实体类
+     */
+    public static void reset() {
+        trackedClasses.clear();
+        snapshots.clear();
+        while (collected.poll() != null) {
+            // 丢弃已回收的键
+        }
+    }
+
+    private static Object[] snapshotOf(Object entity) {
+        if (entity == null) {
+            return null;
+        }
+        return snapshots.get(new IdentityKey(entity, null));
+    }
+
+    private static Object[] snapshot(EntityPlan plan, Object entity) {
+        Object[] values = new Object[plan.getUpdateColumnCount()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = copyValue(plan.getUpdateValue(entity, i));
+        }
+        return values;
+    }
+
+    private static Object copyValue(Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).clone();
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).clone();
+        }
+        if (value instanceof Object[]) {
+            return Arrays.copyOf((Object[]) value, ((Object[]) value).length);
+        }
+        return value;
+    }
+
+    private static void purge() {
+        Object key;
+        while ((key = collected.poll()) != null) {
+            snapshots.remove(key);
+        }
+    }
+
+    /**
+     * 按对象标识比较的弱引用键
+     */
+    private static final class IdentityKey extends WeakReference<Object> {
+        private final int hash;
+
+        IdentityKey(Object referent, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof IdentityKey)) {
+                return false;
+            }
+            Object referent = get();
+            return referent != null && referent == ((IdentityKey) obj).get();
+        }
+    }
+}
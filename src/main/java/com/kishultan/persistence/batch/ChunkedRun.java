@@ -0,0 +1,190 @@
+package com.kishultan.persistence.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一次分块批量写入的执行状态
+ * 按分块大小逐块执行，自行管理事务时按选项逐块或最后提交；PreparedStatement 按 SQL 在各块之间复用；
+ * 失败时根据正在执行的批处理计算失败的行，回滚未提交的块
+ */
+abstract class ChunkedRun {
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedRun.class);
+
+    protected final Connection connection;
+    protected final BulkInsertOptions options;
+    protected final boolean ownsTransaction;
+    private final String operation;
+    private final String tableName;
+    private final int total;
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+    // 正在执行的批处理：起始行、每条语句的行数、语句数
+    private int batchStart;
+    private int batchRowsPerStatement;
+    private int batchStatements;
+    private int committed;
+    private int affected;
+
+    ChunkedRun(Connection connection, BulkInsertOptions options, boolean ownsTransaction,
+               String operation, String tableName, int total) {
+        this.connection = connection;
+        this.options = options;
+        this.ownsTransaction = ownsTransaction;
+        this.operation = operation;
+        this.tableName = tableName;
+        this.total = total;
+    }
+
+    /**
+     * 执行 [start, end) 行
+     */
+    protected abstract void executeChunk(int start, int end) throws SQLException;
+
+    /**
+     * 创建失败时抛出的异常
+     */
+    protected abstract BulkWriteException newException(String message, SQLException cause,
+                                                       int completedCount, List<Integer> failedRows);
+
+    /**
+     * 逐块执行
+     *
+     * @return 驱动报告的影响行数，驱动未报告的语句不计入
+     */
+    int execute() {
+        int chunkSize = options.getChunkSize();
+        try {
+            for (int start = 0; start < total; start += chunkSize) {
+                int end = Math.min(start + chunkSize, total);
+                executeChunk(start, end);
+                if (ownsTransaction && options.isCommitPerChunk()) {
+                    connection.commit();
+                    committed = end;
+                }
+            }
+            if (ownsTransaction && committed < total) {
+                connection.commit();
+                committed = total;
+            }
+            logger.debug("{}完成: 表={}, 数量={}, 影响行数={}", operation, tableName, total, affected);
+            return affected;
+        } catch (SQLException e) {
+            throw failure(e);
+        } finally {
+            closeStatements();
+        }
+    }
+
+    protected PreparedStatement statement(String sql, boolean returnGeneratedKeys) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql,
+                    returnGeneratedKeys ? Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS);
+            statements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * 执行批处理
+     *
+     * @param start            批处理的起始行
+     * @param rowsPerStatement 每条语句包含的行数
+     * @param count            语句数
+     */
+    protected void executeBatch(PreparedStatement statement, int start, int rowsPerStatement, int count)
+            throws SQLException {
+        beginBatch(start, rowsPerStatement, count);
+        for (int updated : statement.executeBatch()) {
+            if (updated > 0) {
+                affected += updated;
+            }
+        }
+    }
+
+    /**
+     * 执行单条语句
+     *
+     * @param start 语句的起始行
+     * @param rows  语句包含的行数
+     */
+    protected void executeUpdate(PreparedStatement statement, int start, int rows) throws SQLException {
+        beginBatch(start, rows, 1);
+        affected += statement.executeUpdate();
+    }
+
+    private void beginBatch(int start, int rowsPerStatement, int count) {
+        batchStart = start;
+        batchRowsPerStatement = rowsPerStatement;
+        batchStatements = count;
+    }
+
+    private BulkWriteException failure(SQLException e) {
+        List<Integer> failedRows = failedRows(e);
+        int firstFailed = failedRows.isEmpty() ? batchStart : failedRows.get(0);
+        if (ownsTransaction) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackEx) {
+                logger.warn("{}回滚失败", operation, rollbackEx);
+            }
+        }
+        int completed = ownsTransaction ? committed : firstFailed;
+        logger.error("{}失败: 表={}, 已完成={}, 失败行={}", operation, tableName, completed, failedRows, e);
+        return newException(operation + "失败: 表=" + tableName + ", 首个失败行=" + firstFailed,
+                e, completed, failedRows);
+    }
+
+    private List<Integer> failedRows(SQLException e) {
+        List<Integer> failed = new ArrayList<>();
+        if (e instanceof BatchUpdateException && batchStatements > 1) {
+            int[] counts = ((BatchUpdateException) e).getUpdateCounts();
+            if (counts != null && counts.length < batchStatements) {
+                // 驱动在第一条失败的语句处停止
+                addStatementRows(failed, counts.length);
+            } else if (counts != null) {
+                // 驱动继续执行了后续语句，逐条标记失败
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == Statement.EXECUTE_FAILED) {
+                        addStatementRows(failed, i);
+                    }
+                }
+            }
+            if (!failed.isEmpty()) {
+                return failed;
+            }
+        }
+        for (int i = 0; i < batchStatements; i++) {
+            addStatementRows(failed, i);
+        }
+        return failed;
+    }
+
+    private void addStatementRows(List<Integer> failed, int statementIndex) {
+        int first = batchStart + statementIndex * batchRowsPerStatement;
+        for (int row = first; row < first + batchRowsPerStatement; row++) {
+            failed.add(row);
+        }
+    }
+
+    private void closeStatements() {
+        for (PreparedStatement statement : statements.values()) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                logger.warn("关闭{}语句失败", operation, e);
+            }
+        }
+        statements.clear();
+    }
+}
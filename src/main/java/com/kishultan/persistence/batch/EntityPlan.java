@@ -0,0 +1,307 @@
+package com.kishultan.persistence.batch;
+
+import com.kishultan.persistence.dialect.DatabaseDialect;
+import com.kishultan.persistence.query.BeanMeta;
+import com.kishultan.persistence.query.PropertyAccessor;
+import com.kishultan.persistence.query.utils.EntityUtils;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 实体批量写入计划
+ * 每个实体类只构建一次：表名、各类语句的列和按列顺序排列的字段访问器、主键，
+ * 以及按行数缓存的 INSERT / DELETE 语句、按变化列缓存的 UPDATE 语句和 upsert 语句
+ */
+final class EntityPlan {
+    private static final Map<Class<?>, EntityPlan> PLANS = new ConcurrentHashMap<>();
+    private static final int MAX_UPDATE_SHAPES = 256;
+
+    private final Class<?> entityClass;
+    private final String tableName;
+    // 插入的列，排除自增主键
+    private final String[] insertColumns;
+    private final PropertyAccessor[] insertAccessors;
+    // 全部列（upsert 使用），包含主键
+    private final String[] allColumns;
+    private final PropertyAccessor[] allAccessors;
+    // 更新的列，排除主键；绑定时最后一个参数为主键
+    private final String[] updateColumns;
+    private final PropertyAccessor[] updateAccessors;
+    private final String keyColumn;
+    private final PropertyAccessor key;
+    private final PropertyAccessor identity;
+    private final Class<?> identityType;
+    private final Map<Integer, String> insertSqlByRows = new ConcurrentHashMap<>();
+    private final Map<Integer, String> deleteSqlByRows = new ConcurrentHashMap<>();
+    private final Map<Class<?>, String> upsertSqlByDialect = new ConcurrentHashMap<>();
+    // 按变化列的位图缓存的 UPDATE 语句，数量超过上限后不再缓存新的组合
+    private final Map<BitSet, String> updateSqlByColumns = new ConcurrentHashMap<>();
+    private volatile String updateSql;
+
+    private EntityPlan(Class<?> entityClass) {
+        this.entityClass = entityClass;
+        this.tableName = EntityUtils.getTableName(entityClass);
+        BeanMeta beanMeta = new BeanMeta(entityClass);
+        Map<String, Field> columnToField = new HashMap<>();
+        for (Field field : entityClass.getDeclaredFields()) {
+            columnToField.put(EntityUtils.getColumnName(field), field);
+        }
+        this.insertColumns = EntityUtils.getColumnNames(entityClass, true);
+        this.insertAccessors = accessors(beanMeta, columnToField, insertColumns);
+        this.allColumns = EntityUtils.getColumnNames(entityClass, false);
+        this.allAccessors = accessors(beanMeta, columnToField, allColumns);
+
+        Field keyField = EntityUtils.getPrimaryKeyField(entityClass);
+        this.keyColumn = keyField != null ? EntityUtils.getColumnName(keyField) : null;
+        this.key = keyField != null ? beanMeta.getPropertyAccessor(keyField) : null;
+        List<String> columns = new ArrayList<>();
+        for (String column : allColumns) {
+            if (!column.equals(keyColumn)) {
+                columns.add(column);
+            }
+        }
+        this.updateColumns = columns.toArray(new String[0]);
+        this.updateAccessors = accessors(beanMeta, columnToField, updateColumns);
+
+        Field identityField = EntityUtils.getIdentityField(entityClass);
+        this.identity = identityField != null ? beanMeta.getPropertyAccessor(identityField) : null;
+        this.identityType = identityField != null ? identityField.getType() : null;
+    }
+
+    private static PropertyAccessor[] accessors(BeanMeta beanMeta, Map<String, Field> columnToField, String[] columns) {
+        PropertyAccessor[] accessors = new PropertyAccessor[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            Field field = columnToField.get(columns[i]);
+            // 找不到字段的列绑定 null
+            accessors[i] = field != null ? beanMeta.getPropertyAccessor(field) : null;
+        }
+        return accessors;
+    }
+
+    /**
+     * 获取实体类的写入计划
+     *
+     * @param entityClass 实体类
+     * @return 写入计划
+     */
+    static EntityPlan forEntity(Class<?> entityClass) {
+        return PLANS.computeIfAbsent(entityClass, EntityPlan::new);
+    }
+
+    /**
+     * 检查实体类有可插入的列
+     *
+     * @throws IllegalStateException 没有可插入的列
+     */
+    void requireInsertColumns() {
+        if (insertColumns.length == 0) {
+            throw new IllegalStateException("实体类 " + entityClass.getName() + " 没有可插入的列");
+        }
+    }
+
+    /**
+     * 检查实体类有 @Id 主键
+     *
+     * @throws IllegalStateException 没有主键
+     */
+    void requireKey() {
+        if (key == null) {
+            throw new IllegalStateException("实体类 " + entityClass.getName() + " 没有 @Id 主键");
+        }
+    }
+
+    /**
+     * 获取插入指定行数的 INSERT 语句，多于一行时为多行 VALUES
+     *
+     * @param rows 行数
+     * @return INSERT 语句
+     */
+    String insertSql(int rows) {
+        return insertSqlByRows.computeIfAbsent(rows, this::buildInsertSql);
+    }
+
+    private String buildInsertSql(int rows) {
+        StringBuilder row = new StringBuilder("(");
+        for (int i = 0; i < insertColumns.length; i++) {
+            if (i > 0) {
+                row.append(", ");
+            }
+            row.append('?');
+        }
+        row.append(')');
+        StringBuilder sql = new StringBuilder(tableName.length() + insertColumns.length * 16 + rows * row.length() + 32);
+        sql.append("INSERT INTO ").append(tableName).append(" (")
+                .append(String.join(", ", insertColumns))
+                .append(") VALUES ");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(row);
+        }
+        return sql.toString();
+    }
+
+    /**
+     * 获取按主键更新全部非主键列的 UPDATE 语句
+     *
+     * @return UPDATE 语句，实体类只有主键列时返回 null
+     */
+    String updateSql() {
+        if (updateColumns.length == 0) {
+            return null;
+        }
+        String sql = updateSql;
+        if (sql == null) {
+            StringBuilder builder = new StringBuilder("UPDATE ").append(tableName).append(" SET ");
+            for (int i = 0; i < updateColumns.length; i++) {
+                if (i > 0) {
+                    builder.append(", ");
+                }
+                builder.append(updateColumns[i]).append(" = ?");
+            }
+            builder.append(" WHERE ").append(keyColumn).append(" = ?");
+            sql = builder.toString();
+            updateSql = sql;
+        }
+        return sql;
+    }
+
+    /**
+     * 获取只更新部分列的 UPDATE 语句，最后一个绑定参数为主键
+     *
+     * @param columns 要更新的列在更新列中的下标（见 {@link #getUpdateValue}），不能为空
+     * @return UPDATE 语句
+     */
+    String updateSql(BitSet columns) {
+        String sql = updateSqlByColumns.get(columns);
+        if (sql != null) {
+            return sql;
+        }
+        StringBuilder builder = new StringBuilder("UPDATE ").append(tableName).append(" SET ");
+        for (int i = columns.nextSetBit(0), n = 0; i >= 0; i = columns.nextSetBit(i + 1), n++) {
+            if (n > 0) {
+                builder.append(", ");
+            }
+            builder.append(updateColumns[i]).append(" = ?");
+        }
+        builder.append(" WHERE ").append(keyColumn).append(" = ?");
+        sql = builder.toString();
+        if (updateSqlByColumns.size() < MAX_UPDATE_SHAPES) {
+            updateSqlByColumns.putIfAbsent((BitSet) columns.clone(), sql);
+        }
+        return sql;
+    }
+
+    /**
+     * 获取删除指定个数主键的 DELETE ... WHERE pk IN (...) 语句
+     *
+     * @param rows 主键个数
+     * @return DELETE 语句
+     */
+    String deleteSql(int rows) {
+        return deleteSqlByRows.computeIfAbsent(rows, count -> {
+            StringBuilder sql = new StringBuilder("DELETE FROM ").append(tableName)
+                    .append(" WHERE ").append(keyColumn).append(" IN (");
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append('?');
+            }
+            return sql.append(')').toString();
+        });
+    }
+
+    /**
+     * 获取按主键匹配的单行 upsert 语句，绑定参数为全部列
+     *
+     * @param dialect 数据库方言
+     * @return upsert 语句
+     * @throws UnsupportedOperationException 方言不支持 upsert
+     */
+    String upsertSql(DatabaseDialect dialect) {
+        String sql = dialect != null ? upsertSqlByDialect.computeIfAbsent(dialect.getClass(),
+                type -> {
+                    String built = dialect.buildUpsertSql(tableName, allColumns, new String[]{keyColumn});
+                    // ConcurrentHashMap 不接受 null，不支持时以空串记录
+                    return built != null ? built : "";
+                }) : "";
+        if (sql.isEmpty()) {
+            throw new UnsupportedOperationException("数据库方言不支持 upsert: "
+                    + (dialect != null ? dialect.getDatabaseType() : null));
+        }
+        return sql;
+    }
+
+    int getInsertColumnCount() {
+        return insertColumns.length;
+    }
+
+    int getAllColumnCount() {
+        return allColumns.length;
+    }
+
+    int getUpdateColumnCount() {
+        return updateColumns.length;
+    }
+
+    String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * 读取实体第 column 个插入列（从 0 开始）的值
+     */
+    Object getInsertValue(Object entity, int column) {
+        return value(insertAccessors[column], entity);
+    }
+
+    /**
+     * 读取实体第 column 列（从 0 开始，包含主键）的值
+     */
+    Object getValue(Object entity, int column) {
+        return value(allAccessors[column], entity);
+    }
+
+    /**
+     * 读取实体第 column 个更新列（从 0 开始）的值
+     */
+    Object getUpdateValue(Object entity, int column) {
+        return value(updateAccessors[column], entity);
+    }
+
+    private static Object value(PropertyAccessor accessor, Object entity) {
+        return accessor != null ? accessor.get(entity) : null;
+    }
+
+    Object getKey(Object entity) {
+        return key.get(entity);
+    }
+
+    boolean hasKey() {
+        return key != null;
+    }
+
+    boolean hasIdentity() {
+        return identity != null;
+    }
+
+    Class<?> getIdentityType() {
+        return identityType;
+    }
+
+    Object getIdentity(Object entity) {
+        return identity.get(entity);
+    }
+
+    void setIdentity(Object entity, Object value) {
+        identity.set(entity, value);
+    }
+}
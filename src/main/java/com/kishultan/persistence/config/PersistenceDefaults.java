@@ -10,6 +10,8 @@ public class PersistenceDefaults {
     private static String dDataSource = "default";
     private static String dDigestAlgorithm = null; //"MD5";
     private static Locale dLocale = new Locale("zh", "CN");
+    private static int dStatementCacheSize = 64;
+    private static int dMaxBatchSize = 1000;
 
     /**
      * Returns string representing the default datasource's name.
@@ -66,4 +68,50 @@ public class PersistenceDefaults {
     public static void setLocale(Locale locale) {
         dLocale = locale;
     }
+
+    /**
+     * Returns the number of prepared statements cached per transaction connection.
+     * <code>0</code> if statement caching is disabled.
+     *
+     * @return The statement cache size.
+     */
+    public static int getStatementCacheSize() {
+        return dStatementCacheSize;
+    }
+
+    /**
+     * Sets the number of prepared statements cached per transaction connection.
+     * Set to <code>0</code> to disable statement caching.
+     *
+     * @param size The statement cache size.
+     */
+    public static void setStatementCacheSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Statement cache size must not be negative: " + size);
+        }
+        dStatementCacheSize = size;
+    }
+
+    /**
+     * Returns the maximum number of statements sent to the database in one JDBC batch
+     * when batch updates are grouped by SQL text.
+     *
+     * @return The maximum batch size.
+     */
+    public static int getMaxBatchSize() {
+        return dMaxBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of statements sent to the database in one JDBC batch
+     * when batch updates are grouped by SQL text.
+     *
+     * @param size The maximum batch size, must be positive.
+     */
+    public static void setMaxBatchSize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Max batch size must be positive: " + size);
+        }
+        dMaxBatchSize = size;
+    }
 }
@@ -1,12 +1,20 @@
 package com.kishultan.persistence.delegate;
 
 import com.kishultan.persistence.EntityTransaction;
+import com.kishultan.persistence.config.PersistenceDefaults;
+import com.kishultan.persistence.query.cache.TableVersions;
+import com.kishultan.persistence.query.executor.StatementCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * SansOrm事务实现
@@ -18,6 +26,15 @@ public class SansOrmEntityTransaction implements EntityTransaction {
     private final DataSource dataSource;
     private Connection connection;
     private boolean isActive = false;
+    // 事务中写入的表，提交后再递增表版本
+    private final Set<String> modifiedTables = new LinkedHashSet<>();
+    private boolean modifiedUnknownTables = false;
+    // 事务中 EntityManager 写入的表，提交后只递增表版本
+    private final Set<String> managedTables = new LinkedHashSet<>();
+    // 提交后执行的操作，回滚时丢弃
+    private final List<Runnable> commitActions = new ArrayList<>();
+    // 事务连接上的语句缓存，首次使用时创建，事务结束时关闭
+    private StatementCache statementCache;
 
     public SansOrmEntityTransaction(DataSource dataSource) {
         this.dataSource = dataSource;
@@ -31,6 +48,8 @@ public class SansOrmEntityTransaction implements EntityTransaction {
         try {
             connection = dataSource.getConnection();
             connection.setAutoCommit(false);
+            clearModifiedTables();
+            commitActions.clear();
             isActive = true;
             logger.info("事务开始");
         } catch (SQLException e) {
@@ -47,6 +66,7 @@ public class SansOrmEntityTransaction implements EntityTransaction {
         }
         try {
             connection.commit();
+            closeStatementCache();
             // 重置连接状态
             try {
                 connection.setAutoCommit(true);
@@ -55,6 +75,8 @@ public class SansOrmEntityTransaction implements EntityTransaction {
                 logger.warn("提交后无法重置auto-commit", e);
             }
             isActive = false;
+            publishModifiedTables();
+            runCommitActions();
             logger.info("事务提交成功");
         } catch (SQLException e) {
             logger.error("事务提交失败", e);
@@ -70,6 +92,7 @@ public class SansOrmEntityTransaction implements EntityTransaction {
         }
         try {
             connection.rollback();
+            closeStatementCache();
             // 重置连接状态
             try {
                 connection.setAutoCommit(true);
@@ -78,6 +101,8 @@ public class SansOrmEntityTransaction implements EntityTransaction {
                 logger.warn("回滚后无法重置auto-commit", e);
             }
             isActive = false;
+            clearModifiedTables();
+            commitActions.clear();
             logger.info("事务回滚成功");
         } catch (SQLException e) {
             logger.error("事务回滚失败", e);
@@ -91,6 +116,7 @@ public class SansOrmEntityTransaction implements EntityTransaction {
             logger.warn("关闭活动事务，自动回滚");
             rollback();
         }
+        closeStatementCache();
         if (connection != null) {
             try {
                 connection.close();
@@ -106,6 +132,94 @@ public class SansOrmEntityTransaction implements EntityTransaction {
         return isActive;
     }
 
+    @Override
+    public void recordModifiedTables(Collection<String> tables) {
+        if (tables == null) {
+            modifiedUnknownTables = true;
+        } else {
+            modifiedTables.addAll(tables);
+        }
+    }
+
+    @Override
+    public void recordManagedTables(Collection<String> tables) {
+        managedTables.addAll(tables);
+    }
+
+    @Override
+    public void afterCommit(Runnable action) {
+        if (isActive) {
+            commitActions.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    @Override
+    public boolean hasPendingWrites() {
+        return isActive && (modifiedUnknownTables || !modifiedTables.isEmpty() || !managedTables.isEmpty());
+    }
+
+    /**
+     * 提交后递增写入表的版本，使相关查询缓存失效
+     */
+    private void publishModifiedTables() {
+        if (modifiedUnknownTables) {
+            TableVersions.invalidateAll();
+        }
+        if (!modifiedTables.isEmpty()) {
+            TableVersions.invalidate(modifiedTables);
+        }
+        managedTables.removeAll(modifiedTables);
+        if (!managedTables.isEmpty()) {
+            TableVersions.invalidateManaged(managedTables);
+        }
+        clearModifiedTables();
+    }
+
+    /**
+     * 执行提交后的操作，单个操作失败不影响其余操作
+     */
+    private void runCommitActions() {
+        List<Runnable> actions = new ArrayList<>(commitActions);
+        commitActions.clear();
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                logger.warn("执行提交后操作失败", e);
+            }
+        }
+    }
+
+    @Override
+    public StatementCache getStatementCache() {
+        if (!isActive) {
+            return null;
+        }
+        if (statementCache == null) {
+            int size = PersistenceDefaults.getStatementCacheSize();
+            if (size <= 0) {
+                return null;
+            }
+            statementCache = new StatementCache(connection, size);
+        }
+        return statementCache;
+    }
+
+    private void closeStatementCache() {
+        if (statementCache != null) {
+            statementCache.close();
+            statementCache = null;
+        }
+    }
+
+    private void clearModifiedTables() {
+        modifiedTables.clear();
+        managedTables.clear();
+        modifiedUnknownTables = false;
+    }
+
     /**
      * 获取事务连接
      */
@@ -116,4 +116,14 @@ public class DB2Dialect implements DatabaseDialect {
 
         return identifier;
     }
+
+    @Override
+    public int getMaxInsertParameters() {
+        return 32767;
+    }
+
+    @Override
+    public String buildUpsertSql(String table, String[] columns, String[] keyColumns) {
+        return UpsertSql.mergeFromValues(table, columns, keyColumns, "");
+    }
 }
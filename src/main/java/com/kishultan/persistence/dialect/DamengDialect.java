@@ -112,4 +112,9 @@ public class DamengDialect implements DatabaseDialect {
 
         return identifier;
     }
+
+    @Override
+    public String buildUpsertSql(String table, String[] columns, String[] keyColumns) {
+        return UpsertSql.mergeFromDual(table, columns, keyColumns);
+    }
 }
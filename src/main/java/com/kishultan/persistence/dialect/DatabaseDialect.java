@@ -114,4 +114,70 @@ public interface DatabaseDialect {
      * @return 去掉引号的标识符
      */
     String unquoteIdentifier(String identifier);
+
+    /**
+     * 获取流式读取时传给 {@link java.sql.Statement#setFetchSize(int)} 的值
+     * 默认直接使用请求的批次大小（Oracle/达梦等按此值做行预取）
+     * MySQL 协议系驱动需要 Integer.MIN_VALUE 才会逐行流式读取
+     *
+     * @param fetchSize 期望的每次网络往返行数
+     * @return 实际传给驱动的 fetchSize
+     */
+    default int getStreamingFetchSize(int fetchSize) {
+        return fetchSize;
+    }
+
+    /**
+     * 服务器端游标是否要求关闭自动提交
+     * PostgreSQL 系驱动只有在 autocommit=false 时才会按 fetchSize 分批拉取结果
+     *
+     * @return 需要在事务内打开游标时返回 true
+     */
+    default boolean requiresTransactionForCursor() {
+        return false;
+    }
+
+    /**
+     * 是否支持行值比较，如 (a, b) > (?, ?)
+     * 不支持时键集分页会展开为 a > ? OR (a = ? AND b > ?) 形式
+     *
+     * @return 支持返回 true
+     */
+    default boolean supportsRowValueComparison() {
+        return false;
+    }
+
+    /**
+     * 多行插入 INSERT ... VALUES (...), (...) 单条语句允许的绑定参数上限
+     * 批量插入按此值把多行合并为一条语句，效果等同 MySQL 驱动的 rewriteBatchedStatements；
+     * 返回 0 表示不支持多行 VALUES，批量插入使用 JDBC 批处理
+     *
+     * @return 绑定参数上限，不支持时返回 0
+     */
+    default int getMaxInsertParameters() {
+        return 0;
+    }
+
+    /**
+     * 多行插入后 {@link java.sql.Statement#getGeneratedKeys()} 是否按行顺序返回每一行的自增主键
+     * 不支持时，带自增主键的实体批量插入使用 JDBC 批处理以回填主键
+     *
+     * @return 支持返回 true
+     */
+    default boolean supportsMultiRowGeneratedKeys() {
+        return false;
+    }
+
+    /**
+     * 构建单行 upsert 语句：按 keyColumns 匹配到已有行时更新其余列，否则插入
+     * 绑定参数依次为 columns 中各列的值
+     *
+     * @param table      表名
+     * @param columns    全部列，包含 keyColumns
+     * @param keyColumns 用于匹配的主键列
+     * @return upsert 语句，不支持时返回 null
+     */
+    default String buildUpsertSql(String table, String[] columns, String[] keyColumns) {
+        return null;
+    }
 }
@@ -108,4 +108,24 @@ public class H2Dialect implements DatabaseDialect {
 
         return identifier;
     }
+
+    @Override
+    public boolean supportsRowValueComparison() {
+        return true;
+    }
+
+    @Override
+    public int getMaxInsertParameters() {
+        return 32767;
+    }
+
+    @Override
+    public boolean supportsMultiRowGeneratedKeys() {
+        return true;
+    }
+
+    @Override
+    public String buildUpsertSql(String table, String[] columns, String[] keyColumns) {
+        return UpsertSql.mergeKey(table, columns, keyColumns);
+    }
 }
@@ -112,4 +112,26 @@ public class KingbaseESDialect implements DatabaseDialect {
 
         return identifier;
     }
+
+    @Override
+    public boolean requiresTransactionForCursor() {
+        // PostgreSQL 协议驱动仅在 autocommit=false 时使用服务器端游标
+        return true;
+    }
+
+    @Override
+    public boolean supportsRowValueComparison() {
+        return true;
+    }
+
+    @Override
+    public int getMaxInsertParameters() {
+        // PostgreSQL 协议驱动单条语句最多 32767 个参数
+        return 32767;
+    }
+
+    @Override
+    public String buildUpsertSql(String table, String[] columns, String[] keyColumns) {
+        return UpsertSql.onConflict(table, columns, keyColumns);
+    }
 }
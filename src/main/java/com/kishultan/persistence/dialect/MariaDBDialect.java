@@ -112,4 +112,25 @@ public class MariaDBDialect implements DatabaseDialect {
 
         return identifier;
     }
+
+    @Override
+    public boolean supportsRowValueComparison() {
+        return true;
+    }
+
+    @Override
+    public int getMaxInsertParameters() {
+        // MySQL 协议单条语句最多 65535 个参数
+        return 65535;
+    }
+
+    @Override
+    public boolean supportsMultiRowGeneratedKeys() {
+        return true;
+    }
+
+    @Override
+    public String buildUpsertSql(String table, String[] columns, String[] keyColumns) {
+        return UpsertSql.onDuplicateKeyUpdate(table, columns, keyColumns);
+    }
 }
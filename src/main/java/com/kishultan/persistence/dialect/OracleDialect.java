@@ -113,4 +113,9 @@ public class OracleDialect implements DatabaseDialect {
 
         return identifier;
     }
+
+    @Override
+    public String buildUpsertSql(String table, String[] columns, String[] keyColumns) {
+        return UpsertSql.mergeFromDual(table, columns, keyColumns);
+    }
 }
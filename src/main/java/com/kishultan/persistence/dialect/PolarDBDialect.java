@@ -112,4 +112,26 @@ public class PolarDBDialect implements DatabaseDialect {
 
         return identifier;
     }
+
+    @Override
+    public int getStreamingFetchSize(int fetchSize) {
+        // MySQL 协议驱动仅在 fetchSize 为 Integer.MIN_VALUE 时逐行流式读取
+        return Integer.MIN_VALUE;
+    }
+
+    @Override
+    public boolean supportsRowValueComparison() {
+        return true;
+    }
+
+    @Override
+    public int getMaxInsertParameters() {
+        // MySQL 协议单条语句最多 65535 个参数
+        return 65535;
+    }
+
+    @Override
+    public String buildUpsertSql(String table, String[] columns, String[] keyColumns) {
+        return UpsertSql.onDuplicateKeyUpdate(table, columns, keyColumns);
+    }
 }
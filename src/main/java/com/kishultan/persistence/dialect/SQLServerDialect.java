@@ -109,4 +109,15 @@ public class SQLServerDialect implements DatabaseDialect {
 
         return identifier;
     }
+
+    @Override
+    public int getMaxInsertParameters() {
+        // SQL Server 单条语句最多 2100 个参数，预留余量
+        return 2000;
+    }
+
+    @Override
+    public String buildUpsertSql(String table, String[] columns, String[] keyColumns) {
+        return UpsertSql.mergeFromValues(table, columns, keyColumns, ";");
+    }
 }
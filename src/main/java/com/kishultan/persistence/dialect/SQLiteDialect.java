@@ -111,4 +111,20 @@ public class SQLiteDialect implements DatabaseDialect {
 
         return identifier;
     }
+
+    @Override
+    public boolean supportsRowValueComparison() {
+        return true;
+    }
+
+    @Override
+    public int getMaxInsertParameters() {
+        // 旧版本 SQLite 默认最多 999 个参数
+        return 999;
+    }
+
+    @Override
+    public String buildUpsertSql(String table, String[] columns, String[] keyColumns) {
+        return UpsertSql.onConflict(table, columns, keyColumns);
+    }
 }
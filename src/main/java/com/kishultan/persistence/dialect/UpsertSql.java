@@ -0,0 +1,149 @@
+package com.kishultan.persistence.dialect;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 单行 upsert 语句的几种写法，供各方言的 {@link DatabaseDialect#buildUpsertSql} 使用
+ * 所有写法的绑定参数都依次为 columns 中各列的值
+ */
+final class UpsertSql {
+    private UpsertSql() {
+    }
+
+    /**
+     * MySQL 系：INSERT ... ON DUPLICATE KEY UPDATE c = VALUES(c)
+     */
+    static String onDuplicateKeyUpdate(String table, String[] columns, String[] keyColumns) {
+        StringBuilder sql = insertValues(table, columns).append(" ON DUPLICATE KEY UPDATE ");
+        String[] updateColumns = nonKeyColumns(columns, keyColumns);
+        if (updateColumns.length == 0) {
+            // 只有主键列时保持原值，相当于忽略重复行
+            sql.append(keyColumns[0]).append(" = ").append(keyColumns[0]);
+            return sql.toString();
+        }
+        for (int i = 0; i < updateColumns.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(updateColumns[i]).append(" = VALUES(").append(updateColumns[i]).append(')');
+        }
+        return sql.toString();
+    }
+
+    /**
+     * PostgreSQL 系：INSERT ... ON CONFLICT (key) DO UPDATE SET c = EXCLUDED.c
+     */
+    static String onConflict(String table, String[] columns, String[] keyColumns) {
+        StringBuilder sql = insertValues(table, columns)
+                .append(" ON CONFLICT (").append(String.join(", ", keyColumns)).append(')');
+        String[] updateColumns = nonKeyColumns(columns, keyColumns);
+        if (updateColumns.length == 0) {
+            return sql.append(" DO NOTHING").toString();
+        }
+        sql.append(" DO UPDATE SET ");
+        for (int i = 0; i < updateColumns.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(updateColumns[i]).append(" = EXCLUDED.").append(updateColumns[i]);
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Oracle 系：MERGE INTO t USING (SELECT ? c1, ? c2 FROM DUAL) s ON (...)
+     */
+    static String mergeFromDual(String table, String[] columns, String[] keyColumns) {
+        StringBuilder source = new StringBuilder("(SELECT ");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                source.append(", ");
+            }
+            source.append("? ").append(columns[i]);
+        }
+        source.append(" FROM DUAL) s");
+        return merge(table, source.toString(), columns, keyColumns, "");
+    }
+
+    /**
+     * SQL Server / DB2：MERGE INTO t USING (VALUES (?, ?)) AS s (c1, c2) ON (...)
+     *
+     * @param terminator 语句结束符，SQL Server 的 MERGE 必须以分号结束
+     */
+    static String mergeFromValues(String table, String[] columns, String[] keyColumns, String terminator) {
+        StringBuilder source = new StringBuilder("(VALUES (");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                source.append(", ");
+            }
+            source.append('?');
+        }
+        source.append(")) AS s (").append(String.join(", ", columns)).append(')');
+        return merge(table, source.toString(), columns, keyColumns, terminator);
+    }
+
+    /**
+     * H2：MERGE INTO t (c1, c2) KEY (key) VALUES (?, ?)
+     */
+    static String mergeKey(String table, String[] columns, String[] keyColumns) {
+        StringBuilder sql = new StringBuilder("MERGE INTO ").append(table)
+                .append(" (").append(String.join(", ", columns)).append(") KEY (")
+                .append(String.join(", ", keyColumns)).append(") VALUES (");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append('?');
+        }
+        return sql.append(')').toString();
+    }
+
+    private static String merge(String table, String source, String[] columns, String[] keyColumns, String terminator) {
+        StringBuilder sql = new StringBuilder("MERGE INTO ").append(table).append(" t USING ").append(source)
+                .append(" ON (");
+        for (int i = 0; i < keyColumns.length; i++) {
+            if (i > 0) {
+                sql.append(" AND ");
+            }
+            sql.append("t.").append(keyColumns[i]).append(" = s.").append(keyColumns[i]);
+        }
+        sql.append(')');
+        String[] updateColumns = nonKeyColumns(columns, keyColumns);
+        if (updateColumns.length > 0) {
+            sql.append(" WHEN MATCHED THEN UPDATE SET ");
+            for (int i = 0; i < updateColumns.length; i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append("t.").append(updateColumns[i]).append(" = s.").append(updateColumns[i]);
+            }
+        }
+        sql.append(" WHEN NOT MATCHED THEN INSERT (").append(String.join(", ", columns)).append(") VALUES (");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("s.").append(columns[i]);
+        }
+        return sql.append(')').append(terminator).toString();
+    }
+
+    private static StringBuilder insertValues(String table, String[] columns) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+                .append(" (").append(String.join(", ", columns)).append(") VALUES (");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append('?');
+        }
+        return sql.append(')');
+    }
+
+    private static String[] nonKeyColumns(String[] columns, String[] keyColumns) {
+        Set<String> keys = new HashSet<>(Arrays.asList(keyColumns));
+        return Arrays.stream(columns).filter(column -> !keys.contains(column)).toArray(String[]::new);
+    }
+}
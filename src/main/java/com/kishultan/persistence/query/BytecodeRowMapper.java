@@ -0,0 +1,25 @@
+package com.kishultan.persistence.query;
+
+/**
+ * 生成字节码的行映射器（可选）
+ * <p>
+ * 单表实体按 "实体类型 + 列布局" 生成专用读取类（见 {@link RowReaderGenerator}），
+ * 每行只执行直线代码：rs.getString(3) / entity.setName(...)；
+ * Map 结果、简单类型和带 JOIN 嵌套实体的结果仍使用 {@link DefaultRowMapper} 的映射计划
+ * <p>
+ * 使用方式：
+ * <pre>
+ * criterion.setRowMapper(new BytecodeRowMapper&lt;User&gt;());
+ * // 或全局启用
+ * CriterionConfig.GlobalConfig.setBytecodeRowMapper(true);
+ * </pre>
+ *
+ * @param <T> 结果类型
+ */
+public class BytecodeRowMapper<T> extends DefaultRowMapper<T> {
+
+    @Override
+    protected boolean useGeneratedReaders() {
+        return true;
+    }
+}
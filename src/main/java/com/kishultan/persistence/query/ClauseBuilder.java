@@ -2,6 +2,9 @@ package com.kishultan.persistence.query;
 
 import com.kishultan.persistence.query.context.ClauseResult;
 
+import java.util.List;
+import java.util.Set;
+
 /**
  * 子句构建器接口，定义所有子句的构建契约
  */
@@ -15,4 +18,36 @@ public interface ClauseBuilder<T> {
      * 获取当前子句的SQL片段（用于调试）
      */
     String getClauseSql();
+
+    /**
+     * 追加子句的结构指纹（列、运算符、IN 列表长度等，不含参数值）
+     * 结构指纹相同的子句必须生成相同的 SQL；无法描述结构时返回 false，此时不使用 SQL 模板缓存
+     *
+     * @param shape 结构指纹
+     * @return 是否可以使用 SQL 模板缓存
+     */
+    default boolean appendShape(List<Object> shape) {
+        return false;
+    }
+
+    /**
+     * 只收集参数、不拼接 SQL，参数顺序与 buildClause() 一致
+     * SQL 模板缓存命中时使用
+     *
+     * @param parameters 参数收集列表
+     */
+    default void collectParameters(List<Object> parameters) {
+        ClauseResult result = buildClause();
+        if (result.getParameters() != null) {
+            parameters.addAll(result.getParameters());
+        }
+    }
+
+    /**
+     * 收集子句读取的表，用于查询缓存按表失效
+     *
+     * @param tables 表名收集集合
+     */
+    default void collectTables(Set<String> tables) {
+    }
 }
@@ -99,6 +99,25 @@ public interface Criterion<T> {
     // 缓存支持
     QueryCache getQueryCache();
 
+    /**
+     * 查询结果使用指定的缓存区域，TTL 取区域的默认 TTL
+     *
+     * @param region 区域名称，须已通过 CriterionConfigManager.registerCacheRegion 注册
+     */
+    default Criterion<T> cacheable(String region) {
+        return this;
+    }
+
+    /**
+     * 查询结果使用指定的缓存区域和 TTL
+     *
+     * @param region 区域名称，须已通过 CriterionConfigManager.registerCacheRegion 注册
+     * @param ttl    生存时间（毫秒），-1表示永不过期
+     */
+    default Criterion<T> cacheable(String region, long ttl) {
+        return this;
+    }
+
     RowMapper<?> getRowMapper();
 
     // 自定义映射器支持
@@ -20,14 +20,34 @@ public class DefaultRowMapper<T> implements RowMapper<T> {
     
     // BeanMeta缓存：Class -> BeanMeta
     private static final Map<Class<?>, BeanMeta> metaCache = new ConcurrentHashMap<>();
+    // 主键字段缓存：Class -> @Id 字段
+    private static final Map<Class<?>, Optional<Field>> pkFieldCache = new ConcurrentHashMap<>();
+    // 映射计划缓存上限（按 SQL / 列布局区分）
+    private static final int MAX_PLAN_CACHE_SIZE = 256;
+    // 映射计划缓存：所有映射器共享（每个查询构建器都有自己的映射器），
+    // 键为结果类型 + SQL（或列标签布局）+ 别名注册、配置和方言，见 PlanKey
+    private static final Map<PlanKey, RowPlan> planCache = Collections.synchronizedMap(
+            new LinkedHashMap<PlanKey, RowPlan>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<PlanKey, RowPlan> eldest) {
+                    return size() > MAX_PLAN_CACHE_SIZE;
+                }
+            });
     
     private final Map<String, TableMeta> aliasMapping = new HashMap<>();
+    // 实体类 -> 表元数据（替代对 aliasMapping.values() 的线性扫描）
+    private final Map<Class<?>, TableMeta> classMapping = new HashMap<>();
+    // 当前别名注册和方言的快照，注册变化后重新生成
+    private volatile MappingKey mappingKey;
+    // 最近一次使用的 ResultSet 及其计划，逐行调用 mapRow 时避免重复读取元数据
+    private volatile PlanBinding lastBinding;
     private CriterionConfig criterionConfig;
     private DatabaseDialect dialect;
 
     @Override
     public RowMapper<T> setConfig(CriterionConfig config) {
         this.criterionConfig = config;
+        clearPlans();
         return this;
     }
 
@@ -44,6 +64,29 @@ public class DefaultRowMapper<T> implements RowMapper<T> {
      */
     public void setDialect(DatabaseDialect dialect) {
         this.dialect = dialect;
+        clearPlans();
+    }
+
+    /**
+     * 别名注册、配置或方言变化后改用新的计划缓存键，不再复用之前编译的映射计划
+     */
+    private void clearPlans() {
+        mappingKey = null;
+        lastBinding = null;
+    }
+    
+    /**
+     * 共享的映射计划数量（主要用于测试）
+     */
+    static int getPlanCacheSize() {
+        return planCache.size();
+    }
+
+    /**
+     * 清除共享的映射计划（主要用于测试）
+     */
+    static void clearPlanCache() {
+        planCache.clear();
     }
     
     private BeanMeta getBeanMeta(Class<?> clazz) {
@@ -73,13 +116,15 @@ public class DefaultRowMapper<T> implements RowMapper<T> {
     }
 
     private static Field getPkField(Class<?> clazz) {
-        for (Field f : clazz.getDeclaredFields()) {
-            if (f.isAnnotationPresent(Id.class)) {
-                f.setAccessible(true);
-                return f;
+        return pkFieldCache.computeIfAbsent(clazz, c -> {
+            for (Field f : c.getDeclaredFields()) {
+                if (f.isAnnotationPresent(Id.class)) {
+                    f.setAccessible(true);
+                    return Optional.of(f);
+                }
             }
-        }
-        return null;
+            return Optional.empty();
+        }).orElse(null);
     }
 
     private Object getEntityId(Object entity) {
@@ -101,7 +146,7 @@ public class DefaultRowMapper<T> implements RowMapper<T> {
             //throw new IllegalStateException("No @Id field found for class " + clazz.getName());
             return;
         }
-        aliasMapping.put(alias, new TableMeta(tableName, pkField.getName(), clazz));
+        putTableMeta(alias, new TableMeta(tableName, pkField.getName(), clazz));
     }
 
     public void register(Class<?> clazz, String alias) {
@@ -112,7 +157,7 @@ public class DefaultRowMapper<T> implements RowMapper<T> {
             //throw new IllegalStateException("No @Id field found for class " + clazz.getName());
             return;
         }
-        aliasMapping.put(alias, new TableMeta(tableName, pkField.getName(), clazz));
+        putTableMeta(alias, new TableMeta(tableName, pkField.getName(), clazz));
     }
 
     public void register(String tableName, String alias, Class<?> clazz) {
@@ -122,7 +167,13 @@ public class DefaultRowMapper<T> implements RowMapper<T> {
             //throw new IllegalStateException("No @Id field found for class " + clazz.getName());
             return;
         }
-        aliasMapping.put(alias, new TableMeta(tableName, pkField.getName(), clazz));
+        putTableMeta(alias, new TableMeta(tableName, pkField.getName(), clazz));
+    }
+
+    private void putTableMeta(String alias, TableMeta tableMeta) {
+        aliasMapping.put(alias, tableMeta);
+        classMapping.putIfAbsent(tableMeta.entityClass, tableMeta);
+        clearPlans();
     }
 
     /**
@@ -139,21 +190,113 @@ public class DefaultRowMapper<T> implements RowMapper<T> {
             Object val = rs.getObject(1); // 默认取第一列
             return (T) convertValue(val, resultType);
         }
-        ResultSetMetaData meta = rs.getMetaData();
+        // 2️⃣ Map 类型 / 3️⃣ 实体类：使用按列布局编译的映射计划
+        PlanBinding binding = lastBinding;
+        RowPlan plan;
+        if (binding != null && binding.resultType == resultType && binding.resultSet.get() == rs) {
+            plan = binding.plan;
+        } else {
+            ResultSetMetaData meta = rs.getMetaData();
+            plan = getPlan("#" + layoutKey(meta), meta, resultType);
+            lastBinding = new PlanBinding(rs, resultType, plan);
+        }
+        return (T) plan.map(rs);
+    }
+
+    /**
+     * 映射整个结果集，每个 (SQL, 结果类型) 只编译一次映射计划
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<T> mapRows(ResultSet rs, Class<T> resultType, String sql) throws Exception {
+        if (sql == null || List.class.isAssignableFrom(resultType) || isSimpleType(resultType)) {
+            return RowMapper.super.mapRows(rs, resultType, sql);
+        }
+        RowPlan plan = null;
+        List<T> results = new ArrayList<>();
+        while (rs.next()) {
+            if (plan == null) {
+                plan = getPlan(sql, rs.getMetaData(), resultType);
+            }
+            results.add((T) plan.map(rs));
+        }
+        return results;
+    }
+
+    private String layoutKey(ResultSetMetaData meta) throws Exception {
+        StringBuilder key = new StringBuilder();
+        for (int i = 1, n = meta.getColumnCount(); i <= n; i++) {
+            key.append(meta.getColumnLabel(i)).append(',');
+        }
+        return key.toString();
+    }
+
+    /**
+     * 获取映射计划，source 为 SQL 或 "#列标签布局"
+     */
+    private RowPlan getPlan(String source, ResultSetMetaData meta, Class<?> resultType) throws Exception {
+        MappingKey mapping = mappingKey;
+        if (mapping == null) {
+            mapping = new MappingKey(aliasMapping, classMapping, dialect);
+            mappingKey = mapping;
+        }
+        PlanKey key = new PlanKey(resultType, source, mapping, getConfig(), useGeneratedReaders());
+        RowPlan plan = planCache.get(key);
+        if (plan == null) {
+            plan = compilePlan(meta, resultType);
+            planCache.put(key, plan);
+        }
+        return plan;
+    }
+
+    private RowPlan compilePlan(ResultSetMetaData meta, Class<?> resultType) throws Exception {
         int colCount = meta.getColumnCount();
-        // 2️⃣ Map 类型
+        String[] labels = new String[colCount];
+        for (int i = 1; i <= colCount; i++) {
+            labels[i - 1] = meta.getColumnLabel(i);
+        }
         if (Map.class.isAssignableFrom(resultType)) {
-            Map<String, Object> rowMap = new LinkedHashMap<>();
-            for (int i = 1; i <= colCount; i++) {
-                String colName = meta.getColumnLabel(i);
-                Object val = rs.getObject(i);
-                rowMap.put(colName, val);
+            return new MapRowPlan(labels);
+        }
+        EntityNode root = compileEntity(resultType, labels, new HashSet<>());
+        if (useGeneratedReaders() && root.beanMeta != null && root.children.length == 0) {
+            RowPlan generated = compileGeneratedPlan(root);
+            if (generated != null) {
+                return generated;
             }
-            return (T) rowMap;
         }
-        // 3️⃣ 实体类
-        Set<String> visited = new HashSet<>(); // 防止循环引用
-        return buildEntity(rs, resultType, colCount, meta, visited);
+        return rs -> buildEntity(root, rs);
+    }
+
+    /**
+     * 是否为单表实体生成专用的行读取类（见 {@link RowReaderGenerator}）
+     */
+    protected boolean useGeneratedReaders() {
+        return getConfig().resolveBytecodeRowMapper();
+    }
+
+    /**
+     * 生成类读取计划：直接调用 setter 的列由生成代码处理，其余列回调通用逻辑
+     */
+    private RowPlan compileGeneratedPlan(EntityNode root) {
+        RowReaderGenerator.Column[] columns = new RowReaderGenerator.Column[root.slots.length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new RowReaderGenerator.Column(root.slots[i].index, root.slots[i].accessor);
+        }
+        RowReaderGenerator.RowReader reader = RowReaderGenerator.getReader(root.entityClass, columns);
+        if (reader == null) {
+            return null;
+        }
+        RowReaderGenerator.ColumnHook hook = (slot, bean, rs) -> readColumn(root.slots[slot], bean, rs);
+        return rs -> {
+            if (root.pkIndex <= 0 || rs.getObject(root.pkIndex) == null) return null;
+            if (!root.missingColumns.isEmpty()) {
+                reportMissingColumns(root);
+            }
+            Object instance = root.beanMeta.newInstance();
+            reader.read(rs, instance, hook);
+            return instance;
+        };
     }
 
     /**
@@ -260,106 +403,156 @@ public class DefaultRowMapper<T> implements RowMapper<T> {
     }
 
     private boolean isEntity(Class<?> clazz) {
-        return aliasMapping.values().stream()
-                .anyMatch(meta -> meta.entityClass.equals(clazz));
+        return classMapping.containsKey(clazz);
     }
 
-    @SuppressWarnings("unchecked")
-    private <T> T buildEntity(ResultSet rs, Class<T> rootClass,
-                              int colCount, ResultSetMetaData meta,
-                              Set<String> visited) throws Exception {
-        TableMeta rootMeta = findMetaByClass(rootClass);
+    /**
+     * 编译实体映射节点：预先确定列下标、属性访问器、嵌套实体和集合槽位
+     * 编译路径上已出现的类型在运行时必然命中循环引用检测，直接编译为代理节点
+     */
+    private EntityNode compileEntity(Class<?> entityClass, String[] labels, Set<Class<?>> path) throws Exception {
+        TableMeta rootMeta = findMetaByClass(entityClass);
         if (rootMeta == null) {
-            throw new IllegalStateException("Class not registered: " + rootClass.getName());
+            throw new IllegalStateException("Class not registered: " + entityClass.getName());
         }
-        Object pkValue = null;
-        Map<String, Object> values = new HashMap<>();
-        for (int i = 1; i <= colCount; i++) {
-            String label = meta.getColumnLabel(i);
+        int pkIndex = -1;
+        Map<String, Integer> columns = new LinkedHashMap<>();
+        for (int i = 1; i <= labels.length; i++) {
+            String label = labels[i - 1];
             String alias, field;
-            if (label.contains("__")) {
-                String[] parts = label.split("__", 2);
-                alias = parts[0];
-                field = parts[1];
+            int sep = label.indexOf("__");
+            if (sep >= 0) {
+                alias = label.substring(0, sep);
+                field = label.substring(sep + 2);
             } else {
                 alias = rootMeta.tableName;
                 field = label;
             }
-            TableMeta tm = resolveTableMeta(alias, rootClass);
-            if (tm == null || !tm.entityClass.equals(rootClass)) continue;
-            Object val = rs.getObject(i);
-            values.put(field, val);
-            if (field.equalsIgnoreCase(tm.pkField)) pkValue = val;
+            TableMeta tm = resolveTableMeta(alias, entityClass);
+            if (tm == null || !tm.entityClass.equals(entityClass)) continue;
+            columns.put(field, i);
+            if (field.equalsIgnoreCase(tm.pkField)) pkIndex = i;
         }
-        if (pkValue == null) return null;
-        String visitedKey = rootMeta.tableName + ":" + pkValue;
-        if (visited.contains(visitedKey)) {
-            return (T) createProxyObject(rootClass, pkValue);
+        if (path.contains(entityClass)) {
+            return new EntityNode(entityClass, pkIndex);
         }
-        visited.add(visitedKey);
-        
-        BeanMeta beanMeta = getBeanMeta(rootClass);
-        T instance = (T) beanMeta.newInstance();
-        
-        populate(instance, values, beanMeta);
-        
-        for (Field field : rootClass.getDeclaredFields()) {
+
+        BeanMeta beanMeta = getBeanMeta(entityClass);
+        EntityNode node = new EntityNode(entityClass, pkIndex, beanMeta);
+        CriterionConfig config = getConfig();
+        FieldNamingStrategyChain strategyChain = config.resolveStrategyChain();
+        node.warnOnMissing = config.resolveWarnOnMissingField();
+        node.strictMode = config.resolveStrictMode();
+        List<ColumnSlot> slots = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : columns.entrySet()) {
+            PropertyAccessor accessor = beanMeta.getPropertyAccessor(entry.getKey(), strategyChain);
+            if (accessor != null) {
+                slots.add(new ColumnSlot(entry.getValue(), accessor));
+            } else {
+                missing.add(entry.getKey());
+            }
+        }
+        node.slots = slots.toArray(new ColumnSlot[0]);
+        node.missingColumns = missing;
+
+        path.add(entityClass);
+        List<ChildSlot> children = new ArrayList<>();
+        for (Field field : entityClass.getDeclaredFields()) {
             Class<?> fieldType = field.getType();
-            TableMeta childMeta = findMetaByClass(fieldType);
-            if (childMeta != null) {
-                Object child = buildEntity(rs, fieldType, colCount, meta, visited);
-                if (child != null) {
-                    PropertyAccessor childAccessor = beanMeta.getPropertyAccessor(field);
-                    childAccessor.set(instance, child);
-                }
-            } else if (Collection.class.isAssignableFrom(fieldType)) {
-                ParameterizedType listType = (ParameterizedType) field.getGenericType();
-                Class<?> elemType = (Class<?>) listType.getActualTypeArguments()[0];
-                TableMeta elemMeta = findMetaByClass(elemType);
-                if (elemMeta != null) {
-                    Object child = buildEntity(rs, elemType, colCount, meta, visited);
-                    if (child != null) {
-                        PropertyAccessor collAccessor = beanMeta.getPropertyAccessor(field);
-                        Collection<Object> coll = (Collection<Object>) collAccessor.get(instance);
-                        if (coll == null) {
-                            coll = new ArrayList<>();
-                            collAccessor.set(instance, coll);
-                        }
-                        Object childId = getEntityId(child);
-                        if (childId == null || coll.stream().noneMatch(o -> Objects.equals(getEntityId(o), childId))) {
-                            coll.add(child);
-                        }
-                    }
+            if (findMetaByClass(fieldType) != null) {
+                children.add(new ChildSlot(beanMeta.getPropertyAccessor(field),
+                        compileEntity(fieldType, labels, path), false));
+            } else if (Collection.class.isAssignableFrom(fieldType)
+                    && field.getGenericType() instanceof ParameterizedType) {
+                java.lang.reflect.Type elemType = ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+                if (elemType instanceof Class && findMetaByClass((Class<?>) elemType) != null) {
+                    children.add(new ChildSlot(beanMeta.getPropertyAccessor(field),
+                            compileEntity((Class<?>) elemType, labels, path), true));
                 }
             }
         }
-        visited.remove(visitedKey);
+        path.remove(entityClass);
+        node.children = children.toArray(new ChildSlot[0]);
+        return node;
+    }
+
+    /**
+     * 按编译好的节点构建实体，逐行只做按下标读取和属性设置
+     */
+    @SuppressWarnings("unchecked")
+    private Object buildEntity(EntityNode node, ResultSet rs) throws Exception {
+        Object pkValue = node.pkIndex > 0 ? rs.getObject(node.pkIndex) : null;
+        if (pkValue == null) return null;
+        if (node.beanMeta == null) {
+            return createProxyObject(node.entityClass, pkValue);
+        }
+        if (!node.missingColumns.isEmpty()) {
+            reportMissingColumns(node);
+        }
+        Object instance = node.beanMeta.newInstance();
+        for (ColumnSlot slot : node.slots) {
+            if (slot.index == node.pkIndex && slot.kind == ColumnSlot.OBJECT) {
+                slot.accessor.set(instance, convertValue(pkValue, slot.type));
+            } else {
+                readColumn(slot, instance, rs);
+            }
+        }
+        for (ChildSlot childSlot : node.children) {
+            Object child = buildEntity(childSlot.node, rs);
+            if (child == null) continue;
+            if (!childSlot.collection) {
+                childSlot.accessor.set(instance, child);
+                continue;
+            }
+            Collection<Object> coll = (Collection<Object>) childSlot.accessor.get(instance);
+            if (coll == null) {
+                coll = new ArrayList<>();
+                childSlot.accessor.set(instance, coll);
+            }
+            Object childId = getEntityId(child);
+            if (childId == null || coll.stream().noneMatch(o -> Objects.equals(getEntityId(o), childId))) {
+                coll.add(child);
+            }
+        }
         return instance;
     }
 
     /**
-     * 根据策略链填充字段
+     * 读取单列并设置到实体；int/long/double 字段不经过装箱，NULL 时保留字段原值
      */
-    private void populate(Object instance, Map<String, Object> values, BeanMeta beanMeta) throws Exception {
-        CriterionConfig config = getConfig();
-        FieldNamingStrategyChain strategyChain = config.resolveStrategyChain();
-        boolean warnOnMissing = config.resolveWarnOnMissingField();
-        boolean strictMode = config.resolveStrictMode();
+    private void readColumn(ColumnSlot slot, Object instance, ResultSet rs) throws Exception {
+        switch (slot.kind) {
+            case ColumnSlot.INT: {
+                int val = rs.getInt(slot.index);
+                if (!rs.wasNull()) slot.accessor.setInt(instance, val);
+                break;
+            }
+            case ColumnSlot.LONG: {
+                long val = rs.getLong(slot.index);
+                if (!rs.wasNull()) slot.accessor.setLong(instance, val);
+                break;
+            }
+            case ColumnSlot.DOUBLE: {
+                double val = rs.getDouble(slot.index);
+                if (!rs.wasNull()) slot.accessor.setDouble(instance, val);
+                break;
+            }
+            default: {
+                slot.accessor.set(instance, convertValue(rs.getObject(slot.index), slot.type));
+            }
+        }
+    }
 
-        for (Map.Entry<String, Object> entry : values.entrySet()) {
-            String columnName = entry.getKey();
-            PropertyAccessor accessor = beanMeta.getPropertyAccessor(columnName, strategyChain);
-            
-            if (accessor != null) {
-                Object convertedValue = convertValue(entry.getValue(), accessor.getType());
-                accessor.set(instance, convertedValue);
-            } else {
-                if (strictMode) {
-                    throw new NoSuchFieldException("无法在类 " + instance.getClass().getName() + " 中找到对应列 " + columnName + " 的属性");
-                }
-                if (warnOnMissing) {
-                    logger.warn("无法在类 {} 中找到对应列 {} 的属性", instance.getClass().getName(), columnName);
-                }
+    private void reportMissingColumns(EntityNode node) throws NoSuchFieldException {
+        if (node.strictMode) {
+            throw new NoSuchFieldException("无法在类 " + node.entityClass.getName() + " 中找到对应列 " + node.missingColumns.get(0) + " 的属性");
+        }
+        if (node.warnOnMissing && !node.missingWarned) {
+            // 每个映射计划只告警一次
+            node.missingWarned = true;
+            for (String columnName : node.missingColumns) {
+                logger.warn("无法在类 {} 中找到对应列 {} 的属性", node.entityClass.getName(), columnName);
             }
         }
     }
@@ -399,9 +592,7 @@ public class DefaultRowMapper<T> implements RowMapper<T> {
     }
 
     private TableMeta findMetaByClass(Class<?> clazz) {
-        return aliasMapping.values().stream()
-                .filter(m -> m.entityClass.equals(clazz))
-                .findFirst().orElse(null);
+        return classMapping.get(clazz);
     }
 
     private TableMeta resolveTableMeta(String alias, Class<?> targetClass) {
@@ -436,6 +627,192 @@ public class DefaultRowMapper<T> implements RowMapper<T> {
         }
     }
 
+    /**
+     * 行映射计划：对同一列布局只编译一次
+     */
+    private interface RowPlan {
+        Object map(ResultSet rs) throws Exception;
+    }
+
+    /**
+     * Map 结果的映射计划，预先读取列标签
+     */
+    private static final class MapRowPlan implements RowPlan {
+        private final String[] labels;
+
+        MapRowPlan(String[] labels) {
+            this.labels = labels;
+        }
+
+        @Override
+        public Object map(ResultSet rs) throws Exception {
+            Map<String, Object> rowMap = new LinkedHashMap<>();
+            for (int i = 0; i < labels.length; i++) {
+                rowMap.put(labels[i], rs.getObject(i + 1));
+            }
+            return rowMap;
+        }
+    }
+
+    /**
+     * 实体映射节点；beanMeta 为 null 时表示循环引用处的代理节点
+     */
+    private static final class EntityNode {
+        final Class<?> entityClass;
+        final int pkIndex;
+        final BeanMeta beanMeta;
+        ColumnSlot[] slots;
+        ChildSlot[] children;
+        List<String> missingColumns = Collections.emptyList();
+        boolean warnOnMissing;
+        boolean strictMode;
+        volatile boolean missingWarned;
+
+        EntityNode(Class<?> entityClass, int pkIndex) {
+            this(entityClass, pkIndex, null);
+        }
+
+        EntityNode(Class<?> entityClass, int pkIndex, BeanMeta beanMeta) {
+            this.entityClass = entityClass;
+            this.pkIndex = pkIndex;
+            this.beanMeta = beanMeta;
+        }
+    }
+
+    /**
+     * 普通列槽位：列下标 + 属性访问器
+     * int/long/double 基本类型字段直接用 rs.getXxx + wasNull 读取，不经过装箱
+     */
+    private static final class ColumnSlot {
+        static final int OBJECT = 0;
+        static final int INT = 1;
+        static final int LONG = 2;
+        static final int DOUBLE = 3;
+
+        final int index;
+        final PropertyAccessor accessor;
+        final Class<?> type;
+        final int kind;
+
+        ColumnSlot(int index, PropertyAccessor accessor) {
+            this.index = index;
+            this.accessor = accessor;
+            this.type = accessor.getType();
+            if (type == int.class) {
+                this.kind = INT;
+            } else if (type == long.class) {
+                this.kind = LONG;
+            } else if (type == double.class) {
+                this.kind = DOUBLE;
+            } else {
+                this.kind = OBJECT;
+            }
+        }
+    }
+
+    /**
+     * 嵌套实体 / 集合槽位
+     */
+    private static final class ChildSlot {
+        final PropertyAccessor accessor;
+        final EntityNode node;
+        final boolean collection;
+
+        ChildSlot(PropertyAccessor accessor, EntityNode node, boolean collection) {
+            this.accessor = accessor;
+            this.node = node;
+            this.collection = collection;
+        }
+    }
+
+    /**
+     * ResultSet 与计划的绑定（弱引用，不阻止 ResultSet 回收）
+     */
+    private static final class PlanBinding {
+        final java.lang.ref.WeakReference<ResultSet> resultSet;
+        final Class<?> resultType;
+        final RowPlan plan;
+
+        PlanBinding(ResultSet resultSet, Class<?> resultType, RowPlan plan) {
+            this.resultSet = new java.lang.ref.WeakReference<>(resultSet);
+            this.resultType = resultType;
+            this.plan = plan;
+        }
+    }
+
+    /**
+     * 映射器的别名注册和方言快照
+     * 注册内容相同的映射器（例如同一实体的多个查询构建器）生成相同的键，共享映射计划
+     */
+    private static final class MappingKey {
+        final Map<String, TableMeta> aliases;
+        final Map<Class<?>, TableMeta> classes;
+        final Class<?> dialectType;
+        final int hash;
+
+        MappingKey(Map<String, TableMeta> aliases, Map<Class<?>, TableMeta> classes, DatabaseDialect dialect) {
+            this.aliases = new HashMap<>(aliases);
+            this.classes = new HashMap<>(classes);
+            this.dialectType = dialect != null ? dialect.getClass() : null;
+            this.hash = Objects.hash(this.aliases, this.classes, dialectType);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MappingKey)) return false;
+            MappingKey that = (MappingKey) o;
+            return hash == that.hash && dialectType == that.dialectType
+                    && aliases.equals(that.aliases) && classes.equals(that.classes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * 映射计划缓存键：结果类型、SQL（或列标签布局）、别名注册快照，以及编译计划时读取的配置值
+     */
+    private static final class PlanKey {
+        final Class<?> resultType;
+        final String source;
+        final MappingKey mapping;
+        final FieldNamingStrategyChain strategyChain;
+        final boolean warnOnMissing;
+        final boolean strictMode;
+        final boolean bytecode;
+        final int hash;
+
+        PlanKey(Class<?> resultType, String source, MappingKey mapping, CriterionConfig config, boolean bytecode) {
+            this.resultType = resultType;
+            this.source = source;
+            this.mapping = mapping;
+            this.strategyChain = config.resolveStrategyChain();
+            this.warnOnMissing = config.resolveWarnOnMissingField();
+            this.strictMode = config.resolveStrictMode();
+            this.bytecode = bytecode;
+            this.hash = Objects.hash(resultType, source, mapping, System.identityHashCode(strategyChain),
+                    warnOnMissing, strictMode, bytecode);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PlanKey)) return false;
+            PlanKey that = (PlanKey) o;
+            return hash == that.hash && resultType == that.resultType && strategyChain == that.strategyChain
+                    && warnOnMissing == that.warnOnMissing && strictMode == that.strictMode
+                    && bytecode == that.bytecode && source.equals(that.source) && mapping.equals(that.mapping);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
     static class TableMeta {
         String tableName;
         String pkField;
@@ -446,5 +823,19 @@ public class DefaultRowMapper<T> implements RowMapper<T> {
             this.pkField = pkField;
             this.entityClass = entityClass;
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof TableMeta)) return false;
+            TableMeta that = (TableMeta) o;
+            return entityClass == that.entityClass && Objects.equals(tableName, that.tableName)
+                    && Objects.equals(pkField, that.pkField);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tableName, pkField, entityClass);
+        }
     }
 }
@@ -8,16 +8,32 @@ import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 /**
  * 基于LambdaMetafactory的属性访问器实现
  * 提供接近直接调用的性能
+ * 
+ * int/long/double 基本类型字段额外提供 ObjIntConsumer 等专用访问函数，
+ * 通过精确类型的 MethodHandle.invokeExact 读写字段，全程不装箱
  */
 public class LambdaPropertyAccessor implements PropertyAccessor {
     private final String name;
     private final Class<?> type;
     private final Function<Object, Object> getter;
     private final BiConsumer<Object, Object> setter;
+    // 基本类型专用访问函数，仅在字段类型匹配时非 null
+    private ObjIntConsumer<Object> intSetter;
+    private ObjLongConsumer<Object> longSetter;
+    private ObjDoubleConsumer<Object> doubleSetter;
+    private ToIntFunction<Object> intGetter;
+    private ToLongFunction<Object> longGetter;
+    private ToDoubleFunction<Object> doubleGetter;
 
     @SuppressWarnings("unchecked")
     public LambdaPropertyAccessor(Field field) {
@@ -29,6 +45,7 @@ public class LambdaPropertyAccessor implements PropertyAccessor {
         
         this.getter = createGetter(lookup, field);
         this.setter = createSetter(lookup, field);
+        createPrimitiveAccessors(lookup, field);
     }
 
     @Override
@@ -41,6 +58,48 @@ public class LambdaPropertyAccessor implements PropertyAccessor {
         setter.accept(bean, value);
     }
 
+    @Override
+    public void setInt(Object bean, int value) {
+        if (intSetter != null) {
+            intSetter.accept(bean, value);
+        } else {
+            PropertyAccessor.super.setInt(bean, value);
+        }
+    }
+
+    @Override
+    public void setLong(Object bean, long value) {
+        if (longSetter != null) {
+            longSetter.accept(bean, value);
+        } else {
+            PropertyAccessor.super.setLong(bean, value);
+        }
+    }
+
+    @Override
+    public void setDouble(Object bean, double value) {
+        if (doubleSetter != null) {
+            doubleSetter.accept(bean, value);
+        } else {
+            PropertyAccessor.super.setDouble(bean, value);
+        }
+    }
+
+    @Override
+    public int getInt(Object bean) {
+        return intGetter != null ? intGetter.applyAsInt(bean) : PropertyAccessor.super.getInt(bean);
+    }
+
+    @Override
+    public long getLong(Object bean) {
+        return longGetter != null ? longGetter.applyAsLong(bean) : PropertyAccessor.super.getLong(bean);
+    }
+
+    @Override
+    public double getDouble(Object bean) {
+        return doubleGetter != null ? doubleGetter.applyAsDouble(bean) : PropertyAccessor.super.getDouble(bean);
+    }
+
     @Override
     public Class<?> getType() {
         return type;
@@ -152,6 +211,71 @@ public class LambdaPropertyAccessor implements PropertyAccessor {
         }
     }
     
+    /**
+     * 为 int/long/double 字段创建不装箱的访问函数
+     * LambdaMetafactory 只接受方法句柄，不接受字段 getter/setter 句柄，
+     * 因此这里把字段句柄适配为 (Object, int)void 等精确类型后用 invokeExact 调用
+     */
+    private void createPrimitiveAccessors(MethodHandles.Lookup lookup, Field field) {
+        if (type != int.class && type != long.class && type != double.class) {
+            return;
+        }
+        try {
+            MethodHandle get = lookup.unreflectGetter(field)
+                    .asType(MethodType.methodType(type, Object.class));
+            MethodHandle put = lookup.unreflectSetter(field)
+                    .asType(MethodType.methodType(void.class, Object.class, type));
+            if (type == int.class) {
+                intGetter = bean -> {
+                    try {
+                        return (int) get.invokeExact(bean);
+                    } catch (Throwable ex) {
+                        throw new RuntimeException(ex);
+                    }
+                };
+                intSetter = (bean, value) -> {
+                    try {
+                        put.invokeExact(bean, value);
+                    } catch (Throwable ex) {
+                        throw new RuntimeException(ex);
+                    }
+                };
+            } else if (type == long.class) {
+                longGetter = bean -> {
+                    try {
+                        return (long) get.invokeExact(bean);
+                    } catch (Throwable ex) {
+                        throw new RuntimeException(ex);
+                    }
+                };
+                longSetter = (bean, value) -> {
+                    try {
+                        put.invokeExact(bean, value);
+                    } catch (Throwable ex) {
+                        throw new RuntimeException(ex);
+                    }
+                };
+            } else {
+                doubleGetter = bean -> {
+                    try {
+                        return (double) get.invokeExact(bean);
+                    } catch (Throwable ex) {
+                        throw new RuntimeException(ex);
+                    }
+                };
+                doubleSetter = (bean, value) -> {
+                    try {
+                        put.invokeExact(bean, value);
+                    } catch (Throwable ex) {
+                        throw new RuntimeException(ex);
+                    }
+                };
+            }
+        } catch (IllegalAccessException e) {
+            // 保持 null，回退到装箱的通用访问路径
+        }
+    }
+    
     private static Class<?> wrap(Class<?> type) {
         if (!type.isPrimitive()) return type;
         if (type == int.class) return Integer.class;
@@ -31,4 +31,61 @@ public interface PropertyAccessor {
      * @return 属性名
      */
     String getName();
+    
+    /**
+     * 设置 int 属性值（实现类可针对基本类型字段避免装箱）
+     * @param bean Bean实例
+     * @param value 属性值
+     */
+    default void setInt(Object bean, int value) {
+        set(bean, value);
+    }
+    
+    /**
+     * 设置 long 属性值（实现类可针对基本类型字段避免装箱）
+     * @param bean Bean实例
+     * @param value 属性值
+     */
+    default void setLong(Object bean, long value) {
+        set(bean, value);
+    }
+    
+    /**
+     * 设置 double 属性值（实现类可针对基本类型字段避免装箱）
+     * @param bean Bean实例
+     * @param value 属性值
+     */
+    default void setDouble(Object bean, double value) {
+        set(bean, value);
+    }
+    
+    /**
+     * 获取 int 属性值，null 视为 0
+     * @param bean Bean实例
+     * @return 属性值
+     */
+    default int getInt(Object bean) {
+        Object value = get(bean);
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+    
+    /**
+     * 获取 long 属性值，null 视为 0
+     * @param bean Bean实例
+     * @return 属性值
+     */
+    default long getLong(Object bean) {
+        Object value = get(bean);
+        return value == null ? 0L : ((Number) value).longValue();
+    }
+    
+    /**
+     * 获取 double 属性值，null 视为 0
+     * @param bean Bean实例
+     * @return 属性值
+     */
+    default double getDouble(Object bean) {
+        Object value = get(bean);
+        return value == null ? 0D : ((Number) value).doubleValue();
+    }
 }
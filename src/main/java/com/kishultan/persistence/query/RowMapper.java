@@ -2,6 +2,8 @@ package com.kishultan.persistence.query;
 
 import com.kishultan.persistence.query.config.CriterionConfig;
 import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 行映射器接口
@@ -17,6 +19,24 @@ public interface RowMapper<T> {
      * @throws Exception 异常
      */
     T mapRow(ResultSet rs, Class<T> resultType) throws Exception;
+
+    /**
+     * 映射整个结果集（从当前位置读到结束）
+     * 默认逐行调用 mapRow；实现类可以按 SQL 缓存映射计划，避免逐行解析列元数据
+     *
+     * @param rs         ResultSet
+     * @param resultType 结果类型
+     * @param sql        生成结果集的 SQL，可作为映射计划的缓存键，可能为 null
+     * @return 映射后的对象列表
+     * @throws Exception 异常
+     */
+    default List<T> mapRows(ResultSet rs, Class<T> resultType, String sql) throws Exception {
+        List<T> results = new ArrayList<>();
+        while (rs.next()) {
+            results.add(mapRow(rs, resultType));
+        }
+        return results;
+    }
     
     /**
      * 获取当前RowMapper的配置
@@ -0,0 +1,543 @@
+package com.kishultan.persistence.query;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 行读取类生成器
+ * 为 "实体类型 + 列布局" 生成专用类，按下标直接调用 rs.getString(3) / entity.setName(...)，
+ * 没有反射、没有装箱、没有按列分派
+ * <p>
+ * 新 JDK 上通过 {@code MethodHandles.Lookup.defineHiddenClass} 定义为实体包中的隐藏类（可随映射器回收），
+ * 不支持时退化为独立 ClassLoader 的 defineClass
+ * <p>
+ * 只有 public 实体上参数类型与字段一致的 public setter 会生成直接调用，
+ * 其余列回调 {@link ColumnHook}，由 DefaultRowMapper 按通用逻辑处理
+ */
+public final class RowReaderGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(RowReaderGenerator.class);
+    /** 每个实体类型最多缓存的列布局数 */
+    private static final int MAX_LAYOUTS_PER_CLASS = 64;
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    /**
+     * 生成的读取器缓存：实体类型 -> (列布局签名 -> 读取器)，生成类无状态，可跨映射器共享
+     * 通过 ClassValue 挂在实体类上，不强引用实体类及其 ClassLoader，应用卸载时随实体类一起回收
+     */
+    private static final ClassValue<Map<String, RowReader>> readerCache = new ClassValue<Map<String, RowReader>>() {
+        @Override
+        protected Map<String, RowReader> computeValue(Class<?> type) {
+            return Collections.synchronizedMap(new LinkedHashMap<String, RowReader>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, RowReader> eldest) {
+                    return size() > MAX_LAYOUTS_PER_CLASS;
+                }
+            });
+        }
+    };
+
+    private static final String RESULT_SET = "java/sql/ResultSet";
+    private static final String READER = RowReader.class.getName().replace('.', '/');
+    private static final String HOOK = ColumnHook.class.getName().replace('.', '/');
+    private static final String SELF = RowReaderGenerator.class.getName().replace('.', '/');
+
+    private RowReaderGenerator() {
+    }
+
+    /**
+     * 生成的读取类实现此接口（需为 public，隐藏类定义在实体包中）
+     */
+    public interface RowReader {
+        /**
+         * 把当前行读入已创建的实体实例
+         */
+        void read(ResultSet rs, Object bean, ColumnHook hook) throws Exception;
+    }
+
+    /**
+     * 无法直接生成调用的列回调
+     */
+    public interface ColumnHook {
+        /**
+         * @param slot 列槽位下标（生成时传入的 columns 数组下标）
+         */
+        void apply(int slot, Object bean, ResultSet rs) throws Exception;
+    }
+
+    /**
+     * 列描述：列下标 + 属性访问器
+     */
+    static final class Column {
+        final int index;
+        final PropertyAccessor accessor;
+
+        Column(int index, PropertyAccessor accessor) {
+            this.index = index;
+            this.accessor = accessor;
+        }
+    }
+
+    /**
+     * 获取（必要时生成）读取器；无法生成时返回 null，由调用方退化为通用映射
+     */
+    static RowReader getReader(Class<?> entityClass, Column[] columns) {
+        if (!Modifier.isPublic(entityClass.getModifiers())) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder();
+        for (Column column : columns) {
+            key.append(column.index).append(':').append(column.accessor.getName()).append(',');
+        }
+        String cacheKey = key.toString();
+        Map<String, RowReader> readers = readerCache.get(entityClass);
+        RowReader reader = readers.get(cacheKey);
+        if (reader == null) {
+            reader = generate(entityClass, columns);
+            if (reader != null) {
+                readers.put(cacheKey, reader);
+            }
+        }
+        return reader;
+    }
+
+    private static RowReader generate(Class<?> entityClass, Column[] columns) {
+        String simpleName = entityClass.getName().replace('.', '/') + "$$RowReader";
+        try {
+            Class<?> readerClass = defineHidden(entityClass, generateClass(simpleName, entityClass, columns));
+            if (readerClass == null) {
+                String name = simpleName + COUNTER.incrementAndGet();
+                readerClass = defineInLoader(entityClass, name.replace('/', '.'), generateClass(name, entityClass, columns));
+            }
+            if (readerClass == null) {
+                return null;
+            }
+            return (RowReader) readerClass.getDeclaredConstructor().newInstance();
+        } catch (Throwable e) {
+            logger.warn("生成行读取类失败，使用通用映射: {}", entityClass.getName(), e);
+            return null;
+        }
+    }
+
+    // ==================== 类定义 ====================
+
+    /**
+     * JDK 15+：在实体包中定义隐藏类
+     */
+    private static Class<?> defineHidden(Class<?> entityClass, byte[] bytes) {
+        Method defineHiddenClass;
+        Class<?> optionClass;
+        try {
+            optionClass = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            defineHiddenClass = MethodHandles.Lookup.class.getMethod("defineHiddenClass",
+                    byte[].class, boolean.class, Array.newInstance(optionClass, 0).getClass());
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(entityClass, MethodHandles.lookup());
+            MethodHandles.Lookup hidden = (MethodHandles.Lookup) defineHiddenClass.invoke(
+                    lookup, bytes, true, Array.newInstance(optionClass, 0));
+            return hidden.lookupClass();
+        } catch (Throwable e) {
+            logger.debug("无法定义隐藏类，改用 ClassLoader: {}", e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * 退化路径：每个生成类一个 ClassLoader，不再引用时可随 ClassLoader 一起回收
+     */
+    private static Class<?> defineInLoader(Class<?> entityClass, String name, byte[] bytes) {
+        ClassLoader parent = entityClass.getClassLoader();
+        try {
+            if (parent == null || Class.forName(RowReader.class.getName(), false, parent) != RowReader.class) {
+                return null;
+            }
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        return new GeneratedClassLoader(parent).define(name, bytes);
+    }
+
+    private static final class GeneratedClassLoader extends ClassLoader {
+        GeneratedClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    // ==================== 字节码生成 ====================
+
+    /**
+     * 生成类文件（版本 49，无需 StackMapTable）
+     */
+    private static byte[] generateClass(String name, Class<?> entityClass, Column[] columns) throws IOException {
+        ConstantPool cp = new ConstantPool();
+        int thisClass = cp.classRef(name);
+        int superClass = cp.classRef("java/lang/Object");
+        int readerInterface = cp.classRef(READER);
+        int code = cp.utf8("Code");
+
+        // <init>: aload_0; invokespecial Object.<init>; return
+        ByteArrayOutputStream init = new ByteArrayOutputStream();
+        init.write(0x2a);
+        init.write(0xb7);
+        writeShort(init, cp.methodRef("java/lang/Object", "<init>", "()V", false));
+        init.write(0xb1);
+
+        byte[] read = generateRead(cp, entityClass, columns);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(49);
+        int initName = cp.utf8("<init>");
+        int initDesc = cp.utf8("()V");
+        int readName = cp.utf8("read");
+        int readDesc = cp.utf8("(L" + RESULT_SET + ";Ljava/lang/Object;L" + HOOK + ";)V");
+        cp.write(out);
+        out.writeShort(0x0001 | 0x0010 | 0x0020); // public final super
+        out.writeShort(thisClass);
+        out.writeShort(superClass);
+        out.writeShort(1);
+        out.writeShort(readerInterface);
+        out.writeShort(0); // fields
+        out.writeShort(2); // methods
+        writeMethod(out, initName, initDesc, code, 1, 1, init.toByteArray());
+        writeMethod(out, readName, readDesc, code, 4, 7, read);
+        out.writeShort(0); // attributes
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * read(ResultSet rs, Object bean, ColumnHook hook)
+     * 局部变量：1=rs, 2=bean, 3=hook, 4=实体类型的 bean, 5-6=基本类型临时值
+     */
+    private static byte[] generateRead(ConstantPool cp, Class<?> entityClass, Column[] columns) {
+        String owner = entityClass.getName().replace('.', '/');
+        ByteArrayOutputStream code = new ByteArrayOutputStream();
+        code.write(0x2c); // aload_2
+        code.write(0xc0); // checkcast
+        writeShort(code, cp.classRef(owner));
+        code.write(0x3a); // astore 4
+        code.write(4);
+        for (int slot = 0; slot < columns.length; slot++) {
+            Column column = columns[slot];
+            Method setter = findSetter(entityClass, column.accessor);
+            ReadKind kind = setter == null ? null : ReadKind.of(column.accessor.getType());
+            if (kind == null) {
+                // hook.apply(slot, bean, rs)
+                code.write(0x2d); // aload_3
+                pushInt(code, slot);
+                code.write(0x2c); // aload_2
+                code.write(0x2b); // aload_1
+                code.write(0xb9); // invokeinterface
+                writeShort(code, cp.methodRef(HOOK, "apply", "(ILjava/lang/Object;L" + RESULT_SET + ";)V", true));
+                code.write(4);
+                code.write(0);
+                continue;
+            }
+            int setterRef = cp.methodRef(owner, setter.getName(), descriptor(setter), false);
+            int getterRef = kind.helper
+                    ? cp.methodRef(SELF, kind.method, "(L" + RESULT_SET + ";I)" + kind.descriptor, false)
+                    : cp.methodRef(RESULT_SET, kind.method, "(I)" + kind.descriptor, true);
+            if (kind.primitive) {
+                // v = rs.getXxx(i); if (!rs.wasNull()) bean.setXxx(v);
+                code.write(0x2b); // aload_1
+                pushInt(code, column.index);
+                invokeGetter(code, kind, getterRef);
+                code.write(kind.store);
+                code.write(5);
+                code.write(0x2b); // aload_1
+                code.write(0xb9);
+                writeShort(code, cp.methodRef(RESULT_SET, "wasNull", "()Z", true));
+                code.write(1);
+                code.write(0);
+                ByteArrayOutputStream set = new ByteArrayOutputStream();
+                set.write(0x19); // aload 4
+                set.write(4);
+                set.write(kind.load);
+                set.write(5);
+                invokeSetter(set, setter, setterRef);
+                code.write(0x9a); // ifne
+                writeShort(code, 3 + set.size());
+                code.write(set.toByteArray(), 0, set.size());
+            } else {
+                // bean.setXxx(rs.getXxx(i))
+                code.write(0x19); // aload 4
+                code.write(4);
+                code.write(0x2b); // aload_1
+                pushInt(code, column.index);
+                invokeGetter(code, kind, getterRef);
+                invokeSetter(code, setter, setterRef);
+            }
+        }
+        code.write(0xb1); // return
+        return code.toByteArray();
+    }
+
+    private static void invokeGetter(ByteArrayOutputStream code, ReadKind kind, int getterRef) {
+        if (kind.helper) {
+            code.write(0xb8); // invokestatic
+            writeShort(code, getterRef);
+        } else {
+            code.write(0xb9); // invokeinterface
+            writeShort(code, getterRef);
+            code.write(2);
+            code.write(0);
+        }
+    }
+
+    private static void invokeSetter(ByteArrayOutputStream code, Method setter, int setterRef) {
+        code.write(0xb6); // invokevirtual
+        writeShort(code, setterRef);
+        Class<?> returnType = setter.getReturnType();
+        if (returnType == long.class || returnType == double.class) {
+            code.write(0x58); // pop2
+        } else if (returnType != void.class) {
+            code.write(0x57); // pop
+        }
+    }
+
+    /**
+     * 查找 public setter：setXxx(字段类型)，声明类也需为 public
+     */
+    private static Method findSetter(Class<?> entityClass, PropertyAccessor accessor) {
+        String name = accessor.getName();
+        String setterName = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        try {
+            Method method = entityClass.getMethod(setterName, accessor.getType());
+            if (Modifier.isStatic(method.getModifiers())
+                    || !Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+                return null;
+            }
+            return method;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static String descriptor(Method method) {
+        StringBuilder desc = new StringBuilder("(");
+        for (Class<?> param : method.getParameterTypes()) {
+            desc.append(descriptor(param));
+        }
+        return desc.append(')').append(descriptor(method.getReturnType())).toString();
+    }
+
+    private static String descriptor(Class<?> type) {
+        if (type == void.class) return "V";
+        if (type == int.class) return "I";
+        if (type == long.class) return "J";
+        if (type == double.class) return "D";
+        if (type == float.class) return "F";
+        if (type == boolean.class) return "Z";
+        if (type == short.class) return "S";
+        if (type == byte.class) return "B";
+        if (type == char.class) return "C";
+        if (type.isArray()) return type.getName().replace('.', '/');
+        return "L" + type.getName().replace('.', '/') + ";";
+    }
+
+    private static void pushInt(ByteArrayOutputStream code, int value) {
+        if (value <= 5) {
+            code.write(0x03 + value); // iconst_n
+        } else if (value <= Byte.MAX_VALUE) {
+            code.write(0x10); // bipush
+            code.write(value);
+        } else {
+            code.write(0x11); // sipush
+            writeShort(code, value);
+        }
+    }
+
+    private static void writeShort(ByteArrayOutputStream out, int value) {
+        out.write((value >>> 8) & 0xff);
+        out.write(value & 0xff);
+    }
+
+    private static void writeMethod(DataOutputStream out, int name, int desc, int codeAttr,
+                                    int maxStack, int maxLocals, byte[] code) throws IOException {
+        out.writeShort(0x0001); // public
+        out.writeShort(name);
+        out.writeShort(desc);
+        out.writeShort(1);
+        out.writeShort(codeAttr);
+        out.writeInt(12 + code.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0); // exception table
+        out.writeShort(0); // attributes
+    }
+
+    /**
+     * 支持直接生成读取调用的字段类型
+     */
+    private static final class ReadKind {
+        private static final Map<Class<?>, ReadKind> KINDS = new HashMap<>();
+
+        static {
+            // 基本类型：rs.getXxx + wasNull，NULL 时保留字段原值
+            KINDS.put(int.class, new ReadKind("getInt", "I", true, false, 0x36, 0x15));
+            KINDS.put(long.class, new ReadKind("getLong", "J", true, false, 0x37, 0x16));
+            KINDS.put(double.class, new ReadKind("getDouble", "D", true, false, 0x39, 0x18));
+            KINDS.put(float.class, new ReadKind("getFloat", "F", true, false, 0x38, 0x17));
+            KINDS.put(boolean.class, new ReadKind("getBoolean", "Z", true, false, 0x36, 0x15));
+            KINDS.put(short.class, new ReadKind("getShort", "S", true, false, 0x36, 0x15));
+            KINDS.put(byte.class, new ReadKind("getByte", "B", true, false, 0x36, 0x15));
+            // 引用类型：驱动直接返回目标类型，NULL 时为 null
+            KINDS.put(String.class, new ReadKind("getString", "Ljava/lang/String;", false, false, 0, 0));
+            KINDS.put(BigDecimal.class, new ReadKind("getBigDecimal", "Ljava/math/BigDecimal;", false, false, 0, 0));
+            KINDS.put(java.sql.Timestamp.class, new ReadKind("getTimestamp", "Ljava/sql/Timestamp;", false, false, 0, 0));
+            KINDS.put(java.sql.Date.class, new ReadKind("getDate", "Ljava/sql/Date;", false, false, 0, 0));
+            KINDS.put(java.sql.Time.class, new ReadKind("getTime", "Ljava/sql/Time;", false, false, 0, 0));
+            KINDS.put(byte[].class, new ReadKind("getBytes", "[B", false, false, 0, 0));
+            // 包装类型：通过静态辅助方法处理 NULL
+            KINDS.put(Integer.class, new ReadKind("getIntegerOrNull", "Ljava/lang/Integer;", false, true, 0, 0));
+            KINDS.put(Long.class, new ReadKind("getLongOrNull", "Ljava/lang/Long;", false, true, 0, 0));
+            KINDS.put(Double.class, new ReadKind("getDoubleOrNull", "Ljava/lang/Double;", false, true, 0, 0));
+            KINDS.put(Boolean.class, new ReadKind("getBooleanOrNull", "Ljava/lang/Boolean;", false, true, 0, 0));
+        }
+
+        final String method;
+        final String descriptor;
+        final boolean primitive;
+        final boolean helper;
+        final int store;
+        final int load;
+
+        ReadKind(String method, String descriptor, boolean primitive, boolean helper, int store, int load) {
+            this.method = method;
+            this.descriptor = descriptor;
+            this.primitive = primitive;
+            this.helper = helper;
+            this.store = store;
+            this.load = load;
+        }
+
+        static ReadKind of(Class<?> type) {
+            return KINDS.get(type);
+        }
+    }
+
+    // ==================== 生成类调用的辅助方法 ====================
+
+    public static Integer getIntegerOrNull(ResultSet rs, int index) throws SQLException {
+        int value = rs.getInt(index);
+        return rs.wasNull() ? null : value;
+    }
+
+    public static Long getLongOrNull(ResultSet rs, int index) throws SQLException {
+        long value = rs.getLong(index);
+        return rs.wasNull() ? null : value;
+    }
+
+    public static Double getDoubleOrNull(ResultSet rs, int index) throws SQLException {
+        double value = rs.getDouble(index);
+        return rs.wasNull() ? null : value;
+    }
+
+    public static Boolean getBooleanOrNull(ResultSet rs, int index) throws SQLException {
+        boolean value = rs.getBoolean(index);
+        return rs.wasNull() ? null : value;
+    }
+
+    /**
+     * 常量池（只包含生成类用到的条目类型）
+     */
+    private static final class ConstantPool {
+        private final Map<String, Integer> entries = new HashMap<>();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private int count = 1;
+
+        int utf8(String value) {
+            Integer index = entries.get("U" + value);
+            if (index != null) {
+                return index;
+            }
+            try {
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeByte(1);
+                out.writeUTF(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return register("U" + value);
+        }
+
+        int classRef(String internalName) {
+            Integer index = entries.get("C" + internalName);
+            if (index != null) {
+                return index;
+            }
+            int name = utf8(internalName);
+            bytes.write(7);
+            writeShort(bytes, name);
+            return register("C" + internalName);
+        }
+
+        int methodRef(String owner, String name, String desc, boolean isInterface) {
+            String key = (isInterface ? "I" : "M") + owner + "." + name + desc;
+            Integer index = entries.get(key);
+            if (index != null) {
+                return index;
+            }
+            int ownerIndex = classRef(owner);
+            int nameAndType = nameAndType(name, desc);
+            bytes.write(isInterface ? 11 : 10);
+            writeShort(bytes, ownerIndex);
+            writeShort(bytes, nameAndType);
+            return register(key);
+        }
+
+        private int nameAndType(String name, String desc) {
+            String key = "N" + name + desc;
+            Integer index = entries.get(key);
+            if (index != null) {
+                return index;
+            }
+            int nameIndex = utf8(name);
+            int descIndex = utf8(desc);
+            bytes.write(12);
+            writeShort(bytes, nameIndex);
+            writeShort(bytes, descIndex);
+            return register(key);
+        }
+
+        private int register(String key) {
+            int index = count++;
+            entries.put(key, index);
+            return index;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeShort(count);
+            bytes.writeTo(out);
+        }
+    }
+}
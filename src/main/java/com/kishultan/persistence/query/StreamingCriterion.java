@@ -31,6 +31,43 @@ public interface StreamingCriterion<T> {
      * @return 流式查询结果流
      */
     Stream<T> stream(int batchSize);
+
+    /**
+     * 游标流式查询（使用默认 fetchSize）
+     * 只执行一次查询，由驱动按 fetchSize 分批拉取，适合超大结果集的全量扫描
+     * 返回的流持有数据库连接，必须通过 try-with-resources 关闭或完整消费
+     * 事务中使用事务连接读取；MySQL 逐行流式读取期间该连接不能执行其他语句，流关闭前事务内的其他操作会失败
+     *
+     * @return 游标流
+     */
+    Stream<T> streamCursor();
+
+    /**
+     * 游标流式查询（指定 fetchSize）
+     *
+     * @param fetchSize 每次网络往返拉取的行数
+     * @return 游标流
+     */
+    Stream<T> streamCursor(int fetchSize);
+
+    /**
+     * 预取流式查询（使用默认预取深度）
+     * 后台线程在消费当前批次时提前加载后续批次，减少批次边界上的等待
+     * 返回的流应通过 try-with-resources 关闭，以便及时停止后台预取
+     *
+     * @param batchSize 批次大小
+     * @return 预取流
+     */
+    Stream<T> streamWithPrefetch(int batchSize);
+
+    /**
+     * 预取流式查询（指定预取深度）
+     *
+     * @param batchSize     批次大小
+     * @param prefetchDepth 预取深度（最多提前加载的批次数）
+     * @return 预取流
+     */
+    Stream<T> streamWithPrefetch(int batchSize, int prefetchDepth);
     // ==================== 分页流式查询 ====================
 
     /**
@@ -49,6 +86,22 @@ public interface StreamingCriterion<T> {
      * @return 流式查询结果流
      */
     Stream<T> streamWithPagination(int pageSize, int offset);
+
+    /**
+     * 键集分页流式查询（使用默认页大小）
+     * 按 ORDER BY 键值（默认主键）定位下一页，深分页代价不随偏移量增长
+     *
+     * @return 键集分页流
+     */
+    Stream<T> streamWithKeyset();
+
+    /**
+     * 键集分页流式查询（指定页大小）
+     *
+     * @param pageSize 页大小
+     * @return 键集分页流
+     */
+    Stream<T> streamWithKeyset(int pageSize);
     // ==================== 流式处理 ====================
 
     /**
@@ -85,6 +85,14 @@ public interface StreamingQueryMetrics {
      * @return 是否已完成
      */
     boolean isCompleted();
+
+    /**
+     * 获取消费线程等待批次数据的累计时间（毫秒）
+     * 同步模式下即批次加载时间，预取模式下为预取未跟上时的阻塞时间
+     *
+     * @return 累计等待时间
+     */
+    long getStallTime();
     // ==================== 指标管理 ====================
 
     /**
@@ -4,6 +4,8 @@ import com.kishultan.persistence.dialect.DatabaseDialect;
 import com.kishultan.persistence.query.ClauseBuilder;
 import com.kishultan.persistence.query.JoinClause;
 import com.kishultan.persistence.query.context.ClauseResult;
+import com.kishultan.persistence.query.context.KeysetCondition;
+import com.kishultan.persistence.query.context.OrderInfo;
 import com.kishultan.persistence.query.context.QueryBuildContext;
 
 import java.util.ArrayList;
@@ -18,8 +20,19 @@ public class SQLQueryResultBuilder implements QueryResultBuilder {
     
     /**
      * 构建查询并收集参数
+     * 结构相同的查询命中 SQL 模板缓存时只收集参数，LIMIT 子句总是单独追加
      */
     public QueryResultWithParams buildQueryWithParams(QueryBuildContext<?> context) {
+        List<Object> shape = buildShape(context, false);
+        if (shape != null) {
+            String template = SqlTemplateCache.get(shape);
+            if (template != null) {
+                List<Object> parameters = new ArrayList<>();
+                collectQueryParameters(context, parameters);
+                return new QueryResultWithParams(appendLimit(template, context), parameters);
+            }
+        }
+        
         StringBuilder sql = new StringBuilder();
         List<Object> parameters = new ArrayList<>();
         
@@ -68,16 +81,31 @@ public class SQLQueryResultBuilder implements QueryResultBuilder {
         }
         
         // WHERE 子句
+        String whereSql = "";
         if (context.getWhereClause() != null) {
             ClauseResult result = ((ClauseBuilder<?>) context.getWhereClause()).buildClause();
             if (!result.getSql().isEmpty()) {
-                sql.append(result.getSql()).append(" ");
+                whereSql = result.getSql();
                 if (result.getParameters() != null) {
                     parameters.addAll(result.getParameters());
                 }
             }
         }
         
+        // 键集分页谓词（仅主查询，计数查询不受影响）
+        if (context.getKeysetCondition() != null) {
+            String keysetSql = buildKeysetPredicate(context.getKeysetCondition(), context.getDialect(), parameters);
+            if (whereSql.startsWith("WHERE ")) {
+                // 原条件加括号，避免其中的 OR 与追加的 AND 优先级混淆
+                whereSql = "WHERE (" + whereSql.substring(6) + ") AND " + keysetSql;
+            } else {
+                whereSql = "WHERE " + keysetSql;
+            }
+        }
+        if (!whereSql.isEmpty()) {
+            sql.append(whereSql).append(" ");
+        }
+        
         // GROUP BY 子句
         if (context.getGroupByClause() != null) {
             ClauseResult result = ((ClauseBuilder<?>) context.getGroupByClause()).buildClause();
@@ -111,31 +139,88 @@ public class SQLQueryResultBuilder implements QueryResultBuilder {
             }
         }
         
-        // LIMIT 子句 - 使用数据库方言生成
-        if (context.hasLimit()) {
-            String limitSql = buildLimitClause(context);
-            if (!limitSql.isEmpty()) {
-                sql.append(limitSql).append(" ");
-            }
+        String template = sql.toString().trim();
+        if (shape != null) {
+            SqlTemplateCache.put(shape, template);
         }
         
-        return new QueryResultWithParams(sql.toString().trim(), parameters);
+        // LIMIT 子句 - 使用数据库方言生成
+        return new QueryResultWithParams(appendLimit(template, context), parameters);
     }
     
     /**
      * 构建计数查询并收集参数
      */
     public QueryResultWithParams buildCountQueryWithParams(QueryBuildContext<?> context) {
+        List<Object> shape = buildShape(context, true);
+        if (shape != null) {
+            String template = SqlTemplateCache.get(shape);
+            if (template != null) {
+                List<Object> parameters = new ArrayList<>();
+                collectCountParameters(context, parameters);
+                return new QueryResultWithParams(template, parameters);
+            }
+        }
+        
         StringBuilder countSql = new StringBuilder();
         List<Object> parameters = new ArrayList<>();
         
         countSql.append("SELECT COUNT(*) ");
+        appendFromJoinWhere(context, countSql, parameters);
         
+        // GROUP BY 子句（计数查询通常不需要 GROUP BY，但保留以支持分组计数）
+        if (context.getGroupByClause() != null) {
+            ClauseResult result = ((ClauseBuilder<?>) context.getGroupByClause()).buildClause();
+            if (!result.getSql().isEmpty()) {
+                countSql.append(result.getSql()).append(" ");
+                if (result.getParameters() != null) {
+                    parameters.addAll(result.getParameters());
+                }
+            }
+        }
+        
+        // HAVING 子句（计数查询通常不需要 HAVING，但保留以支持分组过滤）
+        if (context.getHavingClause() != null) {
+            ClauseResult result = ((ClauseBuilder<?>) context.getHavingClause()).buildClause();
+            if (!result.getSql().isEmpty()) {
+                countSql.append(result.getSql()).append(" ");
+                if (result.getParameters() != null) {
+                    parameters.addAll(result.getParameters());
+                }
+            }
+        }
+        
+        String template = countSql.toString().trim();
+        if (shape != null) {
+            SqlTemplateCache.put(shape, template);
+        }
+        return new QueryResultWithParams(template, parameters);
+    }
+    
+    /**
+     * 构建聚合查询并收集参数：SELECT 聚合表达式 + FROM/JOIN/WHERE，不含分组、排序和分页
+     * 用于在查询条件范围内探测统计值（例如主键的 MIN/MAX）
+     *
+     * @param context   查询构建上下文
+     * @param aggregate 聚合表达式，例如 MIN(t.id)
+     */
+    public QueryResultWithParams buildAggregateQueryWithParams(QueryBuildContext<?> context, String aggregate) {
+        StringBuilder sql = new StringBuilder();
+        List<Object> parameters = new ArrayList<>();
+        sql.append("SELECT ").append(aggregate).append(" ");
+        appendFromJoinWhere(context, sql, parameters);
+        return new QueryResultWithParams(sql.toString().trim(), parameters);
+    }
+    
+    /**
+     * 追加 FROM、JOIN 和 WHERE 子句及其参数
+     */
+    private void appendFromJoinWhere(QueryBuildContext<?> context, StringBuilder sql, List<Object> parameters) {
         // FROM 子句
         if (context.getFromClause() != null) {
             ClauseResult result = ((ClauseBuilder<?>) context.getFromClause()).buildClause();
             if (!result.getSql().isEmpty()) {
-                countSql.append(result.getSql()).append(" ");
+                sql.append(result.getSql()).append(" ");
                 if (result.getParameters() != null) {
                     parameters.addAll(result.getParameters());
                 }
@@ -147,7 +232,7 @@ public class SQLQueryResultBuilder implements QueryResultBuilder {
             for (JoinClause<?> joinClause : context.getJoinClauseList()) {
                 ClauseResult result = ((ClauseBuilder<?>) joinClause).buildClause();
                 if (!result.getSql().isEmpty()) {
-                    countSql.append(result.getSql()).append(" ");
+                    sql.append(result.getSql()).append(" ");
                     if (result.getParameters() != null) {
                         parameters.addAll(result.getParameters());
                     }
@@ -157,7 +242,7 @@ public class SQLQueryResultBuilder implements QueryResultBuilder {
             // 兼容旧的单一 JOIN 子句
             ClauseResult result = ((ClauseBuilder<?>) context.getJoinClause()).buildClause();
             if (!result.getSql().isEmpty()) {
-                countSql.append(result.getSql()).append(" ");
+                sql.append(result.getSql()).append(" ");
                 if (result.getParameters() != null) {
                     parameters.addAll(result.getParameters());
                 }
@@ -168,36 +253,150 @@ public class SQLQueryResultBuilder implements QueryResultBuilder {
         if (context.getWhereClause() != null) {
             ClauseResult result = ((ClauseBuilder<?>) context.getWhereClause()).buildClause();
             if (!result.getSql().isEmpty()) {
-                countSql.append(result.getSql()).append(" ");
+                sql.append(result.getSql()).append(" ");
                 if (result.getParameters() != null) {
                     parameters.addAll(result.getParameters());
                 }
             }
         }
-        
-        // GROUP BY 子句（计数查询通常不需要 GROUP BY，但保留以支持分组计数）
-        if (context.getGroupByClause() != null) {
-            ClauseResult result = ((ClauseBuilder<?>) context.getGroupByClause()).buildClause();
-            if (!result.getSql().isEmpty()) {
-                countSql.append(result.getSql()).append(" ");
-                if (result.getParameters() != null) {
-                    parameters.addAll(result.getParameters());
+    }
+    
+    // ==================== SQL 模板缓存 ====================
+    
+    /**
+     * 生成查询的结构指纹，不能使用模板缓存时返回 null
+     * 计数查询不包含 SELECT、ORDER BY 和键集谓词；分页值不在指纹中，LIMIT 子句单独追加
+     */
+    private List<Object> buildShape(QueryBuildContext<?> context, boolean count) {
+        if (!SqlTemplateCache.isEnabled()) {
+            return null;
+        }
+        List<Object> shape = new ArrayList<>();
+        shape.add(count ? "COUNT" : "QUERY");
+        shape.add(context.getDialect() != null ? context.getDialect().getClass() : null);
+        if (!count && !appendShape(context.getSelectClause(), shape)) {
+            return null;
+        }
+        if (!appendShape(context.getFromClause(), shape)) {
+            return null;
+        }
+        List<? extends JoinClause<?>> joinClauses = context.getJoinClauseList();
+        shape.add(joinClauses.size());
+        for (JoinClause<?> joinClause : joinClauses) {
+            if (!appendShape(joinClause, shape)) {
+                return null;
+            }
+        }
+        if (joinClauses.isEmpty() && !appendShape(context.getJoinClause(), shape)) {
+            return null;
+        }
+        if (!appendShape(context.getWhereClause(), shape)
+                || !appendShape(context.getGroupByClause(), shape)
+                || !appendShape(context.getHavingClause(), shape)) {
+            return null;
+        }
+        if (!count) {
+            if (!appendShape(context.getOrderByClause(), shape)) {
+                return null;
+            }
+            KeysetCondition keyset = context.getKeysetCondition();
+            if (keyset != null) {
+                shape.add(keyset.getKeys().size());
+                for (OrderInfo key : keyset.getKeys()) {
+                    shape.add(key.getColumn());
+                    shape.add(key.getDirection());
                 }
+                shape.add(keyset.getUpperBound() != null);
+            } else {
+                shape.add(null);
             }
         }
-        
-        // HAVING 子句（计数查询通常不需要 HAVING，但保留以支持分组过滤）
-        if (context.getHavingClause() != null) {
-            ClauseResult result = ((ClauseBuilder<?>) context.getHavingClause()).buildClause();
-            if (!result.getSql().isEmpty()) {
-                countSql.append(result.getSql()).append(" ");
-                if (result.getParameters() != null) {
-                    parameters.addAll(result.getParameters());
+        return shape;
+    }
+    
+    private boolean appendShape(Object clause, List<Object> shape) {
+        if (clause == null) {
+            shape.add(null);
+            return true;
+        }
+        return clause instanceof ClauseBuilder && ((ClauseBuilder<?>) clause).appendShape(shape);
+    }
+    
+    /**
+     * 按 buildQueryWithParams 的顺序收集主查询参数
+     */
+    private void collectQueryParameters(QueryBuildContext<?> context, List<Object> parameters) {
+        collectParameters(context.getSelectClause(), parameters);
+        collectParameters(context.getFromClause(), parameters);
+        collectJoinParameters(context, parameters);
+        collectParameters(context.getWhereClause(), parameters);
+        if (context.getKeysetCondition() != null) {
+            collectKeysetParameters(context.getKeysetCondition(), context.getDialect(), parameters);
+        }
+        collectParameters(context.getGroupByClause(), parameters);
+        collectParameters(context.getHavingClause(), parameters);
+        collectParameters(context.getOrderByClause(), parameters);
+    }
+    
+    /**
+     * 按 buildCountQueryWithParams 的顺序收集计数查询参数
+     */
+    private void collectCountParameters(QueryBuildContext<?> context, List<Object> parameters) {
+        collectParameters(context.getFromClause(), parameters);
+        collectJoinParameters(context, parameters);
+        collectParameters(context.getWhereClause(), parameters);
+        collectParameters(context.getGroupByClause(), parameters);
+        collectParameters(context.getHavingClause(), parameters);
+    }
+    
+    private void collectJoinParameters(QueryBuildContext<?> context, List<Object> parameters) {
+        if (!context.getJoinClauseList().isEmpty()) {
+            for (JoinClause<?> joinClause : context.getJoinClauseList()) {
+                collectParameters(joinClause, parameters);
+            }
+        } else {
+            collectParameters(context.getJoinClause(), parameters);
+        }
+    }
+    
+    private void collectParameters(Object clause, List<Object> parameters) {
+        if (clause != null) {
+            ((ClauseBuilder<?>) clause).collectParameters(parameters);
+        }
+    }
+    
+    /**
+     * 按 buildKeysetPredicate 的顺序收集键集分页参数
+     */
+    private void collectKeysetParameters(KeysetCondition condition, DatabaseDialect dialect, List<Object> parameters) {
+        List<OrderInfo> keys = condition.getKeys();
+        List<Object> values = condition.getValues();
+        if (keys.size() > 1 && condition.isUniformDirection()
+                && dialect != null && dialect.supportsRowValueComparison()) {
+            parameters.addAll(values);
+        } else {
+            for (int i = 0; i < keys.size(); i++) {
+                for (int j = 0; j <= i; j++) {
+                    parameters.add(values.get(j));
                 }
             }
         }
-        
-        return new QueryResultWithParams(countSql.toString().trim(), parameters);
+        if (condition.getUpperBound() != null) {
+            parameters.add(condition.getUpperBound());
+        }
+    }
+    
+    /**
+     * 追加 LIMIT 子句（分页值直接内联，不参与模板缓存）
+     */
+    private String appendLimit(String sql, QueryBuildContext<?> context) {
+        if (context.hasLimit()) {
+            String limitSql = buildLimitClause(context);
+            if (!limitSql.isEmpty()) {
+                return sql + " " + limitSql;
+            }
+        }
+        return sql;
     }
     
     /**
@@ -362,6 +561,75 @@ public class SQLQueryResultBuilder implements QueryResultBuilder {
         return "sql";
     }
     
+    /**
+     * 构建键集分页谓词
+     * 排序方向一致且方言支持行值比较时生成 (k1, k2) > (?, ?)，
+     * 否则展开为 (k1 > ?) OR (k1 = ? AND k2 > ?) 形式
+     * 
+     * @param condition 键集分页条件
+     * @param dialect 数据库方言
+     * @param parameters 参数收集列表
+     * @return 带括号的谓词 SQL
+     */
+    private String buildKeysetPredicate(KeysetCondition condition, DatabaseDialect dialect, List<Object> parameters) {
+        List<OrderInfo> keys = condition.getKeys();
+        List<Object> values = condition.getValues();
+        StringBuilder predicate = new StringBuilder("(");
+        
+        if (keys.size() > 1 && condition.isUniformDirection()
+                && dialect != null && dialect.supportsRowValueComparison()) {
+            StringBuilder columns = new StringBuilder();
+            StringBuilder placeholders = new StringBuilder();
+            for (int i = 0; i < keys.size(); i++) {
+                if (i > 0) {
+                    columns.append(", ");
+                    placeholders.append(", ");
+                }
+                columns.append(keys.get(i).getColumn());
+                placeholders.append("?");
+            }
+            parameters.addAll(values);
+            predicate.append("(").append(columns).append(") ")
+                    .append(seekOperator(keys.get(0))).append(" (").append(placeholders).append(")");
+            return appendUpperBound(predicate, condition, parameters);
+        }
+        
+        for (int i = 0; i < keys.size(); i++) {
+            if (i > 0) {
+                predicate.append(" OR ");
+            }
+            predicate.append("(");
+            for (int j = 0; j < i; j++) {
+                predicate.append(keys.get(j).getColumn()).append(" = ? AND ");
+                parameters.add(values.get(j));
+            }
+            predicate.append(keys.get(i).getColumn()).append(" ").append(seekOperator(keys.get(i))).append(" ?");
+            parameters.add(values.get(i));
+            predicate.append(")");
+        }
+        return appendUpperBound(predicate, condition, parameters);
+    }
+    
+    /**
+     * 追加首个排序键的上界条件（范围分区使用）并闭合谓词括号
+     */
+    private String appendUpperBound(StringBuilder predicate, KeysetCondition condition, List<Object> parameters) {
+        if (condition.getUpperBound() != null) {
+            OrderInfo first = condition.getKeys().get(0);
+            predicate.append(" AND ").append(first.getColumn())
+                    .append("DESC".equalsIgnoreCase(first.getDirection()) ? " >= ?" : " <= ?");
+            parameters.add(condition.getUpperBound());
+        }
+        return predicate.append(")").toString();
+    }
+    
+    /**
+     * 根据排序方向获取向后翻页的比较运算符
+     */
+    private String seekOperator(OrderInfo key) {
+        return "DESC".equalsIgnoreCase(key.getDirection()) ? "<" : ">";
+    }
+    
     /**
      * 构建 LIMIT 子句，使用数据库方言
      * 
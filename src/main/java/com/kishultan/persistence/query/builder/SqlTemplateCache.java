@@ -0,0 +1,106 @@
+package com.kishultan.persistence.query.builder;
+
+import com.kishultan.persistence.query.config.CriterionConfig;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SQL 模板缓存
+ * 按子句结构指纹（列、JOIN、WHERE 运算符和 IN 列表长度、分组/排序、方言）缓存生成的 SQL 文本，
+ * 结构相同、只有参数值不同的查询跳过字符串拼接，只收集参数
+ * <p>
+ * 全局共享、容量有界，超过容量时淘汰任意一个已有模板；
+ * 命中/未命中计数通过 QueryPerformanceMonitor 暴露
+ */
+public final class SqlTemplateCache {
+    /** 最大模板数，可通过系统属性 querybuilder.sql.template.cache.size 调整 */
+    private static final int MAX_SIZE = Integer.getInteger("querybuilder.sql.template.cache.size", 1024);
+
+    private static final Map<List<Object>, String> templates = new ConcurrentHashMap<>();
+    private static final AtomicLong hitCount = new AtomicLong();
+    private static final AtomicLong missCount = new AtomicLong();
+
+    private SqlTemplateCache() {
+    }
+
+    /**
+     * 是否启用 SQL 模板缓存
+     */
+    public static boolean isEnabled() {
+        return CriterionConfig.GlobalConfig.isSqlTemplateCache();
+    }
+
+    /**
+     * 按结构指纹获取 SQL 模板，同时记录命中/未命中
+     *
+     * @param shape 结构指纹
+     * @return SQL 模板，未命中返回 null
+     */
+    static String get(List<Object> shape) {
+        String sql = templates.get(shape);
+        if (sql != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        return sql;
+    }
+
+    /**
+     * 缓存 SQL 模板
+     *
+     * @param shape 结构指纹
+     * @param sql   SQL 模板
+     */
+    static void put(List<Object> shape, String sql) {
+        if (templates.size() >= MAX_SIZE && !templates.containsKey(shape)) {
+            Iterator<List<Object>> iterator = templates.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        templates.put(shape, sql);
+    }
+
+    /**
+     * 获取命中次数
+     */
+    public static long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * 获取未命中次数
+     */
+    public static long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * 获取当前模板数量
+     */
+    public static int size() {
+        return templates.size();
+    }
+
+    /**
+     * 清空模板和统计
+     */
+    public static void clear() {
+        templates.clear();
+        resetStatistics();
+    }
+
+    /**
+     * 重置命中/未命中统计
+     */
+    public static void resetStatistics() {
+        hitCount.set(0);
+        missCount.set(0);
+    }
+}
@@ -0,0 +1,216 @@
+package com.kishultan.persistence.query.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 访问顺序淘汰策略
+ * 用双向链表维护条目的访问顺序，链表头是最久未访问的条目，淘汰时直接取链表头，单次淘汰 O(1)
+ * <p>
+ * 读操作不加锁：命中的条目先写入按线程分段的环形读缓冲区，缓冲区写满时由拿到锁的线程批量调整链表，
+ * 缓冲区满且拿不到锁时直接丢弃本次访问记录（只影响淘汰顺序的精确度，不影响正确性）；
+ * 写操作在锁内先回放读缓冲区，再链接新条目并淘汰超出容量的条目
+ */
+final class AccessOrderPolicy {
+    /** 每个读缓冲区的容量，必须是 2 的幂 */
+    private static final int READ_BUFFER_SIZE = 64;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    /** 读缓冲区分段数，按 CPU 数向上取 2 的幂 */
+    private static final int STRIPES = ceilingPowerOfTwo(Math.min(Runtime.getRuntime().availableProcessors(), 64));
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final ReadBuffer[] readBuffers = new ReadBuffer[STRIPES];
+    /** 链表哨兵：head.next 为最久未访问，head.prev 为最近访问 */
+    private final CacheEntry head = new CacheEntry(null, null, 0, 0);
+
+    /**
+     * 淘汰回调
+     */
+    interface EvictionHandler {
+        /**
+         * 当前是否超出容量
+         */
+        boolean isOverCapacity();
+
+        /**
+         * 淘汰条目（已从访问顺序链表中移除）
+         */
+        void evict(CacheEntry victim);
+    }
+
+    AccessOrderPolicy() {
+        head.prev = head;
+        head.next = head;
+        for (int i = 0; i < STRIPES; i++) {
+            readBuffers[i] = new ReadBuffer();
+        }
+    }
+
+    /**
+     * 记录读访问，不加锁
+     *
+     * @param entry 命中的条目
+     */
+    void recordRead(CacheEntry entry) {
+        ReadBuffer buffer = readBuffers[(int) Thread.currentThread().getId() & (STRIPES - 1)];
+        if (!buffer.offer(entry) && evictionLock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 记录写入：新条目移到链表尾部，被替换的旧条目移出链表，随后按容量淘汰链表头
+     *
+     * @param entry    新条目
+     * @param replaced 被替换的旧条目，可为 null
+     * @param handler  淘汰回调
+     */
+    void recordWrite(CacheEntry entry, CacheEntry replaced, EvictionHandler handler) {
+        evictionLock.lock();
+        try {
+            drainReadBuffers();
+            if (replaced != null) {
+                unlink(replaced);
+            }
+            if (!entry.retired) {
+                linkLast(entry);
+            }
+            while (handler.isOverCapacity()) {
+                CacheEntry victim = head.next;
+                if (victim == head) {
+                    break;
+                }
+                unlink(victim);
+                handler.evict(victim);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 记录移除
+     *
+     * @param entry 被移除的条目
+     */
+    void recordRemoval(CacheEntry entry) {
+        evictionLock.lock();
+        try {
+            unlink(entry);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 清空访问顺序
+     */
+    void clear() {
+        evictionLock.lock();
+        try {
+            drainReadBuffers();
+            CacheEntry current = head.next;
+            while (current != head) {
+                CacheEntry next = current.next;
+                current.retired = true;
+                current.prev = null;
+                current.next = null;
+                current = next;
+            }
+            head.prev = head;
+            head.next = head;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // ==================== 链表操作（需持有淘汰锁） ====================
+
+    private void drainReadBuffers() {
+        for (ReadBuffer buffer : readBuffers) {
+            buffer.drainTo(this);
+        }
+    }
+
+    private void moveToLast(CacheEntry entry) {
+        // 已移除的条目和尚未由写线程链接的条目都不调整
+        if (entry.retired || entry.next == null || head.prev == entry) {
+            return;
+        }
+        entry.prev.next = entry.next;
+        entry.next.prev = entry.prev;
+        entry.prev = head.prev;
+        entry.next = head;
+        head.prev.next = entry;
+        head.prev = entry;
+    }
+
+    private void linkLast(CacheEntry entry) {
+        entry.prev = head.prev;
+        entry.next = head;
+        head.prev.next = entry;
+        head.prev = entry;
+    }
+
+    private void unlink(CacheEntry entry) {
+        entry.retired = true;
+        if (entry.next != null) {
+            entry.prev.next = entry.next;
+            entry.next.prev = entry.prev;
+            entry.prev = null;
+            entry.next = null;
+        }
+    }
+
+    private static int ceilingPowerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    /**
+     * 有界环形读缓冲区：多个读线程 CAS 写入，持有淘汰锁的线程读取
+     */
+    private static final class ReadBuffer {
+        private final AtomicReferenceArray<CacheEntry> slots = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        private final AtomicLong writeCounter = new AtomicLong();
+        private volatile long readCounter;
+
+        /**
+         * 写入访问记录
+         *
+         * @return 缓冲区已满时返回 false
+         */
+        boolean offer(CacheEntry entry) {
+            long tail = writeCounter.get();
+            if (tail - readCounter >= READ_BUFFER_SIZE) {
+                return false;
+            }
+            if (writeCounter.compareAndSet(tail, tail + 1)) {
+                slots.lazySet((int) (tail & READ_BUFFER_MASK), entry);
+            }
+            // CAS 失败说明有其他线程并发写入，丢弃本次记录
+            return true;
+        }
+
+        void drainTo(AccessOrderPolicy policy) {
+            long current = readCounter;
+            long tail = writeCounter.get();
+            while (current < tail) {
+                int index = (int) (current & READ_BUFFER_MASK);
+                CacheEntry entry = slots.get(index);
+                if (entry == null) {
+                    // 写线程已占位但尚未写入，下次再回放
+                    break;
+                }
+                slots.lazySet(index, null);
+                policy.moveToLast(entry);
+                current++;
+            }
+            readCounter = current;
+        }
+    }
+}
@@ -0,0 +1,549 @@
+package com.kishultan.persistence.query.cache;
+
+import com.kishultan.persistence.query.BeanMeta;
+import com.kishultan.persistence.query.PropertyAccessor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 查询结果的紧凑二进制行格式
+ * 每个值以 1 字节类型标记开头；同一实体类型的列表按行写出，类型编号只写一次，
+ * 每行依次写出各字段的值，字段顺序由 BeanMeta 解析的布局决定，读取时通过属性访问器回填新实例
+ * <p>
+ * 类型编号只在当前编解码器内有效；持久化编码结果时须同时保存 {@link #exportTypes()} 的类型描述，
+ * 读取前用 {@link #importTypes} 恢复编号；
+ * 无法编码的值（没有无参构造函数的对象、超过嵌套深度的对象图等）抛出 {@link UnsupportedValueException}
+ */
+final class BinaryRowCodec {
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte SHORT = 6;
+    private static final byte BYTE = 7;
+    private static final byte BOOLEAN = 8;
+    private static final byte CHARACTER = 9;
+    private static final byte BIG_DECIMAL = 10;
+    private static final byte BIG_INTEGER = 11;
+    private static final byte DATE = 12;
+    private static final byte SQL_DATE = 13;
+    private static final byte SQL_TIME = 14;
+    private static final byte TIMESTAMP = 15;
+    private static final byte LOCAL_DATE = 16;
+    private static final byte LOCAL_TIME = 17;
+    private static final byte LOCAL_DATE_TIME = 18;
+    private static final byte INSTANT = 19;
+    private static final byte UUID_VALUE = 20;
+    private static final byte BYTES = 21;
+    private static final byte ENUM = 22;
+    private static final byte LIST = 23;
+    private static final byte MAP = 24;
+    private static final byte BEAN = 25;
+    /** 同一实体类型的列表：类型编号 + 行数 + 按行排列的字段值 */
+    private static final byte BEAN_ROWS = 26;
+
+    /** 对象图嵌套深度上限，避免双向关联导致死循环 */
+    private static final int MAX_DEPTH = 8;
+
+    /** 类型编号：Class -> 编号 */
+    private final Map<Class<?>, Integer> typeIds = new ConcurrentHashMap<>();
+    /** 编号 -> 实体布局（枚举类型为 null） */
+    private final List<BeanLayout> layouts = new CopyOnWriteArrayList<>();
+    private final List<Class<?>> types = new CopyOnWriteArrayList<>();
+
+    /**
+     * 编码查询结果
+     *
+     * @param value 查询结果
+     * @return 编码后的字节
+     * @throws UnsupportedValueException 结果中包含无法编码的值
+     */
+    byte[] encode(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            write(out, value, 0);
+        } catch (IOException e) {
+            throw new UnsupportedValueException("编码失败: " + e.getMessage());
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 解码查询结果，每次返回新的对象图
+     *
+     * @param data 编码后的字节
+     * @return 查询结果
+     */
+    Object decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            return read(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("缓存数据无法解码: " + e.getMessage(), e);
+        }
+    }
+
+    private void write(DataOutputStream out, Object value, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new UnsupportedValueException("对象图嵌套过深");
+        }
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Short) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Character) {
+            out.writeByte(CHARACTER);
+            out.writeChar((Character) value);
+        } else if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            out.writeByte(BIG_DECIMAL);
+            out.writeInt(decimal.scale());
+            writeBytes(out, decimal.unscaledValue().toByteArray());
+        } else if (value instanceof BigInteger) {
+            out.writeByte(BIG_INTEGER);
+            writeBytes(out, ((BigInteger) value).toByteArray());
+        } else if (value instanceof java.util.Date) {
+            writeDate(out, (java.util.Date) value);
+        } else if (value instanceof LocalDate) {
+            out.writeByte(LOCAL_DATE);
+            out.writeLong(((LocalDate) value).toEpochDay());
+        } else if (value instanceof LocalTime) {
+            out.writeByte(LOCAL_TIME);
+            out.writeLong(((LocalTime) value).toNanoOfDay());
+        } else if (value instanceof LocalDateTime) {
+            LocalDateTime dateTime = (LocalDateTime) value;
+            out.writeByte(LOCAL_DATE_TIME);
+            out.writeLong(dateTime.toLocalDate().toEpochDay());
+            out.writeLong(dateTime.toLocalTime().toNanoOfDay());
+        } else if (value instanceof Instant) {
+            Instant instant = (Instant) value;
+            out.writeByte(INSTANT);
+            out.writeLong(instant.getEpochSecond());
+            out.writeInt(instant.getNano());
+        } else if (value instanceof UUID) {
+            UUID uuid = (UUID) value;
+            out.writeByte(UUID_VALUE);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } else if (value instanceof byte[]) {
+            out.writeByte(BYTES);
+            writeBytes(out, (byte[]) value);
+        } else if (value instanceof Enum) {
+            Enum<?> constant = (Enum<?>) value;
+            out.writeByte(ENUM);
+            out.writeInt(typeId(constant.getDeclaringClass()));
+            out.writeInt(constant.ordinal());
+        } else if (value instanceof List) {
+            writeList(out, (List<?>) value, depth);
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeByte(MAP);
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                write(out, entry.getKey(), depth + 1);
+                write(out, entry.getValue(), depth + 1);
+            }
+        } else if (value instanceof Collection || value.getClass().isArray()) {
+            // Set 等其他集合解码后类型不同，不编码
+            throw new UnsupportedValueException("不支持的集合类型: " + value.getClass().getName());
+        } else {
+            BeanLayout layout = layoutOf(value.getClass());
+            out.writeByte(BEAN);
+            out.writeInt(layout.id);
+            writeFields(out, layout, value, depth);
+        }
+    }
+
+    private void writeList(DataOutputStream out, List<?> list, int depth) throws IOException {
+        BeanLayout rowLayout = uniformLayout(list);
+        if (rowLayout != null) {
+            out.writeByte(BEAN_ROWS);
+            out.writeInt(rowLayout.id);
+            out.writeInt(list.size());
+            for (Object row : list) {
+                writeFields(out, rowLayout, row, depth);
+            }
+            return;
+        }
+        out.writeByte(LIST);
+        out.writeInt(list.size());
+        for (Object element : list) {
+            write(out, element, depth + 1);
+        }
+    }
+
+    private void writeFields(DataOutputStream out, BeanLayout layout, Object bean, int depth) throws IOException {
+        for (PropertyAccessor accessor : layout.accessors) {
+            write(out, accessor.get(bean), depth + 1);
+        }
+    }
+
+    private static void writeDate(DataOutputStream out, java.util.Date date) throws IOException {
+        Class<?> type = date.getClass();
+        if (type == java.sql.Timestamp.class) {
+            out.writeByte(TIMESTAMP);
+            out.writeLong(date.getTime());
+            out.writeInt(((java.sql.Timestamp) date).getNanos());
+        } else if (type == java.sql.Date.class) {
+            out.writeByte(SQL_DATE);
+            out.writeLong(date.getTime());
+        } else if (type == java.sql.Time.class) {
+            out.writeByte(SQL_TIME);
+            out.writeLong(date.getTime());
+        } else if (type == java.util.Date.class) {
+            out.writeByte(DATE);
+            out.writeLong(date.getTime());
+        } else {
+            throw new UnsupportedValueException("不支持的日期类型: " + type.getName());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private Object read(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return new String(readBytes(in), StandardCharsets.UTF_8);
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case FLOAT:
+                return in.readFloat();
+            case SHORT:
+                return in.readShort();
+            case BYTE:
+                return in.readByte();
+            case BOOLEAN:
+                return in.readBoolean();
+            case CHARACTER:
+                return in.readChar();
+            case BIG_DECIMAL: {
+                int scale = in.readInt();
+                return new BigDecimal(new BigInteger(readBytes(in)), scale);
+            }
+            case BIG_INTEGER:
+                return new BigInteger(readBytes(in));
+            case DATE:
+                return new java.util.Date(in.readLong());
+            case SQL_DATE:
+                return new java.sql.Date(in.readLong());
+            case SQL_TIME:
+                return new java.sql.Time(in.readLong());
+            case TIMESTAMP: {
+                java.sql.Timestamp timestamp = new java.sql.Timestamp(in.readLong());
+                timestamp.setNanos(in.readInt());
+                return timestamp;
+            }
+            case LOCAL_DATE:
+                return LocalDate.ofEpochDay(in.readLong());
+            case LOCAL_TIME:
+                return LocalTime.ofNanoOfDay(in.readLong());
+            case LOCAL_DATE_TIME: {
+                LocalDate date = LocalDate.ofEpochDay(in.readLong());
+                return LocalDateTime.of(date, LocalTime.ofNanoOfDay(in.readLong()));
+            }
+            case INSTANT: {
+                long seconds = in.readLong();
+                return Instant.ofEpochSecond(seconds, in.readInt());
+            }
+            case UUID_VALUE: {
+                long most = in.readLong();
+                return new UUID(most, in.readLong());
+            }
+            case BYTES:
+                return readBytes(in);
+            case ENUM: {
+                Class<?> type = typeAt(in.readInt());
+                return type.getEnumConstants()[in.readInt()];
+            }
+            case LIST: {
+                int size = in.readInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(read(in));
+                }
+                return list;
+            }
+            case MAP: {
+                int size = in.readInt();
+                Map<Object, Object> map = new LinkedHashMap<>(Math.max(16, (int) (size / 0.75f) + 1));
+                for (int i = 0; i < size; i++) {
+                    Object key = read(in);
+                    map.put(key, read(in));
+                }
+                return map;
+            }
+            case BEAN:
+                return readFields(in, layoutAt(in.readInt()));
+            case BEAN_ROWS: {
+                BeanLayout layout = layoutAt(in.readInt());
+                int size = in.readInt();
+                List<Object> rows = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    rows.add(readFields(in, layout));
+                }
+                return rows;
+            }
+            default:
+                throw new IOException("未知的类型标记: " + tag);
+        }
+    }
+
+    private Object readFields(DataInputStream in, BeanLayout layout) throws IOException {
+        Object bean = layout.meta.newInstance();
+        for (PropertyAccessor accessor : layout.accessors) {
+            Object value = read(in);
+            if (value != null) {
+                accessor.set(bean, value);
+            }
+        }
+        return bean;
+    }
+
+    private Class<?> typeAt(int id) throws IOException {
+        Class<?> type = id < types.size() ? types.get(id) : null;
+        if (type == null) {
+            throw new IOException("类型不可用: " + id);
+        }
+        return type;
+    }
+
+    private BeanLayout layoutAt(int id) throws IOException {
+        BeanLayout layout = id < layouts.size() ? layouts.get(id) : null;
+        if (layout == null) {
+            throw new IOException("实体布局不可用: " + id);
+        }
+        return layout;
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] value = new byte[in.readInt()];
+        in.readFully(value);
+        return value;
+    }
+
+    /**
+     * 列表中所有元素都是同一实体类型时返回其布局，否则返回 null
+     */
+    private BeanLayout uniformLayout(List<?> list) {
+        if (list.isEmpty()) {
+            return null;
+        }
+        Object first = list.get(0);
+        if (first == null || !isBeanType(first.getClass())) {
+            return null;
+        }
+        Class<?> type = first.getClass();
+        for (Object row : list) {
+            if (row == null || row.getClass() != type) {
+                return null;
+            }
+        }
+        return layoutOf(type);
+    }
+
+    private static boolean isBeanType(Class<?> type) {
+        String name = type.getName();
+        return !type.isArray() && !type.isEnum()
+                && !name.startsWith("java.") && !name.startsWith("javax.") && !name.startsWith("jakarta.");
+    }
+
+    private BeanLayout layoutOf(Class<?> type) {
+        if (!isBeanType(type)) {
+            throw new UnsupportedValueException("不支持的类型: " + type.getName());
+        }
+        BeanLayout layout = layouts.get(typeId(type));
+        if (layout == null) {
+            throw new UnsupportedValueException("无法解析实体布局: " + type.getName());
+        }
+        return layout;
+    }
+
+    /**
+     * 获取类型编号，首次遇到的类型登记实体布局
+     */
+    private synchronized int typeId(Class<?> type) {
+        Integer id = typeIds.get(type);
+        if (id != null) {
+            return id;
+        }
+        int newId = types.size();
+        types.add(type);
+        layouts.add(type.isEnum() ? null : createLayout(type, newId));
+        typeIds.put(type, newId);
+        return newId;
+    }
+
+    /**
+     * 导出已登记类型的描述，按类型编号排列
+     *
+     * @return 类型描述
+     */
+    List<TypeDescriptor> exportTypes() {
+        List<TypeDescriptor> descriptors = new ArrayList<>(types.size());
+        for (int i = 0; i < types.size(); i++) {
+            Class<?> type = types.get(i);
+            descriptors.add(new TypeDescriptor(type.getName(), membersOf(type, layouts.get(i))));
+        }
+        return descriptors;
+    }
+
+    /**
+     * 按类型描述登记类型，使类型编号与导出时一致，须在编解码之前调用
+     * 类不存在、字段或枚举常量与导出时不一致的类型登记为不可用，引用它们的值解码失败
+     *
+     * @param descriptors 导出的类型描述
+     * @param classLoader 加载类型使用的类加载器
+     */
+    synchronized void importTypes(List<TypeDescriptor> descriptors, ClassLoader classLoader) {
+        for (TypeDescriptor descriptor : descriptors) {
+            int id = types.size();
+            Class<?> type;
+            try {
+                type = Class.forName(descriptor.className, false, classLoader);
+            } catch (ClassNotFoundException | LinkageError e) {
+                type = null;
+            }
+            BeanLayout layout = type == null || type.isEnum() ? null : createLayout(type, id);
+            if (type != null && !membersOf(type, layout).equals(descriptor.members)) {
+                type = null;
+                layout = null;
+            }
+            types.add(type);
+            layouts.add(layout);
+            if (type != null && !typeIds.containsKey(type)) {
+                typeIds.put(type, id);
+            }
+        }
+    }
+
+    private static List<String> membersOf(Class<?> type, BeanLayout layout) {
+        List<String> members = new ArrayList<>();
+        if (type.isEnum()) {
+            for (Object constant : type.getEnumConstants()) {
+                members.add(((Enum<?>) constant).name());
+            }
+        } else if (layout != null) {
+            for (PropertyAccessor accessor : layout.accessors) {
+                members.add(accessor.getName());
+            }
+        }
+        return members;
+    }
+
+    private static BeanLayout createLayout(Class<?> type, int id) {
+        try {
+            type.getDeclaredConstructor();
+            BeanMeta meta = new BeanMeta(type);
+            List<PropertyAccessor> accessors = new ArrayList<>();
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                        continue;
+                    }
+                    accessors.add(meta.getPropertyAccessor(field));
+                }
+            }
+            return new BeanLayout(id, meta, accessors.toArray(new PropertyAccessor[0]));
+        } catch (NoSuchMethodException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 实体布局：实例化方式和按固定顺序排列的字段访问器
+     */
+    private static final class BeanLayout {
+        final int id;
+        final BeanMeta meta;
+        final PropertyAccessor[] accessors;
+
+        BeanLayout(int id, BeanMeta meta, PropertyAccessor[] accessors) {
+            this.id = id;
+            this.meta = meta;
+            this.accessors = accessors;
+        }
+    }
+
+    /**
+     * 类型描述：类名和按编码顺序排列的字段名（枚举为常量名）
+     */
+    static final class TypeDescriptor {
+        final String className;
+        final List<String> members;
+
+        TypeDescriptor(String className, List<String> members) {
+            this.className = className;
+            this.members = members;
+        }
+    }
+
+    /**
+     * 值无法编码为二进制行格式
+     */
+    static final class UnsupportedValueException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedValueException(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
@@ -12,6 +12,11 @@ public class CacheConfig {
     public static final int DEFAULT_CLEANUP_INTERVAL = 60000; // 1分钟
     public static final boolean DEFAULT_ENABLE_ASYNC = true;
     public static final int DEFAULT_THREAD_POOL_SIZE = 4;
+    public static final long DEFAULT_LOAD_TIMEOUT = 30000; // 30秒
+    public static final int DEFAULT_OFF_HEAP_SLAB_SIZE = 4 * 1024 * 1024; // 4MB
+    public static final int DEFAULT_SNAPSHOT_MAX_ENTRIES = 1000;
+    public static final long DEFAULT_WARM_UP_TIMEOUT = 30000; // 30秒
+    public static final int DEFAULT_REPLAY_MAX_ENTRIES = 256;
     // 配置属性
     private boolean enabled = DEFAULT_ENABLED;
     private int maxSize = DEFAULT_MAX_SIZE;
@@ -23,6 +28,15 @@ public class CacheConfig {
     private boolean enableStatistics = true;
     private boolean enableWarmUp = false;
     private long maxMemoryUsage = 100 * 1024 * 1024; // 100MB
+    private CacheWeigher weigher = DefaultCacheWeigher.INSTANCE;
+    private long loadTimeout = DEFAULT_LOAD_TIMEOUT;
+    private long staleWhileRevalidate = 0; // 0表示不启用
+    private long maxOffHeapMemory = 0; // 0表示不启用堆外存储层
+    private int offHeapSlabSize = DEFAULT_OFF_HEAP_SLAB_SIZE;
+    private String snapshotFile; // null表示不保存快照
+    private int snapshotMaxEntries = DEFAULT_SNAPSHOT_MAX_ENTRIES;
+    private long warmUpTimeout = DEFAULT_WARM_UP_TIMEOUT;
+    private int replayMaxEntries = DEFAULT_REPLAY_MAX_ENTRIES;
 
     /**
      * 默认构造函数
@@ -167,6 +181,11 @@ public class CacheConfig {
         return enableWarmUp;
     }
 
+    /**
+     * 设置是否在创建缓存时从快照文件异步预热，需同时设置 snapshotFile
+     *
+     * @param enableWarmUp 是否预热
+     */
     public void setEnableWarmUp(boolean enableWarmUp) {
         this.enableWarmUp = enableWarmUp;
     }
@@ -178,4 +197,128 @@ public class CacheConfig {
     public void setMaxMemoryUsage(long maxMemoryUsage) {
         this.maxMemoryUsage = Math.max(1024 * 1024, maxMemoryUsage); // 最小1MB
     }
+
+    public CacheWeigher getWeigher() {
+        return weigher;
+    }
+
+    /**
+     * 设置缓存权重计算，缓存总权重不超过 maxMemoryUsage
+     *
+     * @param weigher 权重计算，null 表示使用默认实现
+     */
+    public void setWeigher(CacheWeigher weigher) {
+        this.weigher = weigher != null ? weigher : DefaultCacheWeigher.INSTANCE;
+    }
+
+    public long getLoadTimeout() {
+        return loadTimeout;
+    }
+
+    /**
+     * 设置等待并发加载的超时时间，超时后等待方自行执行查询
+     *
+     * @param loadTimeout 超时时间（毫秒）
+     */
+    public void setLoadTimeout(long loadTimeout) {
+        this.loadTimeout = Math.max(0, loadTimeout);
+    }
+
+    public long getStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    /**
+     * 设置过期后继续提供旧值的时间窗口
+     * 窗口内命中已过期的条目时直接返回旧值，并在后台刷新一次；依赖的表被修改的条目不会提供旧值
+     *
+     * @param staleWhileRevalidate 时间窗口（毫秒），0表示不启用
+     */
+    public void setStaleWhileRevalidate(long staleWhileRevalidate) {
+        this.staleWhileRevalidate = Math.max(0, staleWhileRevalidate);
+    }
+
+    public long getMaxOffHeapMemory() {
+        return maxOffHeapMemory;
+    }
+
+    /**
+     * 设置堆外存储层的内存上限
+     * 启用后堆上缓存（maxSize、maxMemoryUsage）作为热点层，从中淘汰的条目编码后转存到直接内存，
+     * 再次命中时解码并放回热点层；堆外空间不足时按 slab 回收最早写入的条目
+     *
+     * @param maxOffHeapMemory 内存上限（字节），0表示不启用
+     */
+    public void setMaxOffHeapMemory(long maxOffHeapMemory) {
+        this.maxOffHeapMemory = Math.max(0, maxOffHeapMemory);
+    }
+
+    public int getOffHeapSlabSize() {
+        return offHeapSlabSize;
+    }
+
+    /**
+     * 设置堆外 slab 大小，单个编码后超过 slab 大小的结果不转存到堆外
+     *
+     * @param offHeapSlabSize slab 大小（字节）
+     */
+    public void setOffHeapSlabSize(int offHeapSlabSize) {
+        this.offHeapSlabSize = Math.max(1024, offHeapSlabSize);
+    }
+
+    /**
+     * 是否启用堆外存储层
+     */
+    public boolean isOffHeapEnabled() {
+        return maxOffHeapMemory > 0;
+    }
+
+    public String getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    /**
+     * 设置缓存快照文件
+     * 关闭缓存时把命中次数最多的条目写入该文件；启用预热时创建缓存后从该文件载入
+     *
+     * @param snapshotFile 文件路径，null表示不保存快照
+     */
+    public void setSnapshotFile(String snapshotFile) {
+        this.snapshotFile = snapshotFile;
+    }
+
+    public int getSnapshotMaxEntries() {
+        return snapshotMaxEntries;
+    }
+
+    public void setSnapshotMaxEntries(int snapshotMaxEntries) {
+        this.snapshotMaxEntries = Math.max(0, snapshotMaxEntries);
+    }
+
+    public long getWarmUpTimeout() {
+        return warmUpTimeout;
+    }
+
+    /**
+     * 设置保存快照、载入快照和重放热点查询各自的时间上限，超时后放弃剩余条目
+     *
+     * @param warmUpTimeout 时间上限（毫秒）
+     */
+    public void setWarmUpTimeout(long warmUpTimeout) {
+        this.warmUpTimeout = Math.max(0, warmUpTimeout);
+    }
+
+    public int getReplayMaxEntries() {
+        return replayMaxEntries;
+    }
+
+    /**
+     * 设置可重放查询的数量上限
+     * 只为命中次数最多的若干个缓存键保留加载器，见 QueryCacheImpl#replayHotQueriesAsync(int)
+     *
+     * @param replayMaxEntries 数量上限，0 表示不保留
+     */
+    public void setReplayMaxEntries(int replayMaxEntries) {
+        this.replayMaxEntries = Math.max(0, replayMaxEntries);
+    }
 }
@@ -0,0 +1,97 @@
+package com.kishultan.persistence.query.cache;
+
+/**
+ * 缓存条目
+ * 除缓存值和过期信息外，同时作为访问顺序链表和时间轮桶链表的节点：
+ * prev/next/retired 只在 {@link AccessOrderPolicy} 的淘汰锁内读写，
+ * timerPrev/timerNext/timerRetired 只在 {@link TimerWheel} 的锁内读写
+ */
+final class CacheEntry {
+    private final String key;
+    private final Object value;
+    private final long storeTime;
+    private final long ttl;
+    /** 过期时间点（毫秒），永不过期为 Long.MAX_VALUE */
+    private final long expireAt;
+    /** 回收时间点（毫秒）：过期后继续保留旧值的窗口结束时间，未启用时等于 expireAt */
+    private final long reclaimAt;
+    /** 权重（估算的内存占用，字节） */
+    private final long weight;
+    /** 表依赖，表版本变化后条目失效；null 表示不跟踪表依赖 */
+    private final TableDependency dependency;
+
+    // ==================== 访问顺序链表（淘汰锁保护） ====================
+    CacheEntry prev;
+    CacheEntry next;
+    /** 条目已被移除或替换，之后不再加入链表 */
+    boolean retired;
+
+    // ==================== 时间轮桶链表（时间轮锁保护） ====================
+    CacheEntry timerPrev;
+    CacheEntry timerNext;
+    /** 条目已移出时间轮，之后不再调度 */
+    boolean timerRetired;
+
+    CacheEntry(String key, Object value, long storeTime, long ttl) {
+        this(key, value, storeTime, ttl, 0, null, 0);
+    }
+
+    CacheEntry(String key, Object value, long storeTime, long ttl, long weight, TableDependency dependency,
+               long staleRetention) {
+        this.key = key;
+        this.value = value;
+        this.storeTime = storeTime;
+        this.ttl = ttl;
+        this.expireAt = ttl > 0 && ttl < Long.MAX_VALUE - storeTime ? storeTime + ttl : Long.MAX_VALUE;
+        this.reclaimAt = staleRetention > 0 && staleRetention < Long.MAX_VALUE - expireAt
+                ? expireAt + staleRetention : expireAt;
+        this.weight = weight;
+        this.dependency = dependency;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    Object getValue() {
+        return value;
+    }
+
+    long getStoreTime() {
+        return storeTime;
+    }
+
+    long getTtl() {
+        return ttl;
+    }
+
+    long getWeight() {
+        return weight;
+    }
+
+    TableDependency getDependency() {
+        return dependency;
+    }
+
+    /**
+     * 依赖的表是否在缓存之后被修改过
+     */
+    boolean isStale() {
+        return dependency != null && dependency.isStale();
+    }
+
+    long getExpireAt() {
+        return expireAt;
+    }
+
+    long getReclaimAt() {
+        return reclaimAt;
+    }
+
+    /**
+     * 是否会过期
+     */
+    boolean isExpirable() {
+        return expireAt != Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,37 @@
+package com.kishultan.persistence.query.cache;
+
+/**
+ * 缓存加载器
+ * 缓存未命中时由 {@link QueryCache#getOrLoad} 调用，负责执行查询并决定结果是否写入缓存
+ *
+ * @param <T> 结果类型
+ */
+@FunctionalInterface
+public interface CacheLoader<T> {
+    /**
+     * 加载结果（通常是执行数据库查询）
+     *
+     * @return 加载结果
+     */
+    T load();
+
+    /**
+     * 捕获结果依赖的表版本，在 {@link #load()} 之前调用
+     *
+     * @return 表依赖，null 表示不跟踪表依赖
+     */
+    default TableDependency captureDependency() {
+        return null;
+    }
+
+    /**
+     * 加载结果是否写入缓存
+     * 写入前后各调用一次，写入后返回 false 时移除刚写入的条目
+     *
+     * @param value 加载结果
+     * @return 是否写入缓存
+     */
+    default boolean isCacheable(T value) {
+        return value != null;
+    }
+}
@@ -0,0 +1,95 @@
+package com.kishultan.persistence.query.cache;
+
+/**
+ * 缓存区域
+ * 按名称注册的独立查询缓存，拥有各自的容量、默认 TTL、淘汰策略和统计信息；
+ * 实体类或单个查询指定区域后，查询结果只写入该区域
+ * <p>
+ * 淘汰策略按 {@link CacheConfig#getStrategyType()} 创建，只支持 LRU 和 TTL；
+ * 配置中 enabled 为 false 的区域不缓存任何结果，用于频繁修改的表
+ */
+public final class CacheRegion {
+    private final String name;
+    private final CacheConfig config;
+    private final QueryCacheImpl cache;
+
+    /**
+     * 构造函数
+     *
+     * @param name   区域名称
+     * @param config 区域配置
+     */
+    public CacheRegion(String name, CacheConfig config) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("缓存区域名称不能为空");
+        }
+        if (config == null) {
+            throw new IllegalArgumentException("缓存区域配置不能为空: " + name);
+        }
+        this.name = name;
+        this.config = config;
+        this.cache = new QueryCacheImpl(config, createStrategy(config.getStrategyType()));
+    }
+
+    /**
+     * 按策略类型创建淘汰策略
+     *
+     * @param type 策略类型
+     * @return 淘汰策略
+     * @throws IllegalArgumentException 策略类型尚未实现（LFU、SIZE、CUSTOM）
+     */
+    public static CacheStrategy createStrategy(CacheStrategy.StrategyType type) {
+        if (type == CacheStrategy.StrategyType.LRU) {
+            return new LRUCacheStrategy();
+        }
+        if (type == CacheStrategy.StrategyType.TTL) {
+            return new TTLCacheStrategy();
+        }
+        throw new IllegalArgumentException("不支持的缓存淘汰策略: " + type + "，可用 LRU 或 TTL");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CacheConfig getConfig() {
+        return config;
+    }
+
+    public QueryCache getCache() {
+        return cache;
+    }
+
+    /**
+     * 区域是否缓存结果
+     */
+    public boolean isEnabled() {
+        return cache.isEnabled();
+    }
+
+    /**
+     * 获取区域的默认 TTL，查询未指定 TTL 时使用
+     *
+     * @return 默认 TTL（毫秒）
+     */
+    public long getDefaultTtl() {
+        return config.getDefaultTtl();
+    }
+
+    public CacheStatistics getStatistics() {
+        return cache.getStatistics();
+    }
+
+    /**
+     * 关闭区域的缓存
+     */
+    public void shutdown() {
+        cache.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "CacheRegion{name=" + name + ", enabled=" + isEnabled() + ", maxSize=" + config.getMaxSize()
+                + ", defaultTtl=" + config.getDefaultTtl() + ", strategy=" + config.getStrategyType() + "}";
+    }
+}
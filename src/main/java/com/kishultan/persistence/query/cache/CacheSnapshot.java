@@ -0,0 +1,199 @@
+package com.kishultan.persistence.query.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 缓存快照文件
+ * 保存缓存键、绝对过期时间、依赖的表名和按 {@link BinaryRowCodec} 编码的结果，文件头部记录类型描述；
+ * 先写临时文件再替换目标文件，写入中断不会破坏已有快照
+ * <p>
+ * 读取时按类型描述恢复类型编号，类或字段已变化的条目跳过；表版本不跨进程保存，读取后按当前版本重新捕获
+ */
+final class CacheSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(CacheSnapshot.class);
+    private static final int MAGIC = 0x4B505143; // KPQC
+    private static final int VERSION = 1;
+
+    /**
+     * 快照条目
+     */
+    static final class Entry {
+        final String key;
+        final Object value;
+        /** 绝对过期时间（毫秒），永不过期为 Long.MAX_VALUE */
+        final long expireAt;
+        final Set<String> tables;
+
+        Entry(String key, Object value, long expireAt, Set<String> tables) {
+            this.key = key;
+            this.value = value;
+            this.expireAt = expireAt;
+            this.tables = tables;
+        }
+    }
+
+    /**
+     * 读取到的条目的处理回调
+     */
+    interface EntryHandler {
+        /**
+         * 处理条目
+         *
+         * @return 是否已载入
+         */
+        boolean accept(Entry entry);
+    }
+
+    private CacheSnapshot() {
+    }
+
+    /**
+     * 写入快照，超过截止时间后不再编码剩余条目
+     *
+     * @param file     快照文件
+     * @param entries  按优先级排列的条目
+     * @param deadline 截止时间（毫秒）
+     * @return 写入的条目数
+     * @throws IOException 写入失败
+     */
+    static int write(Path file, List<Entry> entries, long deadline) throws IOException {
+        BinaryRowCodec codec = new BinaryRowCodec();
+        List<Entry> written = new ArrayList<>();
+        List<byte[]> encoded = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (System.currentTimeMillis() >= deadline) {
+                logger.warn("缓存快照超过时间上限，剩余 {} 个条目未写入", entries.size() - written.size());
+                break;
+            }
+            try {
+                encoded.add(codec.encode(entry.value));
+                written.add(entry);
+            } catch (BinaryRowCodec.UnsupportedValueException e) {
+                logger.debug("缓存结果无法编码，不写入快照: cacheKey={}, reason={}", entry.key, e.getMessage());
+            }
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(System.currentTimeMillis());
+                List<BinaryRowCodec.TypeDescriptor> types = codec.exportTypes();
+                out.writeInt(types.size());
+                for (BinaryRowCodec.TypeDescriptor type : types) {
+                    out.writeUTF(type.className);
+                    out.writeInt(type.members.size());
+                    for (String member : type.members) {
+                        out.writeUTF(member);
+                    }
+                }
+                for (int i = 0; i < written.size(); i++) {
+                    Entry entry = written.get(i);
+                    byte[] data = encoded.get(i);
+                    out.writeBoolean(true);
+                    out.writeUTF(entry.key);
+                    out.writeLong(entry.expireAt);
+                    out.writeInt(entry.tables.size());
+                    for (String table : entry.tables) {
+                        out.writeUTF(table);
+                    }
+                    out.writeInt(data.length);
+                    out.write(data);
+                }
+                out.writeBoolean(false);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return written.size();
+    }
+
+    /**
+     * 读取快照，超过截止时间后不再读取剩余条目
+     *
+     * @param file        快照文件
+     * @param deadline    截止时间（毫秒）
+     * @param classLoader 加载结果类型使用的类加载器
+     * @param handler     条目处理回调
+     * @return 载入的条目数
+     * @throws IOException 文件不存在或格式错误
+     */
+    static int read(Path file, long deadline, ClassLoader classLoader, EntryHandler handler) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("不是有效的缓存快照文件: " + file);
+            }
+            in.readLong(); // 快照时间
+            int typeCount = in.readInt();
+            List<BinaryRowCodec.TypeDescriptor> types = new ArrayList<>(typeCount);
+            for (int i = 0; i < typeCount; i++) {
+                String className = in.readUTF();
+                int memberCount = in.readInt();
+                List<String> members = new ArrayList<>(memberCount);
+                for (int j = 0; j < memberCount; j++) {
+                    members.add(in.readUTF());
+                }
+                types.add(new BinaryRowCodec.TypeDescriptor(className, members));
+            }
+            BinaryRowCodec codec = new BinaryRowCodec();
+            codec.importTypes(types, classLoader);
+
+            int loaded = 0;
+            while (in.readBoolean()) {
+                if (System.currentTimeMillis() >= deadline) {
+                    logger.warn("载入缓存快照超过时间上限，已载入 {} 个条目", loaded);
+                    break;
+                }
+                String key = in.readUTF();
+                long expireAt = in.readLong();
+                int tableCount = in.readInt();
+                Set<String> tables = tableCount == 0 ? Collections.<String>emptySet() : new LinkedHashSet<>();
+                for (int i = 0; i < tableCount; i++) {
+                    tables.add(in.readUTF());
+                }
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                if (expireAt <= System.currentTimeMillis()) {
+                    continue;
+                }
+                Object value;
+                try {
+                    value = codec.decode(data);
+                } catch (RuntimeException e) {
+                    logger.debug("快照条目无法解码，跳过: cacheKey={}, reason={}", key, e.getMessage());
+                    continue;
+                }
+                if (handler.accept(new Entry(key, value, expireAt, tables))) {
+                    loaded++;
+                }
+            }
+            return loaded;
+        }
+    }
+}
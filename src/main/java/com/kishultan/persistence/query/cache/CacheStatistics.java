@@ -1,23 +1,48 @@
 package com.kishultan.persistence.query.cache;
 
 import java.time.LocalDateTime;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 缓存统计信息类
  * 记录缓存的各种统计信息
  */
 public class CacheStatistics {
+    /** 按缓存键统计命中次数的键数上限 */
+    public static final int MAX_TRACKED_KEYS = 10000;
+    /** 每记录这么多次按键命中，所有键的命中次数减半 */
+    public static final int KEY_HIT_AGING_PERIOD = MAX_TRACKED_KEYS * 10;
     private long hitCount = 0;
     private long missCount = 0;
     private long putCount = 0;
     private long removeCount = 0;
     private long evictionCount = 0;
+    private long coalescedCount = 0;
+    private long staleHitCount = 0;
+    private long offHeapHitCount = 0;
+    private long offHeapPutCount = 0;
+    private long offHeapEvictionCount = 0;
     private long totalAccessCount = 0;
     private long totalMemoryUsage = 0;
     private LocalDateTime startTime = LocalDateTime.now();
     private LocalDateTime lastAccessTime;
     private LocalDateTime lastPutTime;
     private LocalDateTime lastRemoveTime;
+    /** 按缓存键统计的命中次数，用于选出热点查询 */
+    private final Map<String, AtomicLong> keyHitCounts = new ConcurrentHashMap<>();
+    /** 记录过的按键命中次数，用于决定何时衰减 */
+    private final AtomicLong keyHitSamples = new AtomicLong();
+    /** 汇总进来的缓存区域统计明细 */
+    private final Map<String, CacheStatistics> regionStatistics = new LinkedHashMap<>();
 
     /**
      * 记录缓存命中
@@ -69,6 +94,161 @@ public class CacheStatistics {
         this.totalMemoryUsage = Math.max(0, this.totalMemoryUsage - memoryUsage);
     }
 
+    /**
+     * 记录合并的并发加载（等待其他线程的加载结果，未访问数据库）
+     * 多个等待方会同时记录，因此需要同步
+     */
+    public synchronized void recordCoalesced() {
+        this.coalescedCount++;
+    }
+
+    /**
+     * 记录提供过期旧值的命中
+     */
+    public void recordStaleHit() {
+        this.staleHitCount++;
+        recordHit();
+    }
+
+    /**
+     * 记录堆外存储层命中
+     */
+    public void recordOffHeapHit() {
+        this.offHeapHitCount++;
+        recordHit();
+    }
+
+    /**
+     * 记录条目从堆上热点层转存到堆外存储层
+     */
+    public void recordOffHeapPut() {
+        this.offHeapPutCount++;
+    }
+
+    /**
+     * 记录堆外存储层因空间不足回收的条目
+     */
+    public void recordOffHeapEviction() {
+        this.offHeapEvictionCount++;
+    }
+
+    /**
+     * 记录指定缓存键的命中
+     * 每 {@link #KEY_HIT_AGING_PERIOD} 次命中由一个线程把所有计数减半并丢弃归零的键，
+     * 衰减的开销分摊到各次命中；统计的键数达到上限后不再登记新键，直到下一次衰减腾出位置
+     *
+     * @param cacheKey 缓存键
+     */
+    public void recordKeyHit(String cacheKey) {
+        if (keyHitSamples.incrementAndGet() % KEY_HIT_AGING_PERIOD == 0) {
+            ageKeyHitCounts();
+        }
+        AtomicLong count = keyHitCounts.get(cacheKey);
+        if (count == null) {
+            if (keyHitCounts.size() >= MAX_TRACKED_KEYS) {
+                return;
+            }
+            count = keyHitCounts.computeIfAbsent(cacheKey, key -> new AtomicLong());
+        }
+        count.incrementAndGet();
+    }
+
+    private void ageKeyHitCounts() {
+        keyHitCounts.values().removeIf(count -> count.updateAndGet(value -> value >> 1) == 0);
+    }
+
+    /**
+     * 获取指定缓存键的命中次数
+     *
+     * @param cacheKey 缓存键
+     * @return 命中次数
+     */
+    public long getKeyHitCount(String cacheKey) {
+        AtomicLong count = keyHitCounts.get(cacheKey);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * 获取命中次数最多的缓存键
+     *
+     * @param limit 数量上限
+     * @return 按命中次数降序排列的缓存键
+     */
+    public List<String> getTopKeys(int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        // 只保留当前最热的 limit 个键的小顶堆
+        PriorityQueue<Map.Entry<String, Long>> top = new PriorityQueue<>(limit, Map.Entry.comparingByValue());
+        for (Map.Entry<String, AtomicLong> entry : keyHitCounts.entrySet()) {
+            long count = entry.getValue().get();
+            if (top.size() < limit) {
+                top.add(new AbstractMap.SimpleEntry<>(entry.getKey(), count));
+            } else if (count > top.peek().getValue()) {
+                top.poll();
+                top.add(new AbstractMap.SimpleEntry<>(entry.getKey(), count));
+            }
+        }
+        String[] keys = new String[top.size()];
+        for (int i = keys.length - 1; i >= 0; i--) {
+            keys[i] = top.poll().getKey();
+        }
+        return new ArrayList<>(Arrays.asList(keys));
+    }
+
+    /**
+     * 累加另一份统计信息的计数，开始时间取较早者，最近时间取较晚者；按缓存键的命中次数不累加
+     *
+     * @param other 统计信息
+     */
+    public void merge(CacheStatistics other) {
+        this.hitCount += other.hitCount;
+        this.missCount += other.missCount;
+        this.putCount += other.putCount;
+        this.removeCount += other.removeCount;
+        this.evictionCount += other.evictionCount;
+        this.coalescedCount += other.coalescedCount;
+        this.staleHitCount += other.staleHitCount;
+        this.offHeapHitCount += other.offHeapHitCount;
+        this.offHeapPutCount += other.offHeapPutCount;
+        this.offHeapEvictionCount += other.offHeapEvictionCount;
+        this.totalAccessCount += other.totalAccessCount;
+        this.totalMemoryUsage += other.totalMemoryUsage;
+        if (other.startTime.isBefore(this.startTime)) {
+            this.startTime = other.startTime;
+        }
+        this.lastAccessTime = later(this.lastAccessTime, other.lastAccessTime);
+        this.lastPutTime = later(this.lastPutTime, other.lastPutTime);
+        this.lastRemoveTime = later(this.lastRemoveTime, other.lastRemoveTime);
+    }
+
+    /**
+     * 汇总缓存区域的统计信息，并保留该区域的明细
+     *
+     * @param region     区域名称
+     * @param statistics 区域统计信息
+     */
+    public void addRegion(String region, CacheStatistics statistics) {
+        merge(statistics);
+        regionStatistics.put(region, statistics);
+    }
+
+    /**
+     * 获取汇总进来的缓存区域统计明细
+     *
+     * @return 区域名称到统计信息的映射
+     */
+    public Map<String, CacheStatistics> getRegionStatistics() {
+        return Collections.unmodifiableMap(regionStatistics);
+    }
+
+    private static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        return b != null && b.isAfter(a) ? b : a;
+    }
+
     // Getter方法
     public long getHitCount() {
         return hitCount;
@@ -90,6 +270,26 @@ public class CacheStatistics {
         return evictionCount;
     }
 
+    public long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    public long getStaleHitCount() {
+        return staleHitCount;
+    }
+
+    public long getOffHeapHitCount() {
+        return offHeapHitCount;
+    }
+
+    public long getOffHeapPutCount() {
+        return offHeapPutCount;
+    }
+
+    public long getOffHeapEvictionCount() {
+        return offHeapEvictionCount;
+    }
+
     public long getTotalAccessCount() {
         return totalAccessCount;
     }
@@ -132,6 +332,24 @@ public class CacheStatistics {
         return totalAccessCount > 0 ? (double) missCount / totalAccessCount : 0.0;
     }
 
+    /**
+     * 获取堆上热点层命中率
+     *
+     * @return 命中率（0-1）
+     */
+    public double getHeapHitRate() {
+        return totalAccessCount > 0 ? (double) (hitCount - offHeapHitCount) / totalAccessCount : 0.0;
+    }
+
+    /**
+     * 获取堆外存储层命中率
+     *
+     * @return 命中率（0-1）
+     */
+    public double getOffHeapHitRate() {
+        return totalAccessCount > 0 ? (double) offHeapHitCount / totalAccessCount : 0.0;
+    }
+
     /**
      * 获取平均内存使用量
      *
@@ -159,6 +377,14 @@ public class CacheStatistics {
         this.putCount = 0;
         this.removeCount = 0;
         this.evictionCount = 0;
+        this.coalescedCount = 0;
+        this.staleHitCount = 0;
+        this.offHeapHitCount = 0;
+        this.offHeapPutCount = 0;
+        this.offHeapEvictionCount = 0;
+        this.keyHitCounts.clear();
+        this.keyHitSamples.set(0);
+        this.regionStatistics.clear();
         this.totalAccessCount = 0;
         this.totalMemoryUsage = 0;
         this.startTime = LocalDateTime.now();
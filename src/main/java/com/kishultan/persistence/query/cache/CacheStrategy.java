@@ -25,6 +25,7 @@ public interface CacheStrategy {
 
     /**
      * 获取需要淘汰的缓存键
+     * QueryCacheImpl 自身按访问顺序淘汰，不再调用此方法，保留供独立使用策略的调用方
      *
      * @param cacheKeys 当前缓存键列表
      * @param count     需要淘汰的数量
@@ -49,6 +50,14 @@ public interface CacheStrategy {
      */
     void recordStore(String cacheKey, long storeTime, long ttl);
 
+    /**
+     * 记录缓存移除（删除、淘汰或过期），策略可借此释放该键的元数据
+     *
+     * @param cacheKey 缓存键
+     */
+    default void recordRemoval(String cacheKey) {
+    }
+
     /**
      * 检查缓存是否过期
      *
@@ -0,0 +1,19 @@
+package com.kishultan.persistence.query.cache;
+
+/**
+ * 缓存权重计算接口
+ * 估算缓存值占用的内存（字节），QueryCacheImpl 据此按 CacheConfig.maxMemoryUsage 限制缓存总大小
+ * <p>
+ * 实现必须线程安全，且对同一个值多次计算应返回相同结果；默认实现见 {@link DefaultCacheWeigher}
+ */
+@FunctionalInterface
+public interface CacheWeigher {
+    /**
+     * 计算缓存值的权重
+     *
+     * @param cacheKey 缓存键
+     * @param value    缓存值
+     * @return 估算的内存占用（字节），不能为负数
+     */
+    long weigh(String cacheKey, Object value);
+}
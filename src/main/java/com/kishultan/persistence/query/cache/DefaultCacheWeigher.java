@@ -0,0 +1,266 @@
+package com.kishultan.persistence.query.cache;
+
+import com.kishultan.persistence.query.BeanMeta;
+import com.kishultan.persistence.query.PropertyAccessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * 默认缓存权重计算
+ * 按 64 位 JVM（压缩指针）的对象布局估算查询结果的保留大小：
+ * 实体按 BeanMeta 的字段布局计算对象本身大小，再累加引用字段指向的值；
+ * 大集合只抽样部分元素，按平均大小外推，计算开销与结果行数无关
+ * <p>
+ * 递归深度只按实体引用字段计算，集合、数组和 Map 本身不占深度，
+ * 因此实体的子集合（例如一对多关联）及其元素与实体本身按同样的深度计算
+ */
+public class DefaultCacheWeigher implements CacheWeigher {
+    private static final Logger logger = LoggerFactory.getLogger(DefaultCacheWeigher.class);
+    /** 默认共享实例 */
+    public static final DefaultCacheWeigher INSTANCE = new DefaultCacheWeigher();
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    /** 集合元素抽样数 */
+    private static final int SAMPLE_SIZE = 32;
+    /** 实体引用字段递归深度，避免双向关联导致死循环 */
+    private static final int MAX_DEPTH = 3;
+    /** 集合、数组和 Map 的嵌套层数上限，防止容器直接或间接包含自身 */
+    private static final int MAX_NESTING = 16;
+    /** 无法识别的对象的默认估算值 */
+    private static final long DEFAULT_SIZE = 64;
+
+    private static final Map<Class<?>, Long> FIXED_SIZES = new HashMap<>();
+
+    static {
+        FIXED_SIZES.put(Boolean.class, 16L);
+        FIXED_SIZES.put(Byte.class, 16L);
+        FIXED_SIZES.put(Short.class, 16L);
+        FIXED_SIZES.put(Character.class, 16L);
+        FIXED_SIZES.put(Integer.class, 16L);
+        FIXED_SIZES.put(Float.class, 16L);
+        FIXED_SIZES.put(Long.class, 24L);
+        FIXED_SIZES.put(Double.class, 24L);
+        FIXED_SIZES.put(BigInteger.class, 56L);
+        FIXED_SIZES.put(BigDecimal.class, 96L);
+        FIXED_SIZES.put(java.util.Date.class, 24L);
+        FIXED_SIZES.put(java.sql.Date.class, 24L);
+        FIXED_SIZES.put(java.sql.Time.class, 24L);
+        FIXED_SIZES.put(java.sql.Timestamp.class, 32L);
+        FIXED_SIZES.put(java.time.LocalDate.class, 24L);
+        FIXED_SIZES.put(java.time.LocalTime.class, 24L);
+        FIXED_SIZES.put(java.time.LocalDateTime.class, 72L);
+        FIXED_SIZES.put(java.time.Instant.class, 24L);
+        FIXED_SIZES.put(java.util.UUID.class, 32L);
+    }
+
+    // 实体布局缓存：Class -> 对象大小和引用字段
+    // 通过 ClassValue 挂在类上，随类卸载回收，不会随缓存过的结果类型无限增长
+    private static final ClassValue<EntityLayout> layoutCache = new ClassValue<EntityLayout>() {
+        @Override
+        protected EntityLayout computeValue(Class<?> type) {
+            return createLayout(type);
+        }
+    };
+
+    @Override
+    public long weigh(String cacheKey, Object value) {
+        long size = sizeOf(value, 0, 0);
+        if (cacheKey != null) {
+            size += sizeOfString(cacheKey);
+        }
+        return size;
+    }
+
+    /**
+     * @param depth   已经过的实体引用层数
+     * @param nesting 已经过的容器嵌套层数
+     */
+    private long sizeOf(Object value, int depth, int nesting) {
+        if (value == null) {
+            return 0;
+        }
+        Class<?> type = value.getClass();
+        Long fixed = FIXED_SIZES.get(type);
+        if (fixed != null) {
+            return fixed;
+        }
+        if (value instanceof String) {
+            return sizeOfString((String) value);
+        }
+        if (type.isEnum()) {
+            return 0; // 枚举常量全局共享
+        }
+        boolean container = type.isArray() || value instanceof Collection || value instanceof Map;
+        if (container ? nesting >= MAX_NESTING : depth >= MAX_DEPTH) {
+            return REFERENCE;
+        }
+        if (type.isArray()) {
+            return sizeOfArray(value, depth, nesting + 1);
+        }
+        if (value instanceof Collection) {
+            return sizeOfCollection((Collection<?>) value, depth, nesting + 1);
+        }
+        if (value instanceof Map) {
+            return sizeOfMap((Map<?, ?>) value, depth, nesting + 1);
+        }
+        EntityLayout layout = layoutOf(type);
+        if (layout == null) {
+            return DEFAULT_SIZE;
+        }
+        long size = layout.shallowSize;
+        for (PropertyAccessor accessor : layout.referenceFields) {
+            size += sizeOf(accessor.get(value), depth + 1, nesting);
+        }
+        return size;
+    }
+
+    private static long sizeOfString(String value) {
+        // String 对象 + char/byte 数组，按每字符 2 字节保守估算
+        return 24 + align(ARRAY_HEADER + 2L * value.length());
+    }
+
+    private long sizeOfArray(Object array, int depth, int nesting) {
+        int length = Array.getLength(array);
+        Class<?> componentType = array.getClass().getComponentType();
+        if (componentType.isPrimitive()) {
+            return align(ARRAY_HEADER + (long) length * primitiveSize(componentType));
+        }
+        long size = align(ARRAY_HEADER + (long) length * REFERENCE);
+        if (length == 0) {
+            return size;
+        }
+        int samples = Math.min(length, SAMPLE_SIZE);
+        long sampled = 0;
+        for (int i = 0; i < samples; i++) {
+            sampled += sizeOf(Array.get(array, (int) ((long) i * length / samples)), depth, nesting);
+        }
+        return size + sampled * length / samples;
+    }
+
+    private long sizeOfCollection(Collection<?> collection, int depth, int nesting) {
+        int size = collection.size();
+        // ArrayList 等数组实现：对象 + 引用数组；链表/哈希实现：每个元素一个节点
+        long overhead = collection instanceof RandomAccess
+                ? 24 + align(ARRAY_HEADER + (long) size * REFERENCE)
+                : 48 + (long) size * 32;
+        if (size == 0) {
+            return overhead;
+        }
+        int samples = Math.min(size, SAMPLE_SIZE);
+        long sampled = 0;
+        if (collection instanceof List && collection instanceof RandomAccess) {
+            List<?> list = (List<?>) collection;
+            for (int i = 0; i < samples; i++) {
+                sampled += sizeOf(list.get((int) ((long) i * size / samples)), depth, nesting);
+            }
+        } else {
+            Iterator<?> iterator = collection.iterator();
+            for (int i = 0; i < samples && iterator.hasNext(); i++) {
+                sampled += sizeOf(iterator.next(), depth, nesting);
+            }
+        }
+        return overhead + sampled * size / samples;
+    }
+
+    private long sizeOfMap(Map<?, ?> map, int depth, int nesting) {
+        int size = map.size();
+        long overhead = 48 + align(ARRAY_HEADER + (long) size * 2 * REFERENCE) + (long) size * 32;
+        if (size == 0) {
+            return overhead;
+        }
+        int samples = Math.min(size, SAMPLE_SIZE);
+        long sampled = 0;
+        Iterator<? extends Map.Entry<?, ?>> iterator = map.entrySet().iterator();
+        for (int i = 0; i < samples && iterator.hasNext(); i++) {
+            Map.Entry<?, ?> entry = iterator.next();
+            sampled += sizeOf(entry.getKey(), depth, nesting) + sizeOf(entry.getValue(), depth, nesting);
+        }
+        return overhead + sampled * size / samples;
+    }
+
+    /**
+     * 获取实体布局，JDK 类型和无法解析的类型返回 null
+     */
+    private static EntityLayout layoutOf(Class<?> type) {
+        String name = type.getName();
+        if (name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jakarta.")) {
+            return null;
+        }
+        EntityLayout layout = layoutCache.get(type);
+        return layout == EntityLayout.UNKNOWN ? null : layout;
+    }
+
+    private static EntityLayout createLayout(Class<?> type) {
+        try {
+            BeanMeta meta = new BeanMeta(type);
+            long shallowSize = OBJECT_HEADER;
+            List<PropertyAccessor> referenceFields = new ArrayList<>();
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    Class<?> fieldType = field.getType();
+                    if (fieldType.isPrimitive()) {
+                        shallowSize += primitiveSize(fieldType);
+                    } else {
+                        shallowSize += REFERENCE;
+                        referenceFields.add(meta.getPropertyAccessor(field));
+                    }
+                }
+            }
+            return new EntityLayout(align(shallowSize),
+                    referenceFields.toArray(new PropertyAccessor[0]));
+        } catch (RuntimeException e) {
+            logger.debug("无法解析实体布局，使用默认估算: {}", type.getName(), e);
+            return EntityLayout.UNKNOWN;
+        }
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    /**
+     * 实体布局：对象本身大小和需要递归计算的引用字段
+     */
+    private static final class EntityLayout {
+        static final EntityLayout UNKNOWN = new EntityLayout(DEFAULT_SIZE, new PropertyAccessor[0]);
+
+        final long shallowSize;
+        final PropertyAccessor[] referenceFields;
+
+        EntityLayout(long shallowSize, PropertyAccessor[] referenceFields) {
+            this.shallowSize = shallowSize;
+            this.referenceFields = referenceFields;
+        }
+    }
+}
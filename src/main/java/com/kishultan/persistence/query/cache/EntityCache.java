@@ -0,0 +1,369 @@
+package com.kishultan.persistence.query.cache;
+
+import com.kishultan.persistence.query.BeanMeta;
+import com.kishultan.persistence.query.PropertyAccessor;
+import com.kishultan.persistence.query.utils.EntityUtils;
+import jakarta.persistence.Cacheable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * 实体二级缓存
+ * 按数据源、实体类和主键缓存 EntityManager.findById / findAll 加载的实体，写操作提交后写入或移除对应条目
+ * <p>
+ * 实体类标注 {@link Cacheable} 或通过 {@link #setCacheable} 启用；缓存中保存实体的副本，
+ * 读取时返回新的副本（字段浅拷贝，Date 字段另行复制）。调用方给返回实体的字段赋新值不影响缓存，
+ * 但集合、数组和嵌套对象与缓存中的实体共享，只能读取，需要修改时先自行复制
+ * <p>
+ * 按主键缓存的条目只依赖表的外部版本（见 {@link TableDependency#captureExternal}）：EntityManager 的写操作
+ * 直接写入或移除对应条目，不影响同一张表的其他实体；绕过 EntityManager 的写操作（SQL 执行器等）使该表的条目全部失效。
+ * findAll 的结果依赖表版本，该表的任何写操作都使其失效；同一实体的并发加载只访问一次数据库
+ * <p>
+ * 写入或移除实体时递增该主键的写入戳（按缓存键分段），加载开始后写入戳变化时丢弃加载结果，
+ * 避免加载期间提交的写入被读到的旧行覆盖
+ */
+public final class EntityCache {
+    private static final Logger logger = LoggerFactory.getLogger(EntityCache.class);
+    private static final int WRITE_STAMP_STRIPES = 256;
+
+    private static final Map<Class<?>, Boolean> cacheableClasses = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, EntityCopier> copiers = new ConcurrentHashMap<>();
+    private static volatile CacheConfig config = CacheConfig.createDefault();
+    private static volatile QueryCacheImpl cache;
+    private static final AtomicLongArray writeStamps = new AtomicLongArray(WRITE_STAMP_STRIPES);
+
+    private EntityCache() {
+    }
+
+    /**
+     * 设置实体缓存的配置（容量、TTL 等），已缓存的实体被丢弃
+     *
+     * @param cacheConfig 缓存配置
+     * @throws IllegalArgumentException 淘汰策略不支持
+     */
+    public static synchronized void configure(CacheConfig cacheConfig) {
+        // 策略类型不支持时在配置时报错，而不是在首次读取实体时
+        CacheRegion.createStrategy(cacheConfig.getStrategyType());
+        config = cacheConfig;
+        QueryCacheImpl previous = cache;
+        cache = null;
+        if (previous != null) {
+            previous.shutdown();
+        }
+    }
+
+    /**
+     * 指定实体类是否使用实体缓存，优先于 {@link Cacheable} 注解
+     *
+     * @param entityClass 实体类
+     * @param cacheable   是否缓存
+     */
+    public static void setCacheable(Class<?> entityClass, boolean cacheable) {
+        if (cacheable && !hasDefaultConstructor(entityClass)) {
+            throw new IllegalArgumentException("实体类没有无参构造函数，无法缓存: " + entityClass.getName());
+        }
+        cacheableClasses.put(entityClass, cacheable);
+        if (!cacheable) {
+            evictAll(entityClass);
+        }
+    }
+
+    /**
+     * 实体类是否使用实体缓存，标注了 {@link Cacheable} 但没有无参构造函数的实体类不缓存
+     *
+     * @param entityClass 实体类
+     * @return 是否缓存
+     */
+    public static boolean isCacheable(Class<?> entityClass) {
+        return cacheableClasses.computeIfAbsent(entityClass, type -> {
+            Cacheable annotation = type.getAnnotation(Cacheable.class);
+            if (annotation == null || !annotation.value()) {
+                return false;
+            }
+            if (!hasDefaultConstructor(type)) {
+                logger.warn("实体类没有无参构造函数，不使用实体缓存: {}", type.getName());
+                return false;
+            }
+            return true;
+        });
+    }
+
+    private static boolean hasDefaultConstructor(Class<?> entityClass) {
+        try {
+            entityClass.getDeclaredConstructor();
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 按主键获取实体，未缓存时通过加载器加载并缓存
+     *
+     * @param dataSource  数据源名称
+     * @param entityClass 实体类
+     * @param id          主键
+     * @param loader      从数据库加载实体
+     * @return 实体副本，不存在时返回 null
+     */
+    public static <T> T find(String dataSource, Class<T> entityClass, Object id, Supplier<T> loader) {
+        QueryCacheImpl current = cache();
+        String key = key(dataSource, entityClass, id);
+        T entity = current.getOrLoad(key, entityClass, config.getDefaultTtl(), new EntityLoader<>(entityClass, loader, key));
+        return entity != null ? copy(entity) : null;
+    }
+
+    /**
+     * 获取实体类的全部实体，未缓存时通过加载器加载并缓存；该表的任何写操作都会使结果失效
+     *
+     * @param dataSource  数据源名称
+     * @param entityClass 实体类
+     * @param loader      从数据库加载全部实体
+     * @return 实体副本列表
+     */
+    public static <T> List<T> findAll(String dataSource, Class<T> entityClass, Supplier<List<T>> loader) {
+        QueryCacheImpl current = cache();
+        @SuppressWarnings("unchecked")
+        Class<List<T>> listType = (Class<List<T>>) (Class<?>) List.class;
+        List<T> entities = current.getOrLoad(listKey(dataSource, entityClass), listType, config.getDefaultTtl(),
+                new EntityLoader<>(entityClass, loader, null));
+        if (entities == null) {
+            return null;
+        }
+        List<T> copies = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            copies.add(copy(entity));
+        }
+        return copies;
+    }
+
+    /**
+     * 写入实体（保存或更新提交后调用），缓存实体的副本
+     *
+     * @param dataSource 数据源名称
+     * @param entity     实体
+     */
+    public static void put(String dataSource, Object entity) {
+        Class<?> entityClass = entity.getClass();
+        Object id = idOf(entity);
+        if (id == null) {
+            return;
+        }
+        String key = key(dataSource, entityClass, id);
+        // 先递增写入戳再写入，正在进行的加载在写入前后的检查中至少有一次看到变化
+        writeStamps.incrementAndGet(stripe(key));
+        cache().put(key, copy(entity), config.getDefaultTtl(), dependencyOf(entityClass, true));
+    }
+
+    /**
+     * 移除实体（删除提交后调用）
+     *
+     * @param dataSource  数据源名称
+     * @param entityClass 实体类
+     * @param id          主键
+     */
+    public static void evict(String dataSource, Class<?> entityClass, Object id) {
+        QueryCacheImpl current = cache;
+        if (current != null && id != null) {
+            String key = key(dataSource, entityClass, id);
+            writeStamps.incrementAndGet(stripe(key));
+            current.remove(key);
+            current.remove(listKey(dataSource, entityClass));
+        }
+    }
+
+    /**
+     * 移除实体类在所有数据源下的缓存
+     *
+     * @param entityClass 实体类
+     */
+    public static void evictAll(Class<?> entityClass) {
+        QueryCacheImpl current = cache;
+        if (current == null) {
+            return;
+        }
+        invalidateLoads();
+        String marker = ":" + entityClass.getName() + ":";
+        List<String> keys = new ArrayList<>();
+        for (String key : current.keys()) {
+            if (key.contains(marker) || key.endsWith(":" + entityClass.getName())) {
+                keys.add(key);
+            }
+        }
+        current.removeAll(keys);
+    }
+
+    /**
+     * 清空实体缓存
+     */
+    public static void clear() {
+        invalidateLoads();
+        QueryCacheImpl current = cache;
+        if (current != null) {
+            current.clear();
+        }
+    }
+
+    /**
+     * 获取实体主键值
+     *
+     * @param entity 实体
+     * @return 主键值，实体没有 @Id 字段或主键为空时返回 null
+     */
+    public static Object idOf(Object entity) {
+        EntityCopier copier = copier(entity.getClass());
+        return copier.id != null ? copier.id.get(entity) : null;
+    }
+
+    /**
+     * 复制实体：字段浅拷贝，Date 字段另行复制；集合、数组和嵌套对象与原实体共享
+     *
+     * @param entity 实体
+     * @return 副本
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T copy(T entity) {
+        return (T) copier(entity.getClass()).copy(entity);
+    }
+
+    /**
+     * 获取实体缓存统计信息
+     *
+     * @return 统计信息，实体缓存未使用过时返回 null
+     */
+    public static CacheStatistics getStatistics() {
+        QueryCacheImpl current = cache;
+        return current != null ? current.getStatistics() : null;
+    }
+
+    private static QueryCacheImpl cache() {
+        QueryCacheImpl current = cache;
+        if (current == null) {
+            synchronized (EntityCache.class) {
+                current = cache;
+                if (current == null) {
+                    current = new QueryCacheImpl(config, CacheRegion.createStrategy(config.getStrategyType()));
+                    cache = current;
+                    logger.info("实体缓存已创建: maxSize={}, ttl={}", config.getMaxSize(), config.getDefaultTtl());
+                }
+            }
+        }
+        return current;
+    }
+
+    private static int stripe(String key) {
+        return (key.hashCode() & 0x7fffffff) % WRITE_STAMP_STRIPES;
+    }
+
+    /**
+     * 递增所有写入戳，正在进行的按主键加载的结果都不写入缓存
+     */
+    private static void invalidateLoads() {
+        for (int i = 0; i < WRITE_STAMP_STRIPES; i++) {
+            writeStamps.incrementAndGet(i);
+        }
+    }
+
+    private static String key(String dataSource, Class<?> entityClass, Object id) {
+        return "entity:" + dataSource + ":" + entityClass.getName() + ":" + id;
+    }
+
+    private static String listKey(String dataSource, Class<?> entityClass) {
+        return "entities:" + dataSource + ":" + entityClass.getName();
+    }
+
+    private static TableDependency dependencyOf(Class<?> entityClass, boolean byId) {
+        Set<String> tables = Collections.singleton(EntityUtils.getTableName(entityClass));
+        return byId ? TableDependency.captureExternal(tables) : TableDependency.capture(tables);
+    }
+
+    private static EntityCopier copier(Class<?> entityClass) {
+        return copiers.computeIfAbsent(entityClass, EntityCopier::new);
+    }
+
+    /**
+     * 实体加载器：加载前捕获实体表的版本，按主键加载时捕获外部版本和写入戳
+     */
+    private static final class EntityLoader<T> implements CacheLoader<T> {
+        private final Class<?> entityClass;
+        private final Supplier<T> loader;
+        // 按主键加载时为缓存键，findAll 时为 null
+        private final String key;
+        private volatile long stamp;
+
+        EntityLoader(Class<?> entityClass, Supplier<T> loader, String key) {
+            this.entityClass = entityClass;
+            this.loader = loader;
+            this.key = key;
+        }
+
+        @Override
+        public T load() {
+            return loader.get();
+        }
+
+        @Override
+        public TableDependency captureDependency() {
+            if (key != null) {
+                stamp = writeStamps.get(stripe(key));
+            }
+            return dependencyOf(entityClass, key != null);
+        }
+
+        @Override
+        public boolean isCacheable(T value) {
+            // 加载期间该实体被写入或移除，读到的可能是旧行
+            return value != null && (key == null || writeStamps.get(stripe(key)) == stamp);
+        }
+    }
+
+    /**
+     * 实体复制器：按 BeanMeta 字段访问器复制非静态、非 transient 字段
+     */
+    private static final class EntityCopier {
+        private final BeanMeta meta;
+        private final PropertyAccessor[] accessors;
+        private final PropertyAccessor id;
+
+        EntityCopier(Class<?> entityClass) {
+            this.meta = new BeanMeta(entityClass);
+            List<PropertyAccessor> fields = new ArrayList<>();
+            for (Class<?> current = entityClass; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                        continue;
+                    }
+                    fields.add(meta.getPropertyAccessor(field));
+                }
+            }
+            this.accessors = fields.toArray(new PropertyAccessor[0]);
+            Field idField = EntityUtils.getPrimaryKeyField(entityClass);
+            this.id = idField != null ? meta.getPropertyAccessor(idField) : null;
+        }
+
+        Object copy(Object entity) {
+            Object copy = meta.newInstance();
+            for (PropertyAccessor accessor : accessors) {
+                Object value = accessor.get(entity);
+                if (value instanceof Date) {
+                    value = ((Date) value).clone();
+                }
+                accessor.set(copy, value);
+            }
+            return copy;
+        }
+    }
+}
@@ -2,15 +2,21 @@ package com.kishultan.persistence.query.cache;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * LRU缓存策略实现
  * 基于最近最少使用算法的缓存策略
+ * <p>
+ * QueryCacheImpl 自己维护访问顺序链表完成淘汰，读路径上的 recordAccess 只计入统计，
+ * 不再写入共享的 Map；{@link #getEvictionCandidates} 因此按写入时间近似选择候选
  */
 public class LRUCacheStrategy implements CacheStrategy {
+    // 键 -> 写入时间
     private final Map<String, Long> accessTimes = new ConcurrentHashMap<>();
     private final StrategyStatistics statistics = new StrategyStatistics();
 
@@ -29,27 +35,28 @@ public class LRUCacheStrategy implements CacheStrategy {
         if (cacheKeys == null || cacheKeys.isEmpty() || count <= 0) {
             return Collections.emptyList();
         }
-        // 按访问时间排序，选择最久未访问的条目
-        List<String> sortedKeys = new ArrayList<>(cacheKeys);
-        sortedKeys.sort((key1, key2) -> {
-            Long time1 = accessTimes.getOrDefault(key1, 0L);
-            Long time2 = accessTimes.getOrDefault(key2, 0L);
-            return Long.compare(time1, time2);
-        });
-        // 返回最久未访问的条目
-        int evictCount = Math.min(count, sortedKeys.size());
-        List<String> candidates = new ArrayList<>();
-        for (int i = 0; i < evictCount; i++) {
-            candidates.add(sortedKeys.get(i));
+        // 用容量为 count 的大顶堆选出最早写入的条目，避免对全部键排序
+        Comparator<String> byAccessTime = Comparator.comparingLong(key -> accessTimes.getOrDefault(key, 0L));
+        int evictCount = Math.min(count, cacheKeys.size());
+        PriorityQueue<String> oldest = new PriorityQueue<>(evictCount, byAccessTime.reversed());
+        for (String cacheKey : cacheKeys) {
+            if (oldest.size() < evictCount) {
+                oldest.offer(cacheKey);
+            } else if (byAccessTime.compare(cacheKey, oldest.peek()) < 0) {
+                oldest.poll();
+                oldest.offer(cacheKey);
+            }
         }
+        List<String> candidates = new ArrayList<>(oldest);
+        candidates.sort(byAccessTime);
         statistics.recordEviction(System.currentTimeMillis());
         return candidates;
     }
 
     @Override
     public void recordAccess(String cacheKey, long accessTime) {
+        // 每次命中都会调用，只计入统计，避免读路径上的 ConcurrentHashMap 写入
         if (cacheKey != null) {
-            accessTimes.put(cacheKey, accessTime);
             statistics.recordAccess(accessTime);
         }
     }
@@ -62,6 +69,13 @@ public class LRUCacheStrategy implements CacheStrategy {
         }
     }
 
+    @Override
+    public void recordRemoval(String cacheKey) {
+        if (cacheKey != null) {
+            accessTimes.remove(cacheKey);
+        }
+    }
+
     @Override
     public boolean isExpired(String cacheKey, long storeTime, long ttl) {
         if (ttl <= 0) {
@@ -81,7 +95,7 @@ public class LRUCacheStrategy implements CacheStrategy {
         if (accessTime == null) {
             return 0.0;
         }
-        // 权重基于访问时间，越久未访问权重越低
+        // 权重基于写入时间
         long currentTime = System.currentTimeMillis();
         long timeSinceAccess = currentTime - accessTime;
         // 使用对数函数计算权重，避免权重过小
@@ -0,0 +1,362 @@
+package com.kishultan.persistence.query.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 堆外存储层
+ * 编码后的查询结果追加写入固定大小的直接内存 slab，堆上只保留索引和过期信息；
+ * slab 按分配顺序排列，空间不足时整块回收最早的 slab 及其中的全部记录，不产生碎片整理开销；
+ * slab 中的记录全部被移除后，该 slab 立即回到空闲列表
+ * <p>
+ * slab 的读写都在同一把锁内完成：写入时拷贝进 slab，读取时拷贝出字节数组后在锁外解码
+ * <p>
+ * 按缓存键分段的移除戳在移除和清空时递增；转存时携带淘汰时的移除戳，
+ * 戳已变化说明期间该键被移除或写入了新值，不再写入旧值
+ */
+final class OffHeapStore {
+    private static final int STAMP_STRIPES = 64;
+
+    private final int slabSize;
+    private final int maxSlabs;
+    private final Map<String, Record> index = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLongArray removalStamps = new AtomicLongArray(STAMP_STRIPES);
+    /** 已写入记录的 slab，队首最早分配 */
+    private final ArrayDeque<Slab> slabs = new ArrayDeque<>();
+    private final ArrayDeque<Slab> freeSlabs = new ArrayDeque<>();
+    private int allocatedSlabs;
+    /** 当前追加写入的 slab */
+    private Slab current;
+    private long usedBytes;
+
+    /**
+     * 构造函数
+     *
+     * @param slabSize  单个 slab 大小（字节）
+     * @param maxMemory 堆外内存上限（字节），至少分配一个 slab
+     */
+    OffHeapStore(int slabSize, long maxMemory) {
+        this.slabSize = slabSize;
+        this.maxSlabs = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxMemory / slabSize));
+    }
+
+    /**
+     * 写入记录，替换同一缓存键的旧记录
+     *
+     * @param key        缓存键
+     * @param data       编码后的查询结果
+     * @param storeTime  原始存储时间（毫秒）
+     * @param ttl        生存时间（毫秒）
+     * @param dependency 表依赖，可为 null
+     * @param evicted    收集因空间不足被回收的记录
+     * @param stamp      读取数据前取得的移除戳（见 {@link #removalStamp(String)}）
+     * @return 是否写入成功，超过 slab 大小的结果以及移除戳已变化时不写入
+     */
+    boolean put(String key, byte[] data, long storeTime, long ttl, TableDependency dependency, List<Record> evicted,
+                long stamp) {
+        if (data.length > slabSize) {
+            remove(key);
+            return false;
+        }
+        int stripe = stripe(key);
+        lock.lock();
+        try {
+            if (removalStamps.get(stripe) != stamp) {
+                return false;
+            }
+            if (current == null || slabSize - current.position < data.length) {
+                current = nextSlab(evicted);
+            }
+            Record record = new Record(key, current, current.position, data.length, storeTime, ttl, dependency);
+            ByteBuffer target = current.buffer.duplicate();
+            target.position(record.offset);
+            target.put(data);
+            current.position += data.length;
+            current.records.add(record);
+            current.liveRecords++;
+            usedBytes += data.length;
+            Record replaced = index.put(key, record);
+            if (replaced != null) {
+                release(replaced);
+            }
+            if (removalStamps.get(stripe) != stamp) {
+                // 写入索引期间该键被移除，移除方可能没有看到这条记录
+                if (index.remove(key, record)) {
+                    release(record);
+                }
+                return false;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取缓存键当前的移除戳
+     *
+     * @param key 缓存键
+     * @return 移除戳，与之后 {@link #put} 时的值不同说明期间该键被移除过
+     */
+    long removalStamp(String key) {
+        return removalStamps.get(stripe(key));
+    }
+
+    private static int stripe(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STAMP_STRIPES - 1);
+    }
+
+    /**
+     * 获取记录（不读取数据）
+     *
+     * @param key 缓存键
+     * @return 记录，不存在时返回 null
+     */
+    Record get(String key) {
+        return index.get(key);
+    }
+
+    /**
+     * 拷贝出记录的数据
+     *
+     * @param record 记录
+     * @return 编码后的查询结果，记录已被移除或回收时返回 null
+     */
+    byte[] read(Record record) {
+        lock.lock();
+        try {
+            if (record.released) {
+                return null;
+            }
+            byte[] data = new byte[record.length];
+            ByteBuffer source = record.slab.buffer.duplicate();
+            source.position(record.offset);
+            source.get(data);
+            return data;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 移除指定缓存键的记录
+     *
+     * @param key 缓存键
+     * @return 是否移除了记录
+     */
+    boolean remove(String key) {
+        removalStamps.incrementAndGet(stripe(key));
+        Record record = index.remove(key);
+        if (record == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            release(record);
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * 移除指定记录（缓存键已映射到新记录时不移除）
+     *
+     * @param record 记录
+     * @return 是否移除了记录，记录已被移除或替换时返回 false
+     */
+    boolean remove(Record record) {
+        if (index.remove(record.key, record)) {
+            lock.lock();
+            try {
+                release(record);
+            } finally {
+                lock.unlock();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 清空所有记录，已分配的 slab 保留复用
+     */
+    void clear() {
+        lock.lock();
+        try {
+            for (int i = 0; i < STAMP_STRIPES; i++) {
+                removalStamps.incrementAndGet(i);
+            }
+            index.clear();
+            for (Slab slab : slabs) {
+                resetSlab(slab);
+                freeSlabs.add(slab);
+            }
+            slabs.clear();
+            current = null;
+            usedBytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    /**
+     * 当前所有记录的缓存键
+     */
+    java.util.Set<String> keys() {
+        return index.keySet();
+    }
+
+    /**
+     * 有效记录占用的堆外字节数
+     */
+    long getUsedBytes() {
+        lock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 已分配的堆外字节数
+     */
+    long getAllocatedBytes() {
+        lock.lock();
+        try {
+            return (long) allocatedSlabs * slabSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取下一个可写的 slab：优先复用空闲 slab，其次分配新 slab，达到上限时回收最早的 slab
+     */
+    private Slab nextSlab(List<Record> evicted) {
+        Slab slab = freeSlabs.poll();
+        if (slab == null && allocatedSlabs < maxSlabs) {
+            slab = new Slab(ByteBuffer.allocateDirect(slabSize));
+            allocatedSlabs++;
+        }
+        if (slab == null) {
+            slab = slabs.poll();
+            for (Record record : slab.records) {
+                if (!record.released) {
+                    record.released = true;
+                    usedBytes -= record.length;
+                    if (index.remove(record.key, record)) {
+                        evicted.add(record);
+                    }
+                }
+            }
+            resetSlab(slab);
+        }
+        slabs.add(slab);
+        return slab;
+    }
+
+    /**
+     * 释放记录占用的空间，slab 中的记录全部释放后回到空闲列表
+     */
+    private void release(Record record) {
+        if (record.released) {
+            return;
+        }
+        record.released = true;
+        usedBytes -= record.length;
+        Slab slab = record.slab;
+        if (--slab.liveRecords == 0 && slab != current) {
+            slabs.remove(slab);
+            resetSlab(slab);
+            freeSlabs.add(slab);
+        }
+    }
+
+    private static void resetSlab(Slab slab) {
+        slab.position = 0;
+        slab.liveRecords = 0;
+        slab.records.clear();
+    }
+
+    /**
+     * 直接内存 slab
+     */
+    private static final class Slab {
+        final ByteBuffer buffer;
+        final List<Record> records = new ArrayList<>();
+        int position;
+        int liveRecords;
+
+        Slab(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * 堆外记录的堆上索引：数据位置和过期信息
+     */
+    static final class Record {
+        private final String key;
+        private final Slab slab;
+        private final int offset;
+        private final int length;
+        private final long storeTime;
+        private final long ttl;
+        private final long expireAt;
+        private final TableDependency dependency;
+        /** 空间已释放，只在锁内读写 */
+        private boolean released;
+
+        Record(String key, Slab slab, int offset, int length, long storeTime, long ttl, TableDependency dependency) {
+            this.key = key;
+            this.slab = slab;
+            this.offset = offset;
+            this.length = length;
+            this.storeTime = storeTime;
+            this.ttl = ttl;
+            this.expireAt = ttl > 0 && ttl < Long.MAX_VALUE - storeTime ? storeTime + ttl : Long.MAX_VALUE;
+            this.dependency = dependency;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        int getLength() {
+            return length;
+        }
+
+        long getStoreTime() {
+            return storeTime;
+        }
+
+        long getTtl() {
+            return ttl;
+        }
+
+        TableDependency getDependency() {
+            return dependency;
+        }
+
+        /**
+         * 是否已过期，或依赖的表在缓存之后被修改过
+         */
+        boolean isInvalid(long now) {
+            return now >= expireAt || (dependency != null && dependency.isStale());
+        }
+    }
+}
@@ -38,6 +38,46 @@ public interface QueryCache {
      */
     void put(String cacheKey, Object result, long ttl);
 
+    /**
+     * 存储缓存结果，并记录结果依赖的表
+     * 依赖的表被修改（表版本递增）后，缓存结果视为失效；默认实现忽略表依赖
+     *
+     * @param cacheKey   缓存键
+     * @param result     结果对象
+     * @param ttl        生存时间（毫秒），-1表示永不过期
+     * @param dependency 表依赖，须在执行查询之前捕获
+     */
+    default void put(String cacheKey, Object result, long ttl, TableDependency dependency) {
+        put(cacheKey, result, ttl);
+    }
+
+    /**
+     * 获取缓存结果，未命中时通过加载器加载并写入缓存
+     * 默认实现不合并并发加载；QueryCacheImpl 中同一缓存键的并发未命中只加载一次
+     *
+     * @param <T>        结果类型
+     * @param cacheKey   缓存键
+     * @param resultType 结果类型
+     * @param ttl        生存时间（毫秒），-1表示永不过期
+     * @param loader     缓存加载器
+     * @return 缓存结果或加载结果
+     */
+    default <T> T getOrLoad(String cacheKey, Class<T> resultType, long ttl, CacheLoader<T> loader) {
+        T cached = get(cacheKey, resultType);
+        if (cached != null) {
+            return cached;
+        }
+        TableDependency dependency = loader.captureDependency();
+        T value = loader.load();
+        if (loader.isCacheable(value)) {
+            put(cacheKey, value, ttl, dependency);
+            if (!loader.isCacheable(value)) {
+                remove(cacheKey);
+            }
+        }
+        return value;
+    }
+
     /**
      * 异步存储缓存结果
      *
@@ -91,6 +131,15 @@ public interface QueryCache {
      */
     CacheStatistics getStatistics();
 
+    /**
+     * 获取缓存总权重，即按 CacheWeigher 估算的内存占用
+     *
+     * @return 缓存总权重（字节），不支持按权重统计时返回 0
+     */
+    default long getWeightedSize() {
+        return 0L;
+    }
+
     /**
      * 预热缓存
      *
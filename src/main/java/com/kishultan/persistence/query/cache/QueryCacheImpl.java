@@ -3,21 +3,80 @@ package com.kishultan.persistence.query.cache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 查询缓存实现类
  * 提供查询结果的缓存功能
+ * <p>
+ * 读操作无锁；达到容量时按访问顺序淘汰最久未访问的条目，单次淘汰 O(1)，见 {@link AccessOrderPolicy}；
+ * 过期条目由分层时间轮回收，只处理已到期的桶，不扫描整个缓存，见 {@link TimerWheel}；
+ * 除条目数 maxSize 外，缓存总权重（CacheWeigher 估算的字节数）不超过 maxMemoryUsage；
+ * 通过 {@link #getOrLoad} 加载时，同一缓存键的并发未命中只加载一次，其余调用方等待同一结果
+ * <p>
+ * 启用堆外存储层（CacheConfig.maxOffHeapMemory）后，堆上缓存作为热点层：按容量淘汰的条目编码为二进制行格式
+ * 转存到直接内存，见 {@link OffHeapStore}；堆上未命中时从堆外解码并放回热点层。同一缓存键只存在于其中一层
+ * <p>
+ * 配置 snapshotFile 后，关闭缓存时把命中次数最多的条目写入快照文件，启用预热时创建缓存后异步载入；
+ * {@link #replayHotQueriesAsync} 重新执行命中次数最多、当前未缓存的查询
  */
 public class QueryCacheImpl implements QueryCache {
     private static final Logger logger = LoggerFactory.getLogger(QueryCacheImpl.class);
+    /** 登记可重放查询时核对堆顶命中次数的最多次数 */
+    private static final int MAX_REPLAY_RECHECKS = 8;
     private final CacheConfig config;
     private final CacheStrategy strategy;
     private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
     private final CacheStatistics statistics = new CacheStatistics();
+    /** 缓存总权重（字节） */
+    private final AtomicLong weightedSize = new AtomicLong();
+    private final AccessOrderPolicy accessOrder = new AccessOrderPolicy();
+    private final TimerWheel timerWheel = new TimerWheel(System.currentTimeMillis());
+    private final AccessOrderPolicy.EvictionHandler evictionHandler = new AccessOrderPolicy.EvictionHandler() {
+        @Override
+        public boolean isOverCapacity() {
+            // 已插入新条目，容量检查按插入前的大小判断
+            return !strategy.canAddEntry(cache.size() - 1, config.getMaxSize())
+                    || weightedSize.get() > config.getMaxMemoryUsage();
+        }
+
+        @Override
+        public void evict(CacheEntry victim) {
+            timerWheel.deschedule(victim);
+            if (cache.remove(victim.getKey(), victim)) {
+                weightedSize.addAndGet(-victim.getWeight());
+                strategy.recordRemoval(victim.getKey());
+                statistics.recordEviction(victim.getWeight());
+                if (offHeapStore != null) {
+                    // 淘汰锁内只登记，编码和写入在锁外进行
+                    pendingDemotions.add(new PendingDemotion(victim, offHeapStore.removalStamp(victim.getKey())));
+                }
+            }
+        }
+    };
+    /** 正在进行的加载：缓存键 -> 加载结果 */
+    private final Map<String, CompletableFuture<Object>> inFlightLoads = new ConcurrentHashMap<>();
+    /** 堆外存储层，未启用时为 null */
+    private final OffHeapStore offHeapStore;
+    private final BinaryRowCodec codec = new BinaryRowCodec();
+    /** 从热点层淘汰、等待转存到堆外的条目 */
+    private final Queue<PendingDemotion> pendingDemotions = new ConcurrentLinkedQueue<>();
+    /** 通过 getOrLoad 加载过的查询，供热点查询重放；只保留命中次数最多的 replayMaxEntries 个 */
+    private final Map<String, ReplayableQuery> replayableQueries = new ConcurrentHashMap<>();
+    /** 已登记的可重放查询按登记时（或上次核对时）的命中次数排列，堆顶为最冷的查询；登记和清空时加锁 */
+    private final PriorityQueue<ReplayableQuery> replayOrder =
+            new PriorityQueue<>((a, b) -> Long.compare(a.hits, b.hits));
     private final ScheduledExecutorService cleanupExecutor;
     private volatile boolean enabled = true;
 
@@ -31,11 +90,13 @@ public class QueryCacheImpl implements QueryCache {
         this.config = config;
         this.strategy = strategy;
         this.enabled = config.isEnabled();
+        this.offHeapStore = config.isOffHeapEnabled()
+                ? new OffHeapStore(config.getOffHeapSlabSize(), config.getMaxOffHeapMemory()) : null;
         // 启动清理任务
         if (config.isEnableAsync()) {
             this.cleanupExecutor = Executors.newScheduledThreadPool(config.getThreadPoolSize());
             this.cleanupExecutor.scheduleAtFixedRate(
-                    this::cleanupExpiredEntries,
+                    () -> cleanupExpiredEntries(System.currentTimeMillis()),
                     config.getCleanupInterval(),
                     config.getCleanupInterval(),
                     TimeUnit.MILLISECONDS
@@ -43,6 +104,12 @@ public class QueryCacheImpl implements QueryCache {
         } else {
             this.cleanupExecutor = null;
         }
+        if (config.isEnableWarmUp() && config.getSnapshotFile() != null) {
+            Path snapshot = Paths.get(config.getSnapshotFile());
+            if (Files.exists(snapshot)) {
+                loadSnapshotAsync(snapshot);
+            }
+        }
     }
 
     @Override
@@ -52,25 +119,30 @@ public class QueryCacheImpl implements QueryCache {
             return null;
         }
         CacheEntry entry = cache.get(cacheKey);
+        boolean fromOffHeap = false;
         if (entry == null) {
-            statistics.recordMiss();
-            return null;
+            entry = promote(cacheKey);
+            if (entry == null) {
+                statistics.recordMiss();
+                return null;
+            }
+            fromOffHeap = true;
         }
-        // 检查是否过期
-        if (strategy.isExpired(cacheKey, entry.getStoreTime(), entry.getTtl())) {
-            cache.remove(cacheKey);
+        // 检查是否过期，以及依赖的表是否已被修改
+        if (isExpiredOrStale(entry)) {
             statistics.recordMiss();
             return null;
         }
         // 记录访问
+        accessOrder.recordRead(entry);
         strategy.recordAccess(cacheKey, System.currentTimeMillis());
-        statistics.recordHit();
+        recordHit(cacheKey, fromOffHeap);
         try {
             return (T) entry.getValue();
         } catch (ClassCastException e) {
             logger.warn("缓存类型转换失败: cacheKey={}, expectedType={}, actualType={}",
                     cacheKey, resultType.getSimpleName(), entry.getValue().getClass().getSimpleName());
-            cache.remove(cacheKey);
+            removeEntry(entry);
             statistics.recordMiss();
             return null;
         }
@@ -86,25 +158,93 @@ public class QueryCacheImpl implements QueryCache {
 
     @Override
     public void put(String cacheKey, Object result, long ttl) {
+        put(cacheKey, result, ttl, null);
+    }
+
+    @Override
+    public void put(String cacheKey, Object result, long ttl, TableDependency dependency) {
         if (!enabled || cacheKey == null || result == null) {
             return;
         }
-        // 检查容量限制
-        if (!strategy.canAddEntry(cache.size(), config.getMaxSize())) {
-            evictEntries();
+        if (dependency != null && dependency.isStale()) {
+            // 查询执行期间依赖的表已被修改，结果可能已过时
+            logger.debug("缓存结果依赖的表已修改，跳过缓存: cacheKey={}", cacheKey);
+            remove(cacheKey);
+            return;
+        }
+        long weight = weigh(cacheKey, result);
+        if (weight > config.getMaxMemoryUsage()) {
+            // 单个结果超过内存上限时不缓存，避免清空整个缓存
+            logger.debug("缓存结果超过内存上限，跳过缓存: cacheKey={}, weight={} bytes", cacheKey, weight);
+            remove(cacheKey);
+            return;
         }
         long storeTime = System.currentTimeMillis();
         long actualTtl = ttl > 0 ? ttl : config.getDefaultTtl();
-        CacheEntry entry = new CacheEntry(result, storeTime, actualTtl);
-        cache.put(cacheKey, entry);
-        // 记录存储
-        strategy.recordStore(cacheKey, storeTime, actualTtl);
-        statistics.recordPut(estimateMemoryUsage(result));
+        CacheEntry entry = new CacheEntry(cacheKey, result, storeTime, actualTtl, weight, dependency,
+                config.getStaleWhileRevalidate());
+        CacheEntry replaced = cache.put(cacheKey, entry);
+        if (offHeapStore != null) {
+            // 新值写入热点层后，堆外的旧值不再有效
+            offHeapStore.remove(cacheKey);
+        }
+        link(entry, replaced);
+        statistics.recordPut(weight);
+        // 顺带推进时间轮，未启用异步清理时过期条目也能及时回收
+        cleanupExpiredEntries(storeTime);
         if (logger.isDebugEnabled()) {
             logger.debug("缓存存储: cacheKey={}, ttl={}ms", cacheKey, actualTtl);
         }
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getOrLoad(String cacheKey, Class<T> resultType, long ttl, CacheLoader<T> loader) {
+        if (!enabled || cacheKey == null) {
+            return loader.load();
+        }
+        CacheEntry entry = cache.get(cacheKey);
+        boolean fromOffHeap = false;
+        if (entry == null) {
+            entry = promote(cacheKey);
+            fromOffHeap = entry != null;
+        }
+        if (entry != null && resultType.isInstance(entry.getValue()) && !entry.isStale()) {
+            if (!strategy.isExpired(cacheKey, entry.getStoreTime(), entry.getTtl())) {
+                accessOrder.recordRead(entry);
+                strategy.recordAccess(cacheKey, System.currentTimeMillis());
+                recordHit(cacheKey, fromOffHeap);
+                return (T) entry.getValue();
+            }
+            if (System.currentTimeMillis() < entry.getReclaimAt()) {
+                // 过期后的窗口内先返回旧值，由一个后台任务刷新
+                statistics.recordStaleHit();
+                statistics.recordKeyHit(cacheKey);
+                refreshAsync(cacheKey, ttl, loader);
+                return (T) entry.getValue();
+            }
+        }
+        if (entry != null) {
+            removeEntry(entry);
+        }
+        statistics.recordMiss();
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = inFlightLoads.putIfAbsent(cacheKey, future);
+        if (inFlight != null) {
+            return awaitLoad(cacheKey, resultType, inFlight, loader);
+        }
+        // 获得加载权之前，其他线程可能刚完成加载并写入缓存
+        CacheEntry loaded = cache.get(cacheKey);
+        if (loaded != null && loaded != entry && resultType.isInstance(loaded.getValue()) && !loaded.isStale()
+                && !strategy.isExpired(cacheKey, loaded.getStoreTime(), loaded.getTtl())) {
+            inFlightLoads.remove(cacheKey, future);
+            future.complete(loaded.getValue());
+            return (T) loaded.getValue();
+        }
+        return load(cacheKey, ttl, loader, future);
+    }
+
     @Override
     public CompletableFuture<Void> putAsync(String cacheKey, Object result, long ttl) {
         if (!config.isEnableAsync()) {
@@ -119,12 +259,17 @@ public class QueryCacheImpl implements QueryCache {
         if (cacheKey == null) {
             return false;
         }
+        boolean removedOffHeap = offHeapStore != null && offHeapStore.remove(cacheKey);
         CacheEntry entry = cache.remove(cacheKey);
         if (entry != null) {
-            statistics.recordRemove(estimateMemoryUsage(entry.getValue()));
+            weightedSize.addAndGet(-entry.getWeight());
+            timerWheel.deschedule(entry);
+            accessOrder.recordRemoval(entry);
+            strategy.recordRemoval(cacheKey);
+            statistics.recordRemove(entry.getWeight());
             return true;
         }
-        return false;
+        return removedOffHeap;
     }
 
     @Override
@@ -143,7 +288,19 @@ public class QueryCacheImpl implements QueryCache {
 
     @Override
     public void clear() {
+        pendingDemotions.clear();
+        if (offHeapStore != null) {
+            // 先清空堆外层：正在放回热点层的条目要么被随后的 cache.clear() 移除，要么放回失败
+            offHeapStore.clear();
+        }
         cache.clear();
+        synchronized (replayOrder) {
+            replayOrder.clear();
+            replayableQueries.clear();
+        }
+        accessOrder.clear();
+        timerWheel.clear();
+        weightedSize.set(0);
         statistics.reset();
         strategy.reset();
         if (logger.isDebugEnabled()) {
@@ -151,6 +308,17 @@ public class QueryCacheImpl implements QueryCache {
         }
     }
 
+    /**
+     * 获取当前所有缓存键（含堆外存储层），不检查是否过期
+     */
+    List<String> keys() {
+        List<String> keys = new ArrayList<>(cache.keySet());
+        if (offHeapStore != null) {
+            keys.addAll(offHeapStore.keys());
+        }
+        return keys;
+    }
+
     @Override
     public boolean contains(String cacheKey) {
         if (cacheKey == null) {
@@ -158,19 +326,37 @@ public class QueryCacheImpl implements QueryCache {
         }
         CacheEntry entry = cache.get(cacheKey);
         if (entry == null) {
-            return false;
+            return containsOffHeap(cacheKey);
         }
-        // 检查是否过期
-        if (strategy.isExpired(cacheKey, entry.getStoreTime(), entry.getTtl())) {
-            cache.remove(cacheKey);
+        // 检查是否过期，以及依赖的表是否已被修改
+        if (isExpiredOrStale(entry)) {
             return false;
         }
         return true;
     }
 
+    /**
+     * 获取缓存大小，启用堆外存储层时包含堆外的条目
+     *
+     * @return 缓存大小
+     */
     @Override
     public int size() {
-        return cache.size();
+        return offHeapStore != null ? cache.size() + offHeapStore.size() : cache.size();
+    }
+
+    /**
+     * 获取堆外存储层中有效条目占用的字节数
+     *
+     * @return 字节数，未启用堆外存储层时返回 0
+     */
+    public long getOffHeapSize() {
+        return offHeapStore != null ? offHeapStore.getUsedBytes() : 0;
+    }
+
+    @Override
+    public long getWeightedSize() {
+        return weightedSize.get();
     }
 
     @Override
@@ -211,63 +397,468 @@ public class QueryCacheImpl implements QueryCache {
     }
 
     /**
-     * 清理过期条目
+     * 异步保存缓存快照：按命中次数选出最多 snapshotMaxEntries 个有效条目写入文件，
+     * 保存剩余有效期和依赖的表名，耗时不超过 warmUpTimeout
+     *
+     * @param file 快照文件
+     * @return 写入的条目数
+     */
+    public CompletableFuture<Integer> saveSnapshotAsync(Path file) {
+        long deadline = deadlineAfter(config.getWarmUpTimeout());
+        return supplyAsync(() -> {
+            long now = System.currentTimeMillis();
+            List<CacheEntry> live = new ArrayList<>();
+            for (CacheEntry entry : cache.values()) {
+                if (now < entry.getExpireAt() && !entry.isStale()) {
+                    live.add(entry);
+                }
+            }
+            live.sort((a, b) -> Long.compare(statistics.getKeyHitCount(b.getKey()), statistics.getKeyHitCount(a.getKey())));
+            List<CacheSnapshot.Entry> entries = new ArrayList<>();
+            for (CacheEntry entry : live.subList(0, Math.min(live.size(), config.getSnapshotMaxEntries()))) {
+                entries.add(new CacheSnapshot.Entry(entry.getKey(), entry.getValue(), entry.getExpireAt(),
+                        entry.getDependency() != null ? entry.getDependency().getTables() : Collections.<String>emptySet()));
+            }
+            try {
+                int written = CacheSnapshot.write(file, entries, deadline);
+                logger.info("缓存快照已保存: file={}, entries={}", file, written);
+                return written;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * 异步载入缓存快照，耗时不超过 warmUpTimeout
+     * 已过期的条目和已存在的缓存键跳过，依赖的表按当前版本重新捕获
+     *
+     * @param file 快照文件
+     * @return 载入的条目数
      */
-    private void cleanupExpiredEntries() {
-        if (!enabled) {
+    public CompletableFuture<Integer> loadSnapshotAsync(Path file) {
+        long deadline = deadlineAfter(config.getWarmUpTimeout());
+        return supplyAsync(() -> {
+            try {
+                int loaded = CacheSnapshot.read(file, deadline, getClass().getClassLoader(), entry -> {
+                    if (cache.containsKey(entry.key)) {
+                        return false;
+                    }
+                    long remaining = entry.expireAt == Long.MAX_VALUE
+                            ? Long.MAX_VALUE : entry.expireAt - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    TableDependency dependency = entry.tables.isEmpty() ? null : TableDependency.capture(entry.tables);
+                    put(entry.key, entry.value, remaining, dependency);
+                    return true;
+                });
+                logger.info("缓存快照已载入: file={}, entries={}", file, loaded);
+                return loaded;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * 异步重放热点查询：按命中次数选出前 topN 个缓存键，重新执行其中当前未缓存、
+     * 且曾通过 getOrLoad 加载的查询并写入缓存，耗时不超过 warmUpTimeout
+     * 适用于大量条目因过期或表修改失效之后
+     *
+     * @param topN 缓存键数量
+     * @return 重新加载的查询数
+     */
+    public CompletableFuture<Integer> replayHotQueriesAsync(int topN) {
+        long deadline = deadlineAfter(config.getWarmUpTimeout());
+        return supplyAsync(() -> {
+            int replayed = 0;
+            for (String cacheKey : statistics.getTopKeys(topN)) {
+                if (System.currentTimeMillis() >= deadline) {
+                    logger.warn("重放热点查询超过时间上限，已重放 {} 个", replayed);
+                    break;
+                }
+                ReplayableQuery query = replayableQueries.get(cacheKey);
+                if (query == null || contains(cacheKey)) {
+                    continue;
+                }
+                CompletableFuture<Object> future = new CompletableFuture<>();
+                if (inFlightLoads.putIfAbsent(cacheKey, future) != null) {
+                    continue;
+                }
+                try {
+                    load(cacheKey, query.ttl, query.loader, future);
+                    replayed++;
+                } catch (RuntimeException e) {
+                    logger.warn("重放热点查询失败: cacheKey={}", cacheKey, e);
+                }
+            }
+            logger.debug("热点查询重放完成: {} 个", replayed);
+            return replayed;
+        });
+    }
+
+    private <T> CompletableFuture<T> supplyAsync(java.util.function.Supplier<T> task) {
+        if (cleanupExecutor != null && !cleanupExecutor.isShutdown()) {
+            try {
+                return CompletableFuture.supplyAsync(task, cleanupExecutor);
+            } catch (RejectedExecutionException e) {
+                logger.debug("缓存任务被拒绝，改用公共线程池");
+            }
+        }
+        return CompletableFuture.supplyAsync(task);
+    }
+
+    private static long deadlineAfter(long timeout) {
+        long now = System.currentTimeMillis();
+        return timeout < Long.MAX_VALUE - now ? now + timeout : Long.MAX_VALUE;
+    }
+
+    /**
+     * 清理过期条目：推进时间轮，只处理已到期的桶
+     *
+     * @param now 当前时间（毫秒）
+     */
+    private void cleanupExpiredEntries(long now) {
+        List<CacheEntry> expired = new ArrayList<>();
+        if (!timerWheel.advance(now, expired) || expired.isEmpty()) {
             return;
         }
-        List<String> expiredKeys = new ArrayList<>();
-        for (Map.Entry<String, CacheEntry> entry : cache.entrySet()) {
-            String cacheKey = entry.getKey();
-            CacheEntry cacheEntry = entry.getValue();
-            if (strategy.isExpired(cacheKey, cacheEntry.getStoreTime(), cacheEntry.getTtl())) {
-                expiredKeys.add(cacheKey);
+        // 在时间轮锁外移除，避免与淘汰锁嵌套
+        int removedCount = 0;
+        for (CacheEntry entry : expired) {
+            if (cache.remove(entry.getKey(), entry)) {
+                weightedSize.addAndGet(-entry.getWeight());
+                accessOrder.recordRemoval(entry);
+                strategy.recordRemoval(entry.getKey());
+                statistics.recordRemove(entry.getWeight());
+                removedCount++;
             }
         }
-        if (!expiredKeys.isEmpty()) {
-            removeAll(expiredKeys);
-            logger.debug("清理过期缓存条目: {} 个", expiredKeys.size());
+        if (logger.isDebugEnabled()) {
+            logger.debug("清理过期缓存条目: {} 个", removedCount);
         }
     }
 
     /**
-     * 淘汰缓存条目
+     * 条目是否已过期或依赖的表已被修改
+     * 失效的条目立即移除；过期但仍在提供旧值窗口内的条目保留给 getOrLoad，由时间轮在窗口结束后回收
+     *
+     * @param entry 缓存条目
+     * @return 是否不可作为命中返回
      */
-    private void evictEntries() {
-        List<String> allKeys = new ArrayList<>(cache.keySet());
-        int evictCount = Math.max(1, allKeys.size() / 10); // 淘汰10%
-        List<String> evictCandidates = strategy.getEvictionCandidates(allKeys, evictCount);
-        for (String cacheKey : evictCandidates) {
-            CacheEntry entry = cache.remove(cacheKey);
-            if (entry != null) {
-                statistics.recordEviction(estimateMemoryUsage(entry.getValue()));
+    private boolean isExpiredOrStale(CacheEntry entry) {
+        if (entry.isStale()) {
+            removeEntry(entry);
+            return true;
+        }
+        if (strategy.isExpired(entry.getKey(), entry.getStoreTime(), entry.getTtl())) {
+            if (System.currentTimeMillis() >= entry.getReclaimAt()) {
+                removeEntry(entry);
             }
+            return true;
         }
-        if (logger.isDebugEnabled()) {
-            logger.debug("淘汰缓存条目: {} 个", evictCandidates.size());
+        return false;
+    }
+
+    /**
+     * 执行加载并写入缓存，完成后通知等待同一缓存键的调用方
+     *
+     * @param cacheKey 缓存键
+     * @param ttl      生存时间（毫秒）
+     * @param loader   缓存加载器
+     * @param future   本次加载登记的结果
+     * @return 加载结果
+     */
+    private <T> T load(String cacheKey, long ttl, CacheLoader<T> loader, CompletableFuture<Object> future) {
+        registerReplay(cacheKey, ttl, loader);
+        try {
+            // 执行查询前捕获表版本，执行期间的写入会使结果失效
+            TableDependency dependency = loader.captureDependency();
+            T value = loader.load();
+            if (loader.isCacheable(value)) {
+                put(cacheKey, value, ttl, dependency);
+                if (!loader.isCacheable(value)) {
+                    // 写入期间加载器判定结果已过时（例如实体在加载期间被写入），移除刚写入的条目
+                    remove(cacheKey);
+                }
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(cacheKey, future);
         }
     }
 
     /**
-     * 估算内存使用量
+     * 登记可重放的查询，只保留命中次数最多的 replayMaxEntries 个
+     * 已满时替换命中次数最少的查询；新查询的命中次数更少时不登记
+     * <p>
+     * 最冷的查询从堆顶取得。堆中的命中次数可能已过时，堆顶的次数有变化时更新后放回重新比较，
+     * 每次登记最多核对 {@link #MAX_REPLAY_RECHECKS} 次，之后以当前堆顶为准
+     */
+    private void registerReplay(String cacheKey, long ttl, CacheLoader<?> loader) {
+        int capacity = config.getReplayMaxEntries();
+        if (capacity == 0) {
+            return;
+        }
+        long hits = statistics.getKeyHitCount(cacheKey);
+        synchronized (replayOrder) {
+            ReplayableQuery registered = replayableQueries.get(cacheKey);
+            if (registered != null) {
+                registered.update(loader, ttl);
+                return;
+            }
+            int rechecks = 0;
+            while (replayableQueries.size() >= capacity) {
+                ReplayableQuery coldest = replayOrder.peek();
+                long coldestHits = statistics.getKeyHitCount(coldest.key);
+                if (coldestHits != coldest.hits && rechecks++ < MAX_REPLAY_RECHECKS) {
+                    replayOrder.poll();
+                    coldest.hits = coldestHits;
+                    replayOrder.offer(coldest);
+                    continue;
+                }
+                if (coldestHits > hits) {
+                    return;
+                }
+                replayOrder.poll();
+                replayableQueries.remove(coldest.key);
+            }
+            ReplayableQuery query = new ReplayableQuery(cacheKey, loader, ttl, hits);
+            replayableQueries.put(cacheKey, query);
+            replayOrder.offer(query);
+        }
+    }
+
+    /**
+     * 等待其他线程的加载结果，超时或被中断时自行加载（不写入缓存登记）
      *
-     * @param obj 对象
-     * @return 估算的内存使用量（字节）
+     * @param cacheKey   缓存键
+     * @param resultType 结果类型
+     * @param inFlight   正在进行的加载
+     * @param loader     缓存加载器
+     * @return 加载结果
      */
-    private long estimateMemoryUsage(Object obj) {
-        if (obj == null) {
-            return 0;
+    private <T> T awaitLoad(String cacheKey, Class<T> resultType, CompletableFuture<Object> inFlight,
+                            CacheLoader<T> loader) {
+        try {
+            Object value = inFlight.get(config.getLoadTimeout(), TimeUnit.MILLISECONDS);
+            if (value == null || resultType.isInstance(value)) {
+                statistics.recordCoalesced();
+                return resultType.cast(value);
+            }
+            logger.warn("并发加载结果类型不匹配: cacheKey={}, expectedType={}, actualType={}",
+                    cacheKey, resultType.getSimpleName(), value.getClass().getSimpleName());
+        } catch (TimeoutException e) {
+            logger.warn("等待并发加载超时，直接执行查询: cacheKey={}, timeout={}ms", cacheKey, config.getLoadTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.debug("等待并发加载被中断，直接执行查询: cacheKey={}", cacheKey);
+        } catch (ExecutionException e) {
+            // 与首个调用方共享同一失败，避免数据库故障时每个等待方重复查询
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException("并发加载失败: " + cacheKey, cause);
         }
-        // 简单的内存估算
-        if (obj instanceof String) {
-            return ((String) obj).length() * 2; // 每个字符2字节
-        } else if (obj instanceof List) {
-            return ((List<?>) obj).size() * 64; // 每个元素估算64字节
-        } else if (obj instanceof Map) {
-            return ((Map<?, ?>) obj).size() * 128; // 每个条目估算128字节
+        return loader.load();
+    }
+
+    /**
+     * 后台刷新过期条目，同一缓存键同时只有一个刷新或加载
+     *
+     * @param cacheKey 缓存键
+     * @param ttl      生存时间（毫秒）
+     * @param loader   缓存加载器
+     */
+    private <T> void refreshAsync(String cacheKey, long ttl, CacheLoader<T> loader) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        if (inFlightLoads.putIfAbsent(cacheKey, future) != null) {
+            return;
+        }
+        Runnable refresh = () -> {
+            try {
+                load(cacheKey, ttl, loader, future);
+            } catch (RuntimeException e) {
+                logger.warn("后台刷新缓存失败: cacheKey={}", cacheKey, e);
+            }
+        };
+        try {
+            if (cleanupExecutor != null) {
+                cleanupExecutor.execute(refresh);
+            } else {
+                CompletableFuture.runAsync(refresh);
+            }
+        } catch (RejectedExecutionException e) {
+            inFlightLoads.remove(cacheKey, future);
+            future.cancel(false);
+            logger.debug("后台刷新任务被拒绝: cacheKey={}", cacheKey);
+        }
+    }
+
+    /**
+     * 新条目已放入缓存映射后的登记：权重、时间轮、策略元数据和访问顺序，随后转存被淘汰的条目
+     *
+     * @param entry    新条目
+     * @param replaced 被替换的旧条目，可为 null
+     */
+    private void link(CacheEntry entry, CacheEntry replaced) {
+        weightedSize.addAndGet(entry.getWeight());
+        if (replaced != null) {
+            weightedSize.addAndGet(-replaced.getWeight());
+            timerWheel.deschedule(replaced);
+        }
+        timerWheel.schedule(entry);
+        // 记录存储，先于淘汰，保证策略中不残留已淘汰键的元数据
+        strategy.recordStore(entry.getKey(), entry.getStoreTime(), entry.getTtl());
+        // 调整访问顺序并按容量淘汰最久未访问的条目
+        accessOrder.recordWrite(entry, replaced, evictionHandler);
+        drainDemotions();
+    }
+
+    private void recordHit(String cacheKey, boolean fromOffHeap) {
+        if (fromOffHeap) {
+            statistics.recordOffHeapHit();
         } else {
-            return 64; // 默认估算64字节
+            statistics.recordHit();
+        }
+        statistics.recordKeyHit(cacheKey);
+    }
+
+    /**
+     * 从堆外存储层取出条目并放回热点层，保留原始存储时间和表依赖
+     *
+     * @param cacheKey 缓存键
+     * @return 热点层中的条目，堆外不存在或已失效时返回 null
+     */
+    private CacheEntry promote(String cacheKey) {
+        if (offHeapStore == null) {
+            return null;
+        }
+        OffHeapStore.Record record = offHeapStore.get(cacheKey);
+        if (record == null) {
+            return null;
+        }
+        if (record.isInvalid(System.currentTimeMillis())) {
+            offHeapStore.remove(record);
+            return null;
+        }
+        byte[] data = offHeapStore.read(record);
+        if (data == null) {
+            return null;
+        }
+        Object value;
+        try {
+            value = codec.decode(data);
+        } catch (RuntimeException e) {
+            logger.warn("堆外缓存解码失败: cacheKey={}", cacheKey, e);
+            offHeapStore.remove(record);
+            return null;
+        }
+        CacheEntry entry = new CacheEntry(cacheKey, value, record.getStoreTime(), record.getTtl(),
+                weigh(cacheKey, value), record.getDependency(), config.getStaleWhileRevalidate());
+        CacheEntry existing = cache.putIfAbsent(cacheKey, entry);
+        if (existing != null) {
+            // 其他线程已放回或写入了新值
+            return existing;
+        }
+        if (!offHeapStore.remove(record)) {
+            // 解码期间记录被移除（remove、clear）或替换，撤回已放回的旧值
+            cache.remove(cacheKey, entry);
+            return null;
+        }
+        link(entry, null);
+        return entry;
+    }
+
+    /**
+     * 堆外存储层中是否有有效条目（不解码）
+     */
+    private boolean containsOffHeap(String cacheKey) {
+        if (offHeapStore == null) {
+            return false;
+        }
+        OffHeapStore.Record record = offHeapStore.get(cacheKey);
+        if (record == null) {
+            return false;
+        }
+        if (record.isInvalid(System.currentTimeMillis())) {
+            offHeapStore.remove(record);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 把从热点层淘汰的条目转存到堆外存储层
+     */
+    private void drainDemotions() {
+        PendingDemotion victim;
+        while ((victim = pendingDemotions.poll()) != null) {
+            demote(victim.entry, victim.stamp);
+        }
+    }
+
+    private void demote(CacheEntry entry, long stamp) {
+        if (entry.isStale() || System.currentTimeMillis() >= entry.getExpireAt()) {
+            return;
+        }
+        byte[] data;
+        try {
+            data = codec.encode(entry.getValue());
+        } catch (BinaryRowCodec.UnsupportedValueException e) {
+            logger.debug("缓存结果无法编码，不转存到堆外: cacheKey={}, reason={}", entry.getKey(), e.getMessage());
+            return;
+        }
+        if (cache.containsKey(entry.getKey())) {
+            // 编码期间同一缓存键已写入新值
+            return;
+        }
+        List<OffHeapStore.Record> evicted = new ArrayList<>();
+        if (offHeapStore.put(entry.getKey(), data, entry.getStoreTime(), entry.getTtl(), entry.getDependency(), evicted,
+                stamp)) {
+            statistics.recordOffHeapPut();
+        }
+        for (int i = 0; i < evicted.size(); i++) {
+            statistics.recordOffHeapEviction();
+        }
+    }
+
+    /**
+     * 移除指定条目（键已映射到新条目时不移除）
+     *
+     * @param entry 缓存条目
+     */
+    private void removeEntry(CacheEntry entry) {
+        if (cache.remove(entry.getKey(), entry)) {
+            weightedSize.addAndGet(-entry.getWeight());
+            timerWheel.deschedule(entry);
+            accessOrder.recordRemoval(entry);
+            strategy.recordRemoval(entry.getKey());
+        }
+    }
+
+    /**
+     * 计算缓存值的权重，计算失败时按 0 处理
+     *
+     * @param cacheKey 缓存键
+     * @param value    缓存值
+     * @return 权重（字节）
+     */
+    private long weigh(String cacheKey, Object value) {
+        try {
+            return Math.max(0, config.getWeigher().weigh(cacheKey, value));
+        } catch (RuntimeException e) {
+            logger.warn("缓存权重计算失败: cacheKey={}", cacheKey, e);
+            return 0;
         }
     }
 
@@ -275,6 +866,16 @@ public class QueryCacheImpl implements QueryCache {
      * 关闭缓存
      */
     public void shutdown() {
+        if (config.getSnapshotFile() != null) {
+            try {
+                saveSnapshotAsync(Paths.get(config.getSnapshotFile()))
+                        .get(config.getWarmUpTimeout() + 1000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | TimeoutException e) {
+                logger.warn("保存缓存快照失败: file={}", config.getSnapshotFile(), e);
+            }
+        }
         if (cleanupExecutor != null) {
             cleanupExecutor.shutdown();
             try {
@@ -306,29 +907,38 @@ public class QueryCacheImpl implements QueryCache {
     }
 
     /**
-     * 缓存条目类
+     * 可重放的查询：加载器和生存时间
      */
-    private static class CacheEntry {
-        private final Object value;
-        private final long storeTime;
-        private final long ttl;
-
-        public CacheEntry(Object value, long storeTime, long ttl) {
-            this.value = value;
-            this.storeTime = storeTime;
+    private static final class ReplayableQuery {
+        final String key;
+        volatile CacheLoader<?> loader;
+        volatile long ttl;
+        /** 登记或上次核对时的命中次数，只在持有 replayOrder 的锁时访问 */
+        long hits;
+
+        ReplayableQuery(String key, CacheLoader<?> loader, long ttl, long hits) {
+            this.key = key;
+            this.loader = loader;
             this.ttl = ttl;
+            this.hits = hits;
         }
 
-        public Object getValue() {
-            return value;
+        void update(CacheLoader<?> loader, long ttl) {
+            this.loader = loader;
+            this.ttl = ttl;
         }
+    }
 
-        public long getStoreTime() {
-            return storeTime;
-        }
+    /**
+     * 等待转存的条目和淘汰时堆外层的移除戳
+     */
+    private static final class PendingDemotion {
+        final CacheEntry entry;
+        final long stamp;
 
-        public long getTtl() {
-            return ttl;
+        PendingDemotion(CacheEntry entry, long stamp) {
+            this.entry = entry;
+            this.stamp = stamp;
         }
     }
 }
@@ -0,0 +1,305 @@
+package com.kishultan.persistence.query.cache;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 查询缓存键哈希
+ * 把 SQL 和参数按类型写入线程复用的缓冲区，再计算 128 位 MurmurHash3（x64），输出 32 位十六进制字符串
+ * <p>
+ * 每个参数先写类型标记再写值，1 与 "1"、1 与 1L 得到不同的键；
+ * 字符串按 UTF-16 字符直接写入，不做字符集编码；非加密哈希，128 位输出在缓存规模下意外碰撞的概率可以忽略
+ */
+public final class QueryKeyHasher {
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte SHORT = 4;
+    private static final byte BYTE = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte FLOAT = 7;
+    private static final byte BOOLEAN = 8;
+    private static final byte CHARACTER = 9;
+    private static final byte DATE = 10;
+    private static final byte ENUM = 11;
+    private static final byte COLLECTION = 12;
+    private static final byte ARRAY = 13;
+    private static final byte BYTES = 14;
+    private static final byte OTHER = 15;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    /** 超过此大小的缓冲区用完后不保留，避免个别大查询长期占用内存 */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(Buffer::new);
+
+    private QueryKeyHasher() {
+    }
+
+    /**
+     * 计算 SQL 和参数的哈希
+     *
+     * @param sql        SQL 语句
+     * @param parameters 参数，可为 null
+     * @return 32 位十六进制哈希
+     */
+    public static String hash(String sql, List<Object> parameters) {
+        Buffer buffer = BUFFERS.get();
+        buffer.length = 0;
+        try {
+            buffer.writeString(sql);
+            if (parameters != null) {
+                buffer.writeInt(parameters.size());
+                for (Object parameter : parameters) {
+                    buffer.writeValue(parameter);
+                }
+            }
+            return murmur3(buffer.bytes, buffer.length);
+        } finally {
+            if (buffer.bytes.length > MAX_RETAINED_CAPACITY) {
+                BUFFERS.remove();
+            }
+        }
+    }
+
+    /**
+     * 生成查询缓存键：前缀 + ":" + SQL 和参数的哈希
+     *
+     * @param prefix     键前缀，如 querybuilder:user:findList
+     * @param sql        SQL 语句
+     * @param parameters 参数，可为 null
+     * @return 缓存键
+     */
+    public static String cacheKey(String prefix, String sql, List<Object> parameters) {
+        return prefix + ':' + hash(sql, parameters);
+    }
+
+    @SuppressWarnings("fallthrough")
+    private static String murmur3(byte[] data, int length) {
+        long h1 = 0;
+        long h2 = 0;
+        int blocks = length >>> 4;
+        for (int i = 0; i < blocks; i++) {
+            int offset = i << 4;
+            long k1 = getLong(data, offset);
+            long k2 = getLong(data, offset + 8);
+
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        int tail = blocks << 4;
+        long k1 = 0;
+        long k2 = 0;
+        switch (length & 15) {
+            case 15: k2 ^= (long) (data[tail + 14] & 0xff) << 48;
+            case 14: k2 ^= (long) (data[tail + 13] & 0xff) << 40;
+            case 13: k2 ^= (long) (data[tail + 12] & 0xff) << 32;
+            case 12: k2 ^= (long) (data[tail + 11] & 0xff) << 24;
+            case 11: k2 ^= (long) (data[tail + 10] & 0xff) << 16;
+            case 10: k2 ^= (long) (data[tail + 9] & 0xff) << 8;
+            case 9:
+                k2 ^= data[tail + 8] & 0xff;
+                k2 *= C2;
+                k2 = Long.rotateLeft(k2, 33);
+                k2 *= C1;
+                h2 ^= k2;
+            case 8: k1 ^= (long) (data[tail + 7] & 0xff) << 56;
+            case 7: k1 ^= (long) (data[tail + 6] & 0xff) << 48;
+            case 6: k1 ^= (long) (data[tail + 5] & 0xff) << 40;
+            case 5: k1 ^= (long) (data[tail + 4] & 0xff) << 32;
+            case 4: k1 ^= (long) (data[tail + 3] & 0xff) << 24;
+            case 3: k1 ^= (long) (data[tail + 2] & 0xff) << 16;
+            case 2: k1 ^= (long) (data[tail + 1] & 0xff) << 8;
+            case 1:
+                k1 ^= data[tail] & 0xff;
+                k1 *= C1;
+                k1 = Long.rotateLeft(k1, 31);
+                k1 *= C2;
+                h1 ^= k1;
+            default:
+                break;
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+
+        char[] hex = new char[32];
+        toHex(h1, hex, 0);
+        toHex(h2, hex, 16);
+        return new String(hex);
+    }
+
+    private static long getLong(byte[] data, int offset) {
+        return (data[offset] & 0xffL)
+                | (data[offset + 1] & 0xffL) << 8
+                | (data[offset + 2] & 0xffL) << 16
+                | (data[offset + 3] & 0xffL) << 24
+                | (data[offset + 4] & 0xffL) << 32
+                | (data[offset + 5] & 0xffL) << 40
+                | (data[offset + 6] & 0xffL) << 48
+                | (data[offset + 7] & 0xffL) << 56;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static void toHex(long value, char[] target, int offset) {
+        for (int i = 15; i >= 0; i--) {
+            target[offset + i] = HEX[(int) (value & 0xf)];
+            value >>>= 4;
+        }
+    }
+
+    /**
+     * 线程复用的写入缓冲区
+     */
+    private static final class Buffer {
+        byte[] bytes = new byte[INITIAL_CAPACITY];
+        int length;
+
+        void writeValue(Object value) {
+            if (value == null) {
+                writeByte(NULL);
+            } else if (value instanceof String) {
+                writeByte(STRING);
+                writeString((String) value);
+            } else if (value instanceof Integer) {
+                writeByte(INTEGER);
+                writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                writeByte(LONG);
+                writeLong((Long) value);
+            } else if (value instanceof Short) {
+                writeByte(SHORT);
+                writeInt((Short) value);
+            } else if (value instanceof Byte) {
+                writeByte(BYTE);
+                writeByte((Byte) value);
+            } else if (value instanceof Double) {
+                writeByte(DOUBLE);
+                writeLong(Double.doubleToLongBits((Double) value));
+            } else if (value instanceof Float) {
+                writeByte(FLOAT);
+                writeInt(Float.floatToIntBits((Float) value));
+            } else if (value instanceof Boolean) {
+                writeByte(BOOLEAN);
+                writeByte((Boolean) value ? (byte) 1 : (byte) 0);
+            } else if (value instanceof Character) {
+                writeByte(CHARACTER);
+                writeChar((Character) value);
+            } else if (value instanceof java.util.Date) {
+                writeByte(DATE);
+                writeString(value.getClass().getName());
+                writeLong(((java.util.Date) value).getTime());
+                if (value instanceof java.sql.Timestamp) {
+                    writeInt(((java.sql.Timestamp) value).getNanos());
+                }
+            } else if (value instanceof Enum) {
+                writeByte(ENUM);
+                writeString(((Enum<?>) value).getDeclaringClass().getName());
+                writeString(((Enum<?>) value).name());
+            } else if (value instanceof byte[]) {
+                byte[] data = (byte[]) value;
+                writeByte(BYTES);
+                writeInt(data.length);
+                ensureCapacity(data.length);
+                System.arraycopy(data, 0, bytes, length, data.length);
+                length += data.length;
+            } else if (value instanceof Collection) {
+                Collection<?> collection = (Collection<?>) value;
+                writeByte(COLLECTION);
+                writeInt(collection.size());
+                for (Object element : collection) {
+                    writeValue(element);
+                }
+            } else if (value instanceof Object[]) {
+                Object[] array = (Object[]) value;
+                writeByte(ARRAY);
+                writeInt(array.length);
+                for (Object element : array) {
+                    writeValue(element);
+                }
+            } else {
+                // BigDecimal、LocalDateTime 等：类名 + 字符串形式
+                writeByte(OTHER);
+                writeString(value.getClass().getName());
+                writeString(String.valueOf(value));
+            }
+        }
+
+        void writeString(String value) {
+            int chars = value.length();
+            writeInt(chars);
+            ensureCapacity(chars * 2);
+            for (int i = 0; i < chars; i++) {
+                char c = value.charAt(i);
+                bytes[length++] = (byte) c;
+                bytes[length++] = (byte) (c >>> 8);
+            }
+        }
+
+        void writeByte(byte value) {
+            ensureCapacity(1);
+            bytes[length++] = value;
+        }
+
+        void writeChar(char value) {
+            ensureCapacity(2);
+            bytes[length++] = (byte) value;
+            bytes[length++] = (byte) (value >>> 8);
+        }
+
+        void writeInt(int value) {
+            ensureCapacity(4);
+            for (int i = 0; i < 4; i++) {
+                bytes[length++] = (byte) (value >>> (i << 3));
+            }
+        }
+
+        void writeLong(long value) {
+            ensureCapacity(8);
+            for (int i = 0; i < 8; i++) {
+                bytes[length++] = (byte) (value >>> (i << 3));
+            }
+        }
+
+        private void ensureCapacity(int additional) {
+            int required = length + additional;
+            if (required > bytes.length) {
+                byte[] grown = new byte[Math.max(required, bytes.length * 2)];
+                System.arraycopy(bytes, 0, grown, 0, length);
+                bytes = grown;
+            }
+        }
+    }
+}
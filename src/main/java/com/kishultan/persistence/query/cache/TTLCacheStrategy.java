@@ -3,16 +3,14 @@ package com.kishultan.persistence.query.cache;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * TTL缓存策略实现
  * 基于时间过期的缓存策略
+ * <p>
+ * 存储时间和 TTL 保存在缓存条目中，过期回收由 QueryCacheImpl 的时间轮负责，策略本身不再按键保存元数据
  */
 public class TTLCacheStrategy implements CacheStrategy {
-    private final Map<String, Long> storeTimes = new ConcurrentHashMap<>();
-    private final Map<String, Long> ttls = new ConcurrentHashMap<>();
     private final StrategyStatistics statistics = new StrategyStatistics();
 
     @Override
@@ -25,39 +23,21 @@ public class TTLCacheStrategy implements CacheStrategy {
         return currentSize < maxSize;
     }
 
+    /**
+     * 策略不保存过期信息，只按调用方给出的顺序返回前 count 个键
+     *
+     * @deprecated 过期回收由 QueryCacheImpl 的时间轮负责，容量淘汰由其访问顺序链表负责，此方法不再反映 TTL
+     */
+    @Deprecated
     @Override
     public List<String> getEvictionCandidates(List<String> cacheKeys, int count) {
         if (cacheKeys == null || cacheKeys.isEmpty() || count <= 0) {
             return Collections.emptyList();
         }
-        long currentTime = System.currentTimeMillis();
-        List<String> expiredKeys = new ArrayList<>();
-        // 找出所有过期的条目
-        for (String cacheKey : cacheKeys) {
-            if (isExpired(cacheKey, storeTimes.getOrDefault(cacheKey, 0L),
-                    ttls.getOrDefault(cacheKey, 0L))) {
-                expiredKeys.add(cacheKey);
-            }
-        }
-        // 如果过期条目不够，按TTL剩余时间排序
-        if (expiredKeys.size() < count) {
-            List<String> remainingKeys = new ArrayList<>(cacheKeys);
-            remainingKeys.removeAll(expiredKeys);
-            // 按TTL剩余时间排序，选择剩余时间最短的
-            remainingKeys.sort((key1, key2) -> {
-                long ttl1 = ttls.getOrDefault(key1, Long.MAX_VALUE);
-                long ttl2 = ttls.getOrDefault(key2, Long.MAX_VALUE);
-                long remaining1 = Math.max(0, ttl1 - (currentTime - storeTimes.getOrDefault(key1, 0L)));
-                long remaining2 = Math.max(0, ttl2 - (currentTime - storeTimes.getOrDefault(key2, 0L)));
-                return Long.compare(remaining1, remaining2);
-            });
-            int needMore = count - expiredKeys.size();
-            for (int i = 0; i < Math.min(needMore, remainingKeys.size()); i++) {
-                expiredKeys.add(remainingKeys.get(i));
-            }
-        }
-        statistics.recordEviction(currentTime);
-        return expiredKeys;
+        // 策略不保存过期信息，按调用方给出的顺序选择
+        int evictCount = Math.min(count, cacheKeys.size());
+        statistics.recordEviction(System.currentTimeMillis());
+        return new ArrayList<>(cacheKeys.subList(0, evictCount));
     }
 
     @Override
@@ -70,8 +50,6 @@ public class TTLCacheStrategy implements CacheStrategy {
     @Override
     public void recordStore(String cacheKey, long storeTime, long ttl) {
         if (cacheKey != null) {
-            storeTimes.put(cacheKey, storeTime);
-            ttls.put(cacheKey, ttl);
             statistics.recordStore(storeTime);
         }
     }
@@ -89,23 +67,20 @@ public class TTLCacheStrategy implements CacheStrategy {
         return expired;
     }
 
+    /**
+     * 始终返回 0
+     *
+     * @deprecated 剩余 TTL 保存在缓存条目中，策略无法按键计算权重
+     */
+    @Deprecated
     @Override
     public double getWeight(String cacheKey) {
-        Long storeTime = storeTimes.get(cacheKey);
-        Long ttl = ttls.get(cacheKey);
-        if (storeTime == null || ttl == null || ttl <= 0) {
-            return 0.0;
-        }
-        long currentTime = System.currentTimeMillis();
-        long remainingTime = Math.max(0, ttl - (currentTime - storeTime));
-        // 权重基于剩余TTL时间，剩余时间越长权重越高
-        return (double) remainingTime / ttl;
+        // 剩余 TTL 保存在缓存条目中，策略无法按键计算
+        return 0.0;
     }
 
     @Override
     public void reset() {
-        storeTimes.clear();
-        ttls.clear();
         statistics.reset();
     }
 
@@ -0,0 +1,107 @@
+package com.kishultan.persistence.query.cache;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 缓存结果的表依赖
+ * 记录查询读取的表及读取前各表的版本，任一表版本变化后结果失效
+ * <p>
+ * 必须在执行查询之前捕获：查询执行期间发生的写入会使结果立即失效，而不会被漏掉
+ */
+public final class TableDependency {
+    /**
+     * 表示查询读取了无法确定的表（原始 SQL 子查询等），任一表被修改后结果都失效
+     */
+    public static final String ANY_TABLE = "*";
+
+    private final String[] tables;
+    private final long[] versions;
+    private final long globalVersion;
+    // 依赖 ANY_TABLE 时为捕获时的写入版本，否则为 -1
+    private final long writeVersion;
+    // 只依赖外部版本（绕过 EntityManager 的写操作）
+    private final boolean external;
+
+    private TableDependency(String[] tables, long[] versions, long globalVersion, long writeVersion, boolean external) {
+        this.tables = tables;
+        this.versions = versions;
+        this.globalVersion = globalVersion;
+        this.writeVersion = writeVersion;
+        this.external = external;
+    }
+
+    /**
+     * 捕获表的当前版本
+     *
+     * @param tables 查询读取的表，可以包含 {@link #ANY_TABLE}
+     * @return 表依赖
+     */
+    public static TableDependency capture(Collection<String> tables) {
+        return capture(tables, false);
+    }
+
+    /**
+     * 捕获表的当前外部版本，只有绕过 EntityManager 的写操作和全局失效使结果失效
+     * 用于实体缓存中按主键缓存的条目，EntityManager 的写操作会直接更新这些条目
+     *
+     * @param tables 实体表
+     * @return 表依赖
+     */
+    public static TableDependency captureExternal(Collection<String> tables) {
+        return capture(tables, true);
+    }
+
+    private static TableDependency capture(Collection<String> tables, boolean external) {
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String table : tables) {
+            if (table != null) {
+                normalized.add(TableVersions.normalize(table));
+            }
+        }
+        String[] names = normalized.toArray(new String[0]);
+        long[] current = new long[names.length];
+        for (int i = 0; i < names.length; i++) {
+            current[i] = versionOf(names[i], external);
+        }
+        long write = normalized.contains(ANY_TABLE) ? TableVersions.getWriteVersion() : -1L;
+        return new TableDependency(names, current, TableVersions.getGlobalVersion(), write, external);
+    }
+
+    /**
+     * 依赖的表在捕获之后是否被修改过
+     */
+    public boolean isStale() {
+        if (globalVersion != TableVersions.getGlobalVersion()) {
+            return true;
+        }
+        if (writeVersion >= 0 && writeVersion != TableVersions.getWriteVersion()) {
+            return true;
+        }
+        for (int i = 0; i < tables.length; i++) {
+            if (versions[i] != versionOf(tables[i], external)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long versionOf(String table, boolean external) {
+        return external ? TableVersions.externalVersionOf(table) : TableVersions.versionOf(table);
+    }
+
+    /**
+     * 获取依赖的表（已规范化）
+     */
+    public Set<String> getTables() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(tables)));
+    }
+
+    @Override
+    public String toString() {
+        return "TableDependency{tables=" + Arrays.toString(tables) + ", versions=" + Arrays.toString(versions) + "}";
+    }
+}
@@ -0,0 +1,247 @@
+package com.kishultan.persistence.query.cache;
+
+import com.kishultan.persistence.EntityTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 表版本注册表
+ * 每张表维护一个递增的版本号，写操作提交后递增对应表的版本，
+ * 缓存的查询结果记录读取时各表的版本（见 {@link TableDependency}），版本变化后视为失效
+ * <p>
+ * 无法确定写入哪张表的语句（DDL、存储过程、多表更新等）递增全局版本，使所有带表依赖的缓存结果失效
+ * <p>
+ * 每张表另有一个外部版本，只由绕过 EntityManager 的写操作递增；EntityManager 的写操作自行维护实体缓存，
+ * 通过 {@link #recordManagedWrite} 只递增表版本，实体缓存中按主键缓存的条目只依赖外部版本
+ */
+public final class TableVersions {
+    private static final Logger logger = LoggerFactory.getLogger(TableVersions.class);
+
+    /** 识别 DML 语句的目标表：INSERT INTO / UPDATE / DELETE FROM / MERGE INTO / REPLACE INTO / TRUNCATE TABLE */
+    private static final Pattern MODIFIED_TABLE = Pattern.compile(
+            "^\\s*(?:INSERT\\s+(?:IGNORE\\s+)?INTO|REPLACE\\s+INTO|MERGE\\s+INTO|UPDATE|DELETE\\s+FROM|TRUNCATE\\s+(?:TABLE\\s+)?)\\s+([\\w.`\"\\[\\]]+)",
+            Pattern.CASE_INSENSITIVE);
+    /** UPDATE 的目标表列表到 SET 为止，其中出现逗号或 JOIN 时是多表更新（MySQL） */
+    private static final Pattern UPDATE_TARGETS = Pattern.compile(
+            "^\\s*UPDATE\\s+([^;]*?)\\bSET\\b", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern MULTI_TABLE = Pattern.compile(",|\\bJOIN\\b", Pattern.CASE_INSENSITIVE);
+    /** 查询语句：SELECT / WITH ... SELECT / VALUES，可以带左括号 */
+    private static final Pattern QUERY = Pattern.compile("^[\\s(]*(?:SELECT|WITH|VALUES)\\b", Pattern.CASE_INSENSITIVE);
+    /** 查询中可能写入数据的部分：CTE 中的 DML、SELECT ... INTO；SELECT ... FOR UPDATE 不算 */
+    private static final Pattern QUERY_WRITE = Pattern.compile(
+            "\\b(?:INSERT|DELETE|MERGE|INTO)\\b|(?<!FOR\\s)\\bUPDATE\\b", Pattern.CASE_INSENSITIVE);
+
+    private static final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicLong> externalVersions = new ConcurrentHashMap<>();
+    private static final AtomicLong globalVersion = new AtomicLong();
+    // 任一表被修改时递增，供读取了未知表的查询使用（见 TableDependency#ANY_TABLE）
+    private static final AtomicLong writeVersion = new AtomicLong();
+
+    private TableVersions() {
+    }
+
+    /**
+     * 获取表的当前版本
+     *
+     * @param table 表名
+     * @return 版本号，从未修改过的表为 0
+     */
+    public static long getVersion(String table) {
+        return versionOf(normalize(table));
+    }
+
+    /**
+     * 获取已规范化表名的当前版本
+     */
+    static long versionOf(String normalizedTable) {
+        AtomicLong version = versions.get(normalizedTable);
+        return version != null ? version.get() : 0L;
+    }
+
+    /**
+     * 获取已规范化表名的外部版本
+     */
+    static long externalVersionOf(String normalizedTable) {
+        AtomicLong version = externalVersions.get(normalizedTable);
+        return version != null ? version.get() : 0L;
+    }
+
+    /**
+     * 获取全局版本
+     */
+    public static long getGlobalVersion() {
+        return globalVersion.get();
+    }
+
+    /**
+     * 获取任一表的写入版本
+     */
+    static long getWriteVersion() {
+        return writeVersion.get();
+    }
+
+    /**
+     * 递增表版本，使读取过这些表的缓存结果失效
+     *
+     * @param tables 表名
+     */
+    public static void invalidate(Collection<String> tables) {
+        invalidate(tables, true);
+    }
+
+    /**
+     * 递增表版本，不递增外部版本：写操作由 EntityManager 执行，实体缓存已同步写入或移除对应条目
+     *
+     * @param tables 表名
+     */
+    public static void invalidateManaged(Collection<String> tables) {
+        invalidate(tables, false);
+    }
+
+    private static void invalidate(Collection<String> tables, boolean external) {
+        if (tables == null) {
+            return;
+        }
+        for (String table : tables) {
+            if (table != null) {
+                String name = normalize(table);
+                if (external) {
+                    externalVersions.computeIfAbsent(name, t -> new AtomicLong()).incrementAndGet();
+                }
+                versions.computeIfAbsent(name, t -> new AtomicLong()).incrementAndGet();
+            }
+        }
+        writeVersion.incrementAndGet();
+        if (logger.isDebugEnabled()) {
+            logger.debug("表版本已递增: {}, 外部写入={}", tables, external);
+        }
+    }
+
+    /**
+     * 递增全局版本，使所有带表依赖的缓存结果失效
+     */
+    public static void invalidateAll() {
+        globalVersion.incrementAndGet();
+        logger.debug("全局表版本已递增");
+    }
+
+    /**
+     * 记录写操作：在活动事务中时推迟到事务提交，否则立即递增表版本
+     *
+     * @param transaction 当前事务，可为 null
+     * @param tables      写入的表，null 表示无法确定，空集合表示没有写入
+     */
+    public static void recordWrite(EntityTransaction transaction, Collection<String> tables) {
+        if (tables != null && tables.isEmpty()) {
+            return;
+        }
+        if (transaction != null && transaction.isActive()) {
+            transaction.recordModifiedTables(tables);
+        } else if (tables == null) {
+            invalidateAll();
+        } else {
+            invalidate(tables);
+        }
+    }
+
+    /**
+     * 记录 EntityManager 的写操作：只递增表版本，在活动事务中时推迟到事务提交
+     *
+     * @param transaction 当前事务，可为 null
+     * @param tables      写入的表
+     */
+    public static void recordManagedWrite(EntityTransaction transaction, Collection<String> tables) {
+        if (transaction != null && transaction.isActive()) {
+            transaction.recordManagedTables(tables);
+        } else {
+            invalidateManaged(tables);
+        }
+    }
+
+    /**
+     * 从 SQL 语句中识别写入的表
+     *
+     * @param sql SQL 语句
+     * @return 写入的表；只读的查询语句返回空集合；不是可识别的 DML 语句或写入多张表时返回 null
+     */
+    public static Set<String> extractModifiedTables(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        Matcher matcher = MODIFIED_TABLE.matcher(sql);
+        if (!matcher.find()) {
+            return isReadOnly(sql) ? Collections.<String>emptySet() : null;
+        }
+        Matcher targets = UPDATE_TARGETS.matcher(sql);
+        if (targets.find() && MULTI_TABLE.matcher(targets.group(1)).find()) {
+            // UPDATE t1, t2 SET ... 或 UPDATE t1 JOIN t2 ... SET t2.x = ...，无法确定只写了第一张表
+            return null;
+        }
+        return Collections.singleton(matcher.group(1));
+    }
+
+    /**
+     * 从多条 SQL 语句中识别写入的表
+     *
+     * @param sqlList SQL 语句
+     * @return 写入的表，全部是只读查询时为空集合；任一语句不是可识别的 DML 语句时返回 null
+     */
+    public static Set<String> extractModifiedTables(Collection<String> sqlList) {
+        Set<String> tables = new LinkedHashSet<>();
+        for (String sql : sqlList) {
+            Set<String> modified = extractModifiedTables(sql);
+            if (modified == null) {
+                return null;
+            }
+            tables.addAll(modified);
+        }
+        return tables;
+    }
+
+    /**
+     * 是否是不写入数据的查询语句
+     *
+     * @param sql SQL 语句
+     * @return SELECT、WITH 或 VALUES 开头且不含写入子句时返回 true
+     */
+    public static boolean isReadOnly(String sql) {
+        return sql != null && QUERY.matcher(sql).find() && !QUERY_WRITE.matcher(sql).find();
+    }
+
+    /**
+     * 规范化表名：去掉引号和 schema 前缀，转为小写
+     */
+    static String normalize(String table) {
+        StringBuilder name = new StringBuilder(table.length());
+        for (int i = 0; i < table.length(); i++) {
+            char c = table.charAt(i);
+            if (c == '.') {
+                name.setLength(0);
+            } else if (c != '`' && c != '"' && c != '[' && c != ']') {
+                name.append(c);
+            }
+        }
+        return name.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 清空所有表版本（测试使用）
+     */
+    public static void reset() {
+        versions.clear();
+        externalVersions.clear();
+        globalVersion.set(0);
+        writeVersion.set(0);
+    }
+}
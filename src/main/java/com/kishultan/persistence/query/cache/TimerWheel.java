@@ -0,0 +1,185 @@
+package com.kishultan.persistence.query.cache;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分层时间轮
+ * 按过期时间把条目挂到不同粒度的桶中，推进时间时只访问已到期的桶，
+ * 回收过期条目的开销与过期条目数成正比，不需要扫描整个缓存
+ * <p>
+ * 共 4 层、每层 64 个桶，桶粒度依次约为 1 秒、1 分钟、1 小时、3 天；
+ * 高层桶到期时，其中尚未过期的条目重新调度到更细的层；
+ * 条目按回收时间点调度，启用过期后提供旧值时，条目在窗口结束后才被回收
+ */
+final class TimerWheel {
+    private static final int BUCKETS = 64;
+    private static final int BUCKET_MASK = BUCKETS - 1;
+    /** 每层桶粒度的位移（毫秒）：2^10、2^16、2^22、2^28 */
+    private static final int[] SHIFTS = {10, 16, 22, 28};
+    /** 每层覆盖的时间跨度（毫秒） */
+    private static final long[] SPANS = {1L << 16, 1L << 22, 1L << 28, 1L << 34};
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final CacheEntry[][] wheel = new CacheEntry[SHIFTS.length][BUCKETS];
+    /** 时间轮当前时间（毫秒） */
+    private long currentTime;
+
+    TimerWheel(long now) {
+        this.currentTime = now;
+        for (CacheEntry[] level : wheel) {
+            for (int i = 0; i < BUCKETS; i++) {
+                CacheEntry sentinel = new CacheEntry(null, null, 0, 0);
+                sentinel.timerPrev = sentinel;
+                sentinel.timerNext = sentinel;
+                level[i] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * 调度条目，永不过期的条目不进入时间轮
+     *
+     * @param entry 缓存条目
+     */
+    void schedule(CacheEntry entry) {
+        if (!entry.isExpirable()) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (!entry.timerRetired) {
+                link(findBucket(entry.getReclaimAt()), entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取消调度
+     *
+     * @param entry 缓存条目
+     */
+    void deschedule(CacheEntry entry) {
+        if (!entry.isExpirable()) {
+            return;
+        }
+        lock.lock();
+        try {
+            entry.timerRetired = true;
+            unlink(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 推进时间轮，把已过期的条目移出时间轮并加入 expired
+     * 其他线程正在推进时直接返回
+     *
+     * @param now     当前时间（毫秒）
+     * @param expired 过期条目收集列表
+     * @return 是否执行了推进
+     */
+    boolean advance(long now, List<CacheEntry> expired) {
+        if (!lock.tryLock()) {
+            return false;
+        }
+        try {
+            long previousTime = currentTime;
+            if (now <= previousTime) {
+                return true;
+            }
+            currentTime = now;
+            for (int level = 0; level < SHIFTS.length; level++) {
+                long previousTicks = previousTime >>> SHIFTS[level];
+                long currentTicks = now >>> SHIFTS[level];
+                if (currentTicks == previousTicks) {
+                    break;
+                }
+                expireBuckets(level, previousTicks, currentTicks - previousTicks, now, expired);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 清空时间轮
+     */
+    void clear() {
+        lock.lock();
+        try {
+            for (CacheEntry[] level : wheel) {
+                for (CacheEntry sentinel : level) {
+                    CacheEntry current = sentinel.timerNext;
+                    while (current != sentinel) {
+                        CacheEntry next = current.timerNext;
+                        current.timerRetired = true;
+                        current.timerPrev = null;
+                        current.timerNext = null;
+                        current = next;
+                    }
+                    sentinel.timerPrev = sentinel;
+                    sentinel.timerNext = sentinel;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ==================== 桶操作（需持有锁） ====================
+
+    private void expireBuckets(int level, long previousTicks, long delta, long now, List<CacheEntry> expired) {
+        // 包含上一次所在的桶：其中可能有推进之后才调度进来的条目
+        int steps = (int) Math.min(delta + 1, BUCKETS);
+        int start = (int) (previousTicks & BUCKET_MASK);
+        for (int i = start; i < start + steps; i++) {
+            CacheEntry sentinel = wheel[level][i & BUCKET_MASK];
+            CacheEntry current = sentinel.timerNext;
+            // 先摘下整个桶，未过期的条目重新调度时不会被本轮再次访问
+            sentinel.timerPrev = sentinel;
+            sentinel.timerNext = sentinel;
+            while (current != sentinel) {
+                CacheEntry next = current.timerNext;
+                current.timerPrev = null;
+                current.timerNext = null;
+                if (current.getReclaimAt() <= now) {
+                    current.timerRetired = true;
+                    expired.add(current);
+                } else {
+                    link(findBucket(current.getReclaimAt()), current);
+                }
+                current = next;
+            }
+        }
+    }
+
+    private CacheEntry findBucket(long expireAt) {
+        long duration = expireAt - currentTime;
+        int level = 0;
+        while (level < SHIFTS.length - 1 && duration >= SPANS[level]) {
+            level++;
+        }
+        return wheel[level][(int) ((expireAt >>> SHIFTS[level]) & BUCKET_MASK)];
+    }
+
+    private void link(CacheEntry sentinel, CacheEntry entry) {
+        entry.timerPrev = sentinel.timerPrev;
+        entry.timerNext = sentinel;
+        sentinel.timerPrev.timerNext = entry;
+        sentinel.timerPrev = entry;
+    }
+
+    private void unlink(CacheEntry entry) {
+        if (entry.timerNext != null) {
+            entry.timerPrev.timerNext = entry.timerNext;
+            entry.timerNext.timerPrev = entry.timerPrev;
+            entry.timerPrev = null;
+            entry.timerNext = null;
+        }
+    }
+}
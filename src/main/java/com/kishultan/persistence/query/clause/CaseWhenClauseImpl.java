@@ -15,7 +15,7 @@ import java.util.List;
  */
 public class CaseWhenClauseImpl<T> extends SelectClauseImpl<T> implements CaseWhenClause<T>, ClauseBuilder<T> {
     // CASE表达式字段
-    private final List<String> caseExpressions = new ArrayList<>();
+    private final List<String> caseExpressions = DirtyTrackingList.of(criterion);
     // 当前构建状态
     private StringBuilder currentCaseExpression;
     private String currentAlias;
@@ -208,6 +208,20 @@ public class CaseWhenClauseImpl<T> extends SelectClauseImpl<T> implements CaseWh
         return new ClauseResult(sql.toString(), parameters);
     }
 
+    @Override
+    public boolean appendShape(List<Object> shape) {
+        completeCurrentCase();
+        shape.add("CASE");
+        shape.add(caseExpressions.size());
+        shape.addAll(caseExpressions);
+        return true;
+    }
+
+    @Override
+    public void collectParameters(List<Object> parameters) {
+        // CASE 表达式的值直接内联在 SQL 中，没有参数
+    }
+
     @Override
     public String getClauseSql() {
         return buildClause().getSql();
@@ -0,0 +1,201 @@
+package com.kishultan.persistence.query.clause;
+
+import com.kishultan.persistence.EntityManager;
+import com.kishultan.persistence.EntityTransaction;
+import com.kishultan.persistence.dialect.DatabaseDialect;
+import com.kishultan.persistence.query.RowMapper;
+import com.kishultan.persistence.query.context.QueryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * 游标流式查询分割器
+ * 只执行一次查询，通过 JDBC fetchSize 由驱动分批拉取结果，逐行映射
+ * 避免 LIMIT/OFFSET 分批带来的重复扫描和 O(n²) 读放大
+ * <p>
+ * 注意：
+ * 1. 连接在整个流的生命周期内保持打开，必须关闭流（try-with-resources）或将其消费完
+ * 2. 逐行映射，不会对 JOIN 产生的多行结果做 mergeList 合并
+ * 3. MySQL 方言以 fetchSize = Integer.MIN_VALUE 逐行流式读取，结果集读完或关闭前该连接不能执行其他语句；
+ *    在事务中使用事务连接时，流关闭前同一事务内的其他查询和更新都会失败，应先消费完或关闭流
+ *
+ * @param <T> 实体类型
+ */
+public class CursorStreamingQuerySpliterator<T> implements Spliterator<T>, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(CursorStreamingQuerySpliterator.class);
+    private final StandardCriterion<T> criterion;
+    private final RowMapper<T> rowMapper;
+    private final int fetchSize;
+    private Connection connection;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private boolean ownsConnection = false;
+    private boolean restoreAutoCommit = false;
+    private boolean initialized = false;
+    private boolean closed = false;
+
+    /**
+     * 构造函数
+     *
+     * @param criterion 查询构建器
+     * @param rowMapper 结果集映射器
+     * @param fetchSize 每次网络往返拉取的行数
+     */
+    public CursorStreamingQuerySpliterator(StandardCriterion<T> criterion,
+                                           RowMapper<T> rowMapper,
+                                           int fetchSize) {
+        this.criterion = criterion;
+        this.rowMapper = rowMapper;
+        this.fetchSize = fetchSize;
+        // 延迟打开游标，避免在构造函数中执行数据库操作
+    }
+
+    /**
+     * 打开游标
+     */
+    private void openCursor() {
+        if (initialized) {
+            return;
+        }
+        initialized = true;
+        try {
+            QueryBuilder queryResult = criterion.buildQuery();
+            DatabaseDialect dialect = criterion.getDialect();
+            connection = acquireConnection();
+            if (ownsConnection && dialect != null && dialect.requiresTransactionForCursor()
+                    && connection.getAutoCommit()) {
+                connection.setAutoCommit(false);
+                restoreAutoCommit = true;
+            }
+            statement = connection.prepareStatement(queryResult.getSql(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(dialect != null ? dialect.getStreamingFetchSize(fetchSize) : fetchSize);
+            List<Object> params = queryResult.getParameters();
+            if (params != null) {
+                for (int i = 0; i < params.size(); i++) {
+                    statement.setObject(i + 1, params.get(i));
+                }
+            }
+            resultSet = statement.executeQuery();
+        } catch (SQLException e) {
+            close();
+            throw new RuntimeException("Failed to open streaming cursor", e);
+        }
+    }
+
+    /**
+     * 获取数据库连接
+     * 优先使用当前事务连接（不负责关闭），否则从数据源获取新连接
+     */
+    private Connection acquireConnection() throws SQLException {
+        EntityManager entityManager = criterion.getEntityManager();
+        if (entityManager != null) {
+            EntityTransaction transaction = entityManager.getCurrentTransaction();
+            if (transaction != null && transaction.isActive() && transaction.getConnection() != null) {
+                return transaction.getConnection();
+            }
+        }
+        DataSource dataSource = criterion.getDataSource();
+        if (dataSource == null) {
+            throw new SQLException("数据源为 null，无法获取连接");
+        }
+        Connection conn = dataSource.getConnection();
+        if (conn == null) {
+            throw new SQLException("从数据源获取的连接为 null");
+        }
+        ownsConnection = true;
+        return conn;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (closed) {
+            return false;
+        }
+        if (!initialized) {
+            openCursor();
+        }
+        T row;
+        try {
+            if (!resultSet.next()) {
+                close();
+                return false;
+            }
+            row = rowMapper.mapRow(resultSet, criterion.getEntityClass());
+        } catch (Exception e) {
+            close();
+            throw new RuntimeException("Failed to read streaming cursor", e);
+        }
+        action.accept(row);
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        // 单游标顺序读取，不支持分割
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+    }
+
+    /**
+     * 关闭资源（结果集、语句，以及自行获取的连接）
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (resultSet != null) {
+            try {
+                resultSet.close();
+            } catch (SQLException e) {
+                logger.warn("关闭游标结果集失败", e);
+            }
+        }
+        if (statement != null) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                logger.warn("关闭游标语句失败", e);
+            }
+        }
+        if (connection != null && ownsConnection) {
+            try {
+                if (restoreAutoCommit) {
+                    // 只读游标，结束隐式事务后恢复自动提交
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                logger.warn("恢复连接自动提交失败", e);
+            }
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.warn("关闭游标连接失败", e);
+            }
+        }
+        resultSet = null;
+        statement = null;
+        connection = null;
+    }
+}
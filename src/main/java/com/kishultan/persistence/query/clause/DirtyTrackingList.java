@@ -0,0 +1,114 @@
+package com.kishultan.persistence.query.clause;
+
+import com.kishultan.persistence.query.Criterion;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * 子句内部列表，修改时通知所属查询构建器已构建的查询失效
+ * 子句对象就地追加条件/排序/列，查询构建器据此判断是否需要重新生成 SQL
+ *
+ * @param <E> 元素类型
+ */
+class DirtyTrackingList<E> extends ArrayList<E> {
+    private static final long serialVersionUID = 1L;
+
+    private final StandardCriterion<?> owner;
+
+    private DirtyTrackingList(StandardCriterion<?> owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * 创建子句内部列表，非 StandardCriterion 时返回普通列表
+     */
+    static <E> List<E> of(Criterion<?> criterion) {
+        if (criterion instanceof StandardCriterion) {
+            return new DirtyTrackingList<>((StandardCriterion<?>) criterion);
+        }
+        return new ArrayList<>();
+    }
+
+    @Override
+    public boolean add(E e) {
+        owner.markDirty();
+        return super.add(e);
+    }
+
+    @Override
+    public void add(int index, E element) {
+        owner.markDirty();
+        super.add(index, element);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        owner.markDirty();
+        return super.addAll(c);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends E> c) {
+        owner.markDirty();
+        return super.addAll(index, c);
+    }
+
+    @Override
+    public E set(int index, E element) {
+        owner.markDirty();
+        return super.set(index, element);
+    }
+
+    @Override
+    public E remove(int index) {
+        owner.markDirty();
+        return super.remove(index);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        owner.markDirty();
+        return super.remove(o);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        owner.markDirty();
+        return super.removeAll(c);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        owner.markDirty();
+        return super.retainAll(c);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        owner.markDirty();
+        return super.removeIf(filter);
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<E> operator) {
+        owner.markDirty();
+        super.replaceAll(operator);
+    }
+
+    @Override
+    public void sort(Comparator<? super E> c) {
+        owner.markDirty();
+        super.sort(c);
+    }
+
+    @Override
+    public void clear() {
+        owner.markDirty();
+        super.clear();
+    }
+}
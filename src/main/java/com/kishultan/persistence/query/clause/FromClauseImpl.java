@@ -4,12 +4,15 @@ import com.kishultan.persistence.Columnable;
 import com.kishultan.persistence.ColumnabledLambda;
 import com.kishultan.persistence.query.*;
 import com.kishultan.persistence.query.context.ClauseResult;
+import com.kishultan.persistence.query.cache.TableDependency;
 import com.kishultan.persistence.query.context.ClauseData;
 import com.kishultan.persistence.query.utils.EntityUtils;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Set;
 import java.util.function.Consumer;
 
 /**
@@ -19,6 +22,7 @@ public class FromClauseImpl<T> extends AbstractClause<T> implements FromClause<T
     private final String tableName;
     private final String tableAlias;
     private final Class<?> entityClass; // 添加实体类字段
+    private boolean subqueryTracked;
 
     public FromClauseImpl(Criterion<T> criterion, String tableName, String tableAlias) {
         super(criterion);
@@ -149,10 +153,11 @@ public class FromClauseImpl<T> extends AbstractClause<T> implements FromClause<T
     public JoinClause<T> innerJoin(Criterion<?> subquery, String alias) {
         if (criterion instanceof StandardCriterion) {
             String subquerySql = subquery.getGeneratedSql();
-            JoinClause<T> joinClause = new JoinClauseImpl<>((StandardCriterion<T>) criterion, "INNER JOIN", "(" + subquerySql + ")", alias);
+            JoinClauseImpl<T> joinClause = new JoinClauseImpl<>((StandardCriterion<T>) criterion, "INNER JOIN", "(" + subquerySql + ")", alias);
             // 保存子查询引用以便后续参数收集
             if (subquery instanceof StandardCriterion) {
                 ((StandardCriterion<T>) criterion).setSubquery((StandardCriterion<?>) subquery);
+                joinClause.trackSubquery();
             }
             ((StandardCriterion<T>) criterion).addJoinClause(joinClause);
             return joinClause;
@@ -165,10 +170,11 @@ public class FromClauseImpl<T> extends AbstractClause<T> implements FromClause<T
     public JoinClause<T> leftJoin(Criterion<?> subquery, String alias) {
         if (criterion instanceof StandardCriterion) {
             String subquerySql = subquery.getGeneratedSql();
-            JoinClause<T> joinClause = new JoinClauseImpl<>((StandardCriterion<T>) criterion, "LEFT JOIN", "(" + subquerySql + ")", alias);
+            JoinClauseImpl<T> joinClause = new JoinClauseImpl<>((StandardCriterion<T>) criterion, "LEFT JOIN", "(" + subquerySql + ")", alias);
             // 保存子查询引用以便后续参数收集
             if (subquery instanceof StandardCriterion) {
                 ((StandardCriterion<T>) criterion).setSubquery((StandardCriterion<?>) subquery);
+                joinClause.trackSubquery();
             }
             ((StandardCriterion<T>) criterion).addJoinClause(joinClause);
             return joinClause;
@@ -181,10 +187,11 @@ public class FromClauseImpl<T> extends AbstractClause<T> implements FromClause<T
     public JoinClause<T> rightJoin(Criterion<?> subquery, String alias) {
         if (criterion instanceof StandardCriterion) {
             String subquerySql = subquery.getGeneratedSql();
-            JoinClause<T> joinClause = new JoinClauseImpl<>((StandardCriterion<T>) criterion, "RIGHT JOIN", "(" + subquerySql + ")", alias);
+            JoinClauseImpl<T> joinClause = new JoinClauseImpl<>((StandardCriterion<T>) criterion, "RIGHT JOIN", "(" + subquerySql + ")", alias);
             // 保存子查询引用以便后续参数收集
             if (subquery instanceof StandardCriterion) {
                 ((StandardCriterion<T>) criterion).setSubquery((StandardCriterion<?>) subquery);
+                joinClause.trackSubquery();
             }
             ((StandardCriterion<T>) criterion).addJoinClause(joinClause);
             return joinClause;
@@ -197,10 +204,11 @@ public class FromClauseImpl<T> extends AbstractClause<T> implements FromClause<T
     public JoinClause<T> fullJoin(Criterion<?> subquery, String alias) {
         if (criterion instanceof StandardCriterion) {
             String subquerySql = subquery.getGeneratedSql();
-            JoinClause<T> joinClause = new JoinClauseImpl<>((StandardCriterion<T>) criterion, "FULL JOIN", "(" + subquerySql + ")", alias);
+            JoinClauseImpl<T> joinClause = new JoinClauseImpl<>((StandardCriterion<T>) criterion, "FULL JOIN", "(" + subquerySql + ")", alias);
             // 保存子查询引用以便后续参数收集
             if (subquery instanceof StandardCriterion) {
                 ((StandardCriterion<T>) criterion).setSubquery((StandardCriterion<?>) subquery);
+                joinClause.trackSubquery();
             }
             ((StandardCriterion<T>) criterion).addJoinClause(joinClause);
             return joinClause;
@@ -213,10 +221,11 @@ public class FromClauseImpl<T> extends AbstractClause<T> implements FromClause<T
     public JoinClause<T> crossJoin(Criterion<?> subquery, String alias) {
         if (criterion instanceof StandardCriterion) {
             String subquerySql = subquery.getGeneratedSql();
-            JoinClause<T> joinClause = new JoinClauseImpl<>((StandardCriterion<T>) criterion, "CROSS JOIN", "(" + subquerySql + ")", alias);
+            JoinClauseImpl<T> joinClause = new JoinClauseImpl<>((StandardCriterion<T>) criterion, "CROSS JOIN", "(" + subquerySql + ")", alias);
             // 保存子查询引用以便后续参数收集
             if (subquery instanceof StandardCriterion) {
                 ((StandardCriterion<T>) criterion).setSubquery((StandardCriterion<?>) subquery);
+                joinClause.trackSubquery();
             }
             ((StandardCriterion<T>) criterion).addJoinClause(joinClause);
             return joinClause;
@@ -314,11 +323,54 @@ public class FromClauseImpl<T> extends AbstractClause<T> implements FromClause<T
         if (tableAlias != null) {
             sql.append(" AS ").append(tableAlias);
         }
-        // 自动注册别名到QueryBuilder
+        registerTableAlias();
+        return new ClauseResult(sql.toString(), new ArrayList<>());
+    }
+
+    @Override
+    public boolean appendShape(List<Object> shape) {
+        shape.add("FROM");
+        shape.add(tableName);
+        shape.add(tableAlias);
+        return true;
+    }
+
+    @Override
+    public void collectParameters(List<Object> parameters) {
+        // FROM 子句没有参数，但模板缓存命中时同样需要注册别名
+        if (tableName != null) {
+            registerTableAlias();
+        }
+    }
+
+    @Override
+    public void collectTables(Set<String> tables) {
+        if (tableName == null) {
+            return;
+        }
+        if (!tableName.startsWith("(")) {
+            tables.add(tableName);
+        } else if (!subqueryTracked) {
+            // 不是 StandardCriterion 的子查询无法得知读取的表
+            tables.add(TableDependency.ANY_TABLE);
+        }
+        // 已跟踪的子查询的表由嵌套子查询自身收集
+    }
+
+    /**
+     * 子查询已注册为嵌套查询，读取的表由子查询收集
+     */
+    void trackSubquery() {
+        subqueryTracked = true;
+    }
+
+    /**
+     * 自动注册别名到QueryBuilder
+     */
+    private void registerTableAlias() {
         if (criterion instanceof StandardCriterion && entityClass != null) {
             ((StandardCriterion<T>) criterion).registerTable(entityClass, tableName, tableAlias != null ? tableAlias : tableName);
         }
-        return new ClauseResult(sql.toString(), new ArrayList<>());
     }
 
     @Override
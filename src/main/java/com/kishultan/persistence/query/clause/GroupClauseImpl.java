@@ -16,7 +16,7 @@ import java.util.List;
  * GROUP BY子句实现
  */
 public class GroupClauseImpl<T> extends AbstractClause<T> implements GroupClause<T>, ClauseBuilder<T>, ClauseData {
-    private final List<String> groupColumns = new ArrayList<>();
+    private final List<String> groupColumns = DirtyTrackingList.of(criterion);
 
     public GroupClauseImpl(StandardCriterion<T> queryBuilder) {
         super(queryBuilder);
@@ -82,6 +82,19 @@ public class GroupClauseImpl<T> extends AbstractClause<T> implements GroupClause
         return new ClauseResult(sql.toString(), new ArrayList<>());
     }
 
+    @Override
+    public boolean appendShape(List<Object> shape) {
+        shape.add("GROUP BY");
+        shape.add(groupColumns.size());
+        shape.addAll(groupColumns);
+        return true;
+    }
+
+    @Override
+    public void collectParameters(List<Object> parameters) {
+        // GROUP BY 没有参数
+    }
+
     @Override
     public String getClauseSql() {
         return buildClause().getSql();
@@ -9,6 +9,7 @@ import com.kishultan.persistence.query.context.ConditionInfo;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
@@ -18,7 +19,7 @@ import java.util.HashMap;
  * 使用新的架构：存储HAVING条件信息，通过 buildClause() 方法生成SQL
  */
 public class HavingClauseImpl<T> extends AbstractClause<T> implements HavingClause<T>, ClauseBuilder<T>, ClauseData {
-    private final List<ConditionInfo> conditions = new ArrayList<>();
+    private final List<ConditionInfo> conditions = DirtyTrackingList.of(criterion);
     private String logicalOperator = "AND"; // 条件的逻辑操作符
 
     public HavingClauseImpl(StandardCriterion<T> queryBuilder) {
@@ -153,6 +154,37 @@ public class HavingClauseImpl<T> extends AbstractClause<T> implements HavingClau
         return new ClauseResult(sql.toString(), parameters);
     }
 
+    @Override
+    public boolean appendShape(List<Object> shape) {
+        shape.add("HAVING");
+        shape.add(conditions.size());
+        for (ConditionInfo condition : conditions) {
+            shape.add(condition.getColumn());
+            shape.add(condition.getOperator());
+            if (condition.getOperator().equals("IN") || condition.getOperator().equals("NOT IN")) {
+                shape.add(((Object[]) condition.getValue()).length);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void collectParameters(List<Object> parameters) {
+        for (ConditionInfo condition : conditions) {
+            String operator = condition.getOperator();
+            if (operator.equals("IN") || operator.equals("NOT IN")) {
+                Collections.addAll(parameters, (Object[]) condition.getValue());
+            } else if (operator.equals("BETWEEN") || operator.equals("NOT BETWEEN")) {
+                Object[] values = (Object[]) condition.getValue();
+                parameters.add(values[0]);
+                parameters.add(values[1]);
+            } else if (!operator.equals("IS NULL") && !operator.equals("IS NOT NULL")
+                    && condition.getValue() != null) {
+                parameters.add(condition.getValue());
+            }
+        }
+    }
+
     @Override
     public String getClauseSql() {
         return buildClause().getSql();
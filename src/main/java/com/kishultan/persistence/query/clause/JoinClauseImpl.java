@@ -7,6 +7,7 @@ import com.kishultan.persistence.query.ClauseBuilder;
 import com.kishultan.persistence.query.FromClause;
 import com.kishultan.persistence.query.JoinClause;
 import com.kishultan.persistence.query.context.ClauseResult;
+import com.kishultan.persistence.query.cache.TableDependency;
 import com.kishultan.persistence.query.context.ClauseData;
 import com.kishultan.persistence.query.utils.EntityUtils;
 import jakarta.persistence.JoinColumn;
@@ -21,6 +22,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Set;
 
 /**
  * JOIN子句实现类
@@ -31,7 +33,8 @@ public class JoinClauseImpl<T> extends AbstractClause<T> implements JoinClause<T
     private final String tableName;
     private final String tableAlias;
     private final Class<?> joinEntityClass;  // 保存JOIN的实体类
-    private final List<String> onConditions = new ArrayList<>();
+    private final List<String> onConditions = DirtyTrackingList.of(criterion);
+    private boolean subqueryTracked;
 
     // ==================== 构造函数 ====================
     public JoinClauseImpl(StandardCriterion<T> queryBuilder, String joinType, Class<?> entityClass, String alias) {
@@ -175,6 +178,39 @@ public class JoinClauseImpl<T> extends AbstractClause<T> implements JoinClause<T
         return new ClauseResult(sql.toString(), new ArrayList<>());
     }
 
+    @Override
+    public boolean appendShape(List<Object> shape) {
+        shape.add(joinType);
+        shape.add(tableName);
+        shape.add(tableAlias);
+        shape.add(onConditions.size());
+        shape.addAll(onConditions);
+        return true;
+    }
+
+    @Override
+    public void collectParameters(List<Object> parameters) {
+        // JOIN 条件直接内联在 SQL 中，没有参数
+    }
+
+    @Override
+    public void collectTables(Set<String> tables) {
+        if (!tableName.startsWith("(")) {
+            tables.add(tableName);
+        } else if (!subqueryTracked) {
+            // 原始 SQL 子查询无法得知读取的表
+            tables.add(TableDependency.ANY_TABLE);
+        }
+        // 已跟踪的子查询 JOIN 的表由嵌套子查询自身收集
+    }
+
+    /**
+     * 子查询已注册为嵌套查询，读取的表由子查询收集
+     */
+    void trackSubquery() {
+        subqueryTracked = true;
+    }
+
     @Override
     public String getClauseSql() {
         return buildClause().getSql();
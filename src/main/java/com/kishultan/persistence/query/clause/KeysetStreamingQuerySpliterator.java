@@ -0,0 +1,230 @@
+package com.kishultan.persistence.query.clause;
+
+import com.kishultan.persistence.query.RowMapper;
+import com.kishultan.persistence.query.context.KeysetCondition;
+import com.kishultan.persistence.query.context.OrderInfo;
+import com.kishultan.persistence.query.context.QueryBuilder;
+import com.kishultan.persistence.query.executor.QueryExecutor;
+import com.kishultan.persistence.query.utils.EntityUtils;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * 键集（seek）分页流式查询分割器
+ * 记住上一页最后一行的排序键值，下一页通过 WHERE (k1, k2) > (?, ?) 定位，
+ * 每页查询代价与翻页深度无关，避免 OFFSET 越翻越慢
+ * <p>
+ * 排序键取自 ORDER BY；未指定排序时使用主键，排序中不含主键时自动追加主键保证唯一
+ * 追加的排序、每页的 LIMIT 和键集条件只用于构建分页查询，不修改调用方的查询构建器
+ * 排序键列需要非 null，且能映射到实体字段（或 Map 结果中的键）
+ *
+ * @param <T> 实体类型
+ */
+public class KeysetStreamingQuerySpliterator<T> implements Spliterator<T> {
+    private final StandardCriterion<T> criterion;
+    private final QueryExecutor<T> queryExecutor;
+    private final RowMapper<T> rowMapper;
+    private final int pageSize;
+    private List<OrderInfo> keys;
+    // 补充主键后的排序，排序中已含主键时为 null（使用原排序）
+    private OrderClauseImpl<T> keysetOrder;
+    private Field[] keyFields;
+    private List<T> currentPage;
+    private int currentIndex;
+    private boolean hasMorePages = true;
+    private boolean initialized = false;
+    private boolean closed = false;
+
+    /**
+     * 构造函数
+     *
+     * @param criterion     查询构建器
+     * @param queryExecutor 查询执行器
+     * @param rowMapper     结果集映射器
+     * @param pageSize      页大小
+     */
+    public KeysetStreamingQuerySpliterator(StandardCriterion<T> criterion,
+                                           QueryExecutor<T> queryExecutor,
+                                           RowMapper<T> rowMapper,
+                                           int pageSize) {
+        this.criterion = criterion;
+        this.queryExecutor = queryExecutor;
+        this.rowMapper = rowMapper;
+        this.pageSize = pageSize;
+        // 延迟初始化，避免在构造函数中执行数据库操作
+    }
+
+    /**
+     * 解析排序键，必要时补充主键作为唯一排序键
+     */
+    private void resolveKeys() {
+        String pk = EntityUtils.getPrimaryKey(criterion.getEntityClass());
+        List<OrderInfo> orders = criterion.getOrders();
+        boolean containsPk = false;
+        for (OrderInfo order : orders) {
+            if (pk != null && pk.equalsIgnoreCase(bareColumnName(order.getColumn()))) {
+                containsPk = true;
+                break;
+            }
+        }
+        keys = new ArrayList<>(orders);
+        if (!containsPk) {
+            if (pk == null) {
+                if (orders.isEmpty()) {
+                    throw new IllegalStateException("键集分页需要 ORDER BY 或主键: " + criterion.getEntityClass().getName());
+                }
+            } else {
+                keysetOrder = new OrderClauseImpl<>(criterion);
+                for (OrderInfo order : orders) {
+                    if ("DESC".equalsIgnoreCase(order.getDirection())) {
+                        keysetOrder.desc(order.getColumn());
+                    } else {
+                        keysetOrder.asc(order.getColumn());
+                    }
+                }
+                keysetOrder.asc(criterion.getCurrentTableAlias(), pk);
+                keys = new ArrayList<>(keysetOrder.getOrders());
+            }
+        }
+    }
+
+    /**
+     * 加载下一页数据
+     */
+    private void loadNextPage(T lastRow) {
+        if (closed) {
+            return;
+        }
+        try {
+            KeysetCondition condition = lastRow == null ? null : new KeysetCondition(keys, extractKeyValues(lastRow));
+            QueryBuilder queryResult = criterion.buildQueryWith(keysetOrder, 0, pageSize, condition);
+            List<T> results = queryExecutor.executeQuery(
+                queryResult.getSql(),
+                queryResult.getParameters(),
+                criterion.getEntityClass(),
+                rowMapper
+            );
+            currentPage = results;
+            hasMorePages = results.size() == pageSize;
+            currentIndex = 0;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load keyset page", e);
+        }
+    }
+
+    /**
+     * 读取一行的排序键值
+     */
+    private List<Object> extractKeyValues(T row) throws IllegalAccessException {
+        List<Object> values = new ArrayList<>(keys.size());
+        if (row instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) row;
+            for (OrderInfo key : keys) {
+                String column = bareColumnName(key.getColumn());
+                Object value = map.containsKey(column) ? map.get(column) : findIgnoreCase(map, column);
+                values.add(value);
+            }
+            return values;
+        }
+        if (keyFields == null) {
+            keyFields = new Field[keys.size()];
+            for (int i = 0; i < keys.size(); i++) {
+                keyFields[i] = findField(row.getClass(), bareColumnName(keys.get(i).getColumn()));
+            }
+        }
+        for (Field field : keyFields) {
+            values.add(field.get(row));
+        }
+        return values;
+    }
+
+    private Object findIgnoreCase(Map<?, ?> map, String column) {
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (column.equalsIgnoreCase(String.valueOf(entry.getKey()))) {
+                return entry.getValue();
+            }
+        }
+        throw new IllegalStateException("结果中缺少键集分页的排序列: " + column);
+    }
+
+    private Field findField(Class<?> type, String column) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (column.equalsIgnoreCase(EntityUtils.getColumnName(field))
+                        || column.equalsIgnoreCase(field.getName())) {
+                    field.setAccessible(true);
+                    return field;
+                }
+            }
+        }
+        throw new IllegalStateException("排序列无法映射到实体字段: " + column + " (" + type.getName() + ")");
+    }
+
+    /**
+     * 去掉表别名前缀和标识符引号，得到裸列名
+     */
+    private String bareColumnName(String column) {
+        String name = column.substring(column.lastIndexOf('.') + 1).trim();
+        if (name.length() > 1) {
+            char first = name.charAt(0);
+            if (first == '`' || first == '"' || first == '[') {
+                name = name.substring(1, name.length() - 1);
+            }
+        }
+        return name;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (closed) {
+            return false;
+        }
+        if (!initialized) {
+            initialized = true;
+            resolveKeys();
+            loadNextPage(null);
+        }
+        if (currentIndex >= currentPage.size()) {
+            if (hasMorePages && !currentPage.isEmpty()) {
+                loadNextPage(currentPage.get(currentPage.size() - 1));
+                if (currentPage.isEmpty()) {
+                    close();
+                    return false;
+                }
+            } else {
+                close();
+                return false;
+            }
+        }
+        action.accept(currentPage.get(currentIndex++));
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        // 键集分页依赖上一页结果，不支持分割
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+    }
+
+    /**
+     * 关闭资源
+     */
+    public void close() {
+        closed = true;
+    }
+}
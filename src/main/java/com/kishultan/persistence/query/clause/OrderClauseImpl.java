@@ -18,7 +18,7 @@ import java.util.List;
  * 使用新的架构：存储排序信息，通过 buildClause() 方法生成SQL
  */
 public class OrderClauseImpl<T> extends AbstractClause<T> implements OrderClause<T>, ClauseBuilder<T>, ClauseData {
-    private final List<OrderInfo> orderInfos = new ArrayList<>();
+    private final List<OrderInfo> orderInfos = DirtyTrackingList.of(criterion);
 
     public OrderClauseImpl(StandardCriterion<T> queryBuilder) {
         super(queryBuilder);
@@ -114,6 +114,22 @@ public class OrderClauseImpl<T> extends AbstractClause<T> implements OrderClause
         return new ClauseResult(sql.toString(), new ArrayList<>());
     }
 
+    @Override
+    public boolean appendShape(List<Object> shape) {
+        shape.add("ORDER BY");
+        shape.add(orderInfos.size());
+        for (OrderInfo orderInfo : orderInfos) {
+            shape.add(orderInfo.getColumn());
+            shape.add(orderInfo.getDirection());
+        }
+        return true;
+    }
+
+    @Override
+    public void collectParameters(List<Object> parameters) {
+        // ORDER BY 没有参数
+    }
+
     @Override
     public String getClauseSql() {
         return buildClause().getSql();
@@ -0,0 +1,285 @@
+package com.kishultan.persistence.query.clause;
+
+import com.kishultan.persistence.EntityManager;
+import com.kishultan.persistence.EntityTransaction;
+import com.kishultan.persistence.query.RowMapper;
+import com.kishultan.persistence.query.context.KeysetCondition;
+import com.kishultan.persistence.query.context.OrderInfo;
+import com.kishultan.persistence.query.context.QueryBuilder;
+import com.kishultan.persistence.query.executor.QueryExecutor;
+import com.kishultan.persistence.query.utils.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * 按主键范围分区的并行流式查询分割器
+ * <p>
+ * 首次分割时探测主键 MIN/MAX/COUNT，把 (min-1, max] 按值域二分为最多 parallelism 个不相交分区，
+ * 每个分区在自己的线程上按主键键集分页读取，每批查询从连接池获取独立连接
+ * <p>
+ * 限制：
+ * 1. 仅支持整数主键；无主键或非整数主键时退化为普通批次读取，
+ *    在事务中（事务连接不能跨线程共享）时只使用单个分区
+ * 2. 分区内按主键升序读取，不保留用户 ORDER BY 的全局顺序
+ * 3. 大小来自探测时的 COUNT 按值域比例估算，数据可能变化，因此不报告 SIZED
+ * 4. 主键最小值为 Long.MIN_VALUE 时无法表示开区间下界，退化为普通批次读取
+ * <p>
+ * 分区查询的排序、LIMIT 和范围条件只用于构建模板，不修改调用方的查询构建器
+ *
+ * @param <T> 实体类型
+ */
+public class PartitionedStreamingQuerySpliterator<T> implements Spliterator<T> {
+    private static final Logger logger = LoggerFactory.getLogger(PartitionedStreamingQuerySpliterator.class);
+    /** 键集参数占位标记，用于定位模板参数中的下界/上界位置 */
+    private static final Object LOWER_MARKER = new Object();
+    private static final Object UPPER_MARKER = new Object();
+
+    private final StandardCriterion<T> criterion;
+    private final QueryExecutor<T> queryExecutor;
+    private final RowMapper<T> rowMapper;
+    private final int batchSize;
+    private RangeTemplate template;
+    private Spliterator<T> fallback;
+    private int splitBudget;
+    private long lower;
+    private long upper;
+    private long estimatedSize;
+    private List<T> currentBatch = Collections.emptyList();
+    private int currentIndex;
+    private boolean hasMoreData = true;
+    private boolean started = false;
+    private boolean closed = false;
+
+    /**
+     * 构造函数
+     *
+     * @param criterion     查询构建器
+     * @param queryExecutor 查询执行器
+     * @param rowMapper     结果集映射器
+     * @param batchSize     每批读取行数
+     * @param parallelism   最大分区数
+     */
+    public PartitionedStreamingQuerySpliterator(StandardCriterion<T> criterion,
+                                                QueryExecutor<T> queryExecutor,
+                                                RowMapper<T> rowMapper,
+                                                int batchSize,
+                                                int parallelism) {
+        this.criterion = criterion;
+        this.queryExecutor = queryExecutor;
+        this.rowMapper = rowMapper;
+        this.batchSize = batchSize;
+        this.splitBudget = parallelism;
+        // 延迟探测，避免在构造函数中执行数据库操作
+    }
+
+    private PartitionedStreamingQuerySpliterator(PartitionedStreamingQuerySpliterator<T> parent,
+                                                 long lower, long upper, long estimatedSize, int splitBudget) {
+        this.criterion = parent.criterion;
+        this.queryExecutor = parent.queryExecutor;
+        this.rowMapper = parent.rowMapper;
+        this.batchSize = parent.batchSize;
+        this.template = parent.template;
+        this.lower = lower;
+        this.upper = upper;
+        this.estimatedSize = estimatedSize;
+        this.splitBudget = splitBudget;
+    }
+
+    /**
+     * 探测主键范围并生成分区查询模板（只在根分割器上、单线程执行一次）
+     */
+    private void initialize() {
+        if (template != null || fallback != null) {
+            return;
+        }
+        Field pkField = EntityUtils.getPrimaryKeyField(criterion.getEntityClass());
+        if (pkField == null || !isIntegral(pkField.getType())) {
+            // 无法按范围分区，退化为普通批次读取
+            fallback = new StreamingQuerySpliterator<>(criterion, queryExecutor, rowMapper, batchSize);
+            estimatedSize = Long.MAX_VALUE;
+            return;
+        }
+        if (inTransaction()) {
+            // 单分区覆盖全部数据，在事务连接上顺序读取
+            splitBudget = 1;
+        }
+        String pk = EntityUtils.getPrimaryKey(criterion.getEntityClass());
+        String keyColumn = criterion.getCurrentTableAlias() + "." + pk;
+        OrderInfo key = new OrderInfo(keyColumn, "ASC");
+
+        // 生成分区批次模板：ORDER BY 主键 + (pk > ? AND pk <= ?) + LIMIT
+        OrderClauseImpl<T> keyOrder = new OrderClauseImpl<>(criterion);
+        keyOrder.asc(criterion.getCurrentTableAlias(), pk);
+        QueryBuilder query = criterion.buildQueryWith(keyOrder, 0, batchSize, new KeysetCondition(
+                Collections.singletonList(key), Collections.singletonList(LOWER_MARKER), UPPER_MARKER));
+        List<Object> params = query.getParameters();
+        template = new RangeTemplate(query.getSql(), params,
+                indexOfMarker(params, LOWER_MARKER), indexOfMarker(params, UPPER_MARKER), pkField);
+        pkField.setAccessible(true);
+
+        // 探测 COUNT/MIN/MAX（与查询相同的 FROM/JOIN/WHERE）
+        long count = probe("COUNT(*)");
+        if (count > 0) {
+            long min = probe("MIN(" + keyColumn + ")");
+            if (min == Long.MIN_VALUE) {
+                // 下界 min-1 溢出，改为普通批次读取
+                template = null;
+                fallback = new StreamingQuerySpliterator<>(criterion, queryExecutor, rowMapper, batchSize);
+                estimatedSize = count;
+                return;
+            }
+            lower = min - 1;
+            upper = probe("MAX(" + keyColumn + ")");
+        } else {
+            hasMoreData = false;
+        }
+        estimatedSize = count;
+        if (logger.isDebugEnabled()) {
+            logger.debug("范围分区探测完成: key={}, range=({}, {}], count={}", keyColumn, lower, upper, count);
+        }
+    }
+
+    private long probe(String aggregate) {
+        QueryBuilder query = criterion.buildAggregateQuery(aggregate);
+        return queryExecutor.executeCount(query.getSql(), query.getParameters());
+    }
+
+    private int indexOfMarker(List<Object> params, Object marker) {
+        for (int i = 0; i < params.size(); i++) {
+            if (params.get(i) == marker) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("分区查询模板缺少键集参数");
+    }
+
+    private boolean isIntegral(Class<?> type) {
+        return type == Long.class || type == long.class
+                || type == Integer.class || type == int.class
+                || type == Short.class || type == short.class;
+    }
+
+    /**
+     * 事务连接不能跨线程共享，事务中不做并行分区
+     */
+    private boolean inTransaction() {
+        EntityManager entityManager = criterion.getEntityManager();
+        if (entityManager == null) {
+            return false;
+        }
+        EntityTransaction transaction = entityManager.getCurrentTransaction();
+        return transaction != null && transaction.isActive();
+    }
+
+    /**
+     * 加载当前分区的下一批数据
+     */
+    private void loadNextBatch() {
+        try {
+            List<Object> params = new ArrayList<>(template.parameters);
+            params.set(template.lowerIndex, lower);
+            params.set(template.upperIndex, upper);
+            List<T> results = queryExecutor.executeQuery(template.sql, params, criterion.getEntityClass(), rowMapper);
+            currentBatch = results;
+            currentIndex = 0;
+            hasMoreData = results.size() == batchSize;
+            if (!results.isEmpty()) {
+                Object last = template.keyField.get(results.get(results.size() - 1));
+                lower = ((Number) last).longValue();
+            }
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Failed to read partition key", e);
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (closed) {
+            return false;
+        }
+        initialize();
+        started = true;
+        if (fallback != null) {
+            return fallback.tryAdvance(action);
+        }
+        if (currentIndex >= currentBatch.size()) {
+            if (!hasMoreData) {
+                close();
+                return false;
+            }
+            loadNextBatch();
+            if (currentBatch.isEmpty()) {
+                close();
+                return false;
+            }
+        }
+        action.accept(currentBatch.get(currentIndex++));
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (closed || started) {
+            return null;
+        }
+        initialize();
+        if (fallback != null || splitBudget <= 1 || !hasMoreData
+                || estimatedSize <= batchSize || Long.compareUnsigned(upper - lower, 2) < 0) {
+            return null;
+        }
+        // 按值域二分：前半段 (lower, mid] 交给新分割器，当前保留 (mid, upper]
+        // 值域跨度可能超出 long 范围，按无符号数计算
+        long mid = lower + ((upper - lower) >>> 1);
+        long prefixSize = estimatedSize / 2;
+        int prefixBudget = splitBudget / 2;
+        PartitionedStreamingQuerySpliterator<T> prefix =
+                new PartitionedStreamingQuerySpliterator<>(this, lower, mid, prefixSize, prefixBudget);
+        lower = mid;
+        estimatedSize -= prefixSize;
+        splitBudget -= prefixBudget;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return estimatedSize;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.NONNULL | Spliterator.IMMUTABLE;
+    }
+
+    /**
+     * 关闭资源
+     */
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * 分区批次查询模板，所有分区共享，只替换下界/上界参数
+     */
+    private static final class RangeTemplate {
+        private final String sql;
+        private final List<Object> parameters;
+        private final int lowerIndex;
+        private final int upperIndex;
+        private final Field keyField;
+
+        RangeTemplate(String sql, List<Object> parameters, int lowerIndex, int upperIndex, Field keyField) {
+            this.sql = sql;
+            this.parameters = parameters;
+            this.lowerIndex = lowerIndex;
+            this.upperIndex = upperIndex;
+            this.keyField = keyField;
+        }
+    }
+}
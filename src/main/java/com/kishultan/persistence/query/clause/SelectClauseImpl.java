@@ -20,8 +20,8 @@ import java.util.HashMap;
  */
 public class SelectClauseImpl<T> extends AbstractClause<T> implements SelectClause<T>, ClauseBuilder<T>, ClauseData {
     private boolean selectAll = false;
-    private List<String> selectedFields = new ArrayList<>();
-    private List<SelectColumn> columns = new ArrayList<>();
+    private List<String> selectedFields = DirtyTrackingList.of(criterion);
+    private List<SelectColumn> columns = DirtyTrackingList.of(criterion);
     
     /**
      * SELECT列信息
@@ -246,6 +246,7 @@ public class SelectClauseImpl<T> extends AbstractClause<T> implements SelectClau
         // 如果是QueryBuilderImpl，保存子查询引用以便后续参数收集
         if (criterion instanceof StandardCriterion && subquery instanceof StandardCriterion) {
             ((StandardCriterion<T>) criterion).setSubquery((StandardCriterion<?>) subquery);
+            fromClause.trackSubquery();
         }
         if (criterion instanceof StandardCriterion) {
             ((StandardCriterion<T>) criterion).setFromClause(fromClause);
@@ -310,6 +311,35 @@ public class SelectClauseImpl<T> extends AbstractClause<T> implements SelectClau
         }
         return new ClauseResult(sql.toString(), parameters);
     }
+
+    @Override
+    public boolean appendShape(List<Object> shape) {
+        shape.add("SELECT");
+        if (!columns.isEmpty()) {
+            shape.add(columns.size());
+            for (SelectColumn column : columns) {
+                shape.add(column.sql);
+                shape.add(column.alias);
+            }
+            return true;
+        }
+        shape.add(selectAll);
+        shape.add(selectedFields.size());
+        shape.addAll(selectedFields);
+        // JOIN 时按主表实体展开字段
+        shape.add(hasJoinClause());
+        shape.add(criterion instanceof StandardCriterion ? ((StandardCriterion<T>) criterion).getEntityClass() : null);
+        return true;
+    }
+
+    @Override
+    public void collectParameters(List<Object> parameters) {
+        for (SelectColumn column : columns) {
+            if (column.parameters != null) {
+                parameters.addAll(column.parameters);
+            }
+        }
+    }
     // ==================== 智能展开辅助方法 ====================
 
     /**
@@ -2,9 +2,13 @@ package com.kishultan.persistence.query.clause;
 
 import com.kishultan.persistence.EntityManager;
 import com.kishultan.persistence.EntityTransaction;
+import com.kishultan.persistence.config.PersistenceDefaults;
 import com.kishultan.persistence.query.DefaultRowMapper;
 import com.kishultan.persistence.query.RowMapper;
 import com.kishultan.persistence.query.SqlExecutor;
+import com.kishultan.persistence.query.cache.TableVersions;
+import com.kishultan.persistence.query.executor.GroupedBatchExecutor;
+import com.kishultan.persistence.query.executor.StatementCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,17 +18,22 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * 简单SQL执行器实现
  * 支持在事务中重用连接，非事务时创建新连接
+ * 事务中通过事务的语句缓存复用同一 SQL 的 PreparedStatement
+ * 批量更新把相同 SQL 的条目合并为 JDBC 批执行（见 {@link GroupedBatchExecutor}）
  */
 public class SimpleSqlExecutor implements SqlExecutor {
     private static final Logger logger = LoggerFactory.getLogger(SimpleSqlExecutor.class);
     private final DefaultRowMapper rowMapper = new DefaultRowMapper();
     private final DataSource dataSource;
     private final EntityManager entityManager;
+    // 批量更新是否合并不相邻的相同 SQL
+    private volatile boolean reorderBatch = false;
 
     public SimpleSqlExecutor(DataSource dataSource) {
         this(dataSource, null);
@@ -38,6 +47,20 @@ public class SimpleSqlExecutor implements SqlExecutor {
         this.entityManager = entityManager;
     }
     
+    /**
+     * 设置批量更新是否合并不相邻的相同 SQL
+     * 合并后同一 SQL 的条目连续执行，只在条目之间互不依赖时启用
+     *
+     * @param reorderBatch 是否重排
+     */
+    public void setReorderBatch(boolean reorderBatch) {
+        this.reorderBatch = reorderBatch;
+    }
+
+    public boolean isReorderBatch() {
+        return reorderBatch;
+    }
+
     /**
      * 获取数据库连接
      * 优先从事务获取连接，如果没有事务则从数据源获取新连接
@@ -102,20 +125,20 @@ public class SimpleSqlExecutor implements SqlExecutor {
                 shouldClose = true;
             }
             
-            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            StatementCache cache = statementCache(connection);
+            PreparedStatement stmt = prepare(connection, sql, cache);
+            try {
                 if (logger.isDebugEnabled()) {
                     logger.debug("执行查询，SQL: {}, 参数数量: {}, 参数: {}", sql, parameters != null ? parameters.size() : 0, parameters);
                 }
                 setParameters(stmt, parameters);
                 try (ResultSet rs = stmt.executeQuery()) {
-                    List<T> results = new ArrayList<>();
-                    while (rs.next()) {
-                        T result = mapper.mapRow(rs, resultType);
-                        results.add(result);
-                    }
+                    List<T> results = mapper.mapRows(rs, resultType, sql);
                     //按主键合并对象，解决连接查询主表数据重复的问题
                     return this.rowMapper.mergeList(results, resultType);
                 }
+            } finally {
+                release(stmt, cache);
             }
         } catch (Exception e) {
             logger.error("执行查询失败: {}, 参数数量: {}, 参数: {}", sql, parameters != null ? parameters.size() : 0, parameters, e);
@@ -144,7 +167,9 @@ public class SimpleSqlExecutor implements SqlExecutor {
                 shouldClose = true;
             }
             
-            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            StatementCache cache = statementCache(connection);
+            PreparedStatement stmt = prepare(connection, sql, cache);
+            try {
                 if (logger.isDebugEnabled()) {
                     logger.debug("执行count查询，SQL: {}, 参数数量: {}, 参数: {}", sql, parameters != null ? parameters.size() : 0, parameters);
                 }
@@ -155,6 +180,8 @@ public class SimpleSqlExecutor implements SqlExecutor {
                     }
                     return null;
                 }
+            } finally {
+                release(stmt, cache);
             }
         } catch (Exception e) {
             logger.error("执行count查询失败: {}, 参数数量: {}, 参数: {}", sql, parameters != null ? parameters.size() : 0, parameters, e);
@@ -188,9 +215,15 @@ public class SimpleSqlExecutor implements SqlExecutor {
                 shouldClose = true;
             }
             
-            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            StatementCache cache = statementCache(connection);
+            PreparedStatement stmt = prepare(connection, sql, cache);
+            try {
                 setParameters(stmt, parameters);
-                return stmt.executeUpdate();
+                int result = stmt.executeUpdate();
+                recordWrite(Collections.singletonList(sql));
+                return result;
+            } finally {
+                release(stmt, cache);
             }
         } catch (Exception e) {
             throw new RuntimeException("执行更新失败: " + sql, e);
@@ -207,6 +240,10 @@ public class SimpleSqlExecutor implements SqlExecutor {
 
     @Override
     public int[] executeBatchUpdate(List<String> sqlList, List<List<Object>> parametersList) {
+        List<Object[]> parameterArrays = new ArrayList<>(parametersList.size());
+        for (List<Object> parameters : parametersList) {
+            parameterArrays.add(parameters != null ? parameters.toArray() : null);
+        }
         Connection connection = null;
         boolean shouldClose = false;
         boolean wasAutoCommit = true;
@@ -223,18 +260,15 @@ public class SimpleSqlExecutor implements SqlExecutor {
                 connection.setAutoCommit(false);
             }
             
-            int[] results = new int[sqlList.size()];
+            StatementCache cache = inTransaction ? statementCache(connection) : null;
             try {
-                for (int i = 0; i < sqlList.size(); i++) {
-                    try (PreparedStatement stmt = connection.prepareStatement(sqlList.get(i))) {
-                        setParameters(stmt, parametersList.get(i));
-                        results[i] = stmt.executeUpdate();
-                    }
-                }
-                
+                int[] results = new GroupedBatchExecutor(PersistenceDefaults.getMaxBatchSize(), reorderBatch)
+                        .execute(connection, sqlList, parameterArrays, cache);
+
                 if (!inTransaction) {
                     connection.commit();
                 }
+                recordWrite(sqlList);
                 return results;
             } catch (Exception e) {
                 // 失败时回滚事务（仅当不在外部事务中时）
@@ -271,6 +305,48 @@ public class SimpleSqlExecutor implements SqlExecutor {
         }
     }
 
+    /**
+     * 获取当前事务在该连接上的语句缓存
+     *
+     * @param connection 执行语句的连接
+     * @return 语句缓存，非事务连接或事务未启用缓存时返回 null
+     */
+    private StatementCache statementCache(Connection connection) {
+        EntityTransaction transaction = entityManager != null ? entityManager.getCurrentTransaction() : null;
+        if (transaction == null || !transaction.isActive() || transaction.getConnection() != connection) {
+            return null;
+        }
+        return transaction.getStatementCache();
+    }
+
+    private PreparedStatement prepare(Connection connection, String sql, StatementCache cache) throws SQLException {
+        return cache != null ? cache.prepare(sql) : connection.prepareStatement(sql);
+    }
+
+    /**
+     * 释放语句：缓存的语句留给事务结束时关闭，其他语句立即关闭
+     */
+    private void release(PreparedStatement stmt, StatementCache cache) {
+        if (cache == null) {
+            try {
+                stmt.close();
+            } catch (SQLException e) {
+                logger.warn("关闭语句失败", e);
+            }
+        }
+    }
+
+    /**
+     * 记录写入的表，使相关查询缓存失效（事务中推迟到提交）
+     *
+     * @param sqlList 已执行的 SQL
+     */
+    private void recordWrite(List<String> sqlList) {
+        EntityTransaction transaction = entityManager != null ? entityManager.getCurrentTransaction() : null;
+        // 无法识别写入的表时使所有缓存失效
+        TableVersions.recordWrite(transaction, TableVersions.extractModifiedTables(sqlList));
+    }
+
     private void setParameters(PreparedStatement stmt, List<Object> parameters) throws SQLException {
         if (parameters != null) {
             for (int i = 0; i < parameters.size(); i++) {
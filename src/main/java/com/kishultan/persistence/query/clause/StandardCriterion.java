@@ -3,14 +3,22 @@ package com.kishultan.persistence.query.clause;
 import com.kishultan.persistence.Columnable;
 import com.kishultan.persistence.ColumnabledLambda;
 import com.kishultan.persistence.EntityManager;
+import com.kishultan.persistence.EntityTransaction;
+import com.kishultan.persistence.batch.ChangeTracker;
 import com.kishultan.persistence.dialect.DatabaseDialect;
 import com.kishultan.persistence.dialect.DialectFactory;
 import com.kishultan.persistence.dialect.H2Dialect;
 import com.kishultan.persistence.query.*;
+import com.kishultan.persistence.query.cache.CacheLoader;
+import com.kishultan.persistence.query.cache.CacheRegion;
 import com.kishultan.persistence.query.cache.QueryCache;
+import com.kishultan.persistence.query.cache.QueryKeyHasher;
+import com.kishultan.persistence.query.cache.TableDependency;
 import com.kishultan.persistence.query.config.CriterionConfigManager;
 import com.kishultan.persistence.query.builder.QueryResultBuilder;
 import com.kishultan.persistence.query.builder.SQLQueryResultBuilder;
+import com.kishultan.persistence.query.context.KeysetCondition;
+import com.kishultan.persistence.query.context.OrderInfo;
 import com.kishultan.persistence.query.context.QueryBuilder;
 import com.kishultan.persistence.query.context.QueryBuildContext;
 import com.kishultan.persistence.query.context.TableAliasRegistry;
@@ -26,9 +34,12 @@ import javax.sql.DataSource;
 import java.sql.Connection;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
@@ -67,8 +78,8 @@ public class StandardCriterion<T> implements Criterion<T> {
     private static final Logger logger = LoggerFactory.getLogger(StandardCriterion.class);
     private final Class<T> entityClass;
     private final TableAliasRegistry aliasRegistry = new TableAliasRegistry();
-    private final QueryBuildContext<T> buildContext = new QueryBuildContext<>();
-    private final DefaultRowMapper defaultMapper = new DefaultRowMapper();
+    private volatile QueryBuildContext<T> buildContext = new QueryBuildContext<>();
+    private final DefaultRowMapper<T> defaultMapper = new DefaultRowMapper<>();
     private final AtomicReference<RowMapper> customRowMapperRef = new AtomicReference<>(null);
     private Class<?> customResultType;
     
@@ -89,6 +100,15 @@ public class StandardCriterion<T> implements Criterion<T> {
     // 分页参数（使用 AtomicInteger）
     private final AtomicInteger offsetValueRef = new AtomicInteger(0);
     private final AtomicInteger limitValueRef = new AtomicInteger(0);
+    // 键集分页条件
+    private final AtomicReference<KeysetCondition> keysetConditionRef = new AtomicReference<>(null);
+
+    // 已构建查询的缓存：子句或嵌套子查询修改后版本号递增，缓存随之失效
+    private final AtomicLong modificationCount = new AtomicLong();
+    private final List<StandardCriterion<?>> nestedQueries = new CopyOnWriteArrayList<>();
+    // 把本查询作为嵌套子查询的外层查询，本查询修改前需要先固定它们尚未生成的计数查询
+    private final List<StandardCriterion<?>> dependentQueries = new CopyOnWriteArrayList<>();
+    private volatile BuiltQuery builtQuery;
     
     // 统一使用 QueryExecutor 接口（SQL 和 NoSQL 都通过此接口）
     private QueryExecutor<T> queryExecutor;
@@ -105,6 +125,10 @@ public class StandardCriterion<T> implements Criterion<T> {
     private QueryCache queryCache;
     private boolean performanceMonitoringEnabled = false;
     private boolean cacheEnabled = false;
+    // 查询指定的缓存区域和 TTL，未指定时按实体类映射的区域或全局缓存
+    private String cacheRegion;
+    private long cacheTtl;
+    private boolean cacheTtlSet = false;
 
     // ==================== 构造函数 ====================
     public StandardCriterion(Class<T> entityClass, DataSource dataSource) {
@@ -191,6 +215,7 @@ public class StandardCriterion<T> implements Criterion<T> {
      */
     public void setResultBuilder(QueryResultBuilder resultBuilder) {
         this.resultBuilder = resultBuilder;
+        markDirty();
     }
 
     // ==================== 别名注册表管理 ====================
@@ -201,13 +226,17 @@ public class StandardCriterion<T> implements Criterion<T> {
     public void registerTable(Class<?> entityClass, String tableName, String alias) {
         aliasRegistry.registerTable(tableName, alias);
         defaultMapper.register(entityClass, alias);
+        RowMapper customRowMapper = customRowMapperRef.get();
+        if (customRowMapper instanceof DefaultRowMapper) {
+            ((DefaultRowMapper<?>) customRowMapper).register(entityClass, alias);
+        }
     }
 
     public String getTableAlias(String tableName) {
         return aliasRegistry.getAlias(tableName);
     }
 
-    public DefaultRowMapper getResultSetMapper() {
+    public DefaultRowMapper<T> getResultSetMapper() {
         return defaultMapper;
     }
 
@@ -327,6 +356,8 @@ public class StandardCriterion<T> implements Criterion<T> {
      * 当用户开始新的查询时调用此方法
      */
     private void resetQueryState() {
+        // 先固定已构建查询的计数查询，之后才清空它引用的构建上下文
+        markDirty();
         selectClauseRef.set(null);
         fromClauseRef.set(null);
         joinClausesRef.set(new ArrayList<>());
@@ -337,10 +368,59 @@ public class StandardCriterion<T> implements Criterion<T> {
         subqueryRef.set(null);
         offsetValueRef.set(0);
         limitValueRef.set(0);
+        keysetConditionRef.set(null);
+        nestedQueries.clear();
         // 清空构建上下文
         buildContext.clear();
     }
 
+    /**
+     * 标记查询已修改，下次 buildQuery 时重新生成 SQL
+     * 子句对象修改内部条件时通过 DirtyTrackingList 调用（在修改之前调用）
+     * <p>
+     * 已构建查询的计数查询是延迟生成的，直接引用构建时的子句对象；
+     * 修改之前先生成它，使已返回的 QueryBuilder 和后台刷新的计数与构建时的条件一致
+     */
+    void markDirty() {
+        resolvePendingCount();
+        modificationCount.incrementAndGet();
+    }
+
+    /**
+     * 生成已构建查询（以及引用本查询的外层查询）尚未生成的计数查询
+     */
+    private void resolvePendingCount() {
+        BuiltQuery built = builtQuery;
+        if (built != null && !built.query.isCountQueryResolved()) {
+            built.query.getCountSql();
+        }
+        for (StandardCriterion<?> dependent : dependentQueries) {
+            dependent.resolvePendingCount();
+        }
+    }
+
+    /**
+     * 登记嵌套子查询（FROM/WHERE 中引用的 StandardCriterion），子查询修改后本查询同样失效
+     */
+    void addNestedQuery(StandardCriterion<?> nested) {
+        if (nested != null && nested != this && !nestedQueries.contains(nested)) {
+            markDirty();
+            nestedQueries.add(nested);
+            nested.dependentQueries.add(this);
+        }
+    }
+
+    /**
+     * 查询状态版本号：自身修改次数加上所有嵌套子查询的版本号，任一修改都会使其增大
+     */
+    private long stateVersion() {
+        long version = modificationCount.get();
+        for (StandardCriterion<?> nested : nestedQueries) {
+            version += nested.stateVersion();
+        }
+        return version;
+    }
+
     // ==================== 子查询构建 ====================
     // 已移动到select子句中实现
     /*@Override
@@ -355,25 +435,52 @@ public class StandardCriterion<T> implements Criterion<T> {
         if (queryExecutor == null) {
             throw new IllegalStateException("查询执行器未设置");
         }
-        
-        // 如果启用了缓存，先尝试从缓存获取
-        if (CriterionConfigManager.isCacheEnabled()) {
-            QueryCache cache = getQueryCache();
-            if (cache != null) {
-                String cacheKey = generateCacheKey("findList");
-                @SuppressWarnings("unchecked")
-                List<T> cachedResult = cache.get(cacheKey, List.class);
-                if (cachedResult != null) {
-                    logger.debug("从缓存获取查询结果: cacheKey={}", cacheKey);
-                    return cachedResult;
-                }
-            }
+        QueryBuilder queryResult = buildQuery();
+        QueryCache cache = isQueryCacheUsable() ? getQueryCache() : null;
+        if (cache == null || !cache.isEnabled()) {
+            return tracked(executeFindList(queryResult));
         }
-        
+        // 同一缓存键的并发未命中只执行一次查询；加载器持有本次构建结果，后台刷新不受之后修改条件的影响
+        String cacheKey = generateCacheKey("findList");
+        Set<String> tables = getReferencedTables();
+        @SuppressWarnings("unchecked")
+        List<T> result = cache.getOrLoad(cacheKey, List.class, resolveCacheTtl(300000), new CacheLoader<List>() { // 全局缓存5分钟TTL
+            @Override
+            public List load() {
+                return executeFindList(queryResult);
+            }
+
+            @Override
+            public TableDependency captureDependency() {
+                return TableDependency.capture(tables);
+            }
+
+            @Override
+            public boolean isCacheable(List value) {
+                return value != null && !value.isEmpty();
+            }
+        });
+        return tracked(result);
+    }
+
+    /**
+     * 为跟踪变更的实体保存快照（见 {@link ChangeTracker}）
+     */
+    private List<T> tracked(List<T> result) {
+        ChangeTracker.trackAll(result);
+        return result;
+    }
+
+    /**
+     * 执行列表查询
+     *
+     * @param queryResult 构建结果
+     * @return 查询结果
+     */
+    private List<T> executeFindList(QueryBuilder queryResult) {
         // 开始性能监控
         String contextId = startPerformanceMonitoring();
         try {
-            QueryBuilder queryResult = buildQuery();
             if(logger.isDebugEnabled()){
                 logger.debug("-------------------------------------");
                 logger.debug("findList->SQL : {}", queryResult.getSql());
@@ -389,27 +496,15 @@ public class StandardCriterion<T> implements Criterion<T> {
                 @SuppressWarnings("unchecked")
                 RowMapper<T> typedRowMapper = customRowMapper;
                 @SuppressWarnings("unchecked")
-                Class<T> typedResultType = (Class<T>) customResultType;
+                Class<T> typedResultType = customResultType != null ? (Class<T>) customResultType : entityClass;
                 result = queryExecutor.executeQuery(queryResult.getSql(), queryResult.getParameters(), typedResultType, typedRowMapper);
             } else {
                 // 使用默认的ResultSetMapper
-                @SuppressWarnings("unchecked")
-                DefaultRowMapper typedDefaultMapper = defaultMapper;
-                result = queryExecutor.executeQuery(queryResult.getSql(), queryResult.getParameters(), entityClass, typedDefaultMapper);
+                result = queryExecutor.executeQuery(queryResult.getSql(), queryResult.getParameters(), entityClass, defaultMapper);
             }
             
             // 结束性能监控
             endPerformanceMonitoring(contextId, true, result != null ? result.size() : 0);
-            
-            // 如果启用了缓存，存储结果到缓存
-            if (CriterionConfigManager.isCacheEnabled() && result != null && !result.isEmpty()) {
-                QueryCache cache = getQueryCache();
-                if (cache != null) {
-                    String cacheKey = generateCacheKey("findList");
-                    cache.put(cacheKey, result, 300000); // 5分钟TTL
-                    logger.debug("查询结果已缓存: cacheKey={}, resultSize={}", cacheKey, result.size());
-                }
-            }
             return result;
         } catch (Exception e) {
             // 记录性能监控错误
@@ -429,28 +524,43 @@ public class StandardCriterion<T> implements Criterion<T> {
         if (queryExecutor == null) {
             throw new IllegalStateException("查询执行器未设置，请先设置数据源或执行器");
         }
-        
-        // 如果启用了缓存，先尝试从缓存获取
-        if (CriterionConfigManager.isCacheEnabled()) {
-            QueryCache cache = getQueryCache();
-            if (cache != null) {
-                String cacheKey = generateCacheKey("count");
-                Long cachedResult = cache.get(cacheKey, Long.class);
-                if (cachedResult != null) {
-                    logger.debug("从缓存获取计数结果: cacheKey={}, count={}", cacheKey, cachedResult);
-                    return cachedResult;
-                }
-            }
+        QueryBuilder queryResult = buildQuery();
+        QueryCache cache = isQueryCacheUsable() ? getQueryCache() : null;
+        if (cache == null || !cache.isEnabled()) {
+            return executeCount(queryResult);
         }
-        
+        // 同一缓存键的并发未命中只执行一次计数查询；加载器持有本次构建结果，
+        // 其计数查询在条件修改之前生成（见 markDirty），后台刷新不受之后修改条件的影响
+        String cacheKey = generateCacheKey("count");
+        Set<String> tables = getReferencedTables();
+        Long result = cache.getOrLoad(cacheKey, Long.class, resolveCacheTtl(60000), new CacheLoader<Long>() { // 全局缓存1分钟TTL
+            @Override
+            public Long load() {
+                return executeCount(queryResult);
+            }
+
+            @Override
+            public TableDependency captureDependency() {
+                return TableDependency.capture(tables);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 执行计数查询
+     *
+     * @param queryResult 构建结果
+     * @return 计数结果
+     */
+    private long executeCount(QueryBuilder queryResult) {
         // 开始性能监控
         String contextId = startPerformanceMonitoring();
         try {
-            QueryBuilder queryResult = buildQuery();
             if(logger.isDebugEnabled()){
                 logger.debug("-------------------------------------");
                 logger.debug("count->SQL : {}", queryResult.getCountSql());
-                logger.debug("count->parameters: {}", queryResult.getParameters());
+                logger.debug("count->parameters: {}", queryResult.getCountParameters());
                 logger.debug("-------------------------------------");
             }
             
@@ -459,16 +569,6 @@ public class StandardCriterion<T> implements Criterion<T> {
             
             // 结束性能监控
             endPerformanceMonitoring(contextId, true, 1); // count查询结果数量为1
-            
-            // 如果启用了缓存，存储结果到缓存
-            if (CriterionConfigManager.isCacheEnabled()) {
-                QueryCache cache = getQueryCache();
-                if (cache != null) {
-                    String cacheKey = generateCacheKey("count");
-                    cache.put(cacheKey, result, 60000); // 1分钟TTL
-                    logger.debug("计数结果已缓存: cacheKey={}, count={}", cacheKey, result);
-                }
-            }
             return result;
         } catch (Exception e) {
             // 记录性能监控错误
@@ -479,8 +579,7 @@ public class StandardCriterion<T> implements Criterion<T> {
 
     // 分页查询方法（不在接口中，但提供便利方法）
     public PaginationSupport.PaginatedResult<T> findPage(int page, int size) {
-        offsetValueRef.set((page - 1) * size);
-        limitValueRef.set(size);
+        limit((page - 1) * size, size);
         long total = count();
         List<T> list = findList();
         return new PaginatedResultImpl<>(list, total, page, size);
@@ -501,6 +600,8 @@ public class StandardCriterion<T> implements Criterion<T> {
 
     void setSubquery(StandardCriterion<?> subquery) {
         subqueryRef.set(subquery);
+        addNestedQuery(subquery);
+        markDirty();
     }
 
     // ==================== 新架构方法 ====================
@@ -512,10 +613,84 @@ public class StandardCriterion<T> implements Criterion<T> {
     /**
      * 构建查询结果
      * 使用新的架构：将子句对象设置到 QueryBuildContext，然后使用 SQLQueryResultBuilder 生成 SQL
+     * <p>
+     * 构建结果按查询状态版本缓存，子句未修改时重复调用直接返回同一结果；
+     * 计数查询延迟到首次调用 getCountSql/getCountParameters 时才生成
      */
     public QueryBuilder buildQuery() {
-        // 清空构建上下文
-        buildContext.clear();
+        BuiltQuery cached = builtQuery;
+        if (cached != null && cached.version == stateVersion()) {
+            return cached.query;
+        }
+        QueryBuilder query = doBuildQuery();
+        // 构建过程中可能自动初始化子句，取构建后的版本号
+        builtQuery = new BuiltQuery(stateVersion(), query);
+        return query;
+    }
+
+    /**
+     * 以临时的排序、分页和键集条件构建查询，构建后恢复调用方的设置
+     * 流式分割器逐页构建查询时使用，结果不参与 buildQuery 的缓存，也不在查询构建器上遗留修改
+     *
+     * @param order  临时使用的排序子句，null 表示使用当前排序
+     * @param offset 偏移量
+     * @param limit  行数
+     * @param keyset 键集分页条件，可以为 null
+     * @return 构建结果
+     */
+    QueryBuilder buildQueryWith(OrderClause<T> order, int offset, int limit, KeysetCondition keyset) {
+        OrderClause<T> originalOrder = orderClauseRef.get();
+        int originalOffset = offsetValueRef.get();
+        int originalLimit = limitValueRef.get();
+        KeysetCondition originalKeyset = keysetConditionRef.get();
+        QueryBuildContext<T> originalContext = buildContext;
+        try {
+            if (order != null) {
+                orderClauseRef.set(order);
+            }
+            offsetValueRef.set(offset);
+            limitValueRef.set(limit);
+            keysetConditionRef.set(keyset);
+            return doBuildQuery();
+        } finally {
+            orderClauseRef.set(originalOrder);
+            offsetValueRef.set(originalOffset);
+            limitValueRef.set(originalLimit);
+            keysetConditionRef.set(originalKeyset);
+            buildContext = originalContext;
+        }
+    }
+
+    /**
+     * 在当前查询条件范围内构建聚合查询：SELECT 聚合表达式 + FROM/JOIN/WHERE
+     * 分区流式查询用来探测主键的 MIN/MAX，需要在 buildQuery 或 buildQueryWith 初始化子句之后调用
+     *
+     * @param aggregate 聚合表达式，例如 MIN(t.id)
+     * @return 聚合查询的 SQL 和参数
+     */
+    QueryBuilder buildAggregateQuery(String aggregate) {
+        QueryBuildContext<T> context = new QueryBuildContext<>();
+        context.setDialect(dialect);
+        buildClauses(context);
+        if (resultBuilder == null) {
+            resultBuilder = new SQLQueryResultBuilder();
+        }
+        List<Object> parameters = new ArrayList<>();
+        StandardCriterion<?> subquery = subqueryRef.get();
+        if (subquery != null) {
+            parameters.addAll(subquery.buildQuery().getParameters());
+        }
+        SQLQueryResultBuilder.QueryResultWithParams result =
+                ((SQLQueryResultBuilder) resultBuilder).buildAggregateQueryWithParams(context, aggregate);
+        parameters.addAll(result.getParameters());
+        return new QueryBuilder(result.getSql(), null, parameters);
+    }
+
+    /**
+     * 生成查询 SQL 和参数，每次构建使用独立的构建上下文，供延迟生成计数查询使用
+     */
+    private QueryBuilder doBuildQuery() {
+        QueryBuildContext<T> context = new QueryBuildContext<>();
         
         // 🔧 自动初始化必要的子句，确保无条件查询也能正常工作
         SelectClause<T> selectClause = selectClauseRef.get();
@@ -536,14 +711,16 @@ public class StandardCriterion<T> implements Criterion<T> {
         }
         
         // 设置数据库方言
-        buildContext.setDialect(dialect);
+        context.setDialect(dialect);
         
         // 将子句对象设置到构建上下文
-        buildClauses();
+        buildClauses(context);
         
         // 设置分页信息
-        buildContext.setOffsetValue(offsetValueRef.get());
-        buildContext.setLimitValue(limitValueRef.get());
+        context.setOffsetValue(offsetValueRef.get());
+        context.setLimitValue(limitValueRef.get());
+        context.setKeysetCondition(keysetConditionRef.get());
+        buildContext = context;
         
         // 使用 SQLQueryResultBuilder 生成 SQL 和参数
         if (resultBuilder == null) {
@@ -560,43 +737,28 @@ public class StandardCriterion<T> implements Criterion<T> {
             subqueryParameters.addAll(subQueryResult.getParameters());
         }
         
-        SQLQueryResultBuilder.QueryResultWithParams queryResult = sqlBuilder.buildQueryWithParams(buildContext);
-        SQLQueryResultBuilder.QueryResultWithParams countResult = sqlBuilder.buildCountQueryWithParams(buildContext);
+        SQLQueryResultBuilder.QueryResultWithParams queryResult = sqlBuilder.buildQueryWithParams(context);
         
         // 合并子查询的参数（子查询参数放在前面，因为子查询在 FROM 子句中）
-        // 主查询和 count 查询使用相同的参数列表（因为它们有相同的 WHERE 条件和子查询）
         List<Object> allParameters = new ArrayList<>();
         allParameters.addAll(subqueryParameters);
         allParameters.addAll(queryResult.getParameters());
         
-        // 验证 count 查询的参数是否与主查询一致（应该一致，因为它们有相同的 WHERE 条件）
-        // 如果 count 查询的参数与主查询不同，需要单独处理
-        List<Object> allCountParameters = new ArrayList<>();
-        allCountParameters.addAll(subqueryParameters);
-        allCountParameters.addAll(countResult.getParameters());
-        
-        // 检查参数数量是否匹配（用于调试）
-        /*if (logger.isDebugEnabled()) {
-            logger.debug("=== Criterion 生成的SQL ===");
-            logger.debug("查询SQL：{}", queryResult.getSql());
-            logger.debug("计数SQL：{}", countResult.getSql());
-            logger.debug("子查询参数：{}", subqueryParameters);
-            logger.debug("主查询参数：{}", queryResult.getParameters());
-            logger.debug("count查询参数：{}", countResult.getParameters());
-            logger.debug("合并后参数（主查询）：{}", allParameters);
-            logger.debug("合并后参数（count查询）：{}", allCountParameters);
-            logger.debug("================================");
-        }*/
-        
-        // 使用合并后的参数（主查询和 count 查询应该使用相同的参数列表）
-        // 如果 count 查询的参数不同，需要修改 QueryBuilder 以支持独立的参数列表
-        return new QueryBuilder(queryResult.getSql(), countResult.getSql(), allParameters, allCountParameters);
+        // count 查询有相同的 WHERE 条件和子查询，但只在 count()/findPage() 需要时才生成
+        return new QueryBuilder(queryResult.getSql(), allParameters, () -> {
+            SQLQueryResultBuilder.QueryResultWithParams countResult = sqlBuilder.buildCountQueryWithParams(context);
+            List<Object> allCountParameters = new ArrayList<>();
+            allCountParameters.addAll(subqueryParameters);
+            allCountParameters.addAll(countResult.getParameters());
+            return new QueryBuilder(countResult.getSql(), null, allCountParameters);
+        });
     }
     
     /**
      * 构建子句：将各个子句对象设置到 QueryBuildContext
+     * 子查询的 SQL 和参数在 doBuildQuery 中统一构建
      */
-    private void buildClauses() {
+    private void buildClauses(QueryBuildContext<T> context) {
         // SELECT 子句
         SelectClause<T> selectClause = selectClauseRef.get();
         FromClause<T> fromClause = fromClauseRef.get();
@@ -607,45 +769,37 @@ public class StandardCriterion<T> implements Criterion<T> {
         OrderClause<T> orderClause = orderClauseRef.get();
         
         if (selectClause != null) {
-            buildContext.setSelectClause(selectClause);
+            context.setSelectClause(selectClause);
         }
         
         // FROM 子句
         if (fromClause != null) {
-            buildContext.setFromClause(fromClause);
+            context.setFromClause(fromClause);
         }
         
         // JOIN 子句
         for (JoinClause<T> joinClause : joinClauses) {
-            buildContext.addJoinClause(joinClause);
+            context.addJoinClause(joinClause);
         }
         
         // WHERE 子句
         if (whereClause != null) {
-            buildContext.setWhereClause(whereClause);
+            context.setWhereClause(whereClause);
         }
         
         // GROUP BY 子句
         if (groupClause != null) {
-            buildContext.setGroupClause(groupClause);
+            context.setGroupClause(groupClause);
         }
         
         // HAVING 子句
         if (havingClause != null) {
-            buildContext.setHavingClause(havingClause);
+            context.setHavingClause(havingClause);
         }
         
         // ORDER BY 子句
         if (orderClause != null) {
-            buildContext.setOrderClause(orderClause);
-        }
-        
-        // 处理子查询（如果有）
-        StandardCriterion<?> subquery = subqueryRef.get();
-        if (subquery != null) {
-            QueryBuilder subQueryResult = subquery.buildQuery();
-            // 子查询的参数会在 SQLQueryResultBuilder 中处理
-            // 这里可以添加子查询处理逻辑
+            context.setOrderClause(orderClause);
         }
     }
 
@@ -671,9 +825,36 @@ public class StandardCriterion<T> implements Criterion<T> {
     public Criterion<T> limit(int offset, int size) {
         offsetValueRef.set(offset);
         limitValueRef.set(size);
+        markDirty();
         return this;
     }
 
+    /**
+     * 设置键集（seek）分页条件，只返回排序位置在给定键值之后的行
+     * 排序键应与 ORDER BY 一致且组合唯一，传入 null 清除条件
+     *
+     * @param condition 键集分页条件
+     * @return 当前查询构建器
+     */
+    public Criterion<T> seekAfter(KeysetCondition condition) {
+        keysetConditionRef.set(condition);
+        markDirty();
+        return this;
+    }
+
+    /**
+     * 获取当前 ORDER BY 排序列表
+     *
+     * @return 排序列表，没有排序时返回空列表
+     */
+    public List<OrderInfo> getOrders() {
+        OrderClause<T> orderClause = orderClauseRef.get();
+        if (orderClause == null || orderClause.getClauseData() == null) {
+            return new ArrayList<>();
+        }
+        return orderClause.getClauseData().getOrders();
+    }
+
     // ==================== StreamingQueryBuilder 支持 ====================
     
     /**
@@ -690,7 +871,7 @@ public class StandardCriterion<T> implements Criterion<T> {
         // 获取 RowMapper（优先使用自定义的，否则使用默认的）
         RowMapper customRowMapper = customRowMapperRef.get();
         @SuppressWarnings("unchecked")
-        RowMapper<T> mapper = customRowMapper != null ? (RowMapper<T>) customRowMapper : (RowMapper<T>) defaultMapper;
+        RowMapper<T> mapper = customRowMapper != null ? (RowMapper<T>) customRowMapper : defaultMapper;
         
         // 使用通用实现，支持 SQL 和 NoSQL
         return new StreamingCriterionImpl<>(this, queryExecutor, mapper);
@@ -699,6 +880,7 @@ public class StandardCriterion<T> implements Criterion<T> {
     // ==================== 子句设置方法 ====================
     void setFromClause(FromClause<T> fromClause) {
         fromClauseRef.set(fromClause);
+        markDirty();
     }
 
     void addJoinClause(JoinClause<T> joinClause) {
@@ -706,10 +888,12 @@ public class StandardCriterion<T> implements Criterion<T> {
         List<JoinClause<T>> newJoinClauses = new ArrayList<>(currentJoinClauses);
         newJoinClauses.add(joinClause);
         joinClausesRef.set(newJoinClauses);
+        markDirty();
     }
 
     void setWhereClause(WhereClause<T> whereClause) {
         whereClauseRef.set(whereClause);
+        markDirty();
     }
 
     /**
@@ -728,6 +912,7 @@ public class StandardCriterion<T> implements Criterion<T> {
                     // CAS 失败，重试
                     return where(whereBuilder);
                 }
+                markDirty();
             } else {
                 newWhereClause = currentWhereClause;
             }
@@ -740,14 +925,21 @@ public class StandardCriterion<T> implements Criterion<T> {
 
     void setGroupClause(GroupClause<T> groupClause) {
         groupClauseRef.set(groupClause);
+        markDirty();
     }
 
     void setHavingClause(HavingClause<T> havingClause) {
         havingClauseRef.set(havingClause);
+        markDirty();
     }
 
     public void setOrderClause(OrderClause<T> orderClause) {
         orderClauseRef.set(orderClause);
+        markDirty();
+    }
+
+    OrderClause<T> getOrderClause() {
+        return orderClauseRef.get();
     }
 
     @Override
@@ -760,6 +952,7 @@ public class StandardCriterion<T> implements Criterion<T> {
                 // CAS 失败，重试
                 return createOrderClause();
             }
+            markDirty();
             return newOrderClause;
         }
         return currentOrderClause;
@@ -775,6 +968,7 @@ public class StandardCriterion<T> implements Criterion<T> {
                 // CAS 失败，重试
                 return createGroupClause();
             }
+            markDirty();
             return newGroupClause;
         }
         return currentGroupClause;
@@ -842,6 +1036,20 @@ public class StandardCriterion<T> implements Criterion<T> {
         return dialect;
     }
 
+    /**
+     * 获取数据源
+     */
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * 获取实体管理器（用于获取当前事务连接，可能为 null）
+     */
+    public EntityManager getEntityManager() {
+        return entityManager;
+    }
+
     /**
      * 为标识符添加引号（表名、列名）
      */
@@ -869,8 +1077,15 @@ public class StandardCriterion<T> implements Criterion<T> {
     }
 
     // ==================== 缓存支持 ====================
+    /**
+     * 获取查询使用的缓存：查询指定的区域、实体类映射的区域，否则为全局缓存
+     */
     @Override
     public QueryCache getQueryCache() {
+        CacheRegion region = getCacheRegion();
+        if (region != null) {
+            return region.getCache();
+        }
         if (queryCache == null) {
             queryCache = CriterionConfigManager.getQueryCache();
             cacheEnabled = CriterionConfigManager.isCacheEnabled();
@@ -878,8 +1093,105 @@ public class StandardCriterion<T> implements Criterion<T> {
         return queryCache;
     }
 
+    @Override
+    public Criterion<T> cacheable(String region) {
+        requireCacheRegion(region);
+        this.cacheRegion = region;
+        this.cacheTtlSet = false;
+        return this;
+    }
+
+    @Override
+    public Criterion<T> cacheable(String region, long ttl) {
+        requireCacheRegion(region);
+        this.cacheRegion = region;
+        this.cacheTtl = ttl;
+        this.cacheTtlSet = true;
+        return this;
+    }
+
+    private static void requireCacheRegion(String region) {
+        if (CriterionConfigManager.getCacheRegion(region) == null) {
+            throw new IllegalArgumentException("缓存区域未注册: " + region);
+        }
+    }
+
+    /**
+     * 获取查询使用的缓存区域
+     *
+     * @return 缓存区域，使用全局缓存时返回 null
+     */
+    private CacheRegion getCacheRegion() {
+        String region = cacheRegion != null ? cacheRegion : CriterionConfigManager.getEntityCacheRegion(entityClass);
+        return CriterionConfigManager.getCacheRegion(region);
+    }
+
+    /**
+     * 确定缓存 TTL：查询指定的 TTL，其次为区域的默认 TTL，使用全局缓存时为各操作的默认值
+     *
+     * @param globalTtl 使用全局缓存时的 TTL（毫秒）
+     * @return TTL（毫秒）
+     */
+    private long resolveCacheTtl(long globalTtl) {
+        if (cacheTtlSet) {
+            return cacheTtl;
+        }
+        CacheRegion region = getCacheRegion();
+        return region != null ? region.getDefaultTtl() : globalTtl;
+    }
+
+    /**
+     * 获取查询读取的表（FROM、JOIN 以及嵌套子查询），用于查询缓存按表失效
+     * 包含原始 SQL 子查询时集合中有 {@link TableDependency#ANY_TABLE}
+     *
+     * @return 表名集合
+     */
+    public Set<String> getReferencedTables() {
+        Set<String> tables = new LinkedHashSet<>();
+        collectReferencedTables(tables);
+        return tables;
+    }
+
+    private void collectReferencedTables(Set<String> tables) {
+        FromClause<T> fromClause = fromClauseRef.get();
+        if (fromClause instanceof ClauseBuilder) {
+            ((ClauseBuilder<?>) fromClause).collectTables(tables);
+        } else {
+            tables.add(EntityUtils.getTableName(entityClass));
+        }
+        for (JoinClause<T> joinClause : joinClausesRef.get()) {
+            if (joinClause instanceof ClauseBuilder) {
+                ((ClauseBuilder<?>) joinClause).collectTables(tables);
+            }
+        }
+        WhereClause<T> whereClause = whereClauseRef.get();
+        if (whereClause instanceof ClauseBuilder) {
+            ((ClauseBuilder<?>) whereClause).collectTables(tables);
+        }
+        for (StandardCriterion<?> nested : nestedQueries) {
+            nested.collectReferencedTables(tables);
+        }
+    }
+
+    /**
+     * 查询缓存是否可用：已启用，且当前事务中没有未提交的写操作
+     */
+    private boolean isQueryCacheUsable() {
+        if (getCacheRegion() == null && !CriterionConfigManager.isCacheEnabled()) {
+            return false;
+        }
+        EntityTransaction transaction = entityManager != null ? entityManager.getCurrentTransaction() : null;
+        return transaction == null || !transaction.hasPendingWrites();
+    }
+
     @Override
     public Criterion setRowMapper(RowMapper rowMapper) {
+        if (rowMapper instanceof DefaultRowMapper) {
+            // DefaultRowMapper 及其子类（如 BytecodeRowMapper）需要方言和表别名才能映射实体
+            DefaultRowMapper<?> mapper = (DefaultRowMapper<?>) rowMapper;
+            mapper.setDialect(dialect);
+            mapper.register(entityClass, EntityUtils.getTableName(entityClass));
+        }
         customRowMapperRef.set(rowMapper);
         //this.customResultType = getRowMapperResultType(rowMapper);
         return this;
@@ -894,44 +1206,15 @@ public class StandardCriterion<T> implements Criterion<T> {
 
     /**
      * 生成缓存键
-     * 使用MD5哈希算法避免哈希冲突
+     * SQL 和参数按类型计算 128 位哈希，见 {@link QueryKeyHasher}
      *
      * @param operation 操作类型
      * @return 缓存键
      */
     private String generateCacheKey(String operation) {
-        StringBuilder keyBuilder = new StringBuilder();
-        keyBuilder.append("querybuilder:").append(entityClass.getSimpleName().toLowerCase());
-        keyBuilder.append(":").append(operation);
-        
-        // 使用MD5获得更好的哈希分布，避免哈希冲突
-        try {
-            java.security.MessageDigest md = java.security.MessageDigest.getInstance("MD5");
-            // 添加SQL
-            md.update(getGeneratedSql().getBytes(java.nio.charset.StandardCharsets.UTF_8));
-            // 添加参数（从构建的查询中获取）
-            QueryBuilder queryBuilder = buildQuery();
-            if (queryBuilder.getParameters() != null && !queryBuilder.getParameters().isEmpty()) {
-                for (Object param : queryBuilder.getParameters()) {
-                    md.update(String.valueOf(param).getBytes(java.nio.charset.StandardCharsets.UTF_8));
-                }
-            }
-            byte[] digest = md.digest();
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : digest) {
-                hexString.append(String.format("%02x", b));
-            }
-            keyBuilder.append(":").append(hexString.toString());
-        } catch (Exception e) {
-            // 如果MD5失败，回退到更简单的方法
-            logger.warn("生成MD5哈希失败，使用简单方法: {}", e.getMessage());
-            keyBuilder.append(":").append(getGeneratedSql());
-            QueryBuilder queryBuilder = buildQuery();
-            if (queryBuilder.getParameters() != null) {
-                keyBuilder.append(":").append(queryBuilder.getParameters());
-            }
-        }
-        return keyBuilder.toString();
+        QueryBuilder queryBuilder = buildQuery();
+        String prefix = "querybuilder:" + entityClass.getSimpleName().toLowerCase() + ":" + operation;
+        return QueryKeyHasher.cacheKey(prefix, queryBuilder.getSql(), queryBuilder.getParameters());
     }
 
     /**
@@ -987,4 +1270,17 @@ public class StandardCriterion<T> implements Criterion<T> {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 已构建的查询及其对应的查询状态版本号
+     */
+    private static final class BuiltQuery {
+        private final long version;
+        private final QueryBuilder query;
+
+        BuiltQuery(long version, QueryBuilder query) {
+            this.version = version;
+            this.query = query;
+        }
+    }
+}
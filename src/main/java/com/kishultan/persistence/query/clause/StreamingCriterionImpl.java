@@ -54,6 +54,33 @@ public class StreamingCriterionImpl<T> implements StreamingCriterion<T> {
         );
     }
 
+    @Override
+    public Stream<T> streamCursor() {
+        return streamCursor(StreamingCriterionConfig.DEFAULT_FETCH_SIZE);
+    }
+
+    @Override
+    public Stream<T> streamCursor(int fetchSize) {
+        if (!(criterion instanceof StandardCriterion)) {
+            throw new UnsupportedOperationException("游标流式查询仅支持 SQL 查询构建器");
+        }
+        CursorStreamingQuerySpliterator<T> spliterator =
+                new CursorStreamingQuerySpliterator<>((StandardCriterion<T>) criterion, rowMapper, fetchSize);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    @Override
+    public Stream<T> streamWithPrefetch(int batchSize) {
+        return streamWithPrefetch(batchSize, StreamingCriterionConfig.DEFAULT_PREFETCH_DEPTH);
+    }
+
+    @Override
+    public Stream<T> streamWithPrefetch(int batchSize, int prefetchDepth) {
+        StreamingQuerySpliterator<T> spliterator = new StreamingQuerySpliterator<>(criterion, queryExecutor, rowMapper,
+                batchSize, StreamingCriterionConfig.normalizePrefetchDepth(prefetchDepth), null);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
     // ==================== 分页流式查询 ====================
     @Override
     public Stream<T> streamWithPagination(int pageSize) {
@@ -68,6 +95,22 @@ public class StreamingCriterionImpl<T> implements StreamingCriterion<T> {
         );
     }
 
+    @Override
+    public Stream<T> streamWithKeyset() {
+        return streamWithKeyset(StreamingCriterionConfig.DEFAULT_PAGE_SIZE);
+    }
+
+    @Override
+    public Stream<T> streamWithKeyset(int pageSize) {
+        if (!(criterion instanceof StandardCriterion)) {
+            throw new UnsupportedOperationException("键集分页仅支持 SQL 查询构建器");
+        }
+        return StreamSupport.stream(
+                new KeysetStreamingQuerySpliterator<>((StandardCriterion<T>) criterion, queryExecutor, rowMapper, pageSize),
+                false
+        );
+    }
+
     // ==================== 流式处理 ====================
     @Override
     public void streamForEach(Consumer<T> processor) {
@@ -167,7 +210,11 @@ public class StreamingCriterionImpl<T> implements StreamingCriterion<T> {
 
     @Override
     public Stream<T> streamWithMonitoring(StreamingQueryMetrics metrics, int batchSize) {
-        return stream(batchSize)
+        StreamingQueryMetricsImpl metricsImpl = metrics instanceof StreamingQueryMetricsImpl
+                ? (StreamingQueryMetricsImpl) metrics : null;
+        StreamingQuerySpliterator<T> spliterator = new StreamingQuerySpliterator<>(criterion, queryExecutor, rowMapper,
+                batchSize, 0, metricsImpl);
+        return StreamSupport.stream(spliterator, false)
                 .peek(item -> {
                     if (metrics instanceof StreamingQueryMetricsImpl) {
                         ((StreamingQueryMetricsImpl) metrics).incrementProcessedCount();
@@ -175,6 +222,7 @@ public class StreamingCriterionImpl<T> implements StreamingCriterion<T> {
                     }
                 })
                 .onClose(() -> {
+                    spliterator.close();
                     if (metrics instanceof StreamingQueryMetricsImpl) {
                         ((StreamingQueryMetricsImpl) metrics).setCompleted(true);
                     }
@@ -214,11 +262,14 @@ public class StreamingCriterionImpl<T> implements StreamingCriterion<T> {
 
     @Override
     public Stream<T> streamParallel(int batchSize, int parallelism) {
-        return stream(batchSize)
-                .parallel()
-                .onClose(() -> {
-                    // 清理并行处理资源
-                });
+        if (!(criterion instanceof StandardCriterion)) {
+            return stream(batchSize).parallel();
+        }
+        int partitions = Math.max(StreamingCriterionConfig.MIN_PARALLELISM,
+                Math.min(parallelism, StreamingCriterionConfig.MAX_PARALLELISM));
+        PartitionedStreamingQuerySpliterator<T> spliterator = new PartitionedStreamingQuerySpliterator<>(
+                (StandardCriterion<T>) criterion, queryExecutor, rowMapper, batchSize, partitions);
+        return StreamSupport.stream(spliterator, true).onClose(spliterator::close);
     }
 }
 
@@ -18,6 +18,7 @@ public class StreamingQueryMetricsImpl implements StreamingQueryMetrics {
     private final AtomicBoolean completed = new AtomicBoolean(false);
     private final AtomicLong currentBatchSize = new AtomicLong(0);
     private final AtomicLong currentOffset = new AtomicLong(0);
+    private final AtomicLong stallTime = new AtomicLong(0);
 
     // ==================== 基础指标 ====================
     @Override
@@ -92,6 +93,11 @@ public class StreamingQueryMetricsImpl implements StreamingQueryMetrics {
         return completed.get();
     }
 
+    @Override
+    public long getStallTime() {
+        return stallTime.get();
+    }
+
     /**
      * 设置完成状态
      *
@@ -113,6 +119,7 @@ public class StreamingQueryMetricsImpl implements StreamingQueryMetrics {
         completed.set(false);
         currentBatchSize.set(0);
         currentOffset.set(0);
+        stallTime.set(0);
     }
 
     @Override
@@ -154,4 +161,13 @@ public class StreamingQueryMetricsImpl implements StreamingQueryMetrics {
         this.currentBatchSize.set(batchSize);
         this.currentOffset.set(offset);
     }
+
+    /**
+     * 累加等待批次数据的时间
+     *
+     * @param millis 本次等待时间（毫秒）
+     */
+    public void addStallTime(long millis) {
+        stallTime.addAndGet(millis);
+    }
 }
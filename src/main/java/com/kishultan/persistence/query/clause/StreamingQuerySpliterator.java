@@ -1,32 +1,55 @@
 package com.kishultan.persistence.query.clause;
 
+import com.kishultan.persistence.EntityManager;
+import com.kishultan.persistence.EntityTransaction;
 import com.kishultan.persistence.query.Criterion;
 import com.kishultan.persistence.query.RowMapper;
 import com.kishultan.persistence.query.context.QueryBuilder;
 import com.kishultan.persistence.query.executor.QueryExecutor;
 
+import java.lang.ref.WeakReference;
+import java.util.Collections;
 import java.util.List;
 import java.util.Spliterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
  * 通用流式查询分割器
  * 支持 SQL 和 NoSQL 数据库
  * 基于 QueryExecutor 和 RowMapper 的统一接口
+ * <p>
+ * 预取模式（prefetchDepth &gt; 0）下由后台线程提前加载并映射后续批次，
+ * 最多缓存 prefetchDepth 个批次，队列满时后台线程阻塞等待消费（背压）。
+ * 后台线程只弱引用分割器，流未关闭就被丢弃时，分割器被回收后线程在下一次等待超时时退出
  *
  * @param <T> 实体类型
  */
 public class StreamingQuerySpliterator<T> implements Spliterator<T> {
+    /** 预取队列结束标记 */
+    private static final Object END_OF_STREAM = new Object();
+    /** 后台线程写入队列时检查关闭状态的间隔（毫秒） */
+    private static final long OFFER_INTERVAL_MILLIS = 100;
+
     private final Criterion<T> criterion;
-    private final QueryExecutor<T> queryExecutor;
-    private final RowMapper<T> rowMapper;
+    private final BatchSource<T> source;
     private final int batchSize;
+    private final int prefetchDepth;
+    private final StreamingQueryMetricsImpl metrics;
     private List<T> currentBatch;
     private int currentIndex;
-    private boolean hasMoreData;
-    private boolean closed = false;
+    private volatile boolean hasMoreData;
+    private volatile boolean closed = false;
     private boolean initialized = false;
-    private int totalLoaded = 0; // 已加载的总数
+    private ExecutorService prefetchExecutor;
+    private Future<?> prefetchTask;
+    private PrefetchLoader<T> prefetchLoader;
+    private BlockingQueue<Object> prefetchQueue;
 
     /**
      * 构造函数
@@ -40,10 +63,30 @@ public class StreamingQuerySpliterator<T> implements Spliterator<T> {
                                      QueryExecutor<T> queryExecutor,
                                      RowMapper<T> rowMapper,
                                      int batchSize) {
+        this(criterion, queryExecutor, rowMapper, batchSize, 0, null);
+    }
+
+    /**
+     * 构造函数（支持预取和指标收集）
+     *
+     * @param criterion     查询构建器
+     * @param queryExecutor 查询执行器（支持 SQL 和 NoSQL）
+     * @param rowMapper     结果集映射器（支持 DefaultRowMapper 和 DocumentRowMapper）
+     * @param batchSize     批次大小
+     * @param prefetchDepth 预取深度，0 表示同步加载
+     * @param metrics       指标收集器，可为 null
+     */
+    public StreamingQuerySpliterator(Criterion<T> criterion,
+                                     QueryExecutor<T> queryExecutor,
+                                     RowMapper<T> rowMapper,
+                                     int batchSize,
+                                     int prefetchDepth,
+                                     StreamingQueryMetricsImpl metrics) {
         this.criterion = criterion;
-        this.queryExecutor = queryExecutor;
-        this.rowMapper = rowMapper;
+        this.source = new BatchSource<>(criterion, queryExecutor, rowMapper, batchSize, metrics);
         this.batchSize = batchSize;
+        this.prefetchDepth = prefetchDepth;
+        this.metrics = metrics;
         this.currentIndex = 0;
         this.hasMoreData = true;
         // 延迟初始化，避免在构造函数中执行数据库操作
@@ -57,41 +100,79 @@ public class StreamingQuerySpliterator<T> implements Spliterator<T> {
             return;
         }
         initialized = true;
+        if (prefetchDepth > 0 && !inTransaction()) {
+            startPrefetch();
+        }
         // 加载第一批数据
-        loadNextBatch();
+        nextBatch();
     }
 
     /**
-     * 加载下一批数据
+     * 事务连接绑定在当前线程，事务中不使用后台预取
      */
-    private void loadNextBatch() {
-        if (closed) {
-            return;
+    private boolean inTransaction() {
+        if (!(criterion instanceof StandardCriterion)) {
+            return false;
         }
-        try {
-            // 计算当前偏移量（基于已加载的总数）
-            int offset = totalLoaded;
-            
-            // 创建分页查询（使用 limit 实现批次读取）
-            Criterion<T> paginatedQuery = criterion.limit(offset, batchSize);
-            
-            // 构建查询
-            QueryBuilder queryResult = ((StandardCriterion<T>) paginatedQuery).buildQuery();
-            
-            // 执行查询
-            List<T> results = queryExecutor.executeQuery(
-                queryResult.getSql(),
-                queryResult.getParameters(),
-                ((StandardCriterion<T>) criterion).getEntityClass(),
-                rowMapper
-            );
-            
-            currentBatch = results;
-            hasMoreData = results.size() == batchSize;
-            currentIndex = 0;
-            totalLoaded += results.size();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to load batch data", e);
+        EntityManager entityManager = ((StandardCriterion<T>) criterion).getEntityManager();
+        if (entityManager == null) {
+            return false;
+        }
+        EntityTransaction transaction = entityManager.getCurrentTransaction();
+        return transaction != null && transaction.isActive();
+    }
+
+    /**
+     * 启动后台预取线程
+     * 查询构建器只在后台线程上使用，避免与消费线程并发构建
+     */
+    private void startPrefetch() {
+        prefetchQueue = new ArrayBlockingQueue<>(prefetchDepth);
+        prefetchLoader = new PrefetchLoader<>(this, source, prefetchQueue, batchSize);
+        prefetchExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "streaming-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        prefetchTask = prefetchExecutor.submit(prefetchLoader);
+        // 任务结束后线程随之退出，不依赖 close() 回收线程
+        prefetchExecutor.shutdown();
+    }
+
+    /**
+     * 切换到下一批数据（同步加载或从预取队列获取），并记录等待时间
+     */
+    @SuppressWarnings("unchecked")
+    private void nextBatch() {
+        long start = System.nanoTime();
+        if (prefetchQueue == null) {
+            currentBatch = closed ? Collections.<T>emptyList() : source.next();
+            hasMoreData = currentBatch.size() == batchSize;
+        } else {
+            Object item;
+            try {
+                item = prefetchQueue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new RuntimeException("Interrupted while waiting for prefetched batch", e);
+            }
+            if (item == END_OF_STREAM) {
+                currentBatch = Collections.emptyList();
+                hasMoreData = false;
+            } else if (item instanceof Throwable) {
+                close();
+                Throwable error = (Throwable) item;
+                throw error instanceof RuntimeException ? (RuntimeException) error
+                        : new RuntimeException("Failed to load batch data", error);
+            } else {
+                currentBatch = (List<T>) item;
+                hasMoreData = currentBatch.size() == batchSize;
+            }
+        }
+        currentIndex = 0;
+        if (metrics != null) {
+            metrics.addStallTime(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
         }
     }
 
@@ -100,15 +181,15 @@ public class StreamingQuerySpliterator<T> implements Spliterator<T> {
         if (closed) {
             return false;
         }
-        
+
         // 延迟初始化查询
         if (!initialized) {
             initializeQuery();
         }
-        
+
         if (currentIndex >= currentBatch.size()) {
             if (hasMoreData) {
-                loadNextBatch();
+                nextBatch();
                 if (currentBatch.isEmpty()) {
                     close();
                     return false;
@@ -118,7 +199,7 @@ public class StreamingQuerySpliterator<T> implements Spliterator<T> {
                 return false;
             }
         }
-        
+
         action.accept(currentBatch.get(currentIndex++));
         return true;
     }
@@ -142,13 +223,145 @@ public class StreamingQuerySpliterator<T> implements Spliterator<T> {
 
     /**
      * 关闭资源
+     * 预取模式下中断后台线程并丢弃已预取的批次
      */
     public void close() {
         if (closed) {
             return;
         }
         closed = true;
+        if (prefetchLoader != null) {
+            prefetchLoader.stop();
+        }
+        if (prefetchTask != null) {
+            prefetchTask.cancel(true);
+        }
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdownNow();
+        }
+        if (prefetchQueue != null) {
+            prefetchQueue.clear();
+        }
         // QueryExecutor 会自动管理资源，这里不需要手动关闭
     }
-}
 
+    /**
+     * 按 LIMIT/OFFSET 逐批读取数据，记录已读取的行数
+     * 同步模式下由消费线程调用，预取模式下只由后台线程调用
+     */
+    private static final class BatchSource<T> {
+        private final Criterion<T> criterion;
+        private final QueryExecutor<T> queryExecutor;
+        private final RowMapper<T> rowMapper;
+        private final int batchSize;
+        private final StreamingQueryMetricsImpl metrics;
+        private int totalLoaded = 0; // 已加载的总数
+
+        BatchSource(Criterion<T> criterion, QueryExecutor<T> queryExecutor, RowMapper<T> rowMapper,
+                    int batchSize, StreamingQueryMetricsImpl metrics) {
+            this.criterion = criterion;
+            this.queryExecutor = queryExecutor;
+            this.rowMapper = rowMapper;
+            this.batchSize = batchSize;
+            this.metrics = metrics;
+        }
+
+        /**
+         * 加载下一批数据
+         */
+        List<T> next() {
+            try {
+                // 计算当前偏移量（基于已加载的总数）
+                int offset = totalLoaded;
+
+                // 创建分页查询（使用 limit 实现批次读取）
+                Criterion<T> paginatedQuery = criterion.limit(offset, batchSize);
+
+                // 构建查询
+                QueryBuilder queryResult = ((StandardCriterion<T>) paginatedQuery).buildQuery();
+
+                // 执行查询
+                List<T> results = queryExecutor.executeQuery(
+                    queryResult.getSql(),
+                    queryResult.getParameters(),
+                    ((StandardCriterion<T>) criterion).getEntityClass(),
+                    rowMapper
+                );
+
+                totalLoaded += results.size();
+                if (metrics != null) {
+                    metrics.updateBatchInfo(results.size(), offset);
+                }
+                return results;
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to load batch data", e);
+            }
+        }
+    }
+
+    /**
+     * 后台预取任务
+     * 只弱引用所属的分割器：流未关闭就被丢弃时，分割器被回收后在下一次写入等待超时时退出，
+     * 不会一直持有线程和已加载的批次
+     */
+    private static final class PrefetchLoader<T> implements Runnable {
+        private final WeakReference<StreamingQuerySpliterator<T>> owner;
+        private final BatchSource<T> source;
+        private final BlockingQueue<Object> queue;
+        private final int batchSize;
+        private volatile boolean stopped;
+
+        PrefetchLoader(StreamingQuerySpliterator<T> owner, BatchSource<T> source,
+                       BlockingQueue<Object> queue, int batchSize) {
+            this.owner = new WeakReference<>(owner);
+            this.source = source;
+            this.queue = queue;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void run() {
+            try {
+                boolean more = true;
+                while (more && isActive()) {
+                    List<T> batch = source.next();
+                    more = batch.size() == batchSize;
+                    if (!offer(batch)) {
+                        return;
+                    }
+                }
+                offer(END_OF_STREAM);
+            } catch (Throwable e) {
+                offer(e);
+            }
+        }
+
+        /**
+         * 写入预取队列，队列满时等待（背压），关闭或分割器被回收后放弃
+         */
+        private boolean offer(Object item) {
+            try {
+                while (isActive()) {
+                    if (queue.offer(item, OFFER_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!stopped) {
+                // 分割器已被回收，丢弃已预取的批次
+                queue.clear();
+            }
+            return false;
+        }
+
+        private boolean isActive() {
+            return !stopped && owner.get() != null;
+        }
+
+        void stop() {
+            stopped = true;
+        }
+    }
+}
@@ -6,13 +6,16 @@ import com.kishultan.persistence.query.AbstractClause;
 import com.kishultan.persistence.query.ClauseBuilder;
 import com.kishultan.persistence.query.Criterion;
 import com.kishultan.persistence.query.WhereClause;
+import com.kishultan.persistence.query.cache.TableDependency;
 import com.kishultan.persistence.query.context.*;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 
 /**
@@ -20,7 +23,7 @@ import java.util.function.Consumer;
  * 使用新的架构：存储条件信息，通过 buildClause() 方法生成SQL
  */
 public class WhereClauseImpl<T> extends AbstractClause<T> implements WhereClause<T>, ClauseBuilder<T>, ClauseData {
-    private final List<Object> conditions = new ArrayList<>();
+    private final List<Object> conditions = DirtyTrackingList.of(criterion);
     private boolean hasCondition = false;
     private String logicalOperator = "AND"; // 条件的逻辑操作符
 
@@ -199,6 +202,7 @@ public class WhereClauseImpl<T> extends AbstractClause<T> implements WhereClause
         for (Object value : values) {
             if (value instanceof Criterion) {
                 // QueryBuilder形式的子查询
+                trackSubquery((Criterion<?>) value);
                 addCondition(column, "IN_QUERYBUILDER", values);
                 return this;
             }
@@ -242,6 +246,7 @@ public class WhereClauseImpl<T> extends AbstractClause<T> implements WhereClause
         for (Object value : values) {
             if (value instanceof Criterion) {
                 // QueryBuilder形式的子查询
+                trackSubquery((Criterion<?>) value);
                 addCondition(column, "NOT IN_QUERYBUILDER", values);
                 return this;
             }
@@ -466,6 +471,7 @@ public class WhereClauseImpl<T> extends AbstractClause<T> implements WhereClause
     @Override
     public WhereClause<T> in(String column, Criterion<?> subQuery) {
         // 处理子查询
+        trackSubquery(subQuery);
         conditions.add(new ConditionInfo(null, column, "IN", subQuery, logicalOperator));
         hasCondition = true;
         return this;
@@ -484,11 +490,21 @@ public class WhereClauseImpl<T> extends AbstractClause<T> implements WhereClause
     @Override
     public WhereClause<T> notIn(String column, Criterion<?> subQuery) {
         // TODO: 实现子查询的SQL生成
+        trackSubquery(subQuery);
         conditions.add(new ConditionInfo(null, column, "NOT IN", subQuery, logicalOperator));
         hasCondition = true;
         return this;
     }
 
+    /**
+     * 登记嵌套子查询，子查询修改后外层已构建的查询随之失效
+     */
+    private void trackSubquery(Criterion<?> subQuery) {
+        if (criterion instanceof StandardCriterion && subQuery instanceof StandardCriterion) {
+            ((StandardCriterion<T>) criterion).addNestedQuery((StandardCriterion<?>) subQuery);
+        }
+    }
+
     // ==================== 新架构方法 ====================
     @Override
     public ClauseResult buildClause() {
@@ -615,6 +631,109 @@ public class WhereClauseImpl<T> extends AbstractClause<T> implements WhereClause
         return new ClauseResult(sql.toString(), parameters);
     }
 
+    @Override
+    public boolean appendShape(List<Object> shape) {
+        shape.add("WHERE");
+        shape.add(conditions.size());
+        for (Object element : conditions) {
+            if (element instanceof GroupCondition) {
+                GroupCondition group = (GroupCondition) element;
+                shape.add(group.getGroupType());
+                shape.add(group.getGroupOperator());
+            } else if (element instanceof ConditionInfo) {
+                ConditionInfo condition = (ConditionInfo) element;
+                String operator = condition.getOperator();
+                Object value = condition.getValue();
+                // Criterion 子查询的 SQL 随子查询本身变化，不参与模板缓存
+                if (value instanceof Criterion || operator.endsWith("_QUERYBUILDER")) {
+                    return false;
+                }
+                shape.add(condition.getTableName());
+                shape.add(condition.getColumn());
+                shape.add(operator);
+                shape.add(condition.getLogicalOperator());
+                if (operator.equals("IN") || operator.equals("NOT IN")) {
+                    // IN 列表长度决定占位符个数
+                    shape.add(value instanceof Object[] ? ((Object[]) value).length
+                            : value instanceof Collection ? ((Collection<?>) value).size() : -1);
+                } else if (operator.equals("IN_SUBQUERY")) {
+                    shape.add(value);
+                }
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void collectParameters(List<Object> parameters) {
+        for (Object element : conditions) {
+            if (!(element instanceof ConditionInfo)) {
+                continue;
+            }
+            ConditionInfo condition = (ConditionInfo) element;
+            String operator = condition.getOperator();
+            Object value = condition.getValue();
+            if (operator.equals("IN") || operator.equals("NOT IN")) {
+                if (value instanceof StandardCriterion) {
+                    parameters.addAll(((StandardCriterion<?>) value).buildQuery().getParameters());
+                } else if (value instanceof Object[]) {
+                    Collections.addAll(parameters, (Object[]) value);
+                } else if (value instanceof Collection) {
+                    parameters.addAll((Collection<?>) value);
+                } else if (!(value instanceof Criterion)) {
+                    parameters.add(value);
+                }
+            } else if (operator.equals("IN_QUERYBUILDER")) {
+                for (Object item : (Object[]) value) {
+                    if (item instanceof Criterion) {
+                        if (item instanceof StandardCriterion) {
+                            parameters.addAll(((StandardCriterion<?>) item).buildQuery().getParameters());
+                        }
+                        break;
+                    }
+                }
+            } else if (operator.equals("BETWEEN") || operator.equals("NOT BETWEEN")) {
+                Object[] values = (Object[]) value;
+                parameters.add(values[0]);
+                parameters.add(values[1]);
+            } else if (!operator.equals("IN_SUBQUERY") && !operator.equals("IS NULL")
+                    && !operator.equals("IS NOT NULL") && value != null) {
+                parameters.add(value);
+            }
+        }
+    }
+
+    @Override
+    public void collectTables(Set<String> tables) {
+        // StandardCriterion 子查询的表由嵌套子查询自身收集，原始 SQL 子查询无法得知读取的表
+        for (Object element : conditions) {
+            if (!(element instanceof ConditionInfo)) {
+                continue;
+            }
+            ConditionInfo condition = (ConditionInfo) element;
+            String operator = condition.getOperator();
+            if (operator.endsWith("_SUBQUERY") || operator.endsWith("EXISTS")
+                    || isUntrackedSubquery(condition.getValue())) {
+                tables.add(TableDependency.ANY_TABLE);
+                return;
+            }
+        }
+    }
+
+    private static boolean isUntrackedSubquery(Object value) {
+        if (value instanceof Object[]) {
+            for (Object item : (Object[]) value) {
+                if (isUntrackedSubquery(item)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return value instanceof Criterion && !(value instanceof StandardCriterion);
+    }
+
     @Override
     public String getClauseSql() {
         return buildClause().getSql();
@@ -8,6 +8,7 @@ public class CriterionConfig {
     private FieldNamingStrategyChain strategyChain = FieldNamingStrategyChain.DEFAULT;
     private Boolean warnOnMissingField = null;
     private Boolean strictMode = null;
+    private Boolean bytecodeRowMapper = null;
     
     /**
      * 获取字段命名策略链
@@ -57,6 +58,21 @@ public class CriterionConfig {
         return this;
     }
     
+    /**
+     * 是否为实体生成字节码行读取类（null表示使用全局配置）
+     */
+    public Boolean getBytecodeRowMapper() {
+        return bytecodeRowMapper;
+    }
+    
+    /**
+     * 设置是否为实体生成字节码行读取类
+     */
+    public CriterionConfig setBytecodeRowMapper(Boolean bytecode) {
+        this.bytecodeRowMapper = bytecode;
+        return this;
+    }
+    
     /**
      * 解析字段命名策略链值（考虑null值）
      */
@@ -78,6 +94,13 @@ public class CriterionConfig {
         return strictMode != null ? strictMode : GlobalConfig.strictMode;
     }
     
+    /**
+     * 解析字节码行读取类配置（考虑null值）
+     */
+    public boolean resolveBytecodeRowMapper() {
+        return bytecodeRowMapper != null ? bytecodeRowMapper : GlobalConfig.bytecodeRowMapper;
+    }
+    
     /**
      * 创建一个新配置，基于当前配置
      */
@@ -86,6 +109,7 @@ public class CriterionConfig {
         copy.strategyChain = this.strategyChain;
         copy.warnOnMissingField = this.warnOnMissingField;
         copy.strictMode = this.strictMode;
+        copy.bytecodeRowMapper = this.bytecodeRowMapper;
         return copy;
     }
     
@@ -103,6 +127,8 @@ public class CriterionConfig {
         private static volatile FieldNamingStrategyChain strategyChain = FieldNamingStrategyChain.DEFAULT;
         private static volatile boolean warnOnMissingField = true;
         private static volatile boolean strictMode = false;
+        private static volatile boolean bytecodeRowMapper = false;
+        private static volatile boolean sqlTemplateCache = true;
         
         /**
          * 获取全局字段命名策略链
@@ -149,6 +175,34 @@ public class CriterionConfig {
             strictMode = strict;
         }
         
+        /**
+         * 获取全局字节码行读取类配置
+         */
+        public static boolean isBytecodeRowMapper() {
+            return bytecodeRowMapper;
+        }
+        
+        /**
+         * 设置全局字节码行读取类配置（默认映射器对单表实体生成专用读取类）
+         */
+        public static void setBytecodeRowMapper(boolean bytecode) {
+            bytecodeRowMapper = bytecode;
+        }
+        
+        /**
+         * 获取全局 SQL 模板缓存配置
+         */
+        public static boolean isSqlTemplateCache() {
+            return sqlTemplateCache;
+        }
+        
+        /**
+         * 设置全局 SQL 模板缓存配置（结构相同的查询复用已生成的 SQL，只收集参数）
+         */
+        public static void setSqlTemplateCache(boolean enabled) {
+            sqlTemplateCache = enabled;
+        }
+        
         /**
          * 通过系统属性初始化全局配置
          */
@@ -165,6 +219,14 @@ public class CriterionConfig {
             strictMode = Boolean.parseBoolean(
                 System.getProperty("querybuilder.strict.mode", "false")
             );
+            
+            bytecodeRowMapper = Boolean.parseBoolean(
+                System.getProperty("querybuilder.bytecode.row.mapper", "false")
+            );
+            
+            sqlTemplateCache = Boolean.parseBoolean(
+                System.getProperty("querybuilder.sql.template.cache", "true")
+            );
         }
         
         /**
@@ -174,6 +236,8 @@ public class CriterionConfig {
             strategyChain = FieldNamingStrategyChain.DEFAULT;
             warnOnMissingField = true;
             strictMode = false;
+            bytecodeRowMapper = false;
+            sqlTemplateCache = true;
         }
         
         /**
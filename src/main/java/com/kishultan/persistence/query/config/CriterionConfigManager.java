@@ -1,6 +1,9 @@
 package com.kishultan.persistence.query.config;
 
 import com.kishultan.persistence.query.cache.CacheConfig;
+import com.kishultan.persistence.query.cache.CacheRegion;
+import com.kishultan.persistence.query.cache.CacheStatistics;
+import com.kishultan.persistence.query.cache.EntityCache;
 import com.kishultan.persistence.query.cache.QueryCache;
 import com.kishultan.persistence.query.cache.LRUCacheStrategy;
 import com.kishultan.persistence.query.cache.QueryCacheImpl;
@@ -10,15 +13,27 @@ import com.kishultan.persistence.query.monitor.QueryPerformanceMonitorImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * QueryBuilder配置管理器
  * 统一管理性能监控和缓存的初始化
+ * <p>
+ * 除全局查询缓存外，可注册按名称区分的缓存区域（{@link CacheRegion}），并把实体类映射到区域；
+ * 缓存区域不依赖 querybuilder.cache.enabled，注册后即生效
  */
 public class CriterionConfigManager {
     private static final Logger logger = LoggerFactory.getLogger(CriterionConfigManager.class);
+    /** 统计汇总中实体缓存（{@link EntityCache}）的区域名称 */
+    public static final String ENTITY_CACHE_REGION = "entity";
     private static volatile QueryPerformanceMonitor performanceMonitor;
     private static volatile QueryCache queryCache;
     private static volatile boolean initialized = false;
+    /** 进程退出时保存缓存快照的钩子，未配置快照文件时为 null */
+    private static Thread snapshotHook;
+    private static final Map<String, CacheRegion> cacheRegions = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, String> entityCacheRegions = new ConcurrentHashMap<>();
 
     /**
      * 初始化配置
@@ -65,8 +80,19 @@ public class CriterionConfigManager {
             String cacheEnabled = System.getProperty("querybuilder.cache.enabled", "false");
             if ("true".equalsIgnoreCase(cacheEnabled)) {
                 CacheConfig config = CacheConfig.createDefault();
+                String snapshotFile = System.getProperty("querybuilder.cache.snapshot.file");
+                if (snapshotFile != null && !snapshotFile.trim().isEmpty()) {
+                    config.setSnapshotFile(snapshotFile.trim());
+                    config.setEnableWarmUp(true);
+                }
                 LRUCacheStrategy strategy = new LRUCacheStrategy();
-                queryCache = new QueryCacheImpl(config, strategy);
+                QueryCacheImpl cache = new QueryCacheImpl(config, strategy);
+                queryCache = cache;
+                if (config.getSnapshotFile() != null) {
+                    // 进程退出时保存缓存快照，下次启动时异步载入
+                    snapshotHook = new Thread(cache::shutdown, "querybuilder-cache-snapshot");
+                    Runtime.getRuntime().addShutdownHook(snapshotHook);
+                }
                 logger.info("查询缓存已启用");
             } else {
                 logger.debug("查询缓存未启用");
@@ -96,6 +122,85 @@ public class CriterionConfigManager {
         return queryCache;
     }
 
+    /**
+     * 注册缓存区域，同名区域已存在时替换并关闭旧区域
+     *
+     * @param name   区域名称
+     * @param config 区域配置（容量、默认 TTL、淘汰策略等）
+     * @return 缓存区域
+     * @throws IllegalArgumentException 名称为保留的 {@link #ENTITY_CACHE_REGION}，或淘汰策略不支持
+     */
+    public static CacheRegion registerCacheRegion(String name, CacheConfig config) {
+        if (ENTITY_CACHE_REGION.equals(name)) {
+            throw new IllegalArgumentException("缓存区域名称 " + ENTITY_CACHE_REGION + " 保留给实体缓存");
+        }
+        CacheRegion region = new CacheRegion(name, config);
+        CacheRegion replaced = cacheRegions.put(name, region);
+        if (replaced != null) {
+            replaced.shutdown();
+        }
+        logger.info("缓存区域已注册: {}", region);
+        return region;
+    }
+
+    /**
+     * 获取缓存区域
+     *
+     * @param name 区域名称
+     * @return 缓存区域，不存在时返回 null
+     */
+    public static CacheRegion getCacheRegion(String name) {
+        return name != null ? cacheRegions.get(name) : null;
+    }
+
+    /**
+     * 指定实体类的查询使用的缓存区域
+     *
+     * @param entityClass 实体类
+     * @param region      区域名称，null 表示恢复使用全局缓存
+     */
+    public static void setEntityCacheRegion(Class<?> entityClass, String region) {
+        if (region == null) {
+            entityCacheRegions.remove(entityClass);
+            return;
+        }
+        if (!cacheRegions.containsKey(region)) {
+            throw new IllegalArgumentException("缓存区域未注册: " + region);
+        }
+        entityCacheRegions.put(entityClass, region);
+    }
+
+    /**
+     * 获取实体类的查询使用的缓存区域名称
+     *
+     * @param entityClass 实体类
+     * @return 区域名称，未指定时返回 null
+     */
+    public static String getEntityCacheRegion(Class<?> entityClass) {
+        return entityCacheRegions.get(entityClass);
+    }
+
+    /**
+     * 获取缓存统计汇总：全局缓存、各缓存区域和实体缓存的计数之和，区域明细见 {@link CacheStatistics#getRegionStatistics()}
+     *
+     * @return 统计信息
+     */
+    public static CacheStatistics getCacheStatistics() {
+        CacheStatistics total = new CacheStatistics();
+        QueryCache cache = getQueryCache();
+        if (cache != null) {
+            total.merge(cache.getStatistics());
+        }
+        for (CacheRegion region : cacheRegions.values()) {
+            total.addRegion(region.getName(), region.getStatistics());
+        }
+        CacheStatistics entityStatistics = EntityCache.getStatistics();
+        if (entityStatistics != null) {
+            total.addRegion(ENTITY_CACHE_REGION, entityStatistics);
+        }
+        return total;
+    }
+
     /**
      * 检查性能监控是否启用
      */
@@ -115,7 +220,25 @@ public class CriterionConfigManager {
      */
     public static synchronized void reset() {
         performanceMonitor = null;
+        boolean exiting = false;
+        if (snapshotHook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(snapshotHook);
+            } catch (IllegalStateException e) {
+                // 进程正在退出，由钩子关闭缓存并保存快照
+                exiting = true;
+            }
+            snapshotHook = null;
+        }
+        if (queryCache instanceof QueryCacheImpl && !exiting) {
+            ((QueryCacheImpl) queryCache).shutdown();
+        }
         queryCache = null;
+        for (CacheRegion region : cacheRegions.values()) {
+            region.shutdown();
+        }
+        cacheRegions.clear();
+        entityCacheRegions.clear();
         initialized = false;
     }
 }
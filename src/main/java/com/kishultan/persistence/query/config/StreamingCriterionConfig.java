@@ -14,6 +14,10 @@ public class StreamingCriterionConfig {
      * 默认页大小
      */
     public static final int DEFAULT_PAGE_SIZE = 1000;
+    /**
+     * 默认游标 fetchSize（游标流式查询每次网络往返拉取的行数）
+     */
+    public static final int DEFAULT_FETCH_SIZE = 500;
     /**
      * 默认并行度（CPU核心数）
      */
@@ -56,6 +60,15 @@ public class StreamingCriterionConfig {
      * 默认并行度（CPU核心数的2倍）
      */
     public static final int DEFAULT_PARALLELISM_MULTIPLIER = 2;
+    // ==================== 预取配置 ====================
+    /**
+     * 默认预取深度（后台预先加载的批次数）
+     */
+    public static final int DEFAULT_PREFETCH_DEPTH = 2;
+    /**
+     * 最大预取深度（限制预取占用的内存）
+     */
+    public static final int MAX_PREFETCH_DEPTH = 16;
     // ==================== 超时配置 ====================
     /**
      * 短超时时间（毫秒）
@@ -67,6 +80,16 @@ public class StreamingCriterionConfig {
     public static final int LONG_TIMEOUT = 300000;
     // ==================== 工具方法 ====================
 
+    /**
+     * 将预取深度限制在 [0, MAX_PREFETCH_DEPTH] 范围内
+     *
+     * @param prefetchDepth 期望的预取深度
+     * @return 有效的预取深度，0 表示不预取
+     */
+    public static int normalizePrefetchDepth(int prefetchDepth) {
+        return Math.max(0, Math.min(prefetchDepth, MAX_PREFETCH_DEPTH));
+    }
+
     /**
      * 根据数据集大小获取推荐的批次大小
      *
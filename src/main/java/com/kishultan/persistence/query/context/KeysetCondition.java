@@ -0,0 +1,64 @@
+package com.kishultan.persistence.query.context;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 键集（seek）分页条件，存储排序键和上一页最后一行的键值
+ * 由 SQLQueryResultBuilder 转换为 WHERE 中的 (k1, k2) > (?, ?) 谓词
+ * 或在不支持行值比较的数据库上展开为 k1 > ? OR (k1 = ? AND k2 > ?)
+ */
+public class KeysetCondition {
+    private final List<OrderInfo> keys;
+    private final List<Object> values;
+    private final Object upperBound;
+
+    public KeysetCondition(List<OrderInfo> keys, List<Object> values) {
+        this(keys, values, null);
+    }
+
+    /**
+     * 构造函数（带上界，用于按首个排序键做范围分区）
+     *
+     * @param keys       排序键
+     * @param values     上一行的键值（不含）
+     * @param upperBound 首个排序键的上界（含），null 表示无上界
+     */
+    public KeysetCondition(List<OrderInfo> keys, List<Object> values, Object upperBound) {
+        if (keys == null || keys.isEmpty()) {
+            throw new IllegalArgumentException("键集分页至少需要一个排序键");
+        }
+        if (values == null || values.size() != keys.size()) {
+            throw new IllegalArgumentException("键值数量必须与排序键数量一致");
+        }
+        this.keys = Collections.unmodifiableList(new ArrayList<>(keys));
+        this.values = Collections.unmodifiableList(new ArrayList<>(values));
+        this.upperBound = upperBound;
+    }
+
+    public List<OrderInfo> getKeys() {
+        return keys;
+    }
+
+    public List<Object> getValues() {
+        return values;
+    }
+
+    public Object getUpperBound() {
+        return upperBound;
+    }
+
+    /**
+     * 所有排序键方向是否一致（行值比较的前提）
+     */
+    public boolean isUniformDirection() {
+        String direction = keys.get(0).getDirection();
+        for (OrderInfo key : keys) {
+            if (!direction.equalsIgnoreCase(key.getDirection())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -39,6 +39,9 @@ public class QueryBuildContext<T> {
     private int offsetValue = 0;
     private int limitValue = 0;
     
+    // 键集分页条件（不是子句对象，追加到 WHERE 条件之后）
+    private KeysetCondition keysetCondition;
+    
     // 数据库方言
     private DatabaseDialect dialect;
     
@@ -254,6 +257,22 @@ public class QueryBuildContext<T> {
         this.dialect = dialect;
     }
     
+    /**
+     * 获取键集分页条件
+     * @return 键集分页条件，如果没有则返回 null
+     */
+    public KeysetCondition getKeysetCondition() {
+        return keysetCondition;
+    }
+    
+    /**
+     * 设置键集分页条件
+     * @param keysetCondition 键集分页条件
+     */
+    public void setKeysetCondition(KeysetCondition keysetCondition) {
+        this.keysetCondition = keysetCondition;
+    }
+    
     /**
      * 清空构建上下文
      */
@@ -267,6 +286,7 @@ public class QueryBuildContext<T> {
         orderClause = null;
         offsetValue = 0;
         limitValue = 0;
+        keysetCondition = null;
         joinClauses.clear();
     }
     
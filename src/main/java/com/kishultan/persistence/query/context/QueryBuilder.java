@@ -1,16 +1,21 @@
 package com.kishultan.persistence.query.context;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * 构建好的查询定义，包含查询语句、计数查询语句和参数
  * 这是查询条件构建的结果，而不是查询执行的结果
+ * <p>
+ * 计数查询可以延迟生成：只有调用 getCountSql/getCountParameters 时才构建一次
  */
 public class QueryBuilder {
     private final String sql;
-    private final String countSql;
     private final List<Object> parameters;
-    private final List<Object> countParameters;
+    private volatile String countSql;
+    private volatile List<Object> countParameters;
+    /** 计数查询生成器，返回的 QueryBuilder 中 sql/parameters 即计数查询；生成后置空 */
+    private volatile Supplier<QueryBuilder> countQuery;
 
     public QueryBuilder(String sql, String countSql, List<Object> parameters) {
         this(sql, countSql, parameters, parameters);
@@ -23,11 +28,25 @@ public class QueryBuilder {
         this.countParameters = countParameters;
     }
 
+    /**
+     * 计数查询延迟生成的构造函数
+     *
+     * @param sql        查询语句
+     * @param parameters 查询参数
+     * @param countQuery 计数查询生成器，返回的 QueryBuilder 中 sql/parameters 即计数查询
+     */
+    public QueryBuilder(String sql, List<Object> parameters, Supplier<QueryBuilder> countQuery) {
+        this.sql = sql;
+        this.parameters = parameters;
+        this.countQuery = countQuery;
+    }
+
     public String getSql() {
         return sql;
     }
 
     public String getCountSql() {
+        resolveCountQuery();
         return countSql;
     }
 
@@ -36,7 +55,28 @@ public class QueryBuilder {
     }
 
     public List<Object> getCountParameters() {
+        resolveCountQuery();
         return countParameters;
     }
-}
 
+    /**
+     * 计数查询是否已生成
+     */
+    public boolean isCountQueryResolved() {
+        return countQuery == null;
+    }
+
+    private void resolveCountQuery() {
+        if (countQuery == null) {
+            return;
+        }
+        synchronized (this) {
+            if (countQuery != null) {
+                QueryBuilder count = countQuery.get();
+                countParameters = count.getParameters();
+                countSql = count.getSql();
+                countQuery = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.kishultan.persistence.query.executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分组批量执行器
+ * <p>
+ * 把 SQL 文本相同的条目合并为 JDBC 批（addBatch / executeBatch），每批不超过最大批大小，
+ * 结果按条目的原始顺序返回。默认只合并相邻的相同 SQL，保持执行顺序不变；
+ * 启用重排时同一 SQL 的所有条目合并为一组，按各 SQL 首次出现的顺序执行，
+ * 只适用于条目之间互不依赖的场景（例如不会更新同一行）
+ * <p>
+ * 驱动对批中的条目返回 {@link Statement#SUCCESS_NO_INFO} 时按原值返回。
+ * 执行失败时抛出 {@link BatchUpdateException}，其更新计数按原始顺序排列，
+ * 失败和未执行的条目为 {@link Statement#EXECUTE_FAILED}；事务的提交和回滚由调用方负责
+ */
+public class GroupedBatchExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(GroupedBatchExecutor.class);
+
+    private final int maxBatchSize;
+    private final boolean reorder;
+
+    /**
+     * @param maxBatchSize 每批最多的条目数，必须大于 0
+     * @param reorder      是否合并不相邻的相同 SQL
+     */
+    public GroupedBatchExecutor(int maxBatchSize, boolean reorder) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize 必须大于 0: " + maxBatchSize);
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.reorder = reorder;
+    }
+
+    /**
+     * 执行批量更新
+     *
+     * @param connection     数据库连接
+     * @param sqlList        每个条目的 SQL
+     * @param parametersList 每个条目的参数，可以为 null
+     * @param cache          语句缓存，为 null 时每组准备新语句并在执行后关闭
+     * @return 每个条目影响的行数，与 sqlList 顺序一致
+     * @throws SQLException 执行失败
+     */
+    public int[] execute(Connection connection, List<String> sqlList, List<Object[]> parametersList,
+                         StatementCache cache) throws SQLException {
+        if (parametersList.size() != sqlList.size()) {
+            throw new IllegalArgumentException("SQL 数量 " + sqlList.size() + " 与参数组数量 "
+                    + parametersList.size() + " 不一致");
+        }
+        int[] results = new int[sqlList.size()];
+        List<Group> groups = group(sqlList);
+        if (logger.isDebugEnabled()) {
+            logger.debug("分组批量执行: 条目={}, 分组={}, 重排={}", sqlList.size(), groups.size(), reorder);
+        }
+        for (int g = 0; g < groups.size(); g++) {
+            Group group = groups.get(g);
+            PreparedStatement statement = cache != null ? cache.prepare(group.sql) : connection.prepareStatement(group.sql);
+            try {
+                executeGroup(statement, group, parametersList, results);
+            } catch (BatchUpdateException e) {
+                if (cache != null) {
+                    // 缓存的语句还会复用，丢弃失败批中残留的条目
+                    statement.clearBatch();
+                }
+                throw failure(e, groups, g, results);
+            } finally {
+                if (cache == null) {
+                    statement.close();
+                }
+            }
+        }
+        return results;
+    }
+
+    private List<Group> group(List<String> sqlList) {
+        List<Group> groups = new ArrayList<>();
+        if (reorder) {
+            Map<String, Group> bySql = new LinkedHashMap<>();
+            for (int i = 0; i < sqlList.size(); i++) {
+                String sql = sqlList.get(i);
+                Group group = bySql.get(sql);
+                if (group == null) {
+                    group = new Group(sql);
+                    bySql.put(sql, group);
+                    groups.add(group);
+                }
+                group.add(i);
+            }
+        } else {
+            Group current = null;
+            for (int i = 0; i < sqlList.size(); i++) {
+                String sql = sqlList.get(i);
+                if (current == null || !current.sql.equals(sql)) {
+                    current = new Group(sql);
+                    groups.add(current);
+                }
+                current.add(i);
+            }
+        }
+        return groups;
+    }
+
+    private void executeGroup(PreparedStatement statement, Group group, List<Object[]> parametersList,
+                              int[] results) throws SQLException {
+        if (group.size == 1) {
+            int index = group.entries[0];
+            bind(statement, parametersList.get(index));
+            try {
+                results[index] = statement.executeUpdate();
+            } catch (SQLException e) {
+                throw new BatchUpdateException(e.getMessage(), e.getSQLState(), e.getErrorCode(), new int[0], e);
+            }
+            group.executed = 1;
+            return;
+        }
+        for (int start = 0; start < group.size; start += maxBatchSize) {
+            int end = Math.min(start + maxBatchSize, group.size);
+            for (int k = start; k < end; k++) {
+                bind(statement, parametersList.get(group.entries[k]));
+                statement.addBatch();
+            }
+            int[] counts = statement.executeBatch();
+            for (int k = start; k < end; k++) {
+                results[group.entries[k]] = k - start < counts.length ? counts[k - start] : Statement.SUCCESS_NO_INFO;
+            }
+            group.executed = end;
+        }
+    }
+
+    /**
+     * 把失败批的更新计数映射回原始顺序，未执行的条目标记为失败
+     */
+    private BatchUpdateException failure(BatchUpdateException e, List<Group> groups, int failedGroup, int[] results) {
+        Group group = groups.get(failedGroup);
+        int start = group.executed;
+        int[] chunkCounts = e.getUpdateCounts() != null ? e.getUpdateCounts() : new int[0];
+        int[] counts = results.clone();
+        int firstFailed = group.entries[start];
+        boolean found = false;
+        for (int k = start; k < group.size; k++) {
+            int index = group.entries[k];
+            int offset = k - start;
+            counts[index] = offset < chunkCounts.length ? chunkCounts[offset] : Statement.EXECUTE_FAILED;
+            if (counts[index] == Statement.EXECUTE_FAILED && !found) {
+                firstFailed = index;
+                found = true;
+            }
+        }
+        for (int g = failedGroup + 1; g < groups.size(); g++) {
+            Group pending = groups.get(g);
+            for (int k = 0; k < pending.size; k++) {
+                counts[pending.entries[k]] = Statement.EXECUTE_FAILED;
+            }
+        }
+        String message = "批量更新第 " + firstFailed + " 条失败: " + group.sql
+                + (e.getMessage() != null ? " - " + e.getMessage() : "");
+        return new BatchUpdateException(message, e.getSQLState(), e.getErrorCode(), counts, e);
+    }
+
+    private static void bind(PreparedStatement statement, Object[] parameters) throws SQLException {
+        if (parameters != null) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+        }
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public boolean isReorder() {
+        return reorder;
+    }
+
+    /**
+     * 同一 SQL 的条目及其原始下标
+     */
+    private static final class Group {
+        private final String sql;
+        private int[] entries = new int[4];
+        private int size;
+        // 已成功执行的条目数
+        private int executed;
+
+        Group(String sql) {
+            this.sql = sql;
+        }
+
+        void add(int index) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = index;
+        }
+    }
+}
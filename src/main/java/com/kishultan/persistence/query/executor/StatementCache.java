@@ -0,0 +1,175 @@
+package com.kishultan.persistence.query.executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个连接上的 PreparedStatement 缓存
+ * <p>
+ * 按 SQL 文本缓存已准备的语句，容量满时关闭最久未使用的语句（LRU）。用于事务连接：
+ * 事务中重复执行的同一条 SQL 复用同一个语句句柄，事务提交、回滚或关闭时关闭全部语句。
+ * 对自身不缓存语句的驱动和连接池（H2、SQLite 及部分国产数据库驱动）可以省去重复的语句解析
+ * <p>
+ * 从缓存取得的语句由缓存负责关闭，调用方不能关闭；再次取得时已清除上次的参数
+ */
+public class StatementCache implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(StatementCache.class);
+    // 所有语句缓存的累计命中和未命中次数
+    private static final AtomicLong totalHits = new AtomicLong();
+    private static final AtomicLong totalMisses = new AtomicLong();
+
+    private final Connection connection;
+    private final int maxSize;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private boolean closed;
+
+    /**
+     * @param connection 语句所属的连接
+     * @param maxSize    最多缓存的语句数，必须大于 0
+     */
+    public StatementCache(Connection connection, int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize 必须大于 0: " + maxSize);
+        }
+        this.connection = connection;
+        this.maxSize = maxSize;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * 获取 SQL 对应的语句，未缓存时在连接上准备并缓存
+     *
+     * @param sql SQL 语句
+     * @return 已准备的语句，不能由调用方关闭
+     * @throws SQLException 准备语句失败
+     */
+    public synchronized PreparedStatement prepare(String sql) throws SQLException {
+        if (closed) {
+            throw new SQLException("语句缓存已关闭");
+        }
+        PreparedStatement statement = statements.get(sql);
+        if (statement != null && !statement.isClosed()) {
+            statement.clearParameters();
+            hits++;
+            totalHits.incrementAndGet();
+            return statement;
+        }
+        statement = connection.prepareStatement(sql);
+        statements.put(sql, statement);
+        misses++;
+        totalMisses.incrementAndGet();
+        evictOverflow();
+        return statement;
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, PreparedStatement>> iterator = statements.entrySet().iterator();
+        while (statements.size() > maxSize && iterator.hasNext()) {
+            PreparedStatement eldest = iterator.next().getValue();
+            iterator.remove();
+            evictions++;
+            closeQuietly(eldest);
+        }
+    }
+
+    /**
+     * 关闭全部缓存的语句
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+        statements.clear();
+        if (logger.isDebugEnabled() && hits + misses > 0) {
+            logger.debug("语句缓存关闭: 命中={}, 未命中={}, 淘汰={}, 命中率={}", hits, misses, evictions,
+                    String.format("%.2f%%", getHitRate() * 100));
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            logger.warn("关闭缓存的语句失败", e);
+        }
+    }
+
+    public synchronized int size() {
+        return statements.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * 命中率
+     *
+     * @return 0 到 1 之间，没有访问时为 0
+     */
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total > 0 ? (double) hits / total : 0.0;
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 所有语句缓存的累计命中次数
+     */
+    public static long getTotalHitCount() {
+        return totalHits.get();
+    }
+
+    /**
+     * 所有语句缓存的累计未命中次数
+     */
+    public static long getTotalMissCount() {
+        return totalMisses.get();
+    }
+
+    /**
+     * 所有语句缓存的累计命中率
+     *
+     * @return 0 到 1 之间，没有访问时为 0
+     */
+    public static double getTotalHitRate() {
+        long hits = totalHits.get();
+        long total = hits + totalMisses.get();
+        return total > 0 ? (double) hits / total : 0.0;
+    }
+
+    /**
+     * 重置累计统计
+     */
+    public static void resetTotals() {
+        totalHits.set(0);
+        totalMisses.set(0);
+    }
+}
@@ -1,5 +1,7 @@
 package com.kishultan.persistence.query.monitor;
 
+import com.kishultan.persistence.query.builder.SqlTemplateCache;
+
 import java.util.List;
 import java.util.Map;
 
@@ -74,4 +76,22 @@ public interface QueryPerformanceMonitor {
      * @param enabled 是否启用
      */
     void setEnabled(boolean enabled);
+
+    /**
+     * 获取 SQL 模板缓存命中次数（全局）
+     *
+     * @return 命中次数
+     */
+    default long getSqlTemplateCacheHits() {
+        return SqlTemplateCache.getHitCount();
+    }
+
+    /**
+     * 获取 SQL 模板缓存未命中次数（全局）
+     *
+     * @return 未命中次数
+     */
+    default long getSqlTemplateCacheMisses() {
+        return SqlTemplateCache.getMissCount();
+    }
 }
@@ -1,5 +1,6 @@
 package com.kishultan.persistence.query.monitor;
 
+import com.kishultan.persistence.query.builder.SqlTemplateCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -149,6 +150,7 @@ public class QueryPerformanceMonitorImpl implements QueryPerformanceMonitor {
         queryStatisticsMap.clear();
         slowQueries.clear();
         activeContexts.clear();
+        SqlTemplateCache.resetStatistics();
     }
 
     @Override
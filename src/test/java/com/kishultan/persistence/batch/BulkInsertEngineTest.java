@@ -0,0 +1,207 @@
+package com.kishultan.persistence.batch;
+
+import com.kishultan.persistence.dialect.H2Dialect;
+import com.kishultan.persistence.dialect.OracleDialect;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 批量插入引擎测试
+ * 验证多行 VALUES 合并、分块、自增主键回填、按块提交以及失败行的报告
+ */
+public class BulkInsertEngineTest {
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:bulkinsert;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        connection = dataSource.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bulk_item");
+            statement.execute("DROP TABLE IF EXISTS bulk_log");
+            statement.execute("CREATE TABLE bulk_item (id BIGINT PRIMARY KEY, name VARCHAR(50) NOT NULL)");
+            statement.execute("CREATE TABLE bulk_log (id BIGINT AUTO_INCREMENT PRIMARY KEY, message VARCHAR(50))");
+        }
+        connection.setAutoCommit(false);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.close();
+    }
+
+    private static List<Item> items(int count) {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(new Item((long) i, "item" + i));
+        }
+        return items;
+    }
+
+    private int countRows(String table) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static BulkInsertOptions options(int chunkSize, int maxRowsPerStatement, boolean commitPerChunk) {
+        BulkInsertOptions options = BulkInsertOptions.createDefault();
+        options.setChunkSize(chunkSize);
+        options.setMaxRowsPerStatement(maxRowsPerStatement);
+        options.setCommitPerChunk(commitPerChunk);
+        return options;
+    }
+
+    @Test
+    public void testRowsPerStatement() {
+        EntityPlan plan = EntityPlan.forEntity(Item.class);
+        assertEquals(7, new BulkInsertEngine(new H2Dialect(), options(100, 7, false)).rowsPerStatement(plan));
+        assertEquals("受分块大小限制", 5, new BulkInsertEngine(new H2Dialect(), options(5, 100, false)).rowsPerStatement(plan));
+        assertEquals("方言不支持多行 VALUES", 1, new BulkInsertEngine(new OracleDialect(), options(100, 7, false)).rowsPerStatement(plan));
+        BulkInsertOptions singleRow = options(100, 7, false);
+        singleRow.setMultiRowInsert(false);
+        assertEquals(1, new BulkInsertEngine(new H2Dialect(), singleRow).rowsPerStatement(plan));
+        assertEquals("INSERT INTO bulk_item (id, name) VALUES (?, ?), (?, ?)", plan.insertSql(2));
+    }
+
+    @Test
+    public void testMultiRowInsertWithChunks() throws Exception {
+        BulkInsertEngine engine = new BulkInsertEngine(new H2Dialect(), options(10, 3, false));
+        assertEquals(25, engine.insert(connection, items(25), true));
+        assertEquals(25, countRows("bulk_item"));
+
+        engine = new BulkInsertEngine(new OracleDialect(), options(10, 3, false));
+        List<Item> more = items(40).subList(25, 40);
+        assertEquals(15, engine.insert(connection, more, true));
+        assertEquals(40, countRows("bulk_item"));
+    }
+
+    @Test
+    public void testIdentityBackfill() throws Exception {
+        List<LogEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            entries.add(new LogEntry("message" + i));
+        }
+        new BulkInsertEngine(new H2Dialect(), options(5, 2, false)).insert(connection, entries, true);
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(Long.valueOf(i + 1), entries.get(i).getId());
+        }
+
+        List<LogEntry> batched = Arrays.asList(new LogEntry("a"), new LogEntry("b"), new LogEntry("c"));
+        new BulkInsertEngine(new OracleDialect(), options(5, 2, false)).insert(connection, batched, true);
+        assertEquals(Long.valueOf(13), batched.get(0).getId());
+        assertEquals(Long.valueOf(15), batched.get(2).getId());
+    }
+
+    @Test
+    public void testCommitPerChunkKeepsCommittedChunksOnFailure() throws Exception {
+        List<Item> items = items(25);
+        items.get(13).setName(null);
+        BulkInsertEngine engine = new BulkInsertEngine(new H2Dialect(), options(10, 5, true));
+        try {
+            engine.insert(connection, items, true);
+            fail("应抛出 BulkInsertException");
+        } catch (BulkInsertException e) {
+            assertEquals(10, e.getInsertedCount());
+            assertEquals("报告失败语句包含的行", Arrays.asList(10, 11, 12, 13, 14), e.getFailedRows());
+        }
+        assertEquals("第一块已提交，失败的块已回滚", 10, countRows("bulk_item"));
+    }
+
+    @Test
+    public void testFailureWithoutCommitPerChunkRollsBackEverything() throws Exception {
+        List<Item> items = items(20);
+        items.get(17).setId(3L);
+        BulkInsertEngine engine = new BulkInsertEngine(new OracleDialect(), options(10, 5, false));
+        try {
+            engine.insert(connection, items, true);
+            fail("应抛出 BulkInsertException");
+        } catch (BulkInsertException e) {
+            assertEquals(0, e.getInsertedCount());
+            assertTrue("主键重复的行被报告: " + e.getFailedRows(), e.getFailedRows().contains(17));
+            assertFalse(e.getFailedRows().contains(3));
+        }
+        assertEquals(0, countRows("bulk_item"));
+    }
+
+    @Table(name = "bulk_item")
+    public static class Item {
+        @Id
+        private Long id;
+        private String name;
+
+        public Item() {
+        }
+
+        Item(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    @Table(name = "bulk_log")
+    public static class LogEntry {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+        private String message;
+
+        public LogEntry() {
+        }
+
+        LogEntry(String message) {
+            this.message = message;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.kishultan.persistence.batch;
+
+import com.kishultan.persistence.dialect.H2Dialect;
+import com.kishultan.persistence.dialect.MySQLDialect;
+import com.kishultan.persistence.dialect.OracleDialect;
+import com.kishultan.persistence.dialect.PostgreSQLDialect;
+import com.kishultan.persistence.dialect.SQLServerDialect;
+import com.kishultan.persistence.dialect.SybaseDialect;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 批量更新、upsert 和删除测试
+ * 验证各方言的 upsert 语句、按主键批量更新、IN 列表分批删除以及失败行的报告
+ */
+public class BulkWriteEngineTest {
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:bulkwrite;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        connection = dataSource.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bulk_account");
+            statement.execute("CREATE TABLE bulk_account (id BIGINT PRIMARY KEY, owner VARCHAR(50) NOT NULL, balance INT)");
+        }
+        connection.setAutoCommit(false);
+        new BulkInsertEngine(new H2Dialect(), null).insert(connection, accounts(0, 20, 100), true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.close();
+    }
+
+    private static List<Account> accounts(int from, int to, int balance) {
+        List<Account> accounts = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            accounts.add(new Account((long) i, "owner" + i, balance));
+        }
+        return accounts;
+    }
+
+    private int queryInt(String sql) throws Exception {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static BulkInsertOptions options(int chunkSize, int maxRowsPerStatement) {
+        BulkInsertOptions options = BulkInsertOptions.createDefault();
+        options.setChunkSize(chunkSize);
+        options.setMaxRowsPerStatement(maxRowsPerStatement);
+        return options;
+    }
+
+    @Test
+    public void testUpsertSqlByDialect() {
+        String[] columns = {"id", "owner", "balance"};
+        String[] keys = {"id"};
+        assertEquals("INSERT INTO t (id, owner, balance) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE "
+                        + "owner = VALUES(owner), balance = VALUES(balance)",
+                new MySQLDialect().buildUpsertSql("t", columns, keys));
+        assertEquals("INSERT INTO t (id, owner, balance) VALUES (?, ?, ?) ON CONFLICT (id) DO UPDATE SET "
+                        + "owner = EXCLUDED.owner, balance = EXCLUDED.balance",
+                new PostgreSQLDialect().buildUpsertSql("t", columns, keys));
+        assertEquals("MERGE INTO t t USING (SELECT ? id, ? owner, ? balance FROM DUAL) s ON (t.id = s.id) "
+                        + "WHEN MATCHED THEN UPDATE SET t.owner = s.owner, t.balance = s.balance "
+                        + "WHEN NOT MATCHED THEN INSERT (id, owner, balance) VALUES (s.id, s.owner, s.balance)",
+                new OracleDialect().buildUpsertSql("t", columns, keys));
+        assertTrue(new SQLServerDialect().buildUpsertSql("t", columns, keys)
+                .startsWith("MERGE INTO t t USING (VALUES (?, ?, ?)) AS s (id, owner, balance) ON (t.id = s.id)"));
+        assertTrue(new SQLServerDialect().buildUpsertSql("t", columns, keys).endsWith(";"));
+        assertEquals("只有主键列", "INSERT INTO t (id) VALUES (?) ON CONFLICT (id) DO NOTHING",
+                new PostgreSQLDialect().buildUpsertSql("t", keys, keys));
+        assertNull(new SybaseDialect().buildUpsertSql("t", columns, keys));
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        List<Account> accounts = accounts(0, 20, 200);
+        accounts.get(5).setOwner("renamed");
+        int updated = new BulkWriteEngine(new H2Dialect(), options(7, 1000)).update(connection, accounts, true);
+        assertEquals(20, updated);
+        assertEquals(4000, queryInt("SELECT SUM(balance) FROM bulk_account"));
+        assertEquals(1, queryInt("SELECT COUNT(*) FROM bulk_account WHERE owner = 'renamed'"));
+    }
+
+    @Test
+    public void testUpsertUpdatesExistingAndInsertsNew() throws Exception {
+        List<Account> accounts = accounts(15, 30, 300);
+        new BulkWriteEngine(new H2Dialect(), options(4, 1000)).upsert(connection, accounts, true);
+        assertEquals(30, queryInt("SELECT COUNT(*) FROM bulk_account"));
+        assertEquals(15, queryInt("SELECT COUNT(*) FROM bulk_account WHERE balance = 300"));
+
+        try {
+            new BulkWriteEngine(new SybaseDialect(), null).upsert(connection, accounts, true);
+            fail("方言不支持 upsert");
+        } catch (UnsupportedOperationException expected) {
+            // 尚未执行任何语句
+        }
+    }
+
+    @Test
+    public void testDeleteInChunks() throws Exception {
+        BulkWriteEngine engine = new BulkWriteEngine(new H2Dialect(), options(10, 3));
+        assertEquals(3, engine.idsPerStatement());
+        List<Long> ids = new ArrayList<>();
+        for (long id = 0; id < 14; id++) {
+            ids.add(id);
+        }
+        ids.add(99L);
+        assertEquals("不存在的主键不计入", 14, engine.delete(connection, Account.class, ids, true));
+        assertEquals(6, queryInt("SELECT COUNT(*) FROM bulk_account"));
+
+        assertEquals(2, engine.delete(connection, accounts(14, 16, 0), true));
+        assertEquals(4, queryInt("SELECT COUNT(*) FROM bulk_account"));
+    }
+
+    @Test
+    public void testUpdateFailureReportsRowAndRollsBack() throws Exception {
+        List<Account> accounts = accounts(0, 10, 500);
+        accounts.get(6).setOwner(null);
+        try {
+            new BulkWriteEngine(new H2Dialect(), options(4, 1000)).update(connection, accounts, true);
+            fail("应抛出 BulkWriteException");
+        } catch (BulkWriteException e) {
+            assertEquals(Arrays.asList(6), e.getFailedRows());
+            assertEquals(0, e.getCompletedCount());
+        }
+        assertEquals("未按块提交时全部回滚", 0, queryInt("SELECT COUNT(*) FROM bulk_account WHERE balance = 500"));
+    }
+
+    @Table(name = "bulk_account")
+    public static class Account {
+        @Id
+        private Long id;
+        private String owner;
+        private Integer balance;
+
+        public Account() {
+        }
+
+        Account(Long id, String owner, Integer balance) {
+            this.id = id;
+            this.owner = owner;
+            this.balance = balance;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getOwner() {
+            return owner;
+        }
+
+        public void setOwner(String owner) {
+            this.owner = owner;
+        }
+
+        public Integer getBalance() {
+            return balance;
+        }
+
+        public void setBalance(Integer balance) {
+            this.balance = balance;
+        }
+    }
+}
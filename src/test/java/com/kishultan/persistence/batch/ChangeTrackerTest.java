@@ -0,0 +1,178 @@
+package com.kishultan.persistence.batch;
+
+import com.kishultan.persistence.EntityManager;
+import com.kishultan.persistence.delegate.SansOrmEntityManagerFactory;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+/**
+ * 实体变更跟踪测试
+ * 验证快照比较、按变化列生成的 UPDATE 语句、EntityManager.update 只写入变化的列，以及批量更新后刷新快照
+ */
+public class ChangeTrackerTest {
+    private JdbcDataSource dataSource;
+
+    @Before
+    public void setUp() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:changetracker;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        execute("DROP TABLE IF EXISTS tracked_member");
+        execute("CREATE TABLE tracked_member (id BIGINT PRIMARY KEY, name VARCHAR(50), level INT, joined TIMESTAMP)");
+        execute("INSERT INTO tracked_member VALUES (1, 'alice', 1, NULL)");
+        ChangeTracker.setTracked(Member.class, true);
+    }
+
+    @After
+    public void tearDown() {
+        ChangeTracker.reset();
+    }
+
+    private void execute(String sql) throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private String queryName() throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT name FROM tracked_member WHERE id = 1")) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    private int queryLevel() throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT level FROM tracked_member WHERE id = 1")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    public void testChangedColumnsAndStatementShape() {
+        Member member = new Member(1L, "alice", 1);
+        member.setJoined(new Date(1000L));
+        assertNull("未跟踪的实体", ChangeTracker.changedColumns(member));
+        ChangeTracker.track(member);
+        assertTrue(ChangeTracker.changedColumns(member).isEmpty());
+
+        member.setLevel(2);
+        member.getJoined().setTime(2000L);
+        BitSet changed = ChangeTracker.changedColumns(member);
+        assertEquals("修改 Date 对象本身也被识别", 2, changed.cardinality());
+        assertEquals("UPDATE tracked_member SET level = ?, joined = ? WHERE id = ?",
+                EntityPlan.forEntity(Member.class).updateSql(changed));
+
+        ChangeTracker.forget(member);
+        assertFalse(ChangeTracker.isTracking(member));
+    }
+
+    @Test
+    public void testUntrackedClassIsIgnored() {
+        ChangeTracker.setTracked(Member.class, false);
+        Member member = new Member(1L, "alice", 1);
+        ChangeTracker.track(member);
+        assertFalse(ChangeTracker.isTracking(member));
+    }
+
+    @Test
+    public void testUpdateWritesOnlyChangedColumns() throws Exception {
+        EntityManager em = new EntityManager(new SansOrmEntityManagerFactory(dataSource, "tracker"));
+        Member member = new Member(1L, "alice", 1);
+        ChangeTracker.track(member);
+
+        // 其他会话修改了 name，只更新 level 时不应覆盖
+        execute("UPDATE tracked_member SET name = 'external' WHERE id = 1");
+        member.setLevel(5);
+        em.update(member);
+        assertEquals(5, queryLevel());
+        assertEquals("external", queryName());
+
+        // 更新后以新值为快照，没有变化时不执行语句
+        execute("UPDATE tracked_member SET level = 9 WHERE id = 1");
+        em.update(member);
+        assertEquals(9, queryLevel());
+    }
+
+    @Test
+    public void testUpdateAllRefreshesSnapshots() throws Exception {
+        EntityManager em = new EntityManager(new SansOrmEntityManagerFactory(dataSource, "tracker"));
+        Member member = new Member(1L, "alice", 1);
+        ChangeTracker.track(member);
+
+        member.setLevel(3);
+        em.updateAll(Collections.singletonList(member));
+        assertEquals(3, queryLevel());
+        assertTrue("批量更新后以写入的值为快照", ChangeTracker.changedColumns(member).isEmpty());
+
+        // 快照未过期，再次单条更新时没有变化的列不会覆盖其他会话的修改
+        execute("UPDATE tracked_member SET level = 9 WHERE id = 1");
+        em.update(member);
+        assertEquals(9, queryLevel());
+    }
+
+    @Table(name = "tracked_member")
+    public static class Member {
+        @Id
+        private Long id;
+        private String name;
+        private Integer level;
+        private Date joined;
+
+        public Member() {
+        }
+
+        Member(Long id, String name, Integer level) {
+            this.id = id;
+            this.name = name;
+            this.level = level;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Integer getLevel() {
+            return level;
+        }
+
+        public void setLevel(Integer level) {
+            this.level = level;
+        }
+
+        public Date getJoined() {
+            return joined;
+        }
+
+        public void setJoined(Date joined) {
+            this.joined = joined;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.kishultan.persistence.query;
+
+import com.kishultan.persistence.model.TestUser;
+import com.kishultan.persistence.query.clause.StandardCriterion;
+import com.kishultan.persistence.query.context.QueryBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 已构建查询缓存测试
+ * 验证子句未修改时复用构建结果、修改后重新构建，以及计数查询延迟生成
+ */
+public class BuildQueryCacheTest {
+
+    private StandardCriterion<TestUser> criterion;
+
+    @Before
+    public void setUp() {
+        criterion = new StandardCriterion<>(TestUser.class, null);
+        criterion.select().from(TestUser.class).where().eq("status", "active");
+    }
+
+    @Test
+    public void testBuildQueryReusedUntilModified() {
+        QueryBuilder first = criterion.buildQuery();
+        assertSame("子句未修改时应复用构建结果", first, criterion.buildQuery());
+        assertEquals("生成 SQL 应复用同一构建结果", first.getSql(), criterion.getGeneratedSql());
+
+        criterion.where(w -> w.gt("age", 18));
+        QueryBuilder second = criterion.buildQuery();
+        assertNotSame("追加条件后应重新构建", first, second);
+        assertEquals(2, second.getParameters().size());
+
+        criterion.limit(0, 10);
+        QueryBuilder third = criterion.buildQuery();
+        assertNotSame("修改分页后应重新构建", second, third);
+        assertNotEquals(second.getSql(), third.getSql());
+    }
+
+    @Test
+    public void testCountQueryBuiltLazily() {
+        criterion.limit(0, 10);
+        QueryBuilder query = criterion.buildQuery();
+        assertFalse("计数查询应延迟生成", query.isCountQueryResolved());
+        assertTrue(query.getCountSql().startsWith("SELECT COUNT(*)"));
+        assertFalse("计数查询不应包含分页", query.getCountSql().contains("LIMIT"));
+        assertEquals(query.getParameters(), query.getCountParameters());
+        assertTrue(query.isCountQueryResolved());
+        assertSame("生成计数查询不应使构建结果失效", query, criterion.buildQuery());
+    }
+
+    @Test
+    public void testNestedSubqueryModificationInvalidates() {
+        StandardCriterion<TestUser> sub = new StandardCriterion<>(TestUser.class, null);
+        sub.select("id").from(TestUser.class).where().eq("name", "Alice");
+        criterion.where(w -> w.in("id", sub));
+        QueryBuilder before = criterion.buildQuery();
+
+        sub.where(w -> w.eq("age", 30));
+        QueryBuilder after = criterion.buildQuery();
+        assertNotSame("子查询修改后外层查询应重新构建", before, after);
+        assertEquals(before.getParameters().size() + 1, after.getParameters().size());
+    }
+
+    @Test
+    public void testCountQueryKeepsBuildTimeConditions() {
+        StandardCriterion<TestUser> sub = new StandardCriterion<>(TestUser.class, null);
+        sub.select("id").from(TestUser.class).where().eq("name", "Alice");
+        criterion.where(w -> w.in("id", sub));
+        QueryBuilder query = criterion.buildQuery();
+        assertFalse(query.isCountQueryResolved());
+
+        // 构建之后修改条件（包括嵌套子查询），已返回结果的计数查询仍对应构建时的条件
+        sub.where(w -> w.eq("age", 30));
+        criterion.where(w -> w.gt("age", 18));
+        assertEquals(query.getParameters(), query.getCountParameters());
+        assertFalse(query.getCountSql().contains("age"));
+
+        QueryBuilder rebuilt = criterion.buildQuery();
+        assertTrue(rebuilt.getCountSql().contains("age"));
+        assertEquals(rebuilt.getParameters(), rebuilt.getCountParameters());
+
+        // 重新开始查询会清空构建上下文，之前的计数查询不受影响
+        criterion.where(w -> w.lt("age", 60));
+        QueryBuilder last = criterion.buildQuery();
+        assertFalse(last.isCountQueryResolved());
+        criterion.select().from(TestUser.class);
+        assertTrue(last.getCountSql().contains("age"));
+        assertEquals(last.getParameters(), last.getCountParameters());
+    }
+}
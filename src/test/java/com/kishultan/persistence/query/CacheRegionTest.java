@@ -0,0 +1,174 @@
+package com.kishultan.persistence.query;
+
+import com.kishultan.persistence.query.cache.CacheConfig;
+import com.kishultan.persistence.query.cache.CacheRegion;
+import com.kishultan.persistence.query.cache.CacheStatistics;
+import com.kishultan.persistence.query.cache.CacheStrategy;
+import com.kishultan.persistence.query.clause.StandardCriterion;
+import com.kishultan.persistence.query.config.CriterionConfigManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 缓存区域测试
+ * 验证按实体类和按查询指定的缓存区域各自生效、禁用的区域不缓存，以及统计信息汇总
+ */
+public class CacheRegionTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement preparedStatement;
+
+    @Mock
+    private ResultSet resultSet;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getObject(1)).thenReturn(5L);
+        CriterionConfigManager.reset();
+    }
+
+    @After
+    public void tearDown() {
+        CriterionConfigManager.reset();
+    }
+
+    private static CacheConfig regionConfig(boolean enabled, long ttl) {
+        CacheConfig config = new CacheConfig(enabled, 100, ttl);
+        config.setEnableAsync(false);
+        return config;
+    }
+
+    private long countDictionaries() {
+        return new StandardCriterion<>(Dictionary.class, dataSource)
+                .select().from().where(w -> w.eq(Dictionary::getCode, "gender"))
+                .count();
+    }
+
+    @Test
+    public void testEntityRegionCachesWithoutGlobalCache() throws Exception {
+        CriterionConfigManager.registerCacheRegion("reference", regionConfig(true, 3600000));
+        CriterionConfigManager.setEntityCacheRegion(Dictionary.class, "reference");
+        assertFalse("全局缓存未启用", CriterionConfigManager.isCacheEnabled());
+
+        assertEquals(5L, countDictionaries());
+        assertEquals(5L, countDictionaries());
+        verify(preparedStatement, times(1)).executeQuery();
+
+        CacheRegion region = CriterionConfigManager.getCacheRegion("reference");
+        assertEquals(1, region.getCache().size());
+        assertEquals(1, region.getStatistics().getHitCount());
+    }
+
+    @Test
+    public void testDisabledRegionDoesNotCache() throws Exception {
+        System.setProperty("querybuilder.cache.enabled", "true");
+        try {
+            CriterionConfigManager.registerCacheRegion("volatile", regionConfig(false, 60000));
+            CriterionConfigManager.setEntityCacheRegion(Dictionary.class, "volatile");
+
+            assertEquals(5L, countDictionaries());
+            when(resultSet.next()).thenReturn(true, false);
+            assertEquals(5L, countDictionaries());
+            verify(preparedStatement, times(2)).executeQuery();
+            assertEquals("不应写入全局缓存", 0, CriterionConfigManager.getQueryCache().size());
+        } finally {
+            System.clearProperty("querybuilder.cache.enabled");
+        }
+    }
+
+    @Test
+    public void testCriterionRegionOverridesEntityRegion() throws Exception {
+        CriterionConfigManager.registerCacheRegion("volatile", regionConfig(false, 60000));
+        CacheConfig ttlConfig = regionConfig(true, 60000);
+        ttlConfig.setStrategyType(CacheStrategy.StrategyType.TTL);
+        CriterionConfigManager.registerCacheRegion("hot", ttlConfig);
+        CriterionConfigManager.setEntityCacheRegion(Dictionary.class, "volatile");
+
+        StandardCriterion<Dictionary> criterion = new StandardCriterion<>(Dictionary.class, dataSource);
+        criterion.cacheable("hot", 1000);
+        criterion.select().from().where(w -> w.eq(Dictionary::getCode, "gender"));
+        assertSame(CriterionConfigManager.getCacheRegion("hot").getCache(), criterion.getQueryCache());
+        criterion.count();
+        criterion.count();
+        verify(preparedStatement, times(1)).executeQuery();
+        assertEquals(1, CriterionConfigManager.getCacheRegion("hot").getCache().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownRegionRejected() {
+        new StandardCriterion<>(Dictionary.class, dataSource).cacheable("missing");
+    }
+
+    @Test
+    public void testUnsupportedStrategyAndReservedNameRejected() {
+        CacheConfig lfuConfig = regionConfig(true, 60000);
+        lfuConfig.setStrategyType(CacheStrategy.StrategyType.LFU);
+        try {
+            CriterionConfigManager.registerCacheRegion("lfu", lfuConfig);
+            fail("尚未实现的淘汰策略应被拒绝");
+        } catch (IllegalArgumentException e) {
+            assertNull(CriterionConfigManager.getCacheRegion("lfu"));
+        }
+        try {
+            CriterionConfigManager.registerCacheRegion(CriterionConfigManager.ENTITY_CACHE_REGION, regionConfig(true, 60000));
+            fail("实体缓存的区域名称是保留的");
+        } catch (IllegalArgumentException e) {
+            assertNull(CriterionConfigManager.getCacheRegion(CriterionConfigManager.ENTITY_CACHE_REGION));
+        }
+    }
+
+    @Test
+    public void testStatisticsRollUp() throws Exception {
+        CriterionConfigManager.registerCacheRegion("reference", regionConfig(true, 3600000));
+        CriterionConfigManager.registerCacheRegion("other", regionConfig(true, 60000));
+        CriterionConfigManager.setEntityCacheRegion(Dictionary.class, "reference");
+        countDictionaries();
+        countDictionaries();
+        CriterionConfigManager.getCacheRegion("other").getCache().get("absent", Long.class);
+
+        CacheStatistics total = CriterionConfigManager.getCacheStatistics();
+        assertEquals(1, total.getHitCount());
+        assertEquals(2, total.getMissCount());
+        assertEquals(2, total.getRegionStatistics().size());
+        assertEquals(1, total.getRegionStatistics().get("reference").getHitCount());
+        assertEquals(1, total.getRegionStatistics().get("other").getMissCount());
+    }
+
+    // 测试用的字典实体
+    @jakarta.persistence.Entity
+    @jakarta.persistence.Table(name = "dictionary")
+    public static class Dictionary {
+        @jakarta.persistence.Id
+        private Long id;
+        private String code;
+
+        public Dictionary() {}
+
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public String getCode() { return code; }
+        public void setCode(String code) { this.code = code; }
+    }
+}
@@ -0,0 +1,189 @@
+package com.kishultan.persistence.query;
+
+import com.kishultan.persistence.model.TestUser;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * DefaultRowMapper 映射计划测试
+ * 验证按 SQL 编译的映射计划与逐行映射结果一致
+ */
+public class DefaultRowMapperTest {
+
+    private static final String SELECT_SQL =
+            "SELECT id, name, email, status, age FROM test_users ORDER BY id";
+
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        org.h2.jdbcx.JdbcDataSource dataSource = new org.h2.jdbcx.JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:row_mapper_test;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+        connection = dataSource.getConnection();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS test_users");
+            stmt.execute("CREATE TABLE test_users (id BIGINT PRIMARY KEY, name VARCHAR(50), " +
+                    "email VARCHAR(100), status VARCHAR(20), age INT)");
+            stmt.execute("INSERT INTO test_users VALUES (1, 'Alice', 'alice@example.com', 'active', 30)");
+            stmt.execute("INSERT INTO test_users VALUES (2, 'Bob', NULL, 'inactive', NULL)");
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testMapRowsMatchesMapRow() throws Exception {
+        DefaultRowMapper<TestUser> mapper = new DefaultRowMapper<>();
+        mapper.register(TestUser.class, "test_users");
+
+        List<TestUser> planned;
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(SELECT_SQL)) {
+            planned = mapper.mapRows(rs, TestUser.class, SELECT_SQL);
+        }
+        List<TestUser> rowByRow = new ArrayList<>();
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(SELECT_SQL)) {
+            while (rs.next()) {
+                rowByRow.add(mapper.mapRow(rs, TestUser.class));
+            }
+        }
+
+        assertEquals("两种映射方式的行数应一致", 2, planned.size());
+        assertEquals("两种映射方式的行数应一致", planned.size(), rowByRow.size());
+        for (int i = 0; i < planned.size(); i++) {
+            assertEquals("主键应一致", rowByRow.get(i).getId(), planned.get(i).getId());
+            assertEquals("名称应一致", rowByRow.get(i).getName(), planned.get(i).getName());
+            assertEquals("年龄应一致", rowByRow.get(i).getAge(), planned.get(i).getAge());
+        }
+        assertEquals("Alice", planned.get(0).getName());
+        assertEquals(Integer.valueOf(30), planned.get(0).getAge());
+        assertNull("NULL 列应映射为 null", planned.get(1).getEmail());
+    }
+
+    @Test
+    public void testPlansSharedAcrossMappers() throws Exception {
+        DefaultRowMapper.clearPlanCache();
+        DefaultRowMapper<TestUser> first = new DefaultRowMapper<>();
+        first.register(TestUser.class, "test_users");
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(SELECT_SQL)) {
+            first.mapRows(rs, TestUser.class, SELECT_SQL);
+        }
+        assertEquals(1, DefaultRowMapper.getPlanCacheSize());
+
+        // 注册相同的新映射器（每个查询构建器各有一个）复用已编译的计划
+        DefaultRowMapper<TestUser> second = new DefaultRowMapper<>();
+        second.register(TestUser.class, "test_users");
+        List<TestUser> users;
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(SELECT_SQL)) {
+            users = second.mapRows(rs, TestUser.class, SELECT_SQL);
+        }
+        assertEquals(1, DefaultRowMapper.getPlanCacheSize());
+        assertEquals("Alice", users.get(0).getName());
+
+        // 别名注册不同时单独编译
+        second.register(TestUser.class, "u");
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(SELECT_SQL)) {
+            second.mapRows(rs, TestUser.class, SELECT_SQL);
+        }
+        assertEquals(2, DefaultRowMapper.getPlanCacheSize());
+    }
+
+    @Test
+    public void testBytecodeRowMapperMatchesDefault() throws Exception {
+        DefaultRowMapper<TestUser> defaultMapper = new DefaultRowMapper<>();
+        defaultMapper.register(TestUser.class, "test_users");
+        BytecodeRowMapper<TestUser> bytecodeMapper = new BytecodeRowMapper<>();
+        bytecodeMapper.register(TestUser.class, "test_users");
+
+        List<TestUser> expected;
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(SELECT_SQL)) {
+            expected = defaultMapper.mapRows(rs, TestUser.class, SELECT_SQL);
+        }
+        List<TestUser> generated;
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(SELECT_SQL)) {
+            generated = bytecodeMapper.mapRows(rs, TestUser.class, SELECT_SQL);
+        }
+
+        assertEquals("两种映射器的行数应一致", expected.size(), generated.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals("主键应一致", expected.get(i).getId(), generated.get(i).getId());
+            assertEquals("名称应一致", expected.get(i).getName(), generated.get(i).getName());
+            assertEquals("邮箱应一致", expected.get(i).getEmail(), generated.get(i).getEmail());
+            assertEquals("状态应一致", expected.get(i).getStatus(), generated.get(i).getStatus());
+            assertEquals("年龄应一致", expected.get(i).getAge(), generated.get(i).getAge());
+        }
+        assertNull("NULL 包装类型列应映射为 null", generated.get(1).getAge());
+    }
+
+    @Test
+    public void testPrimitiveFieldsMappedWithoutBoxing() throws Exception {
+        DefaultRowMapper<PrimitiveRow> mapper = new DefaultRowMapper<>();
+        mapper.register(PrimitiveRow.class, "test_users");
+        String sql = "SELECT id, age, CAST(age AS DOUBLE) AS ratio FROM test_users ORDER BY id";
+        List<PrimitiveRow> rows;
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            rows = mapper.mapRows(rs, PrimitiveRow.class, sql);
+        }
+        assertEquals(2, rows.size());
+        assertEquals("long 主键应正确读取", 1L, rows.get(0).id);
+        assertEquals("int 列应正确读取", 30, rows.get(0).age);
+        assertEquals("double 列应正确读取", 30D, rows.get(0).ratio, 0D);
+        assertEquals("NULL 列应保留基本类型默认值", 0, rows.get(1).age);
+        assertEquals("NULL 列应保留基本类型默认值", 0D, rows.get(1).ratio, 0D);
+    }
+
+    @Test
+    public void testPrimitiveAccessors() throws Exception {
+        PrimitiveRow row = new PrimitiveRow();
+        LambdaPropertyAccessor id = new LambdaPropertyAccessor(PrimitiveRow.class.getDeclaredField("id"));
+        LambdaPropertyAccessor age = new LambdaPropertyAccessor(PrimitiveRow.class.getDeclaredField("age"));
+        LambdaPropertyAccessor ratio = new LambdaPropertyAccessor(PrimitiveRow.class.getDeclaredField("ratio"));
+        id.setLong(row, 42L);
+        age.setInt(row, 7);
+        ratio.setDouble(row, 1.5D);
+        assertEquals(42L, id.getLong(row));
+        assertEquals(7, age.getInt(row));
+        assertEquals(1.5D, ratio.getDouble(row), 0D);
+        assertEquals("通用访问路径应读到相同的值", 42L, id.get(row));
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void testMapRowsForMapResult() throws Exception {
+        DefaultRowMapper mapper = new DefaultRowMapper();
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(SELECT_SQL)) {
+            List<Map> rows = mapper.mapRows(rs, Map.class, SELECT_SQL);
+            assertEquals(2, rows.size());
+            assertEquals("Bob", rows.get(1).get("NAME"));
+        }
+    }
+
+    /**
+     * 基本类型字段的测试实体
+     */
+    @Table(name = "test_users")
+    public static class PrimitiveRow {
+        @Id
+        private long id;
+        private int age;
+        private double ratio;
+    }
+}
@@ -0,0 +1,116 @@
+package com.kishultan.persistence.query;
+
+import com.kishultan.persistence.config.PersistenceDefaults;
+import com.kishultan.persistence.query.clause.SimpleSqlExecutor;
+import com.kishultan.persistence.query.executor.GroupedBatchExecutor;
+import com.kishultan.persistence.query.executor.StatementCache;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 分组批量执行测试
+ * 验证相同 SQL 的合并（相邻和重排）、按原始顺序返回结果，以及失败条目的映射
+ */
+public class GroupedBatchExecutorTest {
+    private static final String INSERT = "INSERT INTO batch_item (id, grp) VALUES (?, ?)";
+    private static final String UPDATE = "UPDATE batch_item SET grp = grp + 10 WHERE grp = ?";
+
+    private JdbcDataSource dataSource;
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:groupedbatch;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        connection = dataSource.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS batch_item");
+            statement.execute("CREATE TABLE batch_item (id INT PRIMARY KEY, grp INT)");
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.close();
+        PersistenceDefaults.setMaxBatchSize(1000);
+    }
+
+    private int count(String sql) throws Exception {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    public void testConsecutiveAndReorderedGroups() throws Exception {
+        List<String> sqlList = Arrays.asList(INSERT, INSERT, INSERT, UPDATE, INSERT, UPDATE);
+        List<Object[]> parameters = Arrays.asList(
+                new Object[]{1, 1}, new Object[]{2, 1}, new Object[]{3, 2},
+                new Object[]{1}, new Object[]{4, 1}, new Object[]{2});
+
+        StatementCache cache = new StatementCache(connection, 8);
+        int[] results = new GroupedBatchExecutor(2, false).execute(connection, sqlList, parameters, cache);
+        assertArrayEquals("按顺序执行，UPDATE 在第 4 条插入之前", new int[]{1, 1, 1, 2, 1, 1}, results);
+        assertEquals("4 组语句", 4, cache.getHitCount() + cache.getMissCount());
+        assertEquals(1, count("SELECT COUNT(*) FROM batch_item WHERE grp = 1"));
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM batch_item");
+        }
+        cache = new StatementCache(connection, 8);
+        results = new GroupedBatchExecutor(2, true).execute(connection, sqlList, parameters, cache);
+        assertArrayEquals("重排后插入先于全部更新，结果仍按原始顺序", new int[]{1, 1, 1, 3, 1, 1}, results);
+        assertEquals("2 组语句", 2, cache.getHitCount() + cache.getMissCount());
+        cache.close();
+    }
+
+    @Test
+    public void testFailureMapsCountsToOriginalOrder() throws Exception {
+        List<String> sqlList = Arrays.asList(INSERT, INSERT, INSERT, UPDATE);
+        List<Object[]> parameters = Arrays.asList(
+                new Object[]{1, 1}, new Object[]{1, 1}, new Object[]{2, 1}, new Object[]{1});
+        try {
+            new GroupedBatchExecutor(10, false).execute(connection, sqlList, parameters, null);
+            fail("应抛出 BatchUpdateException");
+        } catch (BatchUpdateException e) {
+            int[] counts = e.getUpdateCounts();
+            assertEquals(4, counts.length);
+            assertEquals(1, counts[0]);
+            assertEquals(Statement.EXECUTE_FAILED, counts[1]);
+            assertEquals("后续分组未执行", Statement.EXECUTE_FAILED, counts[3]);
+            assertTrue(e.getMessage(), e.getMessage().startsWith("批量更新第 1 条失败"));
+        }
+    }
+
+    @Test
+    public void testSimpleSqlExecutorBatchUpdate() throws Exception {
+        PersistenceDefaults.setMaxBatchSize(3);
+        List<String> sqlList = new ArrayList<>();
+        List<List<Object>> parameters = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            sqlList.add(INSERT);
+            parameters.add(Arrays.<Object>asList(i, i % 2));
+        }
+        sqlList.add(UPDATE);
+        parameters.add(Arrays.<Object>asList(0));
+
+        int[] results = new SimpleSqlExecutor(dataSource).executeBatchUpdate(sqlList, parameters);
+        assertEquals(11, results.length);
+        assertEquals(5, results[10]);
+        assertEquals(5, count("SELECT COUNT(*) FROM batch_item WHERE grp = 10"));
+    }
+}
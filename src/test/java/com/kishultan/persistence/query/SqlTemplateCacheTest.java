@@ -0,0 +1,91 @@
+package com.kishultan.persistence.query;
+
+import com.kishultan.persistence.model.TestUser;
+import com.kishultan.persistence.query.builder.SqlTemplateCache;
+import com.kishultan.persistence.query.clause.StandardCriterion;
+import com.kishultan.persistence.query.config.CriterionConfig;
+import com.kishultan.persistence.query.context.QueryBuilder;
+import com.kishultan.persistence.query.monitor.PerformanceConfig;
+import com.kishultan.persistence.query.monitor.QueryPerformanceMonitor;
+import com.kishultan.persistence.query.monitor.QueryPerformanceMonitorImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * SQL 模板缓存测试
+ * 验证结构相同的查询复用 SQL 模板，且生成结果与不使用缓存时一致
+ */
+public class SqlTemplateCacheTest {
+
+    @Before
+    public void setUp() {
+        SqlTemplateCache.clear();
+    }
+
+    @After
+    public void tearDown() {
+        CriterionConfig.GlobalConfig.setSqlTemplateCache(true);
+        SqlTemplateCache.clear();
+    }
+
+    private StandardCriterion<TestUser> criterion(String status, Object... ages) {
+        StandardCriterion<TestUser> criterion = new StandardCriterion<>(TestUser.class, null);
+        criterion.select().from(TestUser.class).where().eq("status", status).in("age", ages);
+        criterion.createOrderClause().desc("id");
+        return criterion;
+    }
+
+    @Test
+    public void testSameShapeHitsTemplate() {
+        QueryBuilder first = criterion("active", 18, 20).buildQuery();
+        long misses = SqlTemplateCache.getMissCount();
+        QueryBuilder second = criterion("inactive", 30, 40).buildQuery();
+
+        assertEquals("结构相同的查询应生成相同 SQL", first.getSql(), second.getSql());
+        assertEquals("第二次构建应命中模板", 1, SqlTemplateCache.getHitCount());
+        assertEquals("第二次构建不应新增未命中", misses, SqlTemplateCache.getMissCount());
+        assertEquals("命中时应绑定新的参数", Arrays.<Object>asList("inactive", 30, 40), second.getParameters());
+    }
+
+    @Test
+    public void testInArityIsPartOfShape() {
+        String two = criterion("active", 1, 2).buildQuery().getSql();
+        String three = criterion("active", 1, 2, 3).buildQuery().getSql();
+        assertNotEquals("IN 列表长度不同应使用不同模板", two, three);
+        assertEquals(0, SqlTemplateCache.getHitCount());
+    }
+
+    @Test
+    public void testTemplateMatchesUncachedBuild() {
+        CriterionConfig.GlobalConfig.setSqlTemplateCache(false);
+        StandardCriterion<TestUser> uncached = criterion("active", 1, 2);
+        uncached.limit(20, 10);
+        QueryBuilder expected = uncached.buildQuery();
+
+        CriterionConfig.GlobalConfig.setSqlTemplateCache(true);
+        criterion("active", 1, 2).buildQuery();
+        StandardCriterion<TestUser> cached = criterion("active", 1, 2);
+        cached.limit(20, 10);
+        QueryBuilder actual = cached.buildQuery();
+
+        assertEquals("分页子句应在模板之后追加", expected.getSql(), actual.getSql());
+        assertEquals(expected.getParameters(), actual.getParameters());
+        assertEquals(expected.getCountSql(), actual.getCountSql());
+        assertEquals(expected.getCountParameters(), actual.getCountParameters());
+    }
+
+    @Test
+    public void testCountersExposedThroughMonitor() {
+        criterion("active", 1).buildQuery();
+        criterion("inactive", 2).buildQuery();
+        QueryPerformanceMonitor monitor = new QueryPerformanceMonitorImpl(new PerformanceConfig());
+        assertEquals(SqlTemplateCache.getHitCount(), monitor.getSqlTemplateCacheHits());
+        assertEquals(SqlTemplateCache.getMissCount(), monitor.getSqlTemplateCacheMisses());
+        assertTrue(monitor.getSqlTemplateCacheHits() > 0);
+    }
+}
@@ -0,0 +1,88 @@
+package com.kishultan.persistence.query;
+
+import com.kishultan.persistence.EntityManager;
+import com.kishultan.persistence.EntityTransaction;
+import com.kishultan.persistence.delegate.SansOrmEntityManagerFactory;
+import com.kishultan.persistence.query.clause.SimpleSqlExecutor;
+import com.kishultan.persistence.query.executor.StatementCache;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * 事务语句缓存测试
+ * 验证语句复用、LRU 淘汰时关闭语句、命中统计，以及事务结束时关闭缓存
+ */
+public class StatementCacheTest {
+    private JdbcDataSource dataSource;
+
+    @Before
+    public void setUp() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:stmtcache;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS cached_item");
+            statement.execute("CREATE TABLE cached_item (id INT PRIMARY KEY, name VARCHAR(50))");
+        }
+    }
+
+    @After
+    public void tearDown() {
+        new EntityManager(new SansOrmEntityManagerFactory(dataSource, "stmtcache")).close();
+    }
+
+    @Test
+    public void testReuseAndEviction() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            StatementCache cache = new StatementCache(connection, 2);
+            PreparedStatement first = cache.prepare("SELECT ?");
+            first.setInt(1, 1);
+            assertSame(first, cache.prepare("SELECT ?"));
+            cache.prepare("SELECT 2");
+            cache.prepare("SELECT ?");
+            // 最久未使用的 SELECT 2 被淘汰并关闭
+            PreparedStatement third = cache.prepare("SELECT 3");
+            assertEquals(2, cache.size());
+            assertEquals(1, cache.getEvictionCount());
+            assertEquals(2, cache.getHitCount());
+            assertEquals(3, cache.getMissCount());
+            assertEquals(0.4, cache.getHitRate(), 0.0001);
+
+            cache.close();
+            assertTrue(first.isClosed());
+            assertTrue(third.isClosed());
+            assertFalse("连接由调用方管理", connection.isClosed());
+        }
+    }
+
+    @Test
+    public void testTransactionReusesStatements() {
+        EntityManager em = new EntityManager(new SansOrmEntityManagerFactory(dataSource, "stmtcache"));
+        SimpleSqlExecutor executor = new SimpleSqlExecutor(dataSource, em);
+        EntityTransaction transaction = em.beginTransaction();
+        StatementCache cache = transaction.getStatementCache();
+        assertNotNull(cache);
+
+        for (int i = 0; i < 5; i++) {
+            executor.executeUpdate("INSERT INTO cached_item (id, name) VALUES (?, ?)", Arrays.<Object>asList(i, "item" + i));
+        }
+        assertEquals(Long.valueOf(5), executor.executeAs("SELECT COUNT(*) FROM cached_item", Collections.emptyList(), Long.class));
+        assertEquals(4, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+
+        em.commitTransaction();
+        assertTrue(cache.isClosed());
+        assertNull(transaction.getStatementCache());
+        assertEquals("非事务时不缓存", 5, executor.executeAsLong("SELECT COUNT(*) FROM cached_item", null));
+    }
+}
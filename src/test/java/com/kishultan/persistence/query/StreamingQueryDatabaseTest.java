@@ -0,0 +1,224 @@
+package com.kishultan.persistence.query;
+
+import com.kishultan.persistence.query.clause.StandardCriterion;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * 流式查询数据库测试
+ * 在 H2 上实际读取数据，验证各流式模式返回的行和资源释放
+ */
+public class StreamingQueryDatabaseTest {
+    private static final int ROWS = 250;
+
+    private JdbcDataSource dataSource;
+
+    @Before
+    public void setUp() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:streamingdb;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS stream_item");
+            statement.execute("CREATE TABLE stream_item (id BIGINT PRIMARY KEY, name VARCHAR(50), grp INT)");
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO stream_item VALUES (?, ?, ?)")) {
+                for (long id = 1; id <= ROWS; id++) {
+                    insert.setLong(1, id);
+                    insert.setString(2, "item" + id);
+                    insert.setInt(3, (int) (id % 5));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    private StandardCriterion<StreamItem> criterion() {
+        StandardCriterion<StreamItem> criterion = new StandardCriterion<>(StreamItem.class, dataSource);
+        criterion.select().from();
+        return criterion;
+    }
+
+    private int openSessions() throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.SESSIONS")) {
+            rs.next();
+            // 不计本次查询使用的连接
+            return rs.getInt(1) - 1;
+        }
+    }
+
+    @Test
+    public void testCursorStreamsAllRows() throws Exception {
+        StandardCriterion<StreamItem> criterion = criterion();
+        criterion.createOrderClause().asc(criterion.getCurrentTableAlias(), "id");
+        int sessions = openSessions();
+        List<Long> ids;
+        try (Stream<StreamItem> stream = criterion.createStreamingCriterion().streamCursor(40)) {
+            ids = stream.map(StreamItem::getId).collect(Collectors.toList());
+        }
+        assertEquals(ROWS, ids.size());
+        for (int i = 0; i < ROWS; i++) {
+            assertEquals(Long.valueOf(i + 1), ids.get(i));
+        }
+        assertEquals("游标连接已释放", sessions, openSessions());
+    }
+
+    @Test
+    public void testCursorClosedAfterPartialRead() throws Exception {
+        StandardCriterion<StreamItem> criterion = criterion();
+        criterion.where(w -> w.eq(StreamItem::getGrp, 3));
+        int sessions = openSessions();
+        try (Stream<StreamItem> stream = criterion.createStreamingCriterion().streamCursor(10)) {
+            List<StreamItem> first = stream.limit(5).collect(Collectors.toList());
+            assertEquals(5, first.size());
+            for (StreamItem item : first) {
+                assertEquals(Integer.valueOf(3), item.getGrp());
+            }
+            assertEquals("读取过程中持有一个连接", sessions + 1, openSessions());
+        }
+        assertEquals("关闭流后释放连接", sessions, openSessions());
+    }
+
+    @Test
+    public void testKeysetWalksPagesAndRestoresCriterion() throws Exception {
+        StandardCriterion<StreamItem> criterion = criterion();
+        criterion.createOrderClause().asc(criterion.getCurrentTableAlias(), "grp");
+        criterion.limit(0, 7);
+        String sql = criterion.buildQuery().getSql();
+
+        List<StreamItem> items;
+        try (Stream<StreamItem> stream = criterion.createStreamingCriterion().streamWithKeyset(30)) {
+            items = stream.collect(Collectors.toList());
+        }
+        assertEquals("跨 9 页读取全部行", ROWS, items.size());
+        for (int i = 1; i < items.size(); i++) {
+            StreamItem previous = items.get(i - 1);
+            StreamItem current = items.get(i);
+            int order = previous.getGrp().compareTo(current.getGrp());
+            assertTrue("按 (grp, id) 递增", order < 0 || (order == 0 && previous.getId() < current.getId()));
+        }
+
+        assertEquals("未向调用方的排序追加主键", 1, criterion.getOrders().size());
+        assertEquals(7, criterion.getLimitValue());
+        assertEquals(sql, criterion.buildQuery().getSql());
+    }
+
+    @Test
+    public void testPartitionsCoverDisjointRanges() {
+        StandardCriterion<StreamItem> criterion = criterion();
+        criterion.where(w -> w.ne(StreamItem::getGrp, 0));
+        criterion.limit(0, 7);
+        String sql = criterion.buildQuery().getSql();
+
+        Set<Long> seen = new HashSet<>();
+        try (Stream<StreamItem> stream = criterion.createStreamingCriterion().streamParallel(20, 4)) {
+            // 未经中间操作的流直接返回分区分割器
+            List<Spliterator<StreamItem>> partitions = new ArrayList<>();
+            partitions.add(stream.spliterator());
+            for (int i = 0; i < partitions.size(); i++) {
+                Spliterator<StreamItem> prefix;
+                while ((prefix = partitions.get(i).trySplit()) != null) {
+                    partitions.add(prefix);
+                }
+            }
+            assertEquals("按并行度分成 4 个分区", 4, partitions.size());
+
+            for (Spliterator<StreamItem> partition : partitions) {
+                List<Long> ids = new ArrayList<>();
+                partition.forEachRemaining(item -> ids.add(item.getId()));
+                assertFalse("每个分区都有数据", ids.isEmpty());
+                for (Long id : ids) {
+                    assertTrue("分区之间没有重复的行: " + id, seen.add(id));
+                    assertTrue(id % 5 != 0);
+                }
+            }
+        }
+        assertEquals("分区合起来覆盖全部匹配行", ROWS / 5 * 4, seen.size());
+        assertEquals(7, criterion.getLimitValue());
+        assertEquals(sql, criterion.buildQuery().getSql());
+    }
+
+    @Test
+    public void testAbandonedPrefetchStreamStopsLoader() throws Exception {
+        int threads = prefetchThreads();
+        readPrefetchWithoutClosing();
+        assertEquals("后台线程等待消费", threads + 1, prefetchThreads());
+
+        // 流未关闭就被丢弃，分割器被回收后后台线程退出
+        long deadline = System.currentTimeMillis() + 10000;
+        while (prefetchThreads() > threads && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertEquals(threads, prefetchThreads());
+    }
+
+    private void readPrefetchWithoutClosing() {
+        Stream<StreamItem> stream = criterion().createStreamingCriterion().streamWithPrefetch(10, 2);
+        Iterator<StreamItem> iterator = stream.iterator();
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(iterator.next());
+        }
+    }
+
+    private int prefetchThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if ("streaming-prefetch".equals(thread.getName()) && thread.isAlive()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Table(name = "stream_item")
+    public static class StreamItem {
+        @Id
+        private Long id;
+        private String name;
+        private Integer grp;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Integer getGrp() {
+            return grp;
+        }
+
+        public void setGrp(Integer grp) {
+            this.grp = grp;
+        }
+    }
+}
@@ -238,4 +238,18 @@ public class StreamingQueryMetricsTest {
         double avgTime = metrics.getAverageProcessingTime();
         assertEquals("Average processing time should be 0 when no processed count", 0.0, avgTime, 0.001);
     }
+    
+    @Test
+    public void testStallTime() {
+        // 测试批次等待时间累计与重置
+        StreamingQueryMetricsImpl impl = (StreamingQueryMetricsImpl) metrics;
+        assertEquals("Initial stall time should be 0", 0, metrics.getStallTime());
+        
+        impl.addStallTime(15);
+        impl.addStallTime(5);
+        assertEquals("Stall time should be accumulated", 20, metrics.getStallTime());
+        
+        metrics.reset();
+        assertEquals("Stall time should be 0 after reset", 0, metrics.getStallTime());
+    }
 }
@@ -2,12 +2,16 @@ package com.kishultan.persistence.query;
 
 import com.kishultan.persistence.query.clause.StandardCriterion;
 import com.kishultan.persistence.query.clause.StreamingCriterionImpl;
+import com.kishultan.persistence.query.context.KeysetCondition;
+import com.kishultan.persistence.query.context.OrderInfo;
+import com.kishultan.persistence.query.context.QueryBuilder;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import javax.sql.DataSource;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
@@ -86,6 +90,44 @@ public class StreamingQueryTest {
         }
     }
     
+    @Test
+    public void testCursorStreaming() throws Exception {
+        // 测试游标流式查询（延迟打开游标，创建和关闭未读取的流时不执行查询）
+        java.sql.Connection connection = dataSource.getConnection();
+        try (Stream<TestEntity> stream = streamingQuery.streamCursor()) {
+            assertNotNull("Cursor stream should not be null", stream);
+        }
+        verify(connection, never()).prepareStatement(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void testCursorStreamingWithFetchSize() throws Exception {
+        // 测试指定 fetchSize 的游标流式查询：fetchSize 传给驱动，读取结束后关闭结果集和语句
+        java.sql.Connection connection = mock(java.sql.Connection.class);
+        java.sql.PreparedStatement statement = mock(java.sql.PreparedStatement.class);
+        java.sql.ResultSet resultSet = mock(java.sql.ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(false);
+
+        try (Stream<TestEntity> stream = streamingQuery.streamCursor(200)) {
+            assertEquals(0, stream.count());
+        }
+        verify(statement).setFetchSize(200);
+        verify(resultSet).close();
+        verify(statement).close();
+        verify(connection).close();
+    }
+
+    @Test
+    public void testPrefetchStreaming() {
+        // 测试预取流式查询（关闭流时停止后台预取）
+        try (Stream<TestEntity> stream = streamingQuery.streamWithPrefetch(100, 2)) {
+            assertNotNull("Prefetch stream should not be null", stream);
+        }
+    }
+
     @Test
     public void testPaginationStreaming() {
         // 测试分页流式查询
@@ -114,6 +156,36 @@ public class StreamingQueryTest {
         }
     }
     
+    @Test
+    public void testKeysetStreaming() {
+        // 测试键集分页流式查询
+        try {
+            Stream<TestEntity> stream = streamingQuery.streamWithKeyset(100);
+            assertNotNull("Keyset stream should not be null", stream);
+        } catch (Exception e) {
+            assertTrue("Should handle keyset streaming query creation", true);
+        }
+    }
+
+    @Test
+    public void testKeysetPredicate() {
+        // 测试键集分页谓词：单键生成 k > ?，且计数查询不受影响
+        queryBuilder.seekAfter(new KeysetCondition(
+                Arrays.asList(new OrderInfo("t.id", "ASC")), Arrays.<Object>asList(10L)));
+        QueryBuilder query = queryBuilder.buildQuery();
+        assertTrue("应包含键集谓词", query.getSql().contains("t.id > ?"));
+        assertEquals("键值应作为参数", 10L, query.getParameters().get(query.getParameters().size() - 1));
+        assertFalse("计数查询不应包含键集谓词", query.getCountSql().contains("t.id > ?"));
+
+        // 混合排序方向时展开为 OR 形式
+        queryBuilder.seekAfter(new KeysetCondition(
+                Arrays.asList(new OrderInfo("t.age", "DESC"), new OrderInfo("t.id", "ASC")),
+                Arrays.<Object>asList(30, 10L)));
+        String sql = queryBuilder.buildQuery().getSql();
+        assertTrue("应展开为 OR 形式", sql.contains("(t.age < ?) OR (t.age = ? AND t.id > ?)"));
+        queryBuilder.seekAfter(null);
+    }
+
     @Test
     public void testStreamForEach() {
         // 测试流式处理
@@ -325,6 +397,19 @@ public class StreamingQueryTest {
         // 测试指定批次大小和并行度的并行流式查询
         Stream<TestEntity> parallelStream = streamingQuery.streamParallel(500, 4);
         assertNotNull("Parallel stream should not be null", parallelStream);
+        assertTrue("Stream should be parallel", parallelStream.isParallel());
+    }
+
+    @Test
+    public void testPartitionRangePredicate() {
+        // 测试范围分区使用的键集上界条件
+        queryBuilder.seekAfter(new KeysetCondition(
+                Arrays.asList(new OrderInfo("t.id", "ASC")), Arrays.<Object>asList(0L), 100L));
+        QueryBuilder query = queryBuilder.buildQuery();
+        assertTrue("应包含范围条件", query.getSql().contains("(t.id > ?) AND t.id <= ?"));
+        List<Object> params = query.getParameters();
+        assertEquals("上界应为最后一个键集参数", 100L, params.get(params.size() - 1));
+        queryBuilder.seekAfter(null);
     }
     
     /**
@@ -0,0 +1,156 @@
+package com.kishultan.persistence.query.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 并发未命中合并测试
+ * 验证同一缓存键的并发加载只执行一次、等待超时后自行加载，以及过期后提供旧值并后台刷新
+ */
+public class CacheLoadCoalescingTest {
+    private static final int THREADS = 8;
+
+    private CacheConfig config;
+    private QueryCacheImpl cache;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        config = new CacheConfig(true, 1000, 60000);
+        config.setEnableAsync(false);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        if (cache != null) {
+            cache.shutdown();
+        }
+    }
+
+    /**
+     * 阻塞到 release 打开才返回的加载器
+     */
+    private static CacheLoader<String> blockingLoader(AtomicInteger loads, CountDownLatch release, String value) {
+        return () -> {
+            loads.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return value;
+        };
+    }
+
+    private List<Future<String>> submitLoads(int count, CacheLoader<String> loader) {
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            futures.add(executor.submit(() -> cache.getOrLoad("report", String.class, 60000, loader)));
+        }
+        return futures;
+    }
+
+    @Test
+    public void testConcurrentMissesLoadOnce() throws Exception {
+        cache = new QueryCacheImpl(config, new LRUCacheStrategy());
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> futures = submitLoads(THREADS, blockingLoader(loads, release, "result"));
+        Thread.sleep(200);
+        release.countDown();
+        for (Future<String> future : futures) {
+            assertEquals("所有调用方应得到同一结果", "result", future.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals("并发未命中只应加载一次", 1, loads.get());
+        assertEquals("其余调用方应等待首个加载", THREADS - 1, cache.getStatistics().getCoalescedCount());
+        assertEquals("结果应写入缓存", "result", cache.get("report", String.class));
+    }
+
+    @Test
+    public void testLoadTimeoutFallsBackToDirectLoad() throws Exception {
+        config.setLoadTimeout(50);
+        cache = new QueryCacheImpl(config, new LRUCacheStrategy());
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> first = submitLoads(1, blockingLoader(loads, release, "slow")).get(0);
+        Thread.sleep(100);
+        String fallback = cache.getOrLoad("report", String.class, 60000, () -> {
+            loads.incrementAndGet();
+            return "direct";
+        });
+        assertEquals("等待超时后应自行加载", "direct", fallback);
+        release.countDown();
+        assertEquals("slow", first.get(5, TimeUnit.SECONDS));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testFailedLoadSharedWithWaiters() throws Exception {
+        cache = new QueryCacheImpl(config, new LRUCacheStrategy());
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> futures = submitLoads(THREADS, () -> {
+            loads.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("数据库不可用");
+        });
+        Thread.sleep(200);
+        release.countDown();
+        for (Future<String> future : futures) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("加载失败应传递给所有调用方");
+            } catch (java.util.concurrent.ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        }
+        assertEquals("失败的加载也只执行一次", 1, loads.get());
+        assertFalse("失败结果不应缓存", cache.contains("report"));
+    }
+
+    @Test
+    public void testStaleWhileRevalidate() throws Exception {
+        config.setStaleWhileRevalidate(60000);
+        cache = new QueryCacheImpl(config, new LRUCacheStrategy());
+        cache.put("report", "old", 50);
+        Thread.sleep(100);
+
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CacheLoader<String> loader = blockingLoader(loads, release, "new");
+        for (int i = 0; i < THREADS; i++) {
+            assertEquals("窗口内应直接返回旧值", "old", cache.getOrLoad("report", String.class, 60000, loader));
+        }
+        assertNull("普通读取不返回过期值", cache.get("report", String.class));
+        release.countDown();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cache.get("report", String.class) == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("后台刷新后应返回新值", "new", cache.getOrLoad("report", String.class, 60000, loader));
+        assertEquals("窗口内只应有一次后台刷新", 1, loads.get());
+        assertEquals(THREADS, cache.getStatistics().getStaleHitCount());
+    }
+}
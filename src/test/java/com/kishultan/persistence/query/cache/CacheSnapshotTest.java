@@ -0,0 +1,244 @@
+package com.kishultan.persistence.query.cache;
+
+import com.kishultan.persistence.model.TestUser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 缓存快照和热点查询重放测试
+ * 验证快照保存剩余有效期和表依赖、跳过过期条目，以及按命中次数重放查询
+ */
+public class CacheSnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private CacheConfig config;
+    private final List<QueryCacheImpl> caches = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        config = new CacheConfig(true, 100, 60000);
+        config.setEnableAsync(false);
+    }
+
+    @After
+    public void tearDown() {
+        for (QueryCacheImpl cache : caches) {
+            cache.shutdown();
+        }
+    }
+
+    private QueryCacheImpl newCache() {
+        QueryCacheImpl cache = new QueryCacheImpl(config, new LRUCacheStrategy());
+        caches.add(cache);
+        return cache;
+    }
+
+    private static List<TestUser> users(int count) {
+        List<TestUser> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TestUser user = new TestUser();
+            user.setId((long) i);
+            user.setName("user" + i);
+            user.setCreateTime(new Date(1700000000000L + i));
+            users.add(user);
+        }
+        return users;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSnapshotRoundTrip() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("cache.snapshot");
+        QueryCacheImpl source = newCache();
+        source.put("users", users(10), 60000, TableDependency.capture(new HashSet<>(Arrays.asList("snapshot_users"))));
+        source.put("count", 42L, 0);
+        assertEquals(Integer.valueOf(2), source.saveSnapshotAsync(file).get(5, TimeUnit.SECONDS));
+
+        QueryCacheImpl target = newCache();
+        assertEquals(Integer.valueOf(2), target.loadSnapshotAsync(file).get(5, TimeUnit.SECONDS));
+        List<TestUser> restored = target.get("users", List.class);
+        assertNotNull(restored);
+        assertEquals(10, restored.size());
+        assertEquals("user3", restored.get(3).getName());
+        assertEquals(Long.valueOf(42), target.get("count", Long.class));
+
+        TableVersions.invalidate(Arrays.asList("snapshot_users"));
+        assertNull("载入的条目应重新跟踪表依赖", target.get("users", List.class));
+        assertEquals(Long.valueOf(42), target.get("count", Long.class));
+    }
+
+    @Test
+    public void testSnapshotSkipsExpiredEntriesAndKeepsHottest() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("cache.snapshot");
+        config.setSnapshotMaxEntries(2);
+        QueryCacheImpl source = newCache();
+        source.put("cold", "c", 60000);
+        source.put("warm", "w", 60000);
+        source.put("hot", "h", 60000);
+        source.put("short", "s", 50);
+        for (int i = 0; i < 3; i++) {
+            source.get("hot", String.class);
+        }
+        source.get("warm", String.class);
+        source.get("short", String.class);
+        source.get("short", String.class);
+        source.get("short", String.class);
+        source.get("short", String.class);
+        assertEquals(Integer.valueOf(2), source.saveSnapshotAsync(file).get(5, TimeUnit.SECONDS));
+
+        Thread.sleep(100);
+        QueryCacheImpl target = newCache();
+        target.put("hot", "existing", 60000);
+        assertEquals("已过期和已存在的条目应跳过", Integer.valueOf(0),
+                target.loadSnapshotAsync(file).get(5, TimeUnit.SECONDS));
+        assertEquals("existing", target.get("hot", String.class));
+        assertNull(target.get("short", String.class));
+        assertNull("只保存命中次数最多的条目", target.get("warm", String.class));
+    }
+
+    @Test
+    public void testWarmUpLoadsSnapshotOnStartup() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("cache.snapshot");
+        config.setSnapshotFile(file.toString());
+        QueryCacheImpl source = newCache();
+        source.put("q1", "v1", 60000);
+        source.shutdown();
+
+        config.setEnableWarmUp(true);
+        QueryCacheImpl target = newCache();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (target.get("q1", String.class) == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("v1", target.get("q1", String.class));
+    }
+
+    @Test
+    public void testReplayHotQueries() throws Exception {
+        QueryCacheImpl cache = newCache();
+        AtomicInteger hotLoads = new AtomicInteger();
+        AtomicInteger coldLoads = new AtomicInteger();
+        cache.getOrLoad("hot", String.class, 60000, () -> "hot" + hotLoads.incrementAndGet());
+        cache.getOrLoad("cold", String.class, 60000, () -> "cold" + coldLoads.incrementAndGet());
+        for (int i = 0; i < 5; i++) {
+            cache.getOrLoad("hot", String.class, 60000, () -> "hot" + hotLoads.incrementAndGet());
+        }
+        cache.getOrLoad("cold", String.class, 60000, () -> "cold" + coldLoads.incrementAndGet());
+        assertEquals(Arrays.asList("hot", "cold"), cache.getStatistics().getTopKeys(2));
+
+        cache.remove("hot");
+        cache.remove("cold");
+        assertEquals(Integer.valueOf(1), cache.replayHotQueriesAsync(1).get(5, TimeUnit.SECONDS));
+        assertEquals("hot2", cache.get("hot", String.class));
+        assertFalse("只重放前 topN 个查询", cache.contains("cold"));
+        assertEquals("已缓存的查询不重放", Integer.valueOf(0), cache.replayHotQueriesAsync(1).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testReplayKeepsOnlyHottestLoaders() throws Exception {
+        config.setReplayMaxEntries(2);
+        QueryCacheImpl cache = newCache();
+        load(cache, "a", 3);
+        load(cache, "b", 1);
+        // 首次加载时 c 没有命中，比已登记的查询都冷，不登记
+        load(cache, "c", 5);
+        cache.remove("c");
+        // 再次加载时 c 已是最热的查询，替换命中最少的 b
+        load(cache, "c", 0);
+
+        cache.removeAll(Arrays.asList("a", "b", "c"));
+        assertEquals(Integer.valueOf(2), cache.replayHotQueriesAsync(3).get(5, TimeUnit.SECONDS));
+        assertTrue(cache.contains("a"));
+        assertTrue(cache.contains("c"));
+        assertFalse("超出上限的查询不保留加载器", cache.contains("b"));
+    }
+
+    private static void load(QueryCacheImpl cache, String key, int hits) {
+        cache.getOrLoad(key, String.class, 60000, () -> key);
+        for (int i = 0; i < hits; i++) {
+            cache.get(key, String.class);
+        }
+    }
+
+    @Test
+    public void testReplayStopsAtTimeout() throws Exception {
+        config.setWarmUpTimeout(100);
+        QueryCacheImpl cache = newCache();
+        for (int i = 0; i < 5; i++) {
+            String key = "slow" + i;
+            cache.getOrLoad(key, String.class, 60000, () -> {
+                try {
+                    Thread.sleep(80);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return key;
+            });
+            cache.get(key, String.class);
+        }
+        for (int i = 0; i < 5; i++) {
+            cache.remove("slow" + i);
+        }
+
+        long start = System.currentTimeMillis();
+        int replayed = cache.replayHotQueriesAsync(5).get(5, TimeUnit.SECONDS);
+        assertTrue("超过时间上限后停止重放", replayed < 5);
+        assertTrue(System.currentTimeMillis() - start < 1000);
+    }
+
+    @Test
+    public void testTopKeysOrderedByHits() {
+        CacheStatistics statistics = new CacheStatistics();
+        statistics.recordKeyHit("a");
+        statistics.recordKeyHit("b");
+        statistics.recordKeyHit("b");
+        assertEquals(2, statistics.getKeyHitCount("b"));
+        assertEquals(Arrays.asList("b", "a"), statistics.getTopKeys(5));
+        statistics.reset();
+        assertEquals(Collections.emptyList(), statistics.getTopKeys(5));
+    }
+
+    @Test
+    public void testKeyHitCountsAgeByPeriod() {
+        CacheStatistics statistics = new CacheStatistics();
+        for (int i = 0; i < 4; i++) {
+            statistics.recordKeyHit("hot");
+        }
+        for (int i = 1; i < CacheStatistics.MAX_TRACKED_KEYS; i++) {
+            statistics.recordKeyHit("key" + i);
+        }
+        // 键数已满，新键不登记，也不触发衰减
+        statistics.recordKeyHit("new");
+        assertEquals(0, statistics.getKeyHitCount("new"));
+        assertEquals(4, statistics.getKeyHitCount("hot"));
+        assertEquals(Arrays.asList("hot"), statistics.getTopKeys(1));
+
+        int recorded = 4 + CacheStatistics.MAX_TRACKED_KEYS;
+        for (int i = recorded; i < CacheStatistics.KEY_HIT_AGING_PERIOD; i++) {
+            statistics.recordKeyHit("hot");
+        }
+        // 第 KEY_HIT_AGING_PERIOD 次命中时计数减半，只命中过一次的键被丢弃
+        long hot = 4 + CacheStatistics.KEY_HIT_AGING_PERIOD - recorded - 1;
+        assertEquals(hot / 2 + 1, statistics.getKeyHitCount("hot"));
+        assertEquals(0, statistics.getKeyHitCount("key1"));
+        statistics.recordKeyHit("new");
+        assertEquals(1, statistics.getKeyHitCount("new"));
+        assertEquals(Arrays.asList("hot", "new"), statistics.getTopKeys(2));
+    }
+}
@@ -0,0 +1,132 @@
+package com.kishultan.persistence.query.cache;
+
+import com.kishultan.persistence.model.TestUser;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 缓存权重测试
+ * 验证默认权重估算随结果行数增长，以及缓存按 maxMemoryUsage 淘汰
+ */
+public class CacheWeigherTest {
+
+    private static List<TestUser> users(int count) {
+        List<TestUser> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TestUser user = new TestUser();
+            user.setId((long) i);
+            user.setName("user" + (i % 10));
+            user.setEmail("user" + (i % 10) + "@example.com");
+            users.add(user);
+        }
+        return users;
+    }
+
+    @Test
+    public void testDefaultWeigherScalesWithRows() {
+        DefaultCacheWeigher weigher = DefaultCacheWeigher.INSTANCE;
+        long small = weigher.weigh(null, users(1000));
+        long large = weigher.weigh(null, users(100000));
+
+        assertTrue("实体列表应按字段布局估算，而不是每行 64 字节", small > 1000 * 100);
+        double ratio = (double) large / small;
+        assertTrue("抽样估算应与行数成比例: " + ratio, ratio > 90 && ratio < 110);
+    }
+
+    @Test
+    public void testDefaultWeigherBasicTypes() {
+        DefaultCacheWeigher weigher = DefaultCacheWeigher.INSTANCE;
+        assertEquals(0, weigher.weigh(null, null));
+        assertEquals(24, weigher.weigh(null, 1L));
+        assertEquals("字符串按对象加字符数组估算", 48, weigher.weigh(null, "abcd"));
+        assertTrue("缓存键也应计入权重", weigher.weigh("key", "abcd") > weigher.weigh(null, "abcd"));
+    }
+
+    @Test
+    public void testChildCollectionsWeighedThroughEntities() {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Order order = new Order();
+            for (int j = 0; j < 20; j++) {
+                OrderLine line = new OrderLine();
+                line.note = new String(new char[1000]);
+                order.lines.add(line);
+            }
+            orders.add(order);
+        }
+        // 集合不占递归深度：订单行及其字符串字段都应计入
+        long weight = DefaultCacheWeigher.INSTANCE.weigh(null, orders);
+        assertTrue("子集合元素的字段应计入权重: " + weight, weight > 10 * 20 * 2000);
+    }
+
+    public static class Order {
+        private List<OrderLine> lines = new ArrayList<>();
+
+        public List<OrderLine> getLines() {
+            return lines;
+        }
+
+        public void setLines(List<OrderLine> lines) {
+            this.lines = lines;
+        }
+    }
+
+    public static class OrderLine {
+        private String note;
+
+        public String getNote() {
+            return note;
+        }
+
+        public void setNote(String note) {
+            this.note = note;
+        }
+    }
+
+    @Test
+    public void testMemoryBudgetEvictsByWeight() {
+        CacheConfig config = new CacheConfig(true, 1000, 60000);
+        config.setEnableAsync(false);
+        config.setMaxMemoryUsage(1024 * 1024);
+        config.setWeigher((key, value) -> 300 * 1024);
+        QueryCacheImpl cache = new QueryCacheImpl(config, new LRUCacheStrategy());
+
+        try {
+            for (int i = 0; i < 5; i++) {
+                cache.put("key" + i, "value", 60000);
+            }
+            assertEquals("按字节上限只能容纳 3 个条目", 3, cache.size());
+            assertEquals(3 * 300 * 1024, cache.getWeightedSize());
+            assertTrue("最近写入的条目应保留", cache.contains("key4"));
+            assertFalse("最早写入的条目应被淘汰", cache.contains("key0"));
+
+            cache.remove("key4");
+            assertEquals("移除后应扣减权重", 2 * 300 * 1024, cache.getWeightedSize());
+        } finally {
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    public void testOversizedValueNotCached() {
+        CacheConfig config = new CacheConfig(true, 1000, 60000);
+        config.setEnableAsync(false);
+        config.setMaxMemoryUsage(1024 * 1024);
+        config.setWeigher((key, value) -> "huge".equals(value) ? 2 * 1024 * 1024 : 1024);
+        QueryCacheImpl cache = new QueryCacheImpl(config, new LRUCacheStrategy());
+
+        try {
+            cache.put("small", "value", 60000);
+            cache.put("big", "huge", 60000);
+            assertFalse("超过内存上限的结果不应缓存", cache.contains("big"));
+            assertTrue("超大结果不应挤掉已有条目", cache.contains("small"));
+            assertEquals(1024, cache.getWeightedSize());
+        } finally {
+            cache.shutdown();
+        }
+    }
+}
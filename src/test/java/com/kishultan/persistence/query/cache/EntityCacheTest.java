@@ -0,0 +1,236 @@
+package com.kishultan.persistence.query.cache;
+
+import com.kishultan.persistence.EntityManager;
+import com.kishultan.persistence.batch.ChangeTracker;
+import com.kishultan.persistence.delegate.SansOrmEntityManagerFactory;
+import com.kishultan.persistence.delegate.SansOrmEntityTransaction;
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 实体缓存测试
+ * 验证按主键缓存、返回副本、写入和移除、表版本和外部版本失效，以及事务提交后才写入缓存
+ */
+public class EntityCacheTest {
+    private static final String DS = "default";
+
+    @Before
+    public void setUp() {
+        CacheConfig config = new CacheConfig(true, 100, 60000);
+        config.setEnableAsync(false);
+        EntityCache.configure(config);
+    }
+
+    @After
+    public void tearDown() {
+        EntityCache.configure(CacheConfig.createDefault());
+    }
+
+    private static Country country(long id, String name) {
+        Country country = new Country();
+        country.setId(id);
+        country.setName(name);
+        country.setUpdated(new Date(1700000000000L));
+        return country;
+    }
+
+    @Test
+    public void testCacheableByAnnotationOrConfig() {
+        assertTrue(EntityCache.isCacheable(Country.class));
+        assertFalse(EntityCache.isCacheable(String.class));
+        EntityCache.setCacheable(Country.class, false);
+        assertFalse(EntityCache.isCacheable(Country.class));
+        EntityCache.setCacheable(Country.class, true);
+        assertTrue(EntityCache.isCacheable(Country.class));
+    }
+
+    @Test
+    public void testFindLoadsOnceAndReturnsCopies() {
+        AtomicInteger loads = new AtomicInteger();
+        Country first = EntityCache.find(DS, Country.class, 1L, () -> {
+            loads.incrementAndGet();
+            return country(1L, "China");
+        });
+        first.setName("modified");
+        first.getUpdated().setTime(0);
+
+        Country second = EntityCache.find(DS, Country.class, 1L, () -> {
+            loads.incrementAndGet();
+            return country(1L, "China");
+        });
+        assertEquals(1, loads.get());
+        assertNotSame(first, second);
+        assertEquals("修改返回的实体不影响缓存", "China", second.getName());
+        assertEquals(1700000000000L, second.getUpdated().getTime());
+        assertNull("不存在的实体不缓存", EntityCache.find(DS, Country.class, 2L, () -> null));
+        assertEquals(1, EntityCache.getStatistics().getHitCount());
+    }
+
+    @Test
+    public void testPutAndEvict() {
+        Country country = country(3L, "Japan");
+        EntityCache.put(DS, country);
+        country.setName("changed");
+        assertEquals("Japan", EntityCache.find(DS, Country.class, 3L, () -> fail()).getName());
+
+        EntityCache.evict(DS, Country.class, 3L);
+        assertEquals("reloaded", EntityCache.find(DS, Country.class, 3L, () -> country(3L, "reloaded")).getName());
+        assertNull("不同数据源分别缓存", EntityCache.find("other", Country.class, 3L, () -> null));
+    }
+
+    @Test
+    public void testTableWriteInvalidatesEntities() {
+        EntityCache.find(DS, Country.class, 4L, () -> country(4L, "old"));
+        List<Country> all = EntityCache.findAll(DS, Country.class, () -> Arrays.asList(country(4L, "old")));
+        assertEquals(1, all.size());
+
+        TableVersions.invalidate(Collections.singleton("entity_cache_country"));
+        assertEquals("new", EntityCache.find(DS, Country.class, 4L, () -> country(4L, "new")).getName());
+        assertEquals("new", EntityCache.findAll(DS, Country.class,
+                () -> Arrays.asList(country(4L, "new"))).get(0).getName());
+    }
+
+    @Test
+    public void testManagedWriteKeepsOtherEntities() {
+        EntityCache.find(DS, Country.class, 6L, () -> country(6L, "kept"));
+        EntityCache.findAll(DS, Country.class, () -> Arrays.asList(country(6L, "kept")));
+
+        // EntityManager 写入另一个实体：只递增表版本，并直接写入该实体
+        TableVersions.invalidateManaged(Collections.singleton("entity_cache_country"));
+        EntityCache.put(DS, country(7L, "written"));
+
+        assertEquals("同表的其他实体仍然命中", "kept", EntityCache.find(DS, Country.class, 6L, () -> fail()).getName());
+        assertEquals("written", EntityCache.find(DS, Country.class, 7L, () -> fail()).getName());
+        assertEquals("列表结果失效", 2, EntityCache.findAll(DS, Country.class,
+                () -> Arrays.asList(country(6L, "kept"), country(7L, "written"))).size());
+    }
+
+    @Test
+    public void testWritesAppliedOnCommitAndDiscardedOnRollback() throws Exception {
+        org.h2.jdbcx.JdbcDataSource dataSource = new org.h2.jdbcx.JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:entitycache;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+
+        SansOrmEntityTransaction transaction = new SansOrmEntityTransaction(dataSource);
+        transaction.begin();
+        transaction.afterCommit(() -> EntityCache.put(DS, country(5L, "committed")));
+        assertNull("提交前不写入", EntityCache.find(DS, Country.class, 5L, () -> null));
+        transaction.commit();
+        assertEquals("committed", EntityCache.find(DS, Country.class, 5L, () -> fail()).getName());
+
+        transaction.begin();
+        transaction.afterCommit(() -> EntityCache.evict(DS, Country.class, 5L));
+        transaction.rollback();
+        assertEquals("回滚后丢弃", "committed", EntityCache.find(DS, Country.class, 5L, () -> fail()).getName());
+        transaction.close();
+    }
+
+    @Test
+    public void testLoadDoesNotOverwriteCommittedUpdate() throws Exception {
+        org.h2.jdbcx.JdbcDataSource dataSource = new org.h2.jdbcx.JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:entitycache_race;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        try (java.sql.Connection connection = dataSource.getConnection();
+             java.sql.Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS entity_cache_country");
+            statement.execute("CREATE TABLE entity_cache_country (id BIGINT PRIMARY KEY, name VARCHAR(50), updated TIMESTAMP)");
+            statement.execute("INSERT INTO entity_cache_country VALUES (8, 'old', NULL)");
+        }
+        EntityManager em = new EntityManager(new SansOrmEntityManagerFactory(dataSource, DS));
+
+        // 加载读到旧行后暂停，期间提交一次 update
+        CountDownLatch read = new CountDownLatch(1);
+        CountDownLatch updated = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Country> load = executor.submit(() -> EntityCache.find(DS, Country.class, 8L, () -> {
+            Country row;
+            try (java.sql.Connection connection = dataSource.getConnection();
+                 java.sql.Statement statement = connection.createStatement();
+                 java.sql.ResultSet rs = statement.executeQuery("SELECT name FROM entity_cache_country WHERE id = 8")) {
+                rs.next();
+                row = country(8L, rs.getString(1));
+            } catch (java.sql.SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            read.countDown();
+            try {
+                updated.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return row;
+        }));
+        assertTrue(read.await(5, TimeUnit.SECONDS));
+        // 跟踪变更的实体由 EntityManager 自行生成 UPDATE 语句
+        ChangeTracker.setTracked(Country.class, true);
+        try {
+            Country country = country(8L, "old");
+            country.setUpdated(null);
+            ChangeTracker.track(country);
+            country.setName("new");
+            em.update(country);
+        } finally {
+            ChangeTracker.setTracked(Country.class, false);
+            ChangeTracker.reset();
+        }
+        updated.countDown();
+        assertEquals("加载返回读到的旧行", "old", load.get(5, TimeUnit.SECONDS).getName());
+        executor.shutdown();
+
+        assertEquals("加载结果不覆盖提交的写入", "new", EntityCache.find(DS, Country.class, 8L, () -> fail()).getName());
+    }
+
+    private static Country fail() {
+        throw new AssertionError("不应访问数据库");
+    }
+
+    @Cacheable
+    @Table(name = "entity_cache_country")
+    public static class Country {
+        @Id
+        private Long id;
+        private String name;
+        private Date updated;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Date getUpdated() {
+            return updated;
+        }
+
+        public void setUpdated(Date updated) {
+            this.updated = updated;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.kishultan.persistence.query.cache;
+
+import com.kishultan.persistence.model.TestUser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 堆外存储层测试
+ * 验证热点层淘汰的条目转存到堆外并在命中时还原，以及二进制行格式的编解码
+ */
+public class OffHeapTierTest {
+    private CacheConfig config;
+    private QueryCacheImpl cache;
+
+    @Before
+    public void setUp() {
+        config = new CacheConfig(true, 2, 60000);
+        config.setEnableAsync(false);
+        config.setMaxOffHeapMemory(1024 * 1024);
+        config.setOffHeapSlabSize(64 * 1024);
+    }
+
+    @After
+    public void tearDown() {
+        if (cache != null) {
+            cache.shutdown();
+        }
+    }
+
+    private static List<TestUser> users(int count, String prefix) {
+        List<TestUser> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TestUser user = new TestUser();
+            user.setId((long) i);
+            user.setName(prefix + i);
+            user.setAge(i % 2 == 0 ? null : 20 + i);
+            user.setCreateTime(new Date(1700000000000L + i));
+            users.add(user);
+        }
+        return users;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEvictedEntriesServedFromOffHeap() {
+        cache = new QueryCacheImpl(config, new LRUCacheStrategy());
+        cache.put("q1", users(100, "a"), 60000);
+        cache.put("q2", users(100, "b"), 60000);
+        cache.put("q3", users(100, "c"), 60000);
+
+        assertEquals("淘汰的条目应转存到堆外", 1, cache.getStatistics().getOffHeapPutCount());
+        assertTrue(cache.getOffHeapSize() > 0);
+        assertEquals("两层合计的条目数", 3, cache.size());
+        assertTrue(cache.contains("q1"));
+
+        List<TestUser> restored = cache.get("q1", List.class);
+        assertNotNull("堆外条目应能命中", restored);
+        assertEquals(100, restored.size());
+        TestUser user = restored.get(3);
+        assertEquals(Long.valueOf(3), user.getId());
+        assertEquals("a3", user.getName());
+        assertEquals(Integer.valueOf(23), user.getAge());
+        assertNull(restored.get(2).getAge());
+        assertEquals(new Date(1700000000003L), user.getCreateTime());
+
+        CacheStatistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.getOffHeapHitCount());
+        assertEquals(1.0, statistics.getOffHeapHitRate(), 0.0001);
+        assertNotNull("放回热点层后再次命中不经过堆外", cache.get("q1", List.class));
+        assertEquals(1, statistics.getOffHeapHitCount());
+        assertEquals(0.5, statistics.getHeapHitRate(), 0.0001);
+    }
+
+    @Test
+    public void testRemoveAndPutSupersedeOffHeapEntry() {
+        cache = new QueryCacheImpl(config, new LRUCacheStrategy());
+        cache.put("q1", "old", 60000);
+        cache.put("q2", "v2", 60000);
+        cache.put("q3", "v3", 60000);
+        assertEquals(1, cache.getStatistics().getOffHeapPutCount());
+
+        cache.put("q1", "new", 60000);
+        assertEquals("新值应覆盖堆外旧值", "new", cache.get("q1", String.class));
+
+        cache.put("q4", "v4", 60000);
+        cache.put("q5", "v5", 60000);
+        assertTrue(cache.remove("q1"));
+        assertNull("移除应同时作用于堆外", cache.get("q1", String.class));
+    }
+
+    @Test
+    public void testRemovalStampRejectsLateWrites() {
+        OffHeapStore store = new OffHeapStore(1024, 4096);
+        List<OffHeapStore.Record> evicted = new ArrayList<>();
+        byte[] data = {1, 2, 3};
+
+        // 淘汰后、转存前该键被移除，转存不应复活旧值
+        long stamp = store.removalStamp("q1");
+        store.remove("q1");
+        assertFalse(store.put("q1", data, 0, 60000, null, evicted, stamp));
+        assertNull(store.get("q1"));
+
+        stamp = store.removalStamp("q1");
+        store.clear();
+        assertFalse("清空后转存同样失效", store.put("q1", data, 0, 60000, null, evicted, stamp));
+
+        assertTrue(store.put("q1", data, 0, 60000, null, evicted, store.removalStamp("q1")));
+        OffHeapStore.Record record = store.get("q1");
+        store.remove("q1");
+        assertFalse("放回热点层前记录已被移除", store.remove(record));
+    }
+
+    @Test
+    public void testOffHeapBudgetRecyclesOldestSlab() {
+        config.setMaxOffHeapMemory(64 * 1024);
+        config.setOffHeapSlabSize(16 * 1024);
+        cache = new QueryCacheImpl(config, new LRUCacheStrategy());
+        for (int i = 0; i < 40; i++) {
+            cache.put("q" + i, users(200, "u"), 60000);
+        }
+        assertTrue("超出堆外预算时应回收最早的 slab", cache.getStatistics().getOffHeapEvictionCount() > 0);
+        assertTrue(cache.getOffHeapSize() <= 64 * 1024);
+        assertNull("最早转存的条目应已被回收", cache.get("q0", List.class));
+        assertNotNull(cache.get("q37", List.class));
+    }
+
+    @Test
+    public void testTableWriteInvalidatesOffHeapEntry() {
+        cache = new QueryCacheImpl(config, new LRUCacheStrategy());
+        cache.put("q1", "v1", 60000, TableDependency.capture(new HashSet<>(Arrays.asList("offheap_orders"))));
+        cache.put("q2", "v2", 60000);
+        cache.put("q3", "v3", 60000);
+        assertEquals(1, cache.getStatistics().getOffHeapPutCount());
+
+        TableVersions.invalidate(Arrays.asList("offheap_orders"));
+        assertFalse(cache.contains("q1"));
+        assertNull(cache.get("q1", String.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCodecRoundTrip() {
+        BinaryRowCodec codec = new BinaryRowCodec();
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("amount", new BigDecimal("12345.678"));
+        row.put("time", LocalDateTime.of(2024, 5, 6, 7, 8, 9, 123456789));
+        row.put("flag", Boolean.TRUE);
+        row.put("missing", null);
+        List<Object> value = Arrays.asList(row, 42L, "文本", CacheStrategy.StrategyType.TTL);
+
+        List<Object> decoded = (List<Object>) codec.decode(codec.encode(value));
+        assertEquals(value, decoded);
+        assertEquals("键顺序应保持", new ArrayList<>(row.keySet()),
+                new ArrayList<>(((Map<String, Object>) decoded.get(0)).keySet()));
+    }
+
+    @Test(expected = BinaryRowCodec.UnsupportedValueException.class)
+    public void testCodecRejectsUnsupportedCollections() {
+        new BinaryRowCodec().encode(new HashSet<>(Arrays.asList(1, 2)));
+    }
+}
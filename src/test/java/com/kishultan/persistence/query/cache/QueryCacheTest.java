@@ -159,6 +159,64 @@ public class QueryCacheTest {
         }
     }
     
+    @Test
+    public void testEvictionFollowsAccessOrder() {
+        CacheConfig smallConfig = new CacheConfig(true, 3, 1000);
+        smallConfig.setEnableAsync(false);
+        QueryCacheImpl smallCache = new QueryCacheImpl(smallConfig, new LRUCacheStrategy());
+
+        try {
+            smallCache.put("key1", "value1", 1000);
+            smallCache.put("key2", "value2", 1000);
+            smallCache.put("key3", "value3", 1000);
+            // 访问 key1 后，最久未访问的是 key2
+            smallCache.get("key1", String.class);
+            smallCache.put("key4", "value4", 1000);
+
+            assertEquals("缓存大小应等于容量", 3, smallCache.size());
+            assertFalse("最久未访问的key2应被淘汰", smallCache.contains("key2"));
+            assertTrue("最近访问的key1应保留", smallCache.contains("key1"));
+            assertTrue("key4应存在", smallCache.contains("key4"));
+
+            // 覆盖已有键不应触发淘汰
+            smallCache.put("key3", "value3-new", 1000);
+            assertEquals(3, smallCache.size());
+            assertEquals("value3-new", smallCache.get("key3", String.class));
+        } finally {
+            smallCache.shutdown();
+        }
+    }
+
+    @Test
+    public void testEvictionKeepsSizeUnderConcurrentWrites() throws Exception {
+        CacheConfig boundedConfig = new CacheConfig(true, 1000, 60000);
+        boundedConfig.setEnableAsync(false);
+        QueryCacheImpl boundedCache = new QueryCacheImpl(boundedConfig, new LRUCacheStrategy());
+
+        try {
+            Thread[] writers = new Thread[4];
+            for (int t = 0; t < writers.length; t++) {
+                final int offset = t * 5000;
+                writers[t] = new Thread(() -> {
+                    for (int i = 0; i < 5000; i++) {
+                        String key = "key" + (offset + i);
+                        boundedCache.put(key, "value", 60000);
+                        boundedCache.get(key, String.class);
+                    }
+                });
+                writers[t].start();
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+
+            assertEquals("并发写入后缓存大小应等于容量", 1000, boundedCache.size());
+            assertEquals("淘汰数量应等于超出容量的条目数", 19000, boundedCache.getStatistics().getEvictionCount());
+        } finally {
+            boundedCache.shutdown();
+        }
+    }
+
     @Test
     public void testAsyncOperations() {
         String cacheKey = "async_key";
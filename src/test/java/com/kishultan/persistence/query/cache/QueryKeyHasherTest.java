@@ -0,0 +1,62 @@
+package com.kishultan.persistence.query.cache;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * 查询缓存键哈希测试
+ * 验证相同输入得到相同的键，参数类型不同得到不同的键
+ */
+public class QueryKeyHasherTest {
+    private static final String SQL = "SELECT * FROM users WHERE id = ?";
+
+    @Test
+    public void testSameInputSameKey() {
+        String first = QueryKeyHasher.cacheKey("querybuilder:user:findList", SQL, Arrays.<Object>asList(1L, "a"));
+        String second = QueryKeyHasher.cacheKey("querybuilder:user:findList", SQL, new ArrayList<>(Arrays.<Object>asList(1L, "a")));
+        assertEquals(first, second);
+        assertTrue(first.startsWith("querybuilder:user:findList:"));
+        assertEquals("哈希为 32 位十六进制", 32, QueryKeyHasher.hash(SQL, null).length());
+    }
+
+    @Test
+    public void testParameterTypesDistinguished() {
+        Set<String> keys = new HashSet<>();
+        keys.add(QueryKeyHasher.hash(SQL, Arrays.<Object>asList(1)));
+        keys.add(QueryKeyHasher.hash(SQL, Arrays.<Object>asList(1L)));
+        keys.add(QueryKeyHasher.hash(SQL, Arrays.<Object>asList("1")));
+        keys.add(QueryKeyHasher.hash(SQL, Arrays.<Object>asList(new BigDecimal("1"))));
+        keys.add(QueryKeyHasher.hash(SQL, Collections.singletonList(null)));
+        keys.add(QueryKeyHasher.hash(SQL, Arrays.<Object>asList("null")));
+        keys.add(QueryKeyHasher.hash(SQL, Collections.emptyList()));
+        assertEquals("不同类型的参数不应得到相同的键", 7, keys.size());
+    }
+
+    @Test
+    public void testParameterBoundariesDistinguished() {
+        assertNotEquals(QueryKeyHasher.hash(SQL, Arrays.<Object>asList("ab", "c")),
+                QueryKeyHasher.hash(SQL, Arrays.<Object>asList("a", "bc")));
+        assertNotEquals(QueryKeyHasher.hash(SQL + " ", null), QueryKeyHasher.hash(SQL, null));
+    }
+
+    @Test
+    public void testLargeInput() {
+        List<Object> parameters = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            parameters.add("value" + i);
+        }
+        String key = QueryKeyHasher.hash(SQL, parameters);
+        assertEquals(key, QueryKeyHasher.hash(SQL, parameters));
+        parameters.set(19999, "changed");
+        assertNotEquals(key, QueryKeyHasher.hash(SQL, parameters));
+    }
+}
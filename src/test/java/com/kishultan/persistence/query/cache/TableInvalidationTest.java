@@ -0,0 +1,195 @@
+package com.kishultan.persistence.query.cache;
+
+import com.kishultan.persistence.SqlExecutor;
+import com.kishultan.persistence.datasource.DataSourceManager;
+import com.kishultan.persistence.delegate.SansOrmEntityTransaction;
+import com.kishultan.persistence.model.TestContact;
+import com.kishultan.persistence.model.TestUser;
+import com.kishultan.persistence.query.clause.StandardCriterion;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * 查询缓存按表失效测试
+ * 验证表版本递增后依赖该表的缓存结果失效，以及事务中的写操作推迟到提交后生效
+ */
+public class TableInvalidationTest {
+
+    private QueryCacheImpl cache;
+
+    @Before
+    public void setUp() {
+        TableVersions.reset();
+        CacheConfig config = new CacheConfig(true, 100, 60000);
+        config.setEnableAsync(false);
+        cache = new QueryCacheImpl(config, new LRUCacheStrategy());
+    }
+
+    @After
+    public void tearDown() {
+        cache.shutdown();
+        TableVersions.reset();
+    }
+
+    @Test
+    public void testWriteInvalidatesDependentEntries() {
+        cache.put("users", "users-result", 60000, TableDependency.capture(Collections.singleton("test_users")));
+        cache.put("joined", "joined-result", 60000,
+                TableDependency.capture(Arrays.asList("test_users", "his_contacts")));
+        cache.put("contacts", "contacts-result", 60000, TableDependency.capture(Collections.singleton("his_contacts")));
+
+        TableVersions.invalidate(Collections.singleton("TEST_USERS"));
+
+        assertNull("依赖已修改表的结果应失效", cache.get("users", String.class));
+        assertNull("JOIN 查询依赖的任一表修改都应失效", cache.get("joined", String.class));
+        assertEquals("不相关的表不受影响", "contacts-result", cache.get("contacts", String.class));
+    }
+
+    @Test
+    public void testInvalidateAllDropsEveryDependentEntry() {
+        cache.put("users", "users-result", 60000, TableDependency.capture(Collections.singleton("test_users")));
+        cache.put("plain", "plain-result", 60000);
+
+        TableVersions.invalidateAll();
+
+        assertFalse("全局版本递增后带表依赖的结果应失效", cache.contains("users"));
+        assertTrue("不跟踪表依赖的结果不受影响", cache.contains("plain"));
+    }
+
+    @Test
+    public void testStaleDependencyIsNotCached() {
+        TableDependency dependency = TableDependency.capture(Collections.singleton("test_users"));
+        // 查询执行期间发生写入
+        TableVersions.invalidate(Collections.singleton("test_users"));
+        cache.put("users", "users-result", 60000, dependency);
+        assertFalse("执行期间表被修改的结果不应缓存", cache.contains("users"));
+    }
+
+    @Test
+    public void testExtractModifiedTables() {
+        assertEquals(Collections.singleton("test_users"),
+                TableVersions.extractModifiedTables("INSERT INTO test_users (name) VALUES (?)"));
+        assertEquals(Collections.singleton("test_users"),
+                TableVersions.extractModifiedTables("  update test_users set name = ? where id = ?"));
+        assertEquals(Collections.singleton("public.test_users"),
+                TableVersions.extractModifiedTables("DELETE FROM public.test_users WHERE id = ?"));
+        assertNull("无法识别的语句返回 null", TableVersions.extractModifiedTables("CALL refresh_users()"));
+        assertEquals("只读查询返回空集合", Collections.emptySet(),
+                TableVersions.extractModifiedTables("SELECT * FROM test_users WHERE id = ? FOR UPDATE"));
+        assertEquals(Collections.emptySet(), TableVersions.extractModifiedTables(
+                "WITH recent AS (SELECT id FROM test_users) SELECT * FROM recent"));
+        assertNull("CTE 中的 DML 不是只读查询", TableVersions.extractModifiedTables(
+                "WITH gone AS (DELETE FROM test_users RETURNING id) SELECT * FROM gone"));
+        assertNull("SELECT INTO 不是只读查询", TableVersions.extractModifiedTables(
+                "SELECT * INTO users_copy FROM test_users"));
+        assertNull("多表更新返回 null", TableVersions.extractModifiedTables(
+                "UPDATE test_users u, his_contacts c SET c.name = u.name WHERE c.user_id = u.id"));
+        assertNull("JOIN 更新返回 null", TableVersions.extractModifiedTables(
+                "UPDATE test_users u JOIN his_contacts c ON c.user_id = u.id SET c.name = ?"));
+        assertEquals(Collections.singleton("test_users"), TableVersions.extractModifiedTables(
+                "UPDATE test_users SET name = (SELECT MAX(name) FROM his_contacts) WHERE id IN (?, ?)"));
+
+        TableVersions.invalidate(TableVersions.extractModifiedTables("DELETE FROM `PUBLIC`.`TEST_USERS`"));
+        assertEquals("表名应去掉引号和 schema 并忽略大小写", 1, TableVersions.getVersion("test_users"));
+    }
+
+    @Test
+    public void testReferencedTablesIncludeJoinsAndSubqueries() {
+        StandardCriterion<TestContact> sub = new StandardCriterion<>(TestContact.class, null);
+        sub.select("id").from(TestContact.class);
+
+        StandardCriterion<TestUser> criterion = new StandardCriterion<>(TestUser.class, null);
+        criterion.select().from(TestUser.class).where().in("id", sub);
+
+        Set<String> tables = criterion.getReferencedTables();
+        assertTrue(tables.contains("test_users"));
+        assertTrue("子查询读取的表也应登记", tables.contains("his_contacts"));
+    }
+
+    @Test
+    public void testRawSqlSubqueryDependsOnEveryTable() {
+        StandardCriterion<TestUser> criterion = new StandardCriterion<>(TestUser.class, null);
+        criterion.select().from(TestUser.class).where()
+                .exists("SELECT 1 FROM his_contacts c WHERE c.user_id = test_users.id");
+
+        Set<String> tables = criterion.getReferencedTables();
+        assertTrue(tables.contains(TableDependency.ANY_TABLE));
+        cache.put("exists", "exists-result", 60000, TableDependency.capture(tables));
+        cache.put("users", "users-result", 60000, TableDependency.capture(Collections.singleton("test_users")));
+
+        TableVersions.invalidate(Collections.singleton("his_contacts"));
+
+        assertFalse("原始 SQL 子查询读取的表未知，任一表修改都应失效", cache.contains("exists"));
+        assertTrue(cache.contains("users"));
+    }
+
+    @Test
+    public void testStaticExecuteInvalidatesTables() throws Exception {
+        org.h2.jdbcx.JdbcDataSource dataSource = new org.h2.jdbcx.JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:table_invalidation;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        SqlExecutor.execute(dataSource, "CREATE TABLE IF NOT EXISTS invalidation_item (id INT)");
+        long global = TableVersions.getGlobalVersion();
+
+        SqlExecutor.execute(dataSource, "INSERT INTO invalidation_item VALUES (?)", new Object[]{1});
+        assertEquals(1, TableVersions.getVersion("invalidation_item"));
+        SqlExecutor.execute(dataSource, "SELECT * FROM invalidation_item");
+        SqlExecutor.execute(dataSource, "CALL 1");
+        assertEquals("返回结果集的语句不使缓存失效", global, TableVersions.getGlobalVersion());
+        SqlExecutor.execute(dataSource, "DROP TABLE invalidation_item");
+        assertTrue("DDL 递增全局版本", TableVersions.getGlobalVersion() > global);
+    }
+
+    @Test
+    public void testReadOnlyClosureKeepsCache() {
+        org.h2.jdbcx.JdbcDataSource dataSource = new org.h2.jdbcx.JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:table_invalidation;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        DataSourceManager.addLocalDataSource("default", dataSource);
+        DataSourceManager.setUseJNDI(false);
+        long global = TableVersions.getGlobalVersion();
+
+        assertEquals(Integer.valueOf(1), SqlExecutor.sqlQuery(connection -> 1));
+        assertEquals("p", SqlExecutor.sqlQuery((connection, args) -> args[0], "p"));
+        assertEquals("只读闭包不使缓存失效", global, TableVersions.getGlobalVersion());
+
+        SqlExecutor.sqlExecute(connection -> 1, Collections.singleton("closure_item"));
+        assertEquals(1, TableVersions.getVersion("closure_item"));
+        assertEquals("指定了写入的表时只递增这些表的版本", global, TableVersions.getGlobalVersion());
+
+        SqlExecutor.sqlExecute(connection -> 1);
+        assertTrue("写入未知时使所有缓存结果失效", TableVersions.getGlobalVersion() > global);
+    }
+
+    @Test
+    public void testTransactionDefersInvalidationToCommit() {
+        org.h2.jdbcx.JdbcDataSource dataSource = new org.h2.jdbcx.JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:table_invalidation;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+
+        SansOrmEntityTransaction transaction = new SansOrmEntityTransaction(dataSource);
+        transaction.begin();
+        try {
+            TableVersions.recordWrite(transaction, Collections.singleton("test_users"));
+            assertEquals("提交前不应递增表版本", 0, TableVersions.getVersion("test_users"));
+            assertTrue(transaction.hasPendingWrites());
+            transaction.commit();
+            assertEquals("提交后应递增表版本", 1, TableVersions.getVersion("test_users"));
+
+            transaction.begin();
+            TableVersions.recordWrite(transaction, Collections.singleton("test_users"));
+            transaction.rollback();
+            assertEquals("回滚后不应递增表版本", 1, TableVersions.getVersion("test_users"));
+            assertFalse(transaction.hasPendingWrites());
+        } finally {
+            transaction.close();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.kishultan.persistence.query.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 分层时间轮测试
+ * 使用固定时间推进，验证过期条目按时回收、未过期条目逐层下沉
+ */
+public class TimerWheelTest {
+    private static final long START = 1_000_000_000L;
+
+    private TimerWheel wheel;
+
+    @Before
+    public void setUp() {
+        wheel = new TimerWheel(START);
+    }
+
+    private CacheEntry schedule(String key, long ttl) {
+        CacheEntry entry = new CacheEntry(key, "value", START, ttl);
+        wheel.schedule(entry);
+        return entry;
+    }
+
+    private List<String> advance(long now) {
+        List<CacheEntry> expired = new ArrayList<>();
+        assertTrue(wheel.advance(now, expired));
+        List<String> keys = new ArrayList<>();
+        for (CacheEntry entry : expired) {
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+
+    @Test
+    public void testExpiresOnlyDueEntries() {
+        schedule("short", 500);
+        schedule("medium", 5_000);
+        schedule("forever", 0);
+
+        assertTrue("未到期时不应回收", advance(START + 100).isEmpty());
+        assertEquals("到期后应回收short", singleton("short"), advance(START + 3_000));
+        assertEquals("到期后应回收medium", singleton("medium"), advance(START + 10_000));
+        assertTrue("永不过期的条目不进入时间轮", advance(START + 100_000_000L).isEmpty());
+    }
+
+    @Test
+    public void testLongTtlCascadesToFinerLevels() {
+        long oneHour = 3_600_000L;
+        schedule("hour", oneHour);
+
+        assertTrue("提前推进不应回收", advance(START + oneHour - 5_000).isEmpty());
+        assertTrue("高层桶下沉后仍未到期", advance(START + oneHour - 1).isEmpty());
+        assertEquals("到期后应回收", singleton("hour"), advance(START + oneHour + 2_048));
+    }
+
+    @Test
+    public void testDescheduledEntryNotExpired() {
+        CacheEntry removed = schedule("removed", 500);
+        schedule("kept", 500);
+        wheel.deschedule(removed);
+
+        assertEquals("取消调度的条目不应回收", singleton("kept"), advance(START + 3_000));
+        wheel.schedule(removed);
+        assertTrue("已取消调度的条目不应重新加入", advance(START + 6_000).isEmpty());
+    }
+
+    @Test
+    public void testLargeJumpVisitsEveryBucket() {
+        for (int i = 1; i <= 200; i++) {
+            schedule("key" + i, i * 1_000L);
+        }
+        assertEquals("跨越多个整圈后应回收全部到期条目", 200, advance(START + 10_000_000L).size());
+    }
+
+    private static List<String> singleton(String key) {
+        List<String> keys = new ArrayList<>();
+        keys.add(key);
+        return keys;
+    }
+}